@@ -1,6 +1,7 @@
 package uk.gov.hmcts.reform.em.stitching.service.impl;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import mockwebserver3.Dispatcher;
 import mockwebserver3.MockResponse;
 import mockwebserver3.MockWebServer;
@@ -22,7 +23,10 @@ import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import uk.gov.hmcts.reform.authorisation.generators.AuthTokenGenerator;
 import uk.gov.hmcts.reform.em.stitching.config.security.SecurityConfiguration;
 import uk.gov.hmcts.reform.em.stitching.domain.BundleDocument;
+import uk.gov.hmcts.reform.em.stitching.metrics.StitchingMetrics;
 import uk.gov.hmcts.reform.em.stitching.repository.IdamRepository;
+import uk.gov.hmcts.reform.em.stitching.service.DocumentCache;
+import uk.gov.hmcts.reform.em.stitching.service.DocumentDownloadExecutor;
 import uk.gov.hmcts.reform.idam.client.models.UserInfo;
 
 import java.io.IOException;
@@ -75,7 +79,9 @@ class DmStoreDownloaderIntegrationTest {
         DmStoreUriFormatter formatter = new DmStoreUriFormatter(mockServerBaseUrl);
 
         dmStoreDownloader = new DmStoreDownloaderImpl(
-            okHttpClient, authTokenGenerator, formatter, objectMapper, idamRepository);
+            okHttpClient, authTokenGenerator, formatter, objectMapper, idamRepository,
+            new DocumentDownloadExecutor(true, 10, 5), DocumentCache.disabled(),
+            new StitchingMetrics(new SimpleMeterRegistry()), false);
 
         when(authTokenGenerator.generate()).thenReturn("Bearer test-token");
     }
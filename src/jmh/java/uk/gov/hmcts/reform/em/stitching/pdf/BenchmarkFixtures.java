@@ -0,0 +1,113 @@
+package uk.gov.hmcts.reform.em.stitching.pdf;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDDocumentOutline;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDOutlineItem;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDOutlineNode;
+import uk.gov.hmcts.reform.em.stitching.domain.Bundle;
+import uk.gov.hmcts.reform.em.stitching.domain.BundleDocument;
+import uk.gov.hmcts.reform.em.stitching.domain.BundleFolder;
+import uk.gov.hmcts.reform.em.stitching.domain.enumeration.PaginationStyle;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Synthetic bundles and documents shared by the benchmarks.
+ */
+final class BenchmarkFixtures {
+
+    static final String LONG_TITLE = "Witness statement of the applicant in support of the application for a final "
+        + "order, with exhibits A to F, dated 1 January 2024 and filed on behalf of the respondent local authority";
+
+    private BenchmarkFixtures() {
+
+    }
+
+    /**
+     * A bundle of documents split evenly across folders, with a table of contents, coversheets and
+     * page numbers so every stage of the merge is exercised.
+     */
+    static Bundle createBundle(int numberOfDocuments, int documentsPerFolder) {
+        Bundle bundle = new Bundle();
+        bundle.setId(1L);
+        bundle.setBundleTitle("Benchmark bundle");
+        bundle.setDescription("Synthetic bundle of " + numberOfDocuments + " documents");
+        bundle.setHasTableOfContents(true);
+        bundle.setHasCoversheets(true);
+        bundle.setHasFolderCoversheets(true);
+        bundle.setPaginationStyle(PaginationStyle.bottomCenter);
+
+        BundleFolder folder = null;
+        for (int i = 0; i < numberOfDocuments; i++) {
+            if (i % documentsPerFolder == 0) {
+                folder = new BundleFolder();
+                folder.setId((long) i);
+                folder.setFolderName("Folder " + (i / documentsPerFolder));
+                folder.setSortIndex(i);
+                bundle.getFolders().add(folder);
+            }
+            BundleDocument bundleDocument = new BundleDocument();
+            bundleDocument.setId((long) i);
+            bundleDocument.setDocTitle(i % 10 == 0 ? LONG_TITLE : "Document " + i);
+            bundleDocument.setDocumentURI("http://dm-store/documents/" + i);
+            bundleDocument.setSortIndex(i);
+            folder.getDocuments().add(bundleDocument);
+        }
+        return bundle;
+    }
+
+    static Map<BundleDocument, File> documents(Bundle bundle, File file) {
+        Map<BundleDocument, File> documents = new HashMap<>();
+        bundle.getSortedDocuments().forEach(bundleDocument -> documents.put(bundleDocument, file));
+        return documents;
+    }
+
+    static File createPdf(int pages) throws IOException {
+        File pdf = File.createTempFile("benchmark", ".pdf");
+        pdf.deleteOnExit();
+        try (PDDocument document = new PDDocument()) {
+            for (int i = 0; i < pages; i++) {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                try (PDPageContentStream contents = new PDPageContentStream(document, page)) {
+                    contents.beginText();
+                    contents.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), 12);
+                    contents.newLineAtOffset(100, 700);
+                    contents.showText("Benchmark page " + (i + 1));
+                    contents.endText();
+                }
+            }
+            document.save(pdf);
+        }
+        return pdf;
+    }
+
+    /**
+     * A document with one page per outline item, where each item is nested under the one before it
+     * until the given depth is reached and the next chain starts back at the top.
+     */
+    static PDDocument createDocumentWithOutline(int items, int depth) {
+        PDDocument document = new PDDocument();
+        PDDocumentOutline outline = new PDDocumentOutline();
+        document.getDocumentCatalog().setDocumentOutline(outline);
+
+        PDOutlineNode parent = outline;
+        for (int i = 0; i < items; i++) {
+            PDPage page = new PDPage();
+            document.addPage(page);
+            PDOutlineItem item = new PDOutlineItem();
+            item.setTitle("Heading " + i);
+            item.setDestination(page);
+            parent.addLast(item);
+            parent = (i + 1) % depth == 0 ? outline : item;
+        }
+        return document;
+    }
+}
@@ -0,0 +1,60 @@
+package uk.gov.hmcts.reform.em.stitching.pdf;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.gov.hmcts.reform.em.stitching.domain.Bundle;
+import uk.gov.hmcts.reform.em.stitching.domain.BundleDocument;
+import uk.gov.hmcts.reform.em.stitching.metrics.StitchingMetrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stitches synthetic bundles of two-page documents with a table of contents, coversheets, folder
+ * coversheets and page numbers, in both the in-memory and the streaming mode.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+public class PDFMergerBenchmark {
+
+    @Param({"10", "100", "1000"})
+    int documents;
+
+    @Param({"false", "true"})
+    boolean streaming;
+
+    private PDFMerger merger;
+    private Bundle bundle;
+    private Map<BundleDocument, File> files;
+
+    @Setup
+    public void setup() throws IOException {
+        merger = new PDFMerger(new StitchingMetrics(new SimpleMeterRegistry()));
+        merger.streaming = streaming;
+        bundle = BenchmarkFixtures.createBundle(documents, 10);
+        files = BenchmarkFixtures.documents(bundle, BenchmarkFixtures.createPdf(2));
+    }
+
+    @Benchmark
+    public long merge() throws IOException {
+        File stitched = merger.merge(bundle, files, null);
+        long length = stitched.length();
+        Files.delete(stitched.toPath());
+        return length;
+    }
+}
@@ -0,0 +1,81 @@
+package uk.gov.hmcts.reform.em.stitching.pdf;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import uk.gov.hmcts.reform.em.stitching.domain.Bundle;
+import uk.gov.hmcts.reform.em.stitching.domain.BundleDocument;
+import uk.gov.hmcts.reform.em.stitching.domain.SortableBundleItem;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Copies the outline of a source document into the stitched outline, as done for every document of a
+ * bundle with document subtitles. Deep outlines nest every item under the one before it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PDFOutlineBenchmark {
+
+    @Param({"100", "1000"})
+    int items;
+
+    @Param({"1", "10", "100"})
+    int depth;
+
+    private Bundle bundle;
+    private BundleDocument bundleDocument;
+    private PDDocument source;
+    private PDDocument stitched;
+    private PDFOutline pdfOutline;
+
+    @Setup
+    public void setupBundle() {
+        bundle = BenchmarkFixtures.createBundle(1, 1);
+        bundle.setHasFolderCoversheets(false);
+        bundleDocument = bundle.getSortedDocuments().findFirst().orElseThrow();
+    }
+
+    // copyOutline moves the source items into the stitched outline, so both are rebuilt every time.
+    @Setup(Level.Invocation)
+    public void setupDocuments() {
+        source = BenchmarkFixtures.createDocumentWithOutline(items, depth);
+        stitched = new PDDocument();
+        for (int i = 0; i < items; i++) {
+            stitched.addPage(new PDPage());
+        }
+        TreeNode<SortableBundleItem> root = new TreeNode<>(bundle);
+        root.addChild(bundleDocument);
+        pdfOutline = new PDFOutline(stitched, root);
+        pdfOutline.addBundleItem(bundle);
+        pdfOutline.addItem(bundleDocument, 0);
+    }
+
+    @TearDown(Level.Invocation)
+    public void closeDocuments() throws IOException {
+        source.close();
+        stitched.close();
+    }
+
+    @Benchmark
+    public PDFOutline copyOutline() {
+        pdfOutline.copyOutline(
+            source.getDocumentCatalog().getDocumentOutline(),
+            source.getDocumentCatalog(),
+            bundleDocument,
+            0,
+            true);
+        return pdfOutline;
+    }
+}
@@ -0,0 +1,45 @@
+package uk.gov.hmcts.reform.em.stitching.pdf;
+
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the text layout helpers called for every title, subtitle and page number drawn.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PDFUtilityBenchmark {
+
+    @Param({"short", "long"})
+    String title;
+
+    private String text;
+    private PDType1Font font;
+
+    @Setup
+    public void setup() {
+        text = "short".equals(title) ? "Document 42" : BenchmarkFixtures.LONG_TITLE;
+        font = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
+    }
+
+    @Benchmark
+    public String[] splitString() {
+        return PDFUtility.splitString(text, TableOfContents.SPACE_PER_TITLE_LINE, font, 12);
+    }
+
+    @Benchmark
+    public float getStringWidth() {
+        return PDFUtility.getStringWidth(text, font, 12);
+    }
+}
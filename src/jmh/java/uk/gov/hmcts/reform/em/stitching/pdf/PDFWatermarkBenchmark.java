@@ -0,0 +1,87 @@
+package uk.gov.hmcts.reform.em.stitching.pdf;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.util.Pair;
+import uk.gov.hmcts.reform.em.stitching.domain.BundleDocument;
+import uk.gov.hmcts.reform.em.stitching.domain.DocumentImage;
+import uk.gov.hmcts.reform.em.stitching.domain.enumeration.ImageRendering;
+import uk.gov.hmcts.reform.em.stitching.domain.enumeration.ImageRenderingLocation;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.TimeUnit;
+import javax.imageio.ImageIO;
+
+/**
+ * Stamps a watermark image onto every page of a document, which rewrites the document in place, either
+ * preparing the watermark template for each document or once for every document of the bundle.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PDFWatermarkBenchmark {
+
+    @Param({"10", "100"})
+    int pages;
+
+    private final PDFWatermark pdfWatermark = new PDFWatermark();
+    private final BundleDocument bundleDocument = new BundleDocument();
+    private DocumentImage documentImage;
+    private WatermarkTemplate template;
+    private File image;
+    private File original;
+    private File document;
+
+    @Setup
+    public void setup() throws IOException {
+        original = BenchmarkFixtures.createPdf(pages);
+        document = File.createTempFile("watermarked", ".pdf");
+        document.deleteOnExit();
+
+        BufferedImage bufferedImage = new BufferedImage(200, 100, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = bufferedImage.createGraphics();
+        graphics.setColor(Color.LIGHT_GRAY);
+        graphics.fillRect(0, 0, 200, 100);
+        graphics.dispose();
+        image = File.createTempFile("watermark", ".png");
+        image.deleteOnExit();
+        ImageIO.write(bufferedImage, "png", image);
+
+        documentImage = new DocumentImage();
+        documentImage.setImageRendering(ImageRendering.TRANSLUCENT);
+        documentImage.setImageRenderingLocation(ImageRenderingLocation.ALL_PAGES);
+        documentImage.setCoordinateX(50);
+        documentImage.setCoordinateY(50);
+        template = pdfWatermark.prepareTemplate(image, documentImage);
+    }
+
+    // The watermark is written over the document, so each invocation starts from a fresh copy.
+    @Setup(Level.Invocation)
+    public void resetDocument() throws IOException {
+        Files.copy(original.toPath(), document.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @Benchmark
+    public Pair<BundleDocument, File> processDocumentWatermark() {
+        return pdfWatermark.processDocumentWatermark(
+            pdfWatermark.prepareTemplate(image, documentImage), Pair.of(bundleDocument, document));
+    }
+
+    @Benchmark
+    public Pair<BundleDocument, File> processDocumentWatermarkWithTemplate() {
+        return pdfWatermark.processDocumentWatermark(template, Pair.of(bundleDocument, document));
+    }
+}
@@ -0,0 +1,70 @@
+package uk.gov.hmcts.reform.em.stitching.pdf;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.data.util.Pair;
+import uk.gov.hmcts.reform.em.stitching.domain.enumeration.PaginationStyle;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Numbers every page of a bundle, once in a single pass and once a page at a time through
+ * PDFUtility.addText, as pages were numbered before.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PageNumberStamperBenchmark {
+
+    @Param({"1000", "10000"})
+    int pages;
+
+    private PDDocument document;
+
+    // Page numbers are written into the pages, so each invocation starts from fresh pages.
+    @Setup(Level.Invocation)
+    public void createDocument() {
+        document = new PDDocument();
+        for (int i = 0; i < pages; i++) {
+            document.addPage(new PDPage());
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void closeDocument() throws IOException {
+        document.close();
+    }
+
+    @Benchmark
+    public PDDocument stamp() throws IOException {
+        PageNumberStamper pageNumberStamper = new PageNumberStamper(document, PaginationStyle.bottomCenter);
+        pageNumberStamper.addPages(0, pages);
+        pageNumberStamper.stamp();
+        return document;
+    }
+
+    @Benchmark
+    public PDDocument addTextPerPage() throws IOException {
+        PDType1Font font = new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD);
+        for (int i = 0; i < pages; i++) {
+            PDPage page = document.getPage(i);
+            Pair<Float, Float> location = PaginationStyle.bottomCenter.getPageLocation(page);
+            PDFUtility.addText(document, page,
+                new PDFText(String.valueOf(i + 1), location.getFirst(), location.getSecond(), font, 13));
+        }
+        return document;
+    }
+}
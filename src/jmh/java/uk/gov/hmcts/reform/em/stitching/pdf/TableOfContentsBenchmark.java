@@ -0,0 +1,62 @@
+package uk.gov.hmcts.reform.em.stitching.pdf;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import uk.gov.hmcts.reform.em.stitching.domain.Bundle;
+import uk.gov.hmcts.reform.em.stitching.domain.BundleDocument;
+import uk.gov.hmcts.reform.em.stitching.domain.BundleLayout;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds the table of contents for synthetic bundles: reserving the index pages, adding an entry for every
+ * folder and document and drawing them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TableOfContentsBenchmark {
+
+    @Param({"10", "100", "1000"})
+    int documents;
+
+    private Bundle bundle;
+    private List<BundleDocument> sortedDocuments;
+
+    @Setup
+    public void setup() {
+        bundle = BenchmarkFixtures.createBundle(documents, 10);
+        sortedDocuments = bundle.getSortedDocuments().toList();
+    }
+
+    @Benchmark
+    public int build() throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            // One page per folder coversheet and document for the index entries to link to.
+            for (int i = 0; i < documents * 2; i++) {
+                document.addPage(new PDPage());
+            }
+            TableOfContents tableOfContents = new TableOfContents(document, BundleLayout.of(bundle));
+            int page = 0;
+            for (int i = 0; i < sortedDocuments.size(); i++) {
+                if (i % 10 == 0) {
+                    tableOfContents.addFolder("Folder " + i / 10, page++);
+                }
+                tableOfContents.addDocument(sortedDocuments.get(i).getDocTitle(), page++, 1);
+                tableOfContents.setEndOfFolder(i % 10 == 9);
+            }
+            tableOfContents.draw();
+            return document.getNumberOfPages();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package uk.gov.hmcts.reform.em.stitching.batch;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import uk.gov.hmcts.reform.em.stitching.metrics.StitchingMetrics;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Shares the conversion threads of the instance fairly between the DocumentTasks being stitched. Each task
+ * queues its conversions separately, and a free thread takes the next conversion from each task with work
+ * waiting in turn, so a bundle with hundreds of documents cannot hold up a small bundle queued after it.
+ * A task that has queued as many conversions as the queue capacity is made to wait before it queues more.
+ */
+@Component
+public class ConversionScheduler {
+
+    private final Executor conversionExecutor;
+    private final int maxConcurrent;
+    private final int queueCapacity;
+    private final StitchingMetrics stitchingMetrics;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition queueHasSpace = lock.newCondition();
+    private final Deque<TaskQueue> waitingQueues = new ArrayDeque<>();
+    private int running;
+
+    public ConversionScheduler(@Qualifier("documentConversionExecutor") Executor conversionExecutor,
+                               @Value("${stitching-pipeline.conversion-threads}") int maxConcurrent,
+                               @Value("${stitching-pipeline.queue-capacity}") int queueCapacity,
+                               StitchingMetrics stitchingMetrics) {
+        this.conversionExecutor = conversionExecutor;
+        this.maxConcurrent = maxConcurrent;
+        this.queueCapacity = queueCapacity;
+        this.stitchingMetrics = stitchingMetrics;
+    }
+
+    /**
+     * Creates the queue for the conversions of one DocumentTask.
+     */
+    public TaskQueue newQueue() {
+        return new TaskQueue();
+    }
+
+    private void dispatch() {
+        List<Job<?>> ready = new ArrayList<>();
+        lock.lock();
+        try {
+            while (running < maxConcurrent && !waitingQueues.isEmpty()) {
+                TaskQueue taskQueue = waitingQueues.pollFirst();
+                ready.add(taskQueue.jobs.pollFirst());
+                if (!taskQueue.jobs.isEmpty()) {
+                    waitingQueues.addLast(taskQueue);
+                }
+                running++;
+            }
+            if (!ready.isEmpty()) {
+                queueHasSpace.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+        for (Job<?> job : ready) {
+            try {
+                conversionExecutor.execute(job::run);
+            } catch (RejectedExecutionException e) {
+                job.reject(e);
+            }
+        }
+    }
+
+    private void finished() {
+        lock.lock();
+        try {
+            running--;
+        } finally {
+            lock.unlock();
+        }
+        dispatch();
+    }
+
+    public final class TaskQueue {
+
+        private final Deque<Job<?>> jobs = new ArrayDeque<>();
+
+        private TaskQueue() {
+        }
+
+        /**
+         * Queues a conversion, waiting first while this task already has a full queue.
+         */
+        public <T> CompletableFuture<T> submit(Supplier<T> conversion) {
+            Job<T> job = new Job<>(conversion);
+            lock.lock();
+            try {
+                while (jobs.size() >= queueCapacity) {
+                    queueHasSpace.awaitUninterruptibly();
+                }
+                if (jobs.isEmpty()) {
+                    waitingQueues.addLast(this);
+                }
+                jobs.addLast(job);
+            } finally {
+                lock.unlock();
+            }
+            dispatch();
+            return job.result;
+        }
+    }
+
+    private final class Job<T> {
+
+        private final Supplier<T> conversion;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private final long queuedAt = System.nanoTime();
+
+        private Job(Supplier<T> conversion) {
+            this.conversion = conversion;
+        }
+
+        private void run() {
+            long startedAt = System.nanoTime();
+            stitchingMetrics.recordConversionQueueWait(startedAt - queuedAt);
+            try {
+                result.complete(conversion.get());
+            } catch (RuntimeException | Error e) {
+                result.completeExceptionally(e);
+            } finally {
+                stitchingMetrics.recordConversionService(System.nanoTime() - startedAt);
+                finished();
+            }
+        }
+
+        private void reject(RejectedExecutionException e) {
+            result.completeExceptionally(e);
+            finished();
+        }
+    }
+}
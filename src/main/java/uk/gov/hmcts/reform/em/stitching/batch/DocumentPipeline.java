@@ -0,0 +1,159 @@
+package uk.gov.hmcts.reform.em.stitching.batch;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.util.Pair;
+import org.springframework.stereotype.Component;
+import uk.gov.hmcts.reform.em.stitching.domain.BundleDocument;
+import uk.gov.hmcts.reform.em.stitching.service.impl.FileAndMediaType;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+/**
+ * Runs the download, conversion and watermark stages of a DocumentTask concurrently. Each downloaded
+ * document is queued with the conversion scheduler as soon as it arrives, and handed on to the watermark
+ * executor once converted. The task's conversion queue and the watermark executor are both bounded and push
+ * back on the stage feeding them, and the per-document results are exposed as futures so the merger can
+ * append them in order as they complete. A document filed more than once in the bundle is downloaded,
+ * converted and watermarked once, and every place it appears completes with the same file.
+ */
+@Component
+public class DocumentPipeline {
+
+    private final Executor downloadStageExecutor;
+    private final ConversionScheduler conversionScheduler;
+    private final Executor watermarkExecutor;
+
+    public DocumentPipeline(@Qualifier("documentDownloadStageExecutor") Executor downloadStageExecutor,
+                            ConversionScheduler conversionScheduler,
+                            @Qualifier("documentWatermarkExecutor") Executor watermarkExecutor) {
+        this.downloadStageExecutor = downloadStageExecutor;
+        this.conversionScheduler = conversionScheduler;
+        this.watermarkExecutor = watermarkExecutor;
+    }
+
+    public Execution start(List<BundleDocument> documents,
+                           Supplier<Stream<Pair<BundleDocument, FileAndMediaType>>> downloads,
+                           Function<Pair<BundleDocument, FileAndMediaType>, Pair<BundleDocument, File>> conversion,
+                           UnaryOperator<Pair<BundleDocument, File>> watermark) {
+        Execution execution = new Execution(documents);
+        execution.feeder = CompletableFuture
+            .runAsync(() -> execution.feed(downloads, conversion, watermark), downloadStageExecutor)
+            .whenComplete((ignored, error) -> execution.finishFeeding(error));
+        return execution;
+    }
+
+    public class Execution {
+        private final Map<BundleDocument, CompletableFuture<File>> documents = new HashMap<>();
+        private final Map<Object, List<CompletableFuture<File>>> awaitingDownload = new ConcurrentHashMap<>();
+        private final Map<BundleDocument, File> producedFiles = new ConcurrentHashMap<>();
+        private final List<CompletableFuture<File>> stages = new CopyOnWriteArrayList<>();
+        private final StageTimings timings = new StageTimings();
+        private final ConversionScheduler.TaskQueue conversions = conversionScheduler.newQueue();
+        private CompletableFuture<Void> feeder;
+
+        private Execution(List<BundleDocument> bundleDocuments) {
+            bundleDocuments.forEach(bundleDocument -> {
+                CompletableFuture<File> document = new CompletableFuture<>();
+                documents.put(bundleDocument, document);
+                awaitingDownload.computeIfAbsent(downloadKey(bundleDocument), key -> new ArrayList<>()).add(document);
+            });
+        }
+
+        private Object downloadKey(BundleDocument bundleDocument) {
+            return bundleDocument.getDocumentURI() != null ? bundleDocument.getDocumentURI() : bundleDocument;
+        }
+
+        private void feed(Supplier<Stream<Pair<BundleDocument, FileAndMediaType>>> downloads,
+                          Function<Pair<BundleDocument, FileAndMediaType>, Pair<BundleDocument, File>> conversion,
+                          UnaryOperator<Pair<BundleDocument, File>> watermark) {
+            try (Stream<Pair<BundleDocument, FileAndMediaType>> downloaded = downloads.get()) {
+                downloaded.forEach(download -> {
+                    // Each download is timed where it runs, so waits on a full conversion queue are left out.
+                    timings.record(StageTimings.DOWNLOAD, download.getSecond().getDownloadNanos());
+                    List<CompletableFuture<File>> waiting = awaitingDownload.remove(downloadKey(download.getFirst()));
+                    CompletableFuture<File> stage = conversions
+                        .submit(() -> timings.time(StageTimings.CONVERSION, () -> conversion.apply(download)))
+                        .thenApplyAsync(converted -> timings.time(StageTimings.WATERMARK,
+                            () -> watermark.apply(converted)), watermarkExecutor)
+                        .thenApply(watermarked -> {
+                            producedFiles.put(watermarked.getFirst(), watermarked.getSecond());
+                            return watermarked.getSecond();
+                        });
+                    stages.add(stage);
+                    if (waiting != null) {
+                        stage.whenComplete((file, error) ->
+                            waiting.forEach(document -> complete(document, file, error)));
+                    }
+                });
+            }
+        }
+
+        private void finishFeeding(Throwable error) {
+            awaitingDownload.values().forEach(waiting -> waiting.forEach(document -> complete(document, null, error)));
+            if (error != null) {
+                documents.values().forEach(document -> document.completeExceptionally(error));
+            }
+        }
+
+        private void complete(CompletableFuture<File> document, File file, Throwable error) {
+            if (error == null) {
+                document.complete(file);
+            } else {
+                document.completeExceptionally(error);
+            }
+        }
+
+        /**
+         * Per-document results in the form expected by PDFMerger.mergeWhenReady. Documents that were not
+         * returned by the download stage complete with null.
+         */
+        public Map<BundleDocument, CompletableFuture<File>> getDocuments() {
+            return documents;
+        }
+
+        /**
+         * Waits for every stage to finish and returns the files produced for the bundle. Rethrows the
+         * original exception of the first stage that failed.
+         */
+        public Map<BundleDocument, File> join() {
+            try {
+                feeder.join();
+                CompletableFuture.allOf(stages.toArray(new CompletableFuture<?>[0])).join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                throw e;
+            }
+            return producedFiles;
+        }
+
+        /**
+         * Waits for in-flight stages regardless of outcome, so their files can be cleaned up.
+         */
+        public Map<BundleDocument, File> awaitSettled() {
+            feeder.handle((ignored, error) -> null).join();
+            CompletableFuture.allOf(stages.toArray(new CompletableFuture<?>[0]))
+                .handle((ignored, error) -> null)
+                .join();
+            return producedFiles;
+        }
+
+        public StageTimings getTimings() {
+            return timings;
+        }
+    }
+}
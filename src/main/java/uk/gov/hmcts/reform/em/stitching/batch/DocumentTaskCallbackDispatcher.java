@@ -0,0 +1,200 @@
+package uk.gov.hmcts.reform.em.stitching.batch;
+
+import jakarta.annotation.PreDestroy;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Dispatcher;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import uk.gov.hmcts.reform.em.stitching.config.SchedulingConfiguration;
+import uk.gov.hmcts.reform.em.stitching.info.BuildInfo;
+import uk.gov.hmcts.reform.em.stitching.service.DocumentTaskCompletedEvent;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Sends the completion callbacks of DocumentTasks, separately from stitching. Callbacks are claimed as soon
+ * as a task finishes on this node, by the scheduled sweep, and when a retry falls due, and are sent
+ * without blocking. A limited number are in flight at once, both in total and to each host, so a slow
+ * endpoint only holds up its own callbacks. A callback may wait for a connection for a while, so its lease
+ * is renewed when its request starts, and it is not sent if another node has claimed it by then.
+ */
+@Component
+@ConditionalOnProperty(name = "scheduling.enabled")
+public class DocumentTaskCallbackDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(DocumentTaskCallbackDispatcher.class);
+
+    // Keeps at most two batches of claimed callbacks waiting for a connection.
+    private static final int MAX_QUEUED_BATCHES = 2;
+
+    private final DocumentTaskCallbackProcessor documentTaskCallbackProcessor;
+    private final BuildInfo buildInfo;
+    private final Dispatcher dispatcher;
+    private final OkHttpClient httpClient;
+    private final int batchSize;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicBoolean wakeUpPending = new AtomicBoolean();
+
+    public DocumentTaskCallbackDispatcher(DocumentTaskCallbackProcessor documentTaskCallbackProcessor,
+                                          OkHttpClient okHttpClient,
+                                          BuildInfo buildInfo,
+                                          @Value("${stitching-complete.callback.max-concurrent}") int maxConcurrent,
+                                          @Value("${stitching-complete.callback.max-concurrent-per-host}")
+                                          int maxConcurrentPerHost,
+                                          @Value("${stitching-complete.callback.batch-size}") int batchSize) {
+        this.documentTaskCallbackProcessor = documentTaskCallbackProcessor;
+        this.buildInfo = buildInfo;
+        this.batchSize = batchSize;
+        this.dispatcher = new Dispatcher();
+        this.dispatcher.setMaxRequests(maxConcurrent);
+        this.dispatcher.setMaxRequestsPerHost(maxConcurrentPerHost);
+        OkHttpClient.Builder httpClientBuilder = okHttpClient.newBuilder().dispatcher(dispatcher);
+        httpClientBuilder.interceptors().addFirst(this::startDelivery);
+        this.httpClient = httpClientBuilder.build();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("document-task-callback-dispatcher").factory());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onDocumentTaskCompleted(DocumentTaskCompletedEvent event) {
+        wakeUp();
+    }
+
+    /**
+     * Runs a dispatch in the background. Wake-ups that arrive while one is already queued are merged
+     * into it.
+     */
+    public void wakeUp() {
+        if (wakeUpPending.compareAndSet(false, true)) {
+            scheduler.execute(() -> {
+                wakeUpPending.set(false);
+                dispatch();
+            });
+        }
+    }
+
+    /**
+     * Claims and sends due callbacks until there are none left, or until enough are already waiting for
+     * a connection.
+     */
+    @Scheduled(fixedDelayString = "${stitching-complete.callback.sweep-milliseconds}",
+        scheduler = SchedulingConfiguration.CALLBACK_SCHEDULER)
+    public synchronized void dispatch() {
+        while (dispatcher.queuedCallsCount() < batchSize * MAX_QUEUED_BATCHES) {
+            List<DocumentTaskCallbackProcessor.CallbackDelivery> deliveries = claimDueCallbacks();
+            deliveries.forEach(this::send);
+            if (deliveries.size() < batchSize) {
+                return;
+            }
+        }
+    }
+
+    private List<DocumentTaskCallbackProcessor.CallbackDelivery> claimDueCallbacks() {
+        try {
+            return documentTaskCallbackProcessor.claimDueCallbacks(buildInfo.getBuildNumber(), batchSize);
+        } catch (Exception e) {
+            log.error("Failed to claim DocumentTask callbacks", e);
+            return List.of();
+        }
+    }
+
+    private void send(DocumentTaskCallbackProcessor.CallbackDelivery claimed) {
+        long start = System.nanoTime();
+        LeasedDelivery leased = new LeasedDelivery(claimed);
+        Request request = claimed.request().newBuilder().tag(LeasedDelivery.class, leased).build();
+        httpClient.newCall(request).enqueue(new Callback() {
+            @Override
+            public void onResponse(Call call, Response response) {
+                try (response) {
+                    String responseBody = response.isSuccessful() ? "" : response.peekBody(5000).string();
+                    record(() -> documentTaskCallbackProcessor.recordResponse(
+                        leased.delivery, response.code(), responseBody, System.nanoTime() - start));
+                } catch (IOException e) {
+                    onFailure(call, e);
+                }
+            }
+
+            @Override
+            public void onFailure(Call call, IOException e) {
+                if (!leased.lost) {
+                    record(() -> documentTaskCallbackProcessor.recordError(
+                        leased.delivery, e, System.nanoTime() - start));
+                }
+            }
+        });
+    }
+
+    /**
+     * Runs first when a callback's request leaves the queue of the dispatcher, and renews the lease of the
+     * callback from then.
+     */
+    private Response startDelivery(Interceptor.Chain chain) throws IOException {
+        LeasedDelivery leased = chain.request().tag(LeasedDelivery.class);
+        if (leased != null) {
+            Optional<DocumentTaskCallbackProcessor.CallbackDelivery> renewed;
+            try {
+                renewed = documentTaskCallbackProcessor.startDelivery(leased.delivery);
+            } catch (RuntimeException e) {
+                throw new IOException("Failed to renew the lease of a DocumentTask callback", e);
+            }
+            if (renewed.isEmpty()) {
+                leased.lost = true;
+                throw new IOException("DocumentTask callback has been claimed by another node");
+            }
+            leased.delivery = renewed.get();
+        }
+        return chain.proceed(chain.request());
+    }
+
+    private void record(Supplier<Optional<Instant>> outcome) {
+        try {
+            outcome.get().ifPresent(this::wakeUpAt);
+        } catch (Exception e) {
+            // The callback stays leased, and is claimed again once its lease runs out.
+            log.error("Failed to record the outcome of a DocumentTask callback", e);
+        }
+    }
+
+    private void wakeUpAt(Instant nextAttemptAt) {
+        long delayMillis = Math.max(0, Duration.between(Instant.now(), nextAttemptAt).toMillis());
+        scheduler.schedule(this::wakeUp, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * The claim a callback is sent under, replaced by the renewed one when its request starts.
+     */
+    private static final class LeasedDelivery {
+        private volatile DocumentTaskCallbackProcessor.CallbackDelivery delivery;
+        private volatile boolean lost;
+
+        private LeasedDelivery(DocumentTaskCallbackProcessor.CallbackDelivery delivery) {
+            this.delivery = delivery;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        dispatcher.executorService().shutdown();
+    }
+}
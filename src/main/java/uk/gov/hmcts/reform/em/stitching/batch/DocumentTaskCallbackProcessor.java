@@ -1,113 +1,245 @@
 package uk.gov.hmcts.reform.em.stitching.batch;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import okhttp3.MediaType;
-import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.RequestBody;
-import okhttp3.Response;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.batch.item.ItemProcessor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import uk.gov.hmcts.reform.authorisation.generators.AuthTokenGenerator;
+import uk.gov.hmcts.reform.em.stitching.domain.Callback;
 import uk.gov.hmcts.reform.em.stitching.domain.DocumentTask;
 import uk.gov.hmcts.reform.em.stitching.domain.enumeration.CallbackState;
+import uk.gov.hmcts.reform.em.stitching.metrics.StitchingMetrics;
+import uk.gov.hmcts.reform.em.stitching.repository.DocumentTaskRepository;
 import uk.gov.hmcts.reform.em.stitching.service.mapper.DocumentTaskMapper;
 
 import java.io.IOException;
-
-import static uk.gov.hmcts.reform.em.stitching.service.CloseableCloser.close;
-
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Keeps track of the completion callbacks of DocumentTasks. Callbacks that are due are claimed and leased
+ * here, the requests are sent by DocumentTaskCallbackDispatcher, and each outcome is written back here. A
+ * callback that fails is retried with exponential backoff until it has been attempted max-attempts times.
+ */
 @Service
 @Transactional(propagation = Propagation.REQUIRED)
-public class DocumentTaskCallbackProcessor implements ItemProcessor<DocumentTask, DocumentTask> {
+public class DocumentTaskCallbackProcessor {
 
     private final Logger log = LoggerFactory.getLogger(DocumentTaskCallbackProcessor.class);
 
-    private final OkHttpClient okHttpClient;
-
     private final AuthTokenGenerator authTokenGenerator;
 
     private final DocumentTaskMapper documentTaskMapper;
 
     private final ObjectMapper objectMapper;
 
+    private final StitchingMetrics stitchingMetrics;
+
+    private final DocumentTaskRepository documentTaskRepository;
+
     public static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
 
     @Value("${stitching-complete.callback.max-attempts}")
     int callBackMaxAttempts;
 
-    public DocumentTaskCallbackProcessor(OkHttpClient okHttpClient, AuthTokenGenerator authTokenGenerator,
-                                         DocumentTaskMapper documentTaskMapper, ObjectMapper objectMapper) {
-        this.okHttpClient = okHttpClient;
+    @Value("${stitching-complete.callback.backoff-millis}")
+    long backoffMillis;
+
+    @Value("${stitching-complete.callback.max-backoff-millis}")
+    long maxBackoffMillis;
+
+    /**
+     * How long a claimed callback is left to its dispatcher before it is claimed again, in case the node
+     * sending it goes away before recording the outcome.
+     */
+    @Value("${stitching-complete.callback.lease-seconds}")
+    long leaseSeconds;
+
+    public DocumentTaskCallbackProcessor(AuthTokenGenerator authTokenGenerator,
+                                         DocumentTaskMapper documentTaskMapper, ObjectMapper objectMapper,
+                                         StitchingMetrics stitchingMetrics,
+                                         DocumentTaskRepository documentTaskRepository) {
         this.authTokenGenerator = authTokenGenerator;
         this.documentTaskMapper = documentTaskMapper;
         this.objectMapper = objectMapper;
+        this.stitchingMetrics = stitchingMetrics;
+        this.documentTaskRepository = documentTaskRepository;
     }
 
-    @Override
-    public DocumentTask process(DocumentTask documentTask) {
-        Response response = null;
-        try {
-            Request request = new Request.Builder()
-                    .addHeader("ServiceAuthorization", authTokenGenerator.generate())
-                    .addHeader("Authorization", documentTask.getJwt())
-                    .url(documentTask.getCallback().getCallbackUrl())
-                    .post(RequestBody.create(
-                    objectMapper.writeValueAsString(documentTaskMapper.toDto(documentTask)),
-                    JSON))
-                    .build();
-
-            response = okHttpClient.newCall(request).execute();
-
-            if (response.isSuccessful()) {
-                documentTask.getCallback().setCallbackState(CallbackState.SUCCESS);
-                log.info("Document Task#{} successfully executed callback#{} with Bundle-Id : {}",
-                        documentTask.getId(),
-                        documentTask.getCallback().getId(),
-                        documentTask.getBundle().getId()
-                );
-                return documentTask;
-
-            } else {
-
-                int callBackAttempts = documentTask.getCallback().getAttempts();
-                callBackAttempts++;
-
-                var warnMessage = StringUtils.truncate(String.format("""
-                        HTTP Callback failed.
-                        Status: %d.
-                        Bundle-Id : %d
-                        Response Body: %s.""",
-                    response.code(),documentTask.getBundle().getId(),
-                    response.body().toString()),5000);
-                documentTask.getCallback().setFailureDescription(warnMessage);
-                log.warn(warnMessage);
-                documentTask.getCallback().setAttempts(callBackAttempts);
-
-                if (callBackAttempts >= callBackMaxAttempts) {
-                    var failedBundleDetails = String.format("Failed callback for Bundle-Id : %d"
-                        + ". Document Task-Id : %d ", documentTask.getBundle().getId(), documentTask.getId());
-                    log.error(failedBundleDetails);
-                    documentTask.getCallback().setCallbackState(CallbackState.FAILURE);
-                }
-
-                return documentTask;
+    /**
+     * A claimed callback. Its callback is leased until leasedUntil, and only the delivery holding the
+     * lease its next_attempt_at still matches may start the request or record its outcome.
+     */
+    public record CallbackDelivery(Long documentTaskId, Long bundleId, Request request, Instant leasedUntil) {
+    }
 
+    /**
+     * Claims up to limit callbacks that are due, and builds the request for each. The claim is committed
+     * before the requests are sent, so no other node sends them while they are in flight.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public List<CallbackDelivery> claimDueCallbacks(int version, int limit) {
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        Instant leasedUntil = now.plusSeconds(leaseSeconds);
+        List<CallbackDelivery> deliveries = new ArrayList<>();
+        for (Long documentTaskId : documentTaskRepository.lockDueCallbackTaskIds(version, now, limit)) {
+            Optional<DocumentTask> documentTask = documentTaskRepository.findById(documentTaskId);
+            if (documentTask.isEmpty()) {
+                continue;
+            }
+            Callback callback = documentTask.get().getCallback();
+            try {
+                deliveries.add(new CallbackDelivery(documentTaskId, documentTask.get().getBundle().getId(),
+                    newRequest(documentTask.get()), leasedUntil));
+                callback.setNextAttemptAt(leasedUntil);
+            } catch (JsonProcessingException | RuntimeException e) {
+                log.error("Could not build the callback of Document Task#{}", documentTaskId, e);
+                callback.setCallbackState(CallbackState.FAILURE);
             }
+        }
+        return deliveries;
+    }
+
+    /**
+     * Renews the lease of a claimed callback as its request starts, since it may have waited for a
+     * connection since it was claimed.
+     *
+     * @return The delivery holding the renewed lease, or empty if another node has claimed the callback
+     *     since, in which case the request must not be sent.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public Optional<CallbackDelivery> startDelivery(CallbackDelivery delivery) {
+        Optional<DocumentTask> documentTask = findLeasedDocumentTask(delivery);
+        if (documentTask.isEmpty()) {
+            return Optional.empty();
+        }
+        Instant leasedUntil = Instant.now().truncatedTo(ChronoUnit.MILLIS).plusSeconds(leaseSeconds);
+        documentTask.get().getCallback().setNextAttemptAt(leasedUntil);
+        return Optional.of(new CallbackDelivery(
+            delivery.documentTaskId(), delivery.bundleId(), delivery.request(), leasedUntil));
+    }
 
-        } catch (IOException e) {
-            documentTask.getCallback().setCallbackState(CallbackState.FAILURE);
-            log.error("IO Exception:", e);
-        } finally {
-            close(response);
+    /**
+     * Locks the task of a delivery while its callback is still leased to it. Once the lease has run out
+     * and the callback has been claimed again, the outcome belongs to the new claim and is ignored here.
+     */
+    private Optional<DocumentTask> findLeasedDocumentTask(CallbackDelivery delivery) {
+        if (documentTaskRepository.lockLeasedCallbackTaskId(delivery.documentTaskId(), delivery.leasedUntil())
+            .isEmpty()) {
+            log.info("Callback of Document Task#{} is no longer leased to this delivery", delivery.documentTaskId());
+            return Optional.empty();
         }
-        return documentTask;
+        return documentTaskRepository.findById(delivery.documentTaskId());
     }
 
+    private Request newRequest(DocumentTask documentTask) throws JsonProcessingException {
+        return new Request.Builder()
+                .addHeader("ServiceAuthorization", authTokenGenerator.generate())
+                .addHeader("Authorization", documentTask.getJwt())
+                .url(documentTask.getCallback().getCallbackUrl())
+                .post(RequestBody.create(
+                objectMapper.writeValueAsString(documentTaskMapper.toDto(documentTask)),
+                JSON))
+                .build();
+    }
+
+    /**
+     * Records the response to a callback, unless the callback is no longer leased to the delivery.
+     *
+     * @return When the callback is to be retried, or empty if it is not.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public Optional<Instant> recordResponse(CallbackDelivery delivery, int responseCode, String responseBody,
+                                            long nanos) {
+        Optional<DocumentTask> documentTask = findLeasedDocumentTask(delivery);
+        if (documentTask.isEmpty()) {
+            return Optional.empty();
+        }
+        Callback callback = documentTask.get().getCallback();
+        if (responseCode >= 200 && responseCode < 300) {
+            stitchingMetrics.recordCallback(StitchingMetrics.CALLBACK_SUCCESS, nanos);
+            callback.setCallbackState(CallbackState.SUCCESS);
+            callback.setNextAttemptAt(null);
+            log.info("Document Task#{} successfully executed callback#{} with Bundle-Id : {}",
+                    delivery.documentTaskId(),
+                    callback.getId(),
+                    delivery.bundleId()
+            );
+            return Optional.empty();
+        }
+
+        stitchingMetrics.recordCallback(StitchingMetrics.CALLBACK_FAILURE, nanos);
+        var warnMessage = StringUtils.truncate(String.format("""
+                HTTP Callback failed.
+                Status: %d.
+                Bundle-Id : %d
+                Response Body: %s.""",
+            responseCode, delivery.bundleId(), responseBody), 5000);
+        log.warn(warnMessage);
+        return recordFailedAttempt(documentTask.get(), warnMessage);
+    }
+
+    /**
+     * Records a callback that could not be sent, or whose response could not be read, unless the callback
+     * is no longer leased to the delivery.
+     *
+     * @return When the callback is to be retried, or empty if it is not.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public Optional<Instant> recordError(CallbackDelivery delivery, IOException error, long nanos) {
+        Optional<DocumentTask> documentTask = findLeasedDocumentTask(delivery);
+        if (documentTask.isEmpty()) {
+            return Optional.empty();
+        }
+        stitchingMetrics.recordCallback(StitchingMetrics.CALLBACK_ERROR, nanos);
+        log.error("IO Exception:", error);
+        return recordFailedAttempt(documentTask.get(), StringUtils.truncate(String.format("""
+                HTTP Callback failed.
+                Bundle-Id : %d
+                Error: %s.""",
+            delivery.bundleId(), error.getMessage()), 5000));
+    }
+
+    private Optional<Instant> recordFailedAttempt(DocumentTask documentTask, String failureDescription) {
+        Callback callback = documentTask.getCallback();
+        int callBackAttempts = callback.getAttempts() + 1;
+        callback.setAttempts(callBackAttempts);
+        callback.setFailureDescription(failureDescription);
+
+        if (callBackAttempts >= callBackMaxAttempts) {
+            var failedBundleDetails = String.format("Failed callback for Bundle-Id : %d"
+                + ". Document Task-Id : %d ", documentTask.getBundle().getId(), documentTask.getId());
+            log.error(failedBundleDetails);
+            callback.setCallbackState(CallbackState.FAILURE);
+            callback.setNextAttemptAt(null);
+            return Optional.empty();
+        }
+
+        Instant nextAttemptAt = Instant.now().plus(backoff(callBackAttempts));
+        callback.setNextAttemptAt(nextAttemptAt);
+        return Optional.of(nextAttemptAt);
+    }
+
+    /**
+     * Doubles the wait after each failed attempt up to the maximum, and spreads it over its second half so
+     * callbacks that failed together are not all retried together.
+     */
+    Duration backoff(int attempts) {
+        long ceiling = Math.min(maxBackoffMillis, backoffMillis << Math.min(attempts - 1, 30));
+        long half = ceiling / 2;
+        return Duration.ofMillis(half + ThreadLocalRandom.current().nextLong(ceiling - half + 1));
+    }
 }
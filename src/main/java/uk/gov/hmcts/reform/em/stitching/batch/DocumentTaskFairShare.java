@@ -0,0 +1,101 @@
+package uk.gov.hmcts.reform.em.stitching.batch;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import uk.gov.hmcts.reform.em.stitching.domain.enumeration.TaskPriority;
+import uk.gov.hmcts.reform.em.stitching.repository.DocumentTaskQueueHead;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Decides which NEW DocumentTask to start next. Higher priorities always go first. Within a priority,
+ * jurisdictions and case types take turns in proportion to their weight, measured in estimated pages, so
+ * a burst of large bundles from one of them does not hold up the others. Each node keeps its own
+ * account of the pages it has started.
+ *
+ * <p>Weights are configured as a comma separated list of jurisdiction or jurisdiction/caseType with a
+ * weight, such as {@code IA=2,CIVIL/CIVIL=3}. Anything not listed has a weight of 1.
+ */
+@Component
+public class DocumentTaskFairShare {
+
+    // Accounts that have fallen behind the virtual time are reset to it anyway, so can be dropped.
+    private static final int MAX_ACCOUNTS = 10_000;
+
+    private final Map<String, Double> weights;
+
+    private final Map<String, Double> finishTags = new HashMap<>();
+
+    private double virtualTime;
+
+    public DocumentTaskFairShare(@Value("${document-task-queue.weights}") String weights) {
+        this.weights = parseWeights(weights);
+    }
+
+    private static Map<String, Double> parseWeights(String weights) {
+        Map<String, Double> parsed = new HashMap<>();
+        for (String entry : StringUtils.split(Objects.toString(weights, ""), ',')) {
+            String[] keyAndWeight = entry.split("=");
+            if (keyAndWeight.length != 2 || !(Double.parseDouble(keyAndWeight[1].trim()) > 0)) {
+                throw new IllegalArgumentException("Invalid document task queue weight: " + entry);
+            }
+            parsed.put(keyAndWeight[0].trim(), Double.parseDouble(keyAndWeight[1].trim()));
+        }
+        return parsed;
+    }
+
+    /**
+     * Orders the candidate tasks, the one to start first at the front.
+     */
+    public synchronized List<DocumentTaskQueueHead> order(List<DocumentTaskQueueHead> heads) {
+        return heads.stream()
+            .sorted(Comparator
+                .comparing((DocumentTaskQueueHead head) -> priority(head))
+                .thenComparingDouble(this::startTag)
+                .thenComparing(DocumentTaskQueueHead::getId))
+            .toList();
+    }
+
+    /**
+     * Charges the estimated pages of a task that has been started to its jurisdiction and case type.
+     */
+    public synchronized void charge(DocumentTaskQueueHead head) {
+        double start = startTag(head);
+        int pages = head.getEstimatedPages() == null ? 1 : Math.max(1, head.getEstimatedPages());
+        finishTags.put(account(head), start + pages / weight(head));
+        virtualTime = start;
+        if (finishTags.size() > MAX_ACCOUNTS) {
+            finishTags.values().removeIf(finishTag -> finishTag <= virtualTime);
+        }
+    }
+
+    private double startTag(DocumentTaskQueueHead head) {
+        return Math.max(virtualTime, finishTags.getOrDefault(account(head), 0d));
+    }
+
+    private double weight(DocumentTaskQueueHead head) {
+        Double weight = weights.get(account(head));
+        if (weight == null) {
+            weight = weights.getOrDefault(Objects.toString(head.getJurisdictionId(), ""), 1d);
+        }
+        return weight;
+    }
+
+    private static String account(DocumentTaskQueueHead head) {
+        return Objects.toString(head.getJurisdictionId(), "") + "/"
+            + Objects.toString(head.getCaseTypeId(), "");
+    }
+
+    private static TaskPriority priority(DocumentTaskQueueHead head) {
+        try {
+            return head.getPriority() == null ? TaskPriority.NORMAL : TaskPriority.valueOf(head.getPriority());
+        } catch (IllegalArgumentException e) {
+            return TaskPriority.NORMAL;
+        }
+    }
+}
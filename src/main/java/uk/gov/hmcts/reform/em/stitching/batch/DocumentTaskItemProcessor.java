@@ -5,20 +5,24 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.time.StopWatch;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.batch.item.ItemProcessor;
-import org.springframework.data.util.Pair;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 import uk.gov.hmcts.reform.em.stitching.domain.BundleDocument;
 import uk.gov.hmcts.reform.em.stitching.domain.DocumentTask;
 import uk.gov.hmcts.reform.em.stitching.domain.enumeration.TaskState;
+import uk.gov.hmcts.reform.em.stitching.metrics.StitchingMetrics;
 import uk.gov.hmcts.reform.em.stitching.pdf.PDFMerger;
 import uk.gov.hmcts.reform.em.stitching.pdf.PDFWatermark;
+import uk.gov.hmcts.reform.em.stitching.pdf.PreviousStitch;
+import uk.gov.hmcts.reform.em.stitching.pdf.WatermarkTemplate;
 import uk.gov.hmcts.reform.em.stitching.service.CdamService;
 import uk.gov.hmcts.reform.em.stitching.service.DmStoreDownloader;
 import uk.gov.hmcts.reform.em.stitching.service.DmStoreUploader;
 import uk.gov.hmcts.reform.em.stitching.service.DocumentConversionService;
+import uk.gov.hmcts.reform.em.stitching.service.DocumentTaskCompletedEvent;
 import uk.gov.hmcts.reform.em.stitching.template.DocmosisClient;
 
 import java.io.File;
@@ -28,13 +32,13 @@ import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
 
 @Service
 @Transactional(propagation = Propagation.REQUIRED)
 @SuppressWarnings("java:S899")
-public class DocumentTaskItemProcessor implements ItemProcessor<DocumentTask, DocumentTask> {
+public class DocumentTaskItemProcessor {
     private final Logger log = LoggerFactory.getLogger(DocumentTaskItemProcessor.class);
 
     private final DmStoreDownloader dmStoreDownloader;
@@ -46,7 +50,11 @@ public class DocumentTaskItemProcessor implements ItemProcessor<DocumentTask, Do
     private final CdamService cdamService;
     private final EntityManager entityManager;
 
-    private final DocumentTaskStateMarker documentTaskStateMarker;
+    private final DocumentPipeline documentPipeline;
+    private final PreviousStitchLocator previousStitchLocator;
+    private final StitchingMetrics stitchingMetrics;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DocumentTaskLeases documentTaskLeases;
 
     public DocumentTaskItemProcessor(
         DmStoreDownloader dmStoreDownloader,
@@ -56,7 +64,11 @@ public class DocumentTaskItemProcessor implements ItemProcessor<DocumentTask, Do
         DocmosisClient docmosisClient,
         PDFWatermark pdfWatermark,
         CdamService cdamService, EntityManager entityManager,
-        DocumentTaskStateMarker documentTaskStateMarker
+        DocumentPipeline documentPipeline,
+        PreviousStitchLocator previousStitchLocator,
+        StitchingMetrics stitchingMetrics,
+        ApplicationEventPublisher eventPublisher,
+        DocumentTaskLeases documentTaskLeases
     ) {
         this.dmStoreDownloader = dmStoreDownloader;
         this.dmStoreUploader = dmStoreUploader;
@@ -66,34 +78,44 @@ public class DocumentTaskItemProcessor implements ItemProcessor<DocumentTask, Do
         this.pdfWatermark = pdfWatermark;
         this.cdamService = cdamService;
         this.entityManager = entityManager;
-        this.documentTaskStateMarker = documentTaskStateMarker;
+        this.documentPipeline = documentPipeline;
+        this.previousStitchLocator = previousStitchLocator;
+        this.stitchingMetrics = stitchingMetrics;
+        this.eventPublisher = eventPublisher;
+        this.documentTaskLeases = documentTaskLeases;
     }
 
-    @Override
-    public DocumentTask process(DocumentTask documentTask) {
-        log.debug("DocumentTask : {}  started processing at {}",
-                documentTask.getId(), LocalDateTime.now());
-
-        if (checkAlreadyInProgress(documentTask)) {
-            log.info("DocumentTask : {} is already being processed", documentTask.getId());
-            return null;
+    /**
+     * Stitches a task already claimed by {@link DocumentTaskStateMarker#claimNextTask}. The outcome is
+     * written back when the surrounding transaction commits, or discarded if this worker has lost the
+     * lease on the task in the meantime.
+     */
+    public void processClaimedTask(Long taskId) {
+        DocumentTask documentTask = entityManager.find(DocumentTask.class, taskId);
+        if (Objects.isNull(documentTask) || documentTask.getTaskState() != TaskState.IN_PROGRESS) {
+            log.warn("DocumentTask : {} was claimed but is no longer in progress", taskId);
+            return;
         }
+        log.debug("DocumentTask : {}  started processing at {}", taskId, LocalDateTime.now());
+        stitch(documentTask);
+    }
 
+    private void stitch(DocumentTask documentTask) {
+        stitchingMetrics.recordTaskClaimed(documentTask.getCreatedDate());
         StopWatch stopwatch = new StopWatch();
         stopwatch.start();
 
-        this.documentTaskStateMarker.commitTaskAsInProgress(documentTask.getId());
-        // Manually update the in-memory object to avoid staleness within this method.
-        documentTask.setTaskState(TaskState.IN_PROGRESS);
-
         log.info(
             "DocumentTask : {}, CoverPage template {}",
             documentTask.getId(),
             documentTask.getBundle().getCoverpageTemplate()
         );
 
-        Map<BundleDocument, File> bundleFiles = null;
+        DocumentPipeline.Execution execution = null;
+        Optional<PreviousStitch> previousStitch = Optional.empty();
         File outputFile = null;
+        TaskState outcome;
+        String failureDescription = documentTask.getFailureDescription();
         try {
             final File coverPageFile = StringUtils.isNotBlank(documentTask.getBundle().getCoverpageTemplate())
                 ? docmosisClient.renderDocmosisTemplate(
@@ -107,34 +129,45 @@ public class DocumentTaskItemProcessor implements ItemProcessor<DocumentTask, Do
                                 documentTask.getBundle().getDocumentImage().getDocmosisAssetId())
                         : null;
 
-            if (StringUtils.isNotBlank(documentTask.getCaseTypeId())
-                && StringUtils.isNotBlank(documentTask.getJurisdictionId())) {
-                bundleFiles = cdamService
-                    .downloadFiles(documentTask)
-                    .map(documentConverter::convert)
-                    .map(file -> pdfWatermark.processDocumentWatermark(
-                            documentImage, file,
-                            documentTask.getBundle().getDocumentImage()))
-                    .collect(Collectors.toMap(Pair::getFirst, Pair::getSecond));
-                outputFile = pdfMerger.merge(documentTask.getBundle(), bundleFiles, coverPageFile);
-
+            // The image is decoded once, and either overlaid onto each document file as it is converted or
+            // drawn onto the merged pages.
+            final WatermarkTemplate watermark =
+                pdfWatermark.prepareTemplate(documentImage, documentTask.getBundle().getDocumentImage());
+            final boolean watermarkDuringMerge = watermark != null && pdfMerger.isWatermarkDuringMerge();
+
+            final boolean useCdam = StringUtils.isNotBlank(documentTask.getCaseTypeId())
+                && StringUtils.isNotBlank(documentTask.getJurisdictionId());
+
+            execution = documentPipeline.start(
+                documentTask.getBundle().getSortedDocuments().toList(),
+                () -> useCdam
+                    ? cdamService.downloadFiles(documentTask)
+                    : dmStoreDownloader.downloadFiles(
+                        documentTask.getBundle().getDistinctDocuments(), documentTask.getJwt()),
+                documentConverter::convert,
+                file -> watermark == null || watermarkDuringMerge ? file
+                    : stitchingMetrics.timeWatermark(() -> pdfWatermark.processDocumentWatermark(watermark, file)));
+
+            previousStitch = previousStitchLocator.find(documentTask, useCdam);
+
+            long mergeStart = System.nanoTime();
+            outputFile = pdfMerger.mergeWhenReady(documentTask.getBundle(), execution.getDocuments(), coverPageFile,
+                previousStitch.orElse(null), watermarkDuringMerge ? watermark : null);
+            execution.getTimings().record(StageTimings.MERGE, System.nanoTime() - mergeStart);
+            execution.join();
+
+            long uploadStart = System.nanoTime();
+            if (useCdam) {
                 cdamService.uploadDocuments(outputFile, documentTask);
-
             } else {
-                bundleFiles = dmStoreDownloader
-                    .downloadFiles(documentTask.getBundle().getSortedDocuments(), documentTask.getJwt())
-                    .map(documentConverter::convert)
-                    .map(file -> pdfWatermark.processDocumentWatermark(
-                            documentImage, file,
-                            documentTask.getBundle().getDocumentImage()))
-                    .collect(Collectors.toMap(Pair::getFirst, Pair::getSecond));
-
-                outputFile = pdfMerger.merge(documentTask.getBundle(), bundleFiles, coverPageFile);
-
                 dmStoreUploader.uploadFile(outputFile, documentTask);
             }
+            long uploadNanos = System.nanoTime() - uploadStart;
+            execution.getTimings().record(StageTimings.UPLOAD, uploadNanos);
+            stitchingMetrics.recordUpload(
+                useCdam ? StitchingMetrics.CDAM : StitchingMetrics.DM_STORE, uploadNanos, outputFile);
 
-            documentTask.setTaskState(TaskState.DONE);
+            outcome = TaskState.DONE;
 
         } catch (Exception e) {
             log.error(
@@ -143,27 +176,37 @@ public class DocumentTaskItemProcessor implements ItemProcessor<DocumentTask, Do
                 documentTask.getCaseId(),
                 e
             );
-            documentTask.setTaskState(TaskState.FAILED);
-            documentTask.setFailureDescription(e.getMessage());
+            outcome = TaskState.FAILED;
+            failureDescription = e.getMessage();
+            // The manifest describes a document that was never uploaded.
+            documentTask.getBundle().setStitchManifest(null);
         }
         deleteFile(outputFile);
-        if (Objects.nonNull(bundleFiles)) {
-            bundleFiles.forEach((bundleDocument, file) -> deleteFile(file));
+        previousStitch.map(PreviousStitch::file).ifPresent(this::deleteFile);
+        if (Objects.nonNull(execution)) {
+            // Let any in-flight conversions finish so their files are cleaned up too.
+            execution.awaitSettled().forEach((bundleDocument, file) -> deleteFile(file));
         }
         stopwatch.stop();
         long timeElapsed = TimeUnit.MILLISECONDS.toSeconds(stopwatch.getTime());
+        StageTimings timings = Objects.nonNull(execution) ? execution.getTimings() : new StageTimings();
 
-        log.info("Time taken for DocumentTask completion: {}  was {} seconds",
-                documentTask.getId(),timeElapsed);
-        return documentTask;
-    }
+        log.info("Time taken for DocumentTask completion: {}  was {} seconds ({})",
+                documentTask.getId(), timeElapsed, timings);
 
-    private boolean checkAlreadyInProgress(DocumentTask documentTask) {
-        DocumentTask freshTask = entityManager.find(
-            DocumentTask.class,
-            documentTask.getId()
-        );
-        return freshTask.getTaskState() != TaskState.NEW;
+        // Pending changes are flushed before this write, so the task itself must not have been changed
+        // yet, or its stale worker id would be written over whichever worker holds the lease now.
+        if (!documentTaskLeases.complete(documentTask.getId(), outcome, failureDescription)) {
+            log.warn("DocumentTask : {} lease was lost while stitching, discarding the outcome", documentTask.getId());
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            return;
+        }
+        documentTask.setTaskState(outcome);
+        documentTask.setFailureDescription(failureDescription);
+        if (Objects.nonNull(documentTask.getCallback())) {
+            // Sent once the outcome has been committed.
+            eventPublisher.publishEvent(new DocumentTaskCompletedEvent(documentTask.getId()));
+        }
     }
 
     private void deleteFile(File outputFile) {
@@ -0,0 +1,107 @@
+package uk.gov.hmcts.reform.em.stitching.batch;
+
+import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import uk.gov.hmcts.reform.em.stitching.config.SchedulingConfiguration;
+import uk.gov.hmcts.reform.em.stitching.domain.enumeration.TaskState;
+import uk.gov.hmcts.reform.em.stitching.repository.DocumentTaskRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Leases on IN_PROGRESS DocumentTasks. A task is claimed under this worker's id, and the lease is renewed
+ * by a heartbeat for as long as the task is being stitched. If the node goes away mid-stitch, the lease
+ * expires and the reaper returns the task to NEW for another worker, counting a retry, or fails it once
+ * it has been retried max-retry-attempts times.
+ */
+@Component
+public class DocumentTaskLeases {
+
+    private static final Logger log = LoggerFactory.getLogger(DocumentTaskLeases.class);
+
+    static final String LEASE_EXPIRED = "Stitching did not finish: the worker stitching the bundle stopped "
+        + "responding too many times.";
+
+    private final DocumentTaskRepository documentTaskRepository;
+    private final String workerId;
+    private final Duration leaseDuration;
+    private final int maxRetryAttempts;
+    private final Set<Long> heldLeases = ConcurrentHashMap.newKeySet();
+
+    public DocumentTaskLeases(DocumentTaskRepository documentTaskRepository,
+                              @Value("${document-task-lease.worker-name}") String workerName,
+                              @Value("${document-task-lease.lease-seconds}") long leaseSeconds,
+                              @Value("${document-task-lease.max-retry-attempts}") int maxRetryAttempts) {
+        this.documentTaskRepository = documentTaskRepository;
+        // A restarted pod can keep its name, but must not take over the leases of its previous run.
+        this.workerId = workerName + "-" + UUID.randomUUID().toString().substring(0, 8);
+        this.leaseDuration = Duration.ofSeconds(leaseSeconds);
+        this.maxRetryAttempts = maxRetryAttempts;
+    }
+
+    public String getWorkerId() {
+        return workerId;
+    }
+
+    /**
+     * Starts renewing the lease on a task this worker has claimed.
+     */
+    public void hold(Long taskId) {
+        heldLeases.add(taskId);
+    }
+
+    /**
+     * Stops renewing the lease on a task once its outcome has been written.
+     */
+    public void release(Long taskId) {
+        heldLeases.remove(taskId);
+    }
+
+    /**
+     * Writes the outcome of a task this worker has stitched, unless its lease has been lost in the
+     * meantime, in which case the task may already have been reaped or claimed by another worker.
+     *
+     * @return Whether the outcome was written.
+     */
+    public boolean complete(Long taskId, TaskState taskState, String failureDescription) {
+        return documentTaskRepository.completeLeasedTask(taskId, workerId, taskState.name(), failureDescription) > 0;
+    }
+
+    @Scheduled(fixedDelayString = "${document-task-lease.heartbeat-milliseconds}",
+        scheduler = SchedulingConfiguration.LEASE_SCHEDULER)
+    @Transactional
+    public void heartbeat() {
+        List<Long> taskIds = List.copyOf(heldLeases);
+        if (taskIds.isEmpty()) {
+            return;
+        }
+        int renewed = documentTaskRepository.renewLeases(taskIds, workerId, Instant.now());
+        if (renewed < taskIds.size()) {
+            log.warn("Renewed {} of the {} DocumentTask leases held by {}; the others have been lost",
+                renewed, taskIds.size(), workerId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${document-task-lease.reaper-milliseconds}",
+        scheduler = SchedulingConfiguration.MAINTENANCE_SCHEDULER)
+    @SchedulerLock(name = "${task.env}-documentTaskLeaseReaper")
+    @Transactional
+    public void reapExpiredLeases() {
+        Instant expiredBefore = Instant.now().minus(leaseDuration);
+        int failed = documentTaskRepository.failExpiredLeases(expiredBefore, maxRetryAttempts, LEASE_EXPIRED);
+        int requeued = documentTaskRepository.requeueExpiredLeases(expiredBefore);
+        if (failed > 0 || requeued > 0) {
+            log.warn("Reaped expired DocumentTask leases: {} returned to NEW, {} failed", requeued, failed);
+        }
+    }
+}
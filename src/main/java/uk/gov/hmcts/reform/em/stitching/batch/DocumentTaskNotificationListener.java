@@ -0,0 +1,104 @@
+package uk.gov.hmcts.reform.em.stitching.batch;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import javax.sql.DataSource;
+
+/**
+ * Listens on the channel DocumentTaskNotifier sends to and wakes the local workers whenever any node
+ * creates a DocumentTask. The connection is reopened after a failure; polling carries on in the
+ * meantime, so a lost notification only delays a task until the next sweep.
+ */
+@Component
+@ConditionalOnProperty(name = {"scheduling.enabled", "document-task-workers.notify-enabled"})
+public class DocumentTaskNotificationListener {
+
+    private static final Logger log = LoggerFactory.getLogger(DocumentTaskNotificationListener.class);
+
+    private static final int WAIT_MILLIS = 10_000;
+    private static final long RECONNECT_DELAY_MILLIS = 5_000;
+
+    private final DataSource dataSource;
+    private final DocumentTaskWorkerPool documentTaskWorkerPool;
+    private volatile boolean running;
+    private Thread listenerThread;
+
+    public DocumentTaskNotificationListener(DataSource dataSource, DocumentTaskWorkerPool documentTaskWorkerPool) {
+        this.dataSource = dataSource;
+        this.documentTaskWorkerPool = documentTaskWorkerPool;
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        listenerThread = Thread.ofPlatform()
+            .name("document-task-listener")
+            .daemon(true)
+            .start(this::listen);
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                listenOn(connection);
+            } catch (SQLException e) {
+                if (running) {
+                    log.warn("Lost the {} listener connection, reconnecting", DocumentTaskNotifier.CHANNEL, e);
+                    pause();
+                }
+            }
+        }
+    }
+
+    private void listenOn(Connection connection) throws SQLException {
+        connection.setAutoCommit(true);
+        execute(connection, "LISTEN " + DocumentTaskNotifier.CHANNEL);
+        try {
+            PGConnection pgConnection = connection.unwrap(PGConnection.class);
+            // Catch anything created while the listener was not connected.
+            documentTaskWorkerPool.wakeUp();
+            while (running) {
+                PGNotification[] notifications = pgConnection.getNotifications(WAIT_MILLIS);
+                if (notifications != null && notifications.length > 0) {
+                    documentTaskWorkerPool.wakeUp();
+                }
+            }
+        } finally {
+            // The connection goes back to the pool, so stop it collecting notifications.
+            execute(connection, "UNLISTEN *");
+        }
+    }
+
+    private void execute(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(RECONNECT_DELAY_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+        }
+    }
+}
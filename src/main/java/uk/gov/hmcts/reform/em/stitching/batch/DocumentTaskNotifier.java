@@ -0,0 +1,35 @@
+package uk.gov.hmcts.reform.em.stitching.batch;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import uk.gov.hmcts.reform.em.stitching.service.DocumentTaskCreatedEvent;
+
+/**
+ * Tells workers on other nodes about a new DocumentTask through a Postgres NOTIFY. The notification
+ * is sent as part of the transaction that inserts the task, and Postgres only delivers it once that
+ * transaction commits.
+ */
+@Component
+public class DocumentTaskNotifier {
+
+    public static final String CHANNEL = "document_task_created";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${document-task-workers.notify-enabled}")
+    boolean notifyEnabled;
+
+    public DocumentTaskNotifier(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onDocumentTaskCreated(DocumentTaskCreatedEvent event) {
+        if (notifyEnabled) {
+            jdbcTemplate.queryForList("SELECT pg_notify(?, ?)", CHANNEL, String.valueOf(event.documentTaskId()));
+        }
+    }
+}
@@ -7,18 +7,29 @@ import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import uk.gov.hmcts.reform.em.stitching.domain.DocumentTask;
 import uk.gov.hmcts.reform.em.stitching.domain.enumeration.TaskState;
+import uk.gov.hmcts.reform.em.stitching.repository.DocumentTaskQueueHead;
 import uk.gov.hmcts.reform.em.stitching.repository.DocumentTaskRepository;
 
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
 @Component
 public class DocumentTaskStateMarker {
     private final DocumentTaskRepository documentTaskRepository;
+    private final DocumentTaskFairShare documentTaskFairShare;
+    private final DocumentTaskLeases documentTaskLeases;
 
-    public DocumentTaskStateMarker(DocumentTaskRepository documentTaskRepository) {
+    public DocumentTaskStateMarker(DocumentTaskRepository documentTaskRepository,
+                                   DocumentTaskFairShare documentTaskFairShare,
+                                   DocumentTaskLeases documentTaskLeases) {
         this.documentTaskRepository = documentTaskRepository;
+        this.documentTaskFairShare = documentTaskFairShare;
+        this.documentTaskLeases = documentTaskLeases;
     }
 
     /**
-     * Finds a DocumentTask by its ID and updates its state to IN_PROGRESS.
+     * Finds a DocumentTask by its ID and updates its state to IN_PROGRESS, leased to this worker.
      * This change is committed to the database immediately in a new transaction.
      *
      * @param taskId The ID of the task to update.
@@ -29,5 +40,35 @@ public class DocumentTaskStateMarker {
         DocumentTask task = documentTaskRepository.findById(taskId)
             .orElseThrow(() -> new EntityNotFoundException("Task not found with ID: " + taskId));
         task.setTaskState(TaskState.IN_PROGRESS);
+        task.setWorkerId(documentTaskLeases.getWorkerId());
+        task.setHeartbeatAt(Instant.now());
+    }
+
+    /**
+     * Claims the NEW task this build should process next and commits it as IN_PROGRESS in a new
+     * transaction. The oldest task of each priority, jurisdiction and case type is tried in the order
+     * chosen by DocumentTaskFairShare. Tasks locked by another worker or node are skipped, so each task
+     * is claimed once, and if every one of those is locked the oldest unlocked task is claimed instead.
+     *
+     * @param version The build number of this instance.
+     * @param maxEstimatedPages The largest task to claim, by estimated pages.
+     * @return The ID of the claimed task, or empty if there is nothing to claim.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public Optional<Long> claimNextTask(int version, int maxEstimatedPages) {
+        List<DocumentTaskQueueHead> heads = documentTaskRepository.findNewTaskQueueHeads(version, maxEstimatedPages);
+        for (DocumentTaskQueueHead head : documentTaskFairShare.order(heads)) {
+            Optional<Long> taskId = documentTaskRepository.lockNewTaskId(head.getId());
+            if (taskId.isPresent()) {
+                commitTaskAsInProgress(taskId.get());
+                documentTaskFairShare.charge(head);
+                return taskId;
+            }
+        }
+        Optional<Long> taskId = heads.isEmpty()
+            ? Optional.empty()
+            : documentTaskRepository.lockNextNewTaskId(version, maxEstimatedPages);
+        taskId.ifPresent(this::commitTaskAsInProgress);
+        return taskId;
     }
-}
\ No newline at end of file
+}
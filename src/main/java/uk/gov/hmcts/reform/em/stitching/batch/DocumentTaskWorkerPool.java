@@ -0,0 +1,164 @@
+package uk.gov.hmcts.reform.em.stitching.batch;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import uk.gov.hmcts.reform.em.stitching.config.SchedulingConfiguration;
+import uk.gov.hmcts.reform.em.stitching.info.BuildInfo;
+import uk.gov.hmcts.reform.em.stitching.service.DocumentTaskCreatedEvent;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Stitches NEW DocumentTasks on a fixed number of worker threads. Tasks are claimed with
+ * SELECT ... FOR UPDATE SKIP LOCKED, so every worker on every node can run at once without two of
+ * them picking up the same task. A worker that finishes a task claims the next one straight away and
+ * only goes idle once there is nothing left to claim.
+ *
+ * <p>Besides the general workers, a few fast lane workers only take small bundles, so they start
+ * within seconds even while every general worker is busy with a large one.
+ *
+ * <p>Idle workers are woken as soon as a task is created, either on this node or, through
+ * DocumentTaskNotificationListener, on any other. The scheduled dispatch remains as a fallback sweep.
+ */
+@Component
+@ConditionalOnProperty(name = "scheduling.enabled")
+public class DocumentTaskWorkerPool {
+
+    private static final Logger log = LoggerFactory.getLogger(DocumentTaskWorkerPool.class);
+
+    private final DocumentTaskStateMarker documentTaskStateMarker;
+    private final DocumentTaskItemProcessor documentTaskItemProcessor;
+    private final BuildInfo buildInfo;
+    private final DocumentTaskLeases documentTaskLeases;
+    private final List<Lane> lanes;
+    private final ExecutorService dispatcher;
+    private final AtomicBoolean wakeUpPending = new AtomicBoolean();
+
+    public DocumentTaskWorkerPool(DocumentTaskStateMarker documentTaskStateMarker,
+                                  DocumentTaskItemProcessor documentTaskItemProcessor,
+                                  BuildInfo buildInfo,
+                                  DocumentTaskLeases documentTaskLeases,
+                                  @Value("${document-task-workers.threads}") int threads,
+                                  @Value("${document-task-workers.fast-lane-threads}") int fastLaneThreads,
+                                  @Value("${document-task-queue.small-bundle-pages}") int smallBundlePages) {
+        this.documentTaskStateMarker = documentTaskStateMarker;
+        this.documentTaskItemProcessor = documentTaskItemProcessor;
+        this.buildInfo = buildInfo;
+        this.documentTaskLeases = documentTaskLeases;
+        this.lanes = fastLaneThreads > 0
+            ? List.of(new Lane("document-task-fast-lane-worker-", fastLaneThreads, smallBundlePages),
+                new Lane("document-task-worker-", threads, Integer.MAX_VALUE))
+            : List.of(new Lane("document-task-worker-", threads, Integer.MAX_VALUE));
+        this.dispatcher = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("document-task-dispatcher").factory());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onDocumentTaskCreated(DocumentTaskCreatedEvent event) {
+        wakeUp();
+    }
+
+    /**
+     * Runs a dispatch in the background. Wake-ups that arrive while one is already queued are merged
+     * into it.
+     */
+    public void wakeUp() {
+        if (wakeUpPending.compareAndSet(false, true)) {
+            dispatcher.execute(() -> {
+                wakeUpPending.set(false);
+                dispatch();
+            });
+        }
+    }
+
+    /**
+     * Hands a claimed task to every idle worker until there are no idle workers or no NEW tasks left.
+     * Fast lane workers claim first, so small bundles go to them and leave the general workers free.
+     */
+    @Scheduled(fixedDelayString = "${spring.batch.document-task-milliseconds}",
+        scheduler = SchedulingConfiguration.STITCHING_SCHEDULER)
+    public void dispatch() {
+        lanes.forEach(this::dispatch);
+    }
+
+    private void dispatch(Lane lane) {
+        while (lane.idleWorkers.tryAcquire()) {
+            Optional<Long> taskId = claimNextTask(lane);
+            if (taskId.isEmpty()) {
+                lane.idleWorkers.release();
+                return;
+            }
+            lane.workers.execute(() -> work(lane, taskId.get()));
+        }
+    }
+
+    private void work(Lane lane, Long firstTaskId) {
+        try {
+            Optional<Long> taskId = Optional.of(firstTaskId);
+            while (taskId.isPresent()) {
+                process(taskId.get());
+                taskId = claimNextTask(lane);
+            }
+        } finally {
+            lane.idleWorkers.release();
+        }
+    }
+
+    private void process(Long taskId) {
+        documentTaskLeases.hold(taskId);
+        try {
+            documentTaskItemProcessor.processClaimedTask(taskId);
+        } catch (Exception e) {
+            log.error("DocumentTask : {} could not be processed", taskId, e);
+        } finally {
+            documentTaskLeases.release(taskId);
+        }
+    }
+
+    private Optional<Long> claimNextTask(Lane lane) {
+        try {
+            return documentTaskStateMarker.claimNextTask(buildInfo.getBuildNumber(), lane.maxEstimatedPages);
+        } catch (Exception e) {
+            log.error("Failed to claim a DocumentTask", e);
+            return Optional.empty();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        dispatcher.shutdownNow();
+        lanes.forEach(lane -> lane.workers.shutdown());
+        for (Lane lane : lanes) {
+            if (!lane.workers.awaitTermination(1, TimeUnit.MINUTES)) {
+                log.warn("DocumentTask workers did not finish before shutdown");
+            }
+        }
+    }
+
+    private static final class Lane {
+
+        private final ExecutorService workers;
+        private final Semaphore idleWorkers;
+        private final int maxEstimatedPages;
+
+        private Lane(String threadNamePrefix, int threads, int maxEstimatedPages) {
+            this.workers = Executors.newFixedThreadPool(threads,
+                Thread.ofPlatform().name(threadNamePrefix, 0).factory());
+            this.idleWorkers = new Semaphore(threads);
+            this.maxEstimatedPages = maxEstimatedPages;
+        }
+    }
+}
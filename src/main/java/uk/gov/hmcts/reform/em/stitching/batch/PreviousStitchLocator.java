@@ -0,0 +1,93 @@
+package uk.gov.hmcts.reform.em.stitching.batch;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.util.Pair;
+import org.springframework.stereotype.Component;
+import uk.gov.hmcts.reform.em.stitching.domain.Bundle;
+import uk.gov.hmcts.reform.em.stitching.domain.BundleDocument;
+import uk.gov.hmcts.reform.em.stitching.domain.DocumentTask;
+import uk.gov.hmcts.reform.em.stitching.domain.StitchManifest;
+import uk.gov.hmcts.reform.em.stitching.pdf.PreviousStitch;
+import uk.gov.hmcts.reform.em.stitching.repository.BundleRepository;
+import uk.gov.hmcts.reform.em.stitching.service.CdamService;
+import uk.gov.hmcts.reform.em.stitching.service.DmStoreDownloader;
+import uk.gov.hmcts.reform.em.stitching.service.impl.DocumentTaskProcessingException;
+import uk.gov.hmcts.reform.em.stitching.service.impl.FileAndMediaType;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Finds the output of the last stitch of a bundle that is being stitched again, so PDFMerger can keep the
+ * pages of the documents that have not changed. Anything that prevents that, including a stitched
+ * document that no longer matches its manifest, falls back to stitching the bundle in full.
+ */
+@Component
+public class PreviousStitchLocator {
+
+    private final Logger log = LoggerFactory.getLogger(PreviousStitchLocator.class);
+
+    private final BundleRepository bundleRepository;
+    private final DmStoreDownloader dmStoreDownloader;
+    private final CdamService cdamService;
+    private final boolean enabled;
+
+    public PreviousStitchLocator(BundleRepository bundleRepository,
+                                 DmStoreDownloader dmStoreDownloader,
+                                 CdamService cdamService,
+                                 @Value("${incremental-stitch.enabled}") boolean enabled) {
+        this.bundleRepository = bundleRepository;
+        this.dmStoreDownloader = dmStoreDownloader;
+        this.cdamService = cdamService;
+        this.enabled = enabled;
+    }
+
+    public Optional<PreviousStitch> find(DocumentTask documentTask, boolean useCdam) {
+        Bundle bundle = documentTask.getBundle();
+        if (!enabled || StringUtils.isBlank(bundle.getStitchedDocumentURI())) {
+            return Optional.empty();
+        }
+        Optional<StitchManifest> manifest = bundleRepository
+            .findFirstByStitchedDocumentURIAndStitchManifestIsNotNullOrderByIdDesc(bundle.getStitchedDocumentURI())
+            .map(Bundle::getStitchManifest)
+            .filter(previous -> previous.matchesLayoutOf(bundle));
+        if (manifest.isEmpty()) {
+            return Optional.empty();
+        }
+
+        File file = null;
+        try {
+            file = download(documentTask, useCdam);
+            if (manifest.get().getOutputSha256().equals(StitchManifest.sha256(file))) {
+                return Optional.of(new PreviousStitch(file, manifest.get()));
+            }
+            log.info("DocumentTask : {} stitched document {} has changed since it was stitched",
+                documentTask.getId(), bundle.getStitchedDocumentURI());
+        } catch (DocumentTaskProcessingException | IOException | RuntimeException e) {
+            log.warn("DocumentTask : {} could not load the previous stitch, stitching in full: {}",
+                documentTask.getId(), e.getMessage());
+        }
+        FileUtils.deleteQuietly(file);
+        return Optional.empty();
+    }
+
+    private File download(DocumentTask documentTask, boolean useCdam) throws DocumentTaskProcessingException {
+        BundleDocument stitchedDocument = new BundleDocument();
+        stitchedDocument.setDocumentURI(documentTask.getBundle().getStitchedDocumentURI());
+
+        if (useCdam) {
+            return cdamService.downloadFile(documentTask.getJwt(), documentTask.getServiceAuth(), stitchedDocument)
+                .getSecond().getFile();
+        }
+        try (Stream<Pair<BundleDocument, FileAndMediaType>> downloads =
+                 dmStoreDownloader.downloadFiles(Stream.of(stitchedDocument), documentTask.getJwt())) {
+            return downloads.findFirst().orElseThrow().getSecond().getFile();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package uk.gov.hmcts.reform.em.stitching.batch;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Time spent in each stage of stitching a single DocumentTask. Stages run per document on several
+ * threads are summed, so they can add up to more than the wall-clock time of the task.
+ */
+public class StageTimings {
+
+    public static final String DOWNLOAD = "download";
+    public static final String CONVERSION = "conversion";
+    public static final String WATERMARK = "watermark";
+    public static final String MERGE = "merge";
+    public static final String UPLOAD = "upload";
+
+    private static final List<String> STAGES = List.of(DOWNLOAD, CONVERSION, WATERMARK, MERGE, UPLOAD);
+
+    private final Map<String, LongAdder> elapsedNanos = new ConcurrentHashMap<>();
+
+    public <T> T time(String stage, Supplier<T> work) {
+        long start = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            record(stage, System.nanoTime() - start);
+        }
+    }
+
+    public void record(String stage, long nanos) {
+        elapsedNanos.computeIfAbsent(stage, key -> new LongAdder()).add(nanos);
+    }
+
+    public long getMillis(String stage) {
+        LongAdder nanos = elapsedNanos.get(stage);
+        return nanos == null ? 0 : TimeUnit.NANOSECONDS.toMillis(nanos.sum());
+    }
+
+    @Override
+    public String toString() {
+        return STAGES.stream()
+            .map(stage -> stage + "=" + getMillis(stage) + "ms")
+            .collect(Collectors.joining(", "));
+    }
+}
@@ -1,9 +1,6 @@
 package uk.gov.hmcts.reform.em.stitching.config;
 
-import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
-import jakarta.persistence.LockModeType;
-import jakarta.persistence.Query;
 import net.javacrumbs.shedlock.core.LockProvider;
 import net.javacrumbs.shedlock.provider.jdbctemplate.JdbcTemplateLockProvider;
 import net.javacrumbs.shedlock.spring.annotation.EnableSchedulerLock;
@@ -11,10 +8,8 @@ import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.batch.core.Job;
-import org.springframework.batch.core.JobExecution;
 import org.springframework.batch.core.JobParametersBuilder;
 import org.springframework.batch.core.JobParametersInvalidException;
-import org.springframework.batch.core.Step;
 import org.springframework.batch.core.configuration.annotation.EnableBatchProcessing;
 import org.springframework.batch.core.job.builder.JobBuilder;
 import org.springframework.batch.core.launch.JobLauncher;
@@ -24,9 +19,6 @@ import org.springframework.batch.core.repository.JobRepository;
 import org.springframework.batch.core.repository.JobRestartException;
 import org.springframework.batch.core.step.builder.StepBuilder;
 import org.springframework.batch.item.database.JpaItemWriter;
-import org.springframework.batch.item.database.JpaPagingItemReader;
-import org.springframework.batch.item.database.builder.JpaPagingItemReaderBuilder;
-import org.springframework.batch.item.database.orm.JpaQueryProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -36,12 +28,8 @@ import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.transaction.PlatformTransactionManager;
-import uk.gov.hmcts.reform.em.stitching.batch.DocumentTaskCallbackProcessor;
-import uk.gov.hmcts.reform.em.stitching.batch.DocumentTaskItemProcessor;
 import uk.gov.hmcts.reform.em.stitching.batch.RemoveSpringBatchHistoryTasklet;
 import uk.gov.hmcts.reform.em.stitching.batch.UpdateDocumentTaskTasklet;
-import uk.gov.hmcts.reform.em.stitching.domain.DocumentTask;
-import uk.gov.hmcts.reform.em.stitching.info.BuildInfo;
 import uk.gov.hmcts.reform.em.stitching.repository.DocumentTaskRepository;
 
 import java.util.Random;
@@ -64,12 +52,6 @@ public class BatchConfiguration {
 
     private final JobLauncher jobLauncher;
 
-    private final BuildInfo buildInfo;
-
-    private final DocumentTaskItemProcessor documentTaskItemProcessor;
-
-    private final DocumentTaskCallbackProcessor documentTaskCallbackProcessor;
-
     private final JdbcTemplate jdbcTemplate;
 
     private final DocumentTaskRepository documentTaskRepository;
@@ -90,57 +72,18 @@ public class BatchConfiguration {
 
     @Autowired
     public BatchConfiguration(PlatformTransactionManager transactionManager, JobRepository jobRepository,
-                              EntityManagerFactory entityManagerFactory, JobLauncher jobLauncher, BuildInfo buildInfo,
-                              DocumentTaskItemProcessor documentTaskItemProcessor,
-                              DocumentTaskCallbackProcessor documentTaskCallbackProcessor, JdbcTemplate jdbcTemplate,
-                              DocumentTaskRepository documentTaskRepository) {
+                              EntityManagerFactory entityManagerFactory, JobLauncher jobLauncher,
+                              JdbcTemplate jdbcTemplate, DocumentTaskRepository documentTaskRepository) {
         this.transactionManager = transactionManager;
         this.jobRepository = jobRepository;
         this.entityManagerFactory = entityManagerFactory;
         this.jobLauncher = jobLauncher;
-        this.buildInfo = buildInfo;
-        this.documentTaskItemProcessor = documentTaskItemProcessor;
-        this.documentTaskCallbackProcessor = documentTaskCallbackProcessor;
         this.jdbcTemplate = jdbcTemplate;
         this.documentTaskRepository = documentTaskRepository;
     }
 
-    @Scheduled(fixedDelayString = "${spring.batch.document-task-milliseconds}")
-    @SchedulerLock(name = "${task.env}")
-    public void schedule() throws JobParametersInvalidException,
-            JobExecutionAlreadyRunningException,
-            JobRestartException,
-            JobInstanceAlreadyCompleteException {
-
-        JobExecution docJobResult = jobLauncher
-            .run(processDocument(step1()), new JobParametersBuilder()
-                    .addString("date",
-                            System.currentTimeMillis() + "-" + random.nextInt(0, 200))
-            .toJobParameters());
-        LOGGER.info("ProcessDocument jobResult, exitStatus:{},batchStatus:{},isRunning:{},Run between {}/{}",
-                docJobResult.getExitStatus(),
-                docJobResult.getStatus(),
-                docJobResult.isRunning(),
-                docJobResult.getStartTime(),
-                docJobResult.getEndTime()
-        );
-        JobExecution callBackJobResult = jobLauncher
-            .run(processDocumentCallback(callBackStep1()), new JobParametersBuilder()
-                    .addString("date",
-                            System.currentTimeMillis() + "-" + random.nextInt(300, 500))
-            .toJobParameters());
-
-        LOGGER.info("CallBack jobResult, exitStatus:{},BatchStatus:{},isRunning:{},Run between {}/{}",
-                callBackJobResult.getExitStatus(),
-                callBackJobResult.getStatus(),
-                callBackJobResult.isRunning(),
-                callBackJobResult.getStartTime(),
-                callBackJobResult.getEndTime()
-        );
-
-    }
-
-    @Scheduled(fixedDelayString = "${spring.batch.historicExecutionsRetentionMilliseconds}")
+    @Scheduled(fixedDelayString = "${spring.batch.historicExecutionsRetentionMilliseconds}",
+        scheduler = SchedulingConfiguration.MAINTENANCE_SCHEDULER)
     @SchedulerLock(name = "${task.env}-historicExecutionsRetention")
     public void scheduleCleanup() throws JobParametersInvalidException,
             JobExecutionAlreadyRunningException,
@@ -157,7 +100,8 @@ public class BatchConfiguration {
 
     }
 
-    @Scheduled(cron = "${spring.batch.updateDocumentTasksStatusCronJobSchedule}")
+    @Scheduled(cron = "${spring.batch.updateDocumentTasksStatusCronJobSchedule}",
+        scheduler = SchedulingConfiguration.MAINTENANCE_SCHEDULER)
     @SchedulerLock(name = "${task.env}-updateDocumentTaskStatus")
     public void scheduleUpdateDocumentTaskStatus() throws JobParametersInvalidException,
         JobExecutionAlreadyRunningException,
@@ -178,51 +122,6 @@ public class BatchConfiguration {
         return new JdbcTemplateLockProvider(new JdbcTemplate(dataSource), transactionManager);
     }
 
-    @Bean
-    public JpaPagingItemReader<DocumentTask> newDocumentTaskReader() {
-        return new JpaPagingItemReaderBuilder<DocumentTask>()
-            .name("documentTaskReader")
-            .entityManagerFactory(entityManagerFactory)
-            .queryProvider(new QueryProvider())
-            .pageSize(5)
-            .build();
-    }
-
-    private class QueryProvider implements JpaQueryProvider {
-        private EntityManager entityManager;
-
-        @Override
-        public Query createQuery() {
-            return entityManager
-                .createQuery("select t from DocumentTask t JOIN FETCH t.bundle b"
-                    + " where t.taskState = 'NEW' and "
-                    + " t.version <= " + buildInfo.getBuildNumber()
-                    + " order by t.createdDate")
-                .setLockMode(LockModeType.PESSIMISTIC_WRITE);
-        }
-
-        @Override
-        public void setEntityManager(EntityManager entityManager) {
-            this.entityManager = entityManager;
-
-        }
-    }
-
-    @Bean
-    public JpaPagingItemReader<DocumentTask> completedWithCallbackDocumentTaskReader() {
-        return new JpaPagingItemReaderBuilder<DocumentTask>()
-                .name("documentTaskNewCallbackReader")
-                .entityManagerFactory(entityManagerFactory)
-                .queryString("SELECT dt FROM DocumentTask dt JOIN FETCH dt.bundle b JOIN FETCH dt.callback c where "
-                        + "dt.taskState in ('DONE', 'FAILED') "
-                        + "and dt.callback is not null "
-                        + "and dt.callback.callbackState = 'NEW' "
-                        + "and dt.version <= " + buildInfo.getBuildNumber()
-                        + " order by dt.lastModifiedDate")
-                .pageSize(5)
-                .build();
-    }
-
     @Bean
     public <T> JpaItemWriter<T> itemWriter() {
         //Below line needs to be removed once the access issue is resolved.
@@ -232,44 +131,6 @@ public class BatchConfiguration {
         return writer;
     }
 
-    @Bean
-    public Job processDocument(Step step1) {
-        return new JobBuilder("processDocumentJob", this.jobRepository)
-                .start(step1)
-                .build();
-    }
-
-
-    @Bean
-    public Step step1() {
-        return new StepBuilder("step1", this.jobRepository)
-                .<DocumentTask, DocumentTask>chunk(5, transactionManager)
-                .reader(newDocumentTaskReader())
-                .processor(documentTaskItemProcessor)
-                .writer(itemWriter())
-                .build();
-
-    }
-
-    @Bean
-    public Job processDocumentCallback(Step callBackStep1) {
-        return  new JobBuilder("processDocumentCallbackJob", this.jobRepository)
-                .flow(callBackStep1)
-                .end()
-                .build();
-    }
-
-    @Bean
-    public Step callBackStep1() {
-        return new StepBuilder("callbackStep1", this.jobRepository)
-                .<DocumentTask, DocumentTask>chunk(10, transactionManager)
-                .reader(completedWithCallbackDocumentTaskReader())
-                .processor(documentTaskCallbackProcessor)
-                .writer(itemWriter())
-                .build();
-
-    }
-
     @Bean
     public Job clearHistoryData() {
         return new JobBuilder("clearHistoricBatchExecutions", this.jobRepository)
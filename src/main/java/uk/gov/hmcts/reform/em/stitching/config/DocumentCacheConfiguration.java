@@ -0,0 +1,34 @@
+package uk.gov.hmcts.reform.em.stitching.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import uk.gov.hmcts.reform.em.stitching.service.DocumentCache;
+
+import java.nio.file.Path;
+
+@Configuration
+public class DocumentCacheConfiguration {
+
+    private static final long BYTES_PER_MB = 1024L * 1024L;
+
+    /**
+     * Downloaded documents, keyed by document URI and last modified time.
+     */
+    @Bean
+    public DocumentCache documentDownloadCache(
+        @Value("${document-cache.directory}") String directory,
+        @Value("${document-cache.download-max-size-mb}") long maxSizeMb) {
+        return new DocumentCache(Path.of(directory, "downloads"), maxSizeMb * BYTES_PER_MB);
+    }
+
+    /**
+     * Converted PDFs, keyed by converter and the SHA-256 of the source file.
+     */
+    @Bean
+    public DocumentCache documentConversionCache(
+        @Value("${document-cache.directory}") String directory,
+        @Value("${document-cache.conversion-max-size-mb}") long maxSizeMb) {
+        return new DocumentCache(Path.of(directory, "conversions"), maxSizeMb * BYTES_PER_MB);
+    }
+}
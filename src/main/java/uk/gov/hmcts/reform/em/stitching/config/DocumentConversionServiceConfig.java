@@ -3,12 +3,16 @@ package uk.gov.hmcts.reform.em.stitching.config;
 import com.google.common.collect.Lists;
 import okhttp3.OkHttpClient;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import uk.gov.hmcts.reform.em.stitching.conversion.CachingConverter;
 import uk.gov.hmcts.reform.em.stitching.conversion.DocmosisConverter;
 import uk.gov.hmcts.reform.em.stitching.conversion.ImageConverter;
 import uk.gov.hmcts.reform.em.stitching.conversion.PDFConverter;
+import uk.gov.hmcts.reform.em.stitching.metrics.StitchingMetrics;
+import uk.gov.hmcts.reform.em.stitching.service.DocumentCache;
 import uk.gov.hmcts.reform.em.stitching.service.impl.DocumentConversionServiceImpl;
 
 @Configuration
@@ -18,14 +22,26 @@ public class DocumentConversionServiceConfig {
     public DocumentConversionServiceImpl getConversionService(
         @Value("${docmosis.accessKey}") String docmosisAccessKey,
         @Value("${docmosis.convert.endpoint}") String docmosisConvertEndpoint,
-        @Autowired OkHttpClient httpClient
+        @Value("${docmosis.convert.max-concurrent}") int docmosisMaxConcurrent,
+        @Value("${docmosis.convert.max-attempts}") int docmosisMaxAttempts,
+        @Value("${docmosis.convert.backoff-millis}") long docmosisBackoffMillis,
+        @Value("${docmosis.convert.max-backoff-millis}") long docmosisMaxBackoffMillis,
+        @Autowired OkHttpClient httpClient,
+        @Qualifier("documentConversionCache") DocumentCache documentConversionCache,
+        StitchingMetrics stitchingMetrics
     ) {
         return new DocumentConversionServiceImpl(
             Lists.newArrayList(
                 new PDFConverter(),
-                new DocmosisConverter(docmosisAccessKey, docmosisConvertEndpoint, httpClient),
-                new ImageConverter()
-            )
+                new CachingConverter(
+                    new DocmosisConverter(docmosisAccessKey, docmosisConvertEndpoint, httpClient,
+                        new DocmosisConverter.Throttling(docmosisMaxConcurrent, docmosisMaxAttempts,
+                            docmosisBackoffMillis, docmosisMaxBackoffMillis),
+                        stitchingMetrics),
+                    documentConversionCache),
+                new CachingConverter(new ImageConverter(), documentConversionCache)
+            ),
+            stitchingMetrics
         );
     }
 }
@@ -32,12 +32,13 @@ public class HttpClientConfiguration {
     @Bean
     public Client getFeignHttpClient(
         @Value("${feign.httpClient.connectTimeout}") final int connectTimeout,
-        @Value("${feign.httpClient.socketTimeout}") final int socketTimeout
+        @Value("${feign.httpClient.socketTimeout}") final int socketTimeout,
+        @Value("${document-download.max-concurrent}") final int maxConnections
     ) {
-        return new ApacheHttpClient(getHttpClient(connectTimeout, socketTimeout));
+        return new ApacheHttpClient(getHttpClient(connectTimeout, socketTimeout, maxConnections));
     }
 
-    private CloseableHttpClient getHttpClient(int connectTimeout, int socketTimeout) {
+    private CloseableHttpClient getHttpClient(int connectTimeout, int socketTimeout, int maxConnections) {
         RequestConfig config = RequestConfig.custom()
             .setConnectTimeout(connectTimeout)
             .setConnectionRequestTimeout(connectTimeout)
@@ -48,6 +49,8 @@ public class HttpClientConfiguration {
             .create()
             .useSystemProperties()
             .setDefaultRequestConfig(config)
+            .setMaxConnTotal(maxConnections)
+            .setMaxConnPerRoute(maxConnections)
             .build();
     }
 
@@ -0,0 +1,53 @@
+package uk.gov.hmcts.reform.em.stitching.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Gives each kind of scheduled job its own scheduler threads, so a slow maintenance job cannot delay
+ * the stitching or callback sweeps, nor they each other, and a stitching sweep cannot hold up the lease
+ * heartbeat. Scheduled methods name theirs with {@code @Scheduled(scheduler = ...)}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "scheduling.enabled")
+public class SchedulingConfiguration {
+
+    public static final String STITCHING_SCHEDULER = "stitchingScheduler";
+    public static final String CALLBACK_SCHEDULER = "callbackScheduler";
+    public static final String MAINTENANCE_SCHEDULER = "maintenanceScheduler";
+    public static final String LEASE_SCHEDULER = "leaseScheduler";
+
+    @Bean(name = STITCHING_SCHEDULER)
+    public ThreadPoolTaskScheduler stitchingScheduler(
+        @Value("${scheduling.stitching.pool-size}") int poolSize) {
+        return scheduler("StitchingApp-StitchingScheduler-", poolSize);
+    }
+
+    @Bean(name = CALLBACK_SCHEDULER)
+    public ThreadPoolTaskScheduler callbackScheduler(
+        @Value("${scheduling.callback.pool-size}") int poolSize) {
+        return scheduler("StitchingApp-CallbackScheduler-", poolSize);
+    }
+
+    @Bean(name = MAINTENANCE_SCHEDULER)
+    public ThreadPoolTaskScheduler maintenanceScheduler(
+        @Value("${scheduling.maintenance.pool-size}") int poolSize) {
+        return scheduler("StitchingApp-MaintenanceScheduler-", poolSize);
+    }
+
+    @Bean(name = LEASE_SCHEDULER)
+    public ThreadPoolTaskScheduler leaseScheduler(
+        @Value("${scheduling.lease.pool-size}") int poolSize) {
+        return scheduler("StitchingApp-LeaseScheduler-", poolSize);
+    }
+
+    private ThreadPoolTaskScheduler scheduler(String threadNamePrefix, int poolSize) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(poolSize);
+        scheduler.setThreadNamePrefix(threadNamePrefix);
+        return scheduler;
+    }
+}
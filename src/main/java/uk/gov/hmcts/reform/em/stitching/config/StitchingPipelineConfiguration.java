@@ -0,0 +1,49 @@
+package uk.gov.hmcts.reform.em.stitching.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class StitchingPipelineConfiguration {
+
+    /**
+     * Runs the download stage of each DocumentTask. It spends its time waiting on remote calls,
+     * so each task gets its own virtual thread.
+     */
+    @Bean
+    public SimpleAsyncTaskExecutor documentDownloadStageExecutor() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("StitchingApp-Download-");
+        executor.setVirtualThreads(true);
+        return executor;
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor documentConversionExecutor(
+        @Value("${stitching-pipeline.conversion-threads}") int threads,
+        @Value("${stitching-pipeline.queue-capacity}") int queueCapacity) {
+        return boundedExecutor("StitchingApp-Conversion-", threads, queueCapacity);
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor documentWatermarkExecutor(
+        @Value("${stitching-pipeline.watermark-threads}") int threads,
+        @Value("${stitching-pipeline.queue-capacity}") int queueCapacity) {
+        return boundedExecutor("StitchingApp-Watermark-", threads, queueCapacity);
+    }
+
+    private ThreadPoolTaskExecutor boundedExecutor(String threadNamePrefix, int threads, int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix(threadNamePrefix);
+        // A full queue makes the submitting stage do the work itself, which slows it down to match.
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return executor;
+    }
+}
@@ -47,6 +47,7 @@ public class SecurityConfiguration {
                 "/health/liveness",
                 "/health/readiness",
                 "/status/health",
+                "/prometheus",
                 "/loggers/**",
                 "/");
     }
@@ -0,0 +1,51 @@
+package uk.gov.hmcts.reform.em.stitching.conversion;
+
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import org.apache.commons.io.FileUtils;
+import uk.gov.hmcts.reform.em.stitching.service.DocumentCache;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Reuses the output of another converter for any source file it has already converted, matched by the
+ * SHA-256 of the file's content.
+ */
+public class CachingConverter implements FileToPDFConverter {
+
+    private final FileToPDFConverter converter;
+    private final DocumentCache documentCache;
+
+    public CachingConverter(FileToPDFConverter converter, DocumentCache documentCache) {
+        this.converter = converter;
+        this.documentCache = documentCache;
+    }
+
+    public FileToPDFConverter getConverter() {
+        return converter;
+    }
+
+    @Override
+    public List<String> accepts() {
+        return converter.accepts();
+    }
+
+    @Override
+    public File convert(File file) throws IOException {
+        if (!documentCache.isEnabled()) {
+            return converter.convert(file);
+        }
+        String key = converter.getClass().getSimpleName() + ":"
+            + Files.asByteSource(file).hash(Hashing.sha256());
+        File cached = File.createTempFile("converted", ".pdf");
+        if (documentCache.copyTo(key, cached)) {
+            return cached;
+        }
+        FileUtils.deleteQuietly(cached);
+        File converted = converter.convert(file);
+        documentCache.put(key, converted);
+        return converted;
+    }
+}
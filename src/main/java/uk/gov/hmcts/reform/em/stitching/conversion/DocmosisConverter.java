@@ -7,32 +7,58 @@ import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
+import okio.BufferedSink;
+import okio.Okio;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import uk.gov.hmcts.reform.em.stitching.metrics.StitchingMetrics;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.nio.file.Files;
 import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 import static uk.gov.hmcts.reform.em.stitching.service.CloseableCloser.close;
 
 /**
- * Converts word doc,docx,excel,power point files to PDF using the Docmosis API.
+ * Converts word doc,docx,excel,power point files to PDF using the Docmosis API. Docmosis throttles clients
+ * that send it too much at once, so only a limited number of conversions are sent to the endpoint at the
+ * same time, and a conversion that is throttled or fails on the server is retried after a jittered delay
+ * that grows with each attempt.
  */
 public class DocmosisConverter implements FileToPDFConverter {
 
     private final Logger logger = LoggerFactory.getLogger(DocmosisConverter.class);
 
     private static final String PDF_CONTENT_TYPE = "application/pdf";
+    private static final int TOO_MANY_REQUESTS = 429;
+    private static final int MAX_BACKOFF_SHIFT = 20;
+
     private final String docmosisAccessKey;
     private final String docmosisConvertEndpoint;
     private final OkHttpClient httpClient;
+    private final Throttling throttling;
+    private final Semaphore permits;
+    private final StitchingMetrics stitchingMetrics;
 
-    public DocmosisConverter(String docmosisAccessKey, String docmosisConvertEndpoint, OkHttpClient httpClient) {
+    public DocmosisConverter(String docmosisAccessKey, String docmosisConvertEndpoint, OkHttpClient httpClient,
+                             Throttling throttling, StitchingMetrics stitchingMetrics) {
         this.docmosisAccessKey = docmosisAccessKey;
         this.docmosisConvertEndpoint = docmosisConvertEndpoint;
         this.httpClient = httpClient;
+        this.throttling = throttling;
+        this.permits = new Semaphore(throttling.maxConcurrent(), true);
+        this.stitchingMetrics = stitchingMetrics;
+    }
+
+    /**
+     * How hard the converter may push the Docmosis endpoint. Delays are in milliseconds.
+     */
+    public record Throttling(int maxConcurrent, int maxAttempts, long backoffMillis, long maxBackoffMillis) {
     }
 
 
@@ -58,25 +84,77 @@ public class DocmosisConverter implements FileToPDFConverter {
 
     @Override
     public File convert(File file) throws IOException {
-        Response response = null;
-        try {
-            final Request request = this.createRequest(file);
-            response = httpClient.newCall(request).execute();
+        for (int attempt = 1; ; attempt++) {
+            long retryDelay;
+            acquirePermit();
+            Response response = null;
+            try {
+                final Request request = this.createRequest(file);
+                response = httpClient.newCall(request).execute();
+
+                if (response.isSuccessful()) {
+                    return createConvertedFile(response);
+                }
 
-            if (!response.isSuccessful()) {
                 String responseMsg = String.format(
                         "Docmosis error code : (%s) for converting: %s with response msg: %s ",
                                                    response.code(),
                                                    file.getName(),
                                                    response.body().string()
                 );
-                logger.error(responseMsg);
-                throw new IOException(responseMsg);
+                if (!isRetryable(response.code()) || attempt >= throttling.maxAttempts()) {
+                    logger.error(responseMsg);
+                    throw new IOException(responseMsg);
+                }
+                logger.warn("{}, retrying (attempt {} of {})", responseMsg, attempt, throttling.maxAttempts());
+                stitchingMetrics.recordDocmosisRetry(response.code());
+                retryDelay = retryDelay(attempt, response.header("Retry-After"));
+            } finally {
+                close(response);
+                permits.release();
+            }
+            sleep(retryDelay);
+        }
+    }
+
+    private static boolean isRetryable(int code) {
+        return code == TOO_MANY_REQUESTS || code >= 500;
+    }
+
+    /**
+     * A random delay of up to the backoff doubled for each earlier attempt, so that conversions throttled
+     * together do not all retry together, but no shorter than any Retry-After Docmosis asked for.
+     */
+    private long retryDelay(int attempt, String retryAfter) {
+        long ceiling = Math.min(throttling.maxBackoffMillis(),
+            throttling.backoffMillis() << Math.min(attempt - 1, MAX_BACKOFF_SHIFT));
+        long delay = ThreadLocalRandom.current().nextLong(Math.max(ceiling, 0) + 1);
+        if (retryAfter != null) {
+            try {
+                long requested = TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim()));
+                delay = Math.max(delay, Math.min(requested, throttling.maxBackoffMillis()));
+            } catch (NumberFormatException e) {
+                logger.debug("Ignoring Retry-After that is not a number of seconds: {}", retryAfter);
             }
+        }
+        return delay;
+    }
 
-            return createConvertedFile(response);
-        } finally {
-            close(response);
+    private void acquirePermit() throws InterruptedIOException {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting to send a conversion to Docmosis");
+        }
+    }
+
+    private static void sleep(long millis) throws InterruptedIOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting to retry a Docmosis conversion");
         }
     }
 
@@ -99,10 +177,19 @@ public class DocmosisConverter implements FileToPDFConverter {
             .build();
     }
 
+    /**
+     * Writes the converted PDF to disk as it arrives, a segment at a time, rather than reading the whole
+     * response onto the heap first.
+     */
     private File createConvertedFile(Response response) throws IOException {
         final File convertedFile = File.createTempFile("stitch-conversion", ".pdf");
 
-        Files.write(convertedFile.toPath(), response.body().bytes());
+        try (BufferedSink sink = Okio.buffer(Okio.sink(convertedFile))) {
+            sink.writeAll(response.body().source());
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(convertedFile.toPath());
+            throw e;
+        }
 
         return convertedFile;
     }
@@ -22,7 +22,9 @@ import uk.gov.hmcts.reform.em.stitching.domain.enumeration.PaginationStyle;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Stream;
 
 @Entity
@@ -65,6 +67,10 @@ public class Bundle extends AbstractAuditingEntity implements SortableBundleItem
     @Column(columnDefinition = "jsonb")
     private JsonNode coverpageTemplateData;
 
+    @Type(JsonType.class)
+    @Column(columnDefinition = "jsonb")
+    private StitchManifest stitchManifest;
+
     @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.EAGER)
     @Fetch(FetchMode.SUBSELECT)
     private List<BundleFolder> folders = new ArrayList<>();
@@ -211,6 +217,17 @@ public class Bundle extends AbstractAuditingEntity implements SortableBundleItem
         return getSortedItems().flatMap(SortableBundleItem::getSortedDocuments);
     }
 
+    /**
+     * The documents of the bundle in order, leaving out any document with the same URI as one before it. A
+     * document filed more than once is only downloaded and converted once, for every place it appears.
+     */
+    @Transient
+    public Stream<BundleDocument> getDistinctDocuments() {
+        Set<String> documentURIs = new HashSet<>();
+        return getSortedDocuments()
+            .filter(document -> document.getDocumentURI() == null || documentURIs.add(document.getDocumentURI()));
+    }
+
     public boolean hasFolderCoversheets() {
         return hasFolderCoversheets;
     }
@@ -259,6 +276,14 @@ public class Bundle extends AbstractAuditingEntity implements SortableBundleItem
         this.documentImage = documentImage;
     }
 
+    public StitchManifest getStitchManifest() {
+        return stitchManifest;
+    }
+
+    public void setStitchManifest(StitchManifest stitchManifest) {
+        this.stitchManifest = stitchManifest;
+    }
+
     public String toString() {
         return "Bundle(id=" + this.getId() + ", bundleTitle=" + this.getBundleTitle()
             + ", description=" + this.getDescription() + ", stitchedDocumentURI=" + this.getStitchedDocumentURI()
@@ -31,5 +31,7 @@ public interface BundleContainer {
         return false;
     }
 
+    List<BundleDocument> getDocuments();
+
     List<BundleFolder> getFolders();
 }
@@ -0,0 +1,142 @@
+package uk.gov.hmcts.reform.em.stitching.domain;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * The order of the folders and documents of a bundle, worked out once when a bundle is stitched. It gives
+ * the same items, in the same order, as getSortedItems and getSortedDocuments, without walking the folder
+ * tree again on every call. Items are looked up by identity, and folders without any documents are left out.
+ * The snapshot does not follow later changes to the bundle.
+ */
+public final class BundleLayout {
+
+    private final Bundle bundle;
+    private final Map<SortableBundleItem, Node> nodes = new IdentityHashMap<>();
+    private final List<SortableBundleItem> items;
+    private final List<BundleDocument> documents;
+    private final int folderCount;
+
+    private record Node(SortableBundleItem parent, int depth, List<SortableBundleItem> children, int documentCount) {
+    }
+
+    private BundleLayout(Bundle bundle) {
+        this.bundle = bundle;
+        addContainer(bundle, bundle, null, 0);
+
+        List<SortableBundleItem> flattened = new ArrayList<>();
+        List<BundleDocument> sortedDocuments = new ArrayList<>();
+        flatten(bundle, flattened, sortedDocuments);
+        this.items = Collections.unmodifiableList(flattened);
+        this.documents = Collections.unmodifiableList(sortedDocuments);
+        this.folderCount = flattened.size() - sortedDocuments.size();
+    }
+
+    public static BundleLayout of(Bundle bundle) {
+        return new BundleLayout(bundle);
+    }
+
+    private int addContainer(BundleContainer container, SortableBundleItem item, SortableBundleItem parent,
+                             int depth) {
+        List<SortableBundleItem> children = new ArrayList<>();
+        int documentCount = 0;
+        for (BundleDocument child : container.getDocuments().stream().sorted().toList()) {
+            nodes.put(child, new Node(item, depth + 1, List.of(), 1));
+            children.add(child);
+            documentCount++;
+        }
+        for (BundleFolder child : container.getFolders()) {
+            int childDocuments = addContainer(child, child, item, depth + 1);
+            if (childDocuments > 0) {
+                children.add(child);
+                documentCount += childDocuments;
+            }
+        }
+        if (documentCount > 0 || parent == null) {
+            children.sort(Comparator.comparingInt(SortableBundleItem::getSortIndex));
+            nodes.put(item, new Node(parent, depth, Collections.unmodifiableList(children), documentCount));
+        }
+        return documentCount;
+    }
+
+    private void flatten(SortableBundleItem container, List<SortableBundleItem> flattened,
+                         List<BundleDocument> sortedDocuments) {
+        for (SortableBundleItem child : getChildren(container)) {
+            flattened.add(child);
+            if (child instanceof BundleDocument bundleDocument) {
+                sortedDocuments.add(bundleDocument);
+            } else {
+                flatten(child, flattened, sortedDocuments);
+            }
+        }
+    }
+
+    public Bundle getBundle() {
+        return bundle;
+    }
+
+    /**
+     * Every folder and document of the bundle, each folder followed by its contents.
+     */
+    public List<SortableBundleItem> getItems() {
+        return items;
+    }
+
+    public List<BundleDocument> getDocuments() {
+        return documents;
+    }
+
+    public Stream<BundleDocument> getSortedDocuments() {
+        return documents.stream();
+    }
+
+    /**
+     * The folders holding documents, at any depth.
+     */
+    public int getFolderCount() {
+        return folderCount;
+    }
+
+    /**
+     * The sorted contents of the bundle or of one of its folders, or an empty list for a document or an
+     * item that is not part of the layout.
+     */
+    public List<SortableBundleItem> getChildren(SortableBundleItem item) {
+        Node node = nodes.get(item);
+        return node == null ? List.of() : node.children();
+    }
+
+    public boolean isFolder(SortableBundleItem item) {
+        return !getChildren(item).isEmpty() && item != bundle;
+    }
+
+    /**
+     * The bundle or folder holding the item, or null for the bundle itself.
+     */
+    public SortableBundleItem getParent(SortableBundleItem item) {
+        Node node = nodes.get(item);
+        return node == null ? null : node.parent();
+    }
+
+    /**
+     * How deeply the item is nested, counting the bundle as 0 and its top level items as 1, or -1 for an item
+     * that is not part of the layout.
+     */
+    public int getDepth(SortableBundleItem item) {
+        Node node = nodes.get(item);
+        return node == null ? -1 : node.depth();
+    }
+
+    /**
+     * The documents held by the item and all of its folders, counting a document as 1.
+     */
+    public int getDocumentCount(SortableBundleItem item) {
+        Node node = nodes.get(item);
+        return node == null ? 0 : node.documentCount();
+    }
+}
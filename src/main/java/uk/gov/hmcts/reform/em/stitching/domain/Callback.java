@@ -15,6 +15,7 @@ import lombok.Setter;
 import uk.gov.hmcts.reform.em.stitching.domain.enumeration.CallbackState;
 
 import java.io.Serializable;
+import java.time.Instant;
 import java.util.Objects;
 
 /**
@@ -47,6 +48,12 @@ public class Callback extends AbstractAuditingEntity implements Serializable {
     @Setter
     private int attempts;
 
+    // Set while a delivery is in flight or waiting to be retried; the callback is not sent again before then.
+    @Getter
+    @Setter
+    @Column(name = "next_attempt_at")
+    private Instant nextAttemptAt;
+
     public Long getId() {
         return id;
     }
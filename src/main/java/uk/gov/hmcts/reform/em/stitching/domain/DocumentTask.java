@@ -12,9 +12,11 @@ import jakarta.persistence.OneToOne;
 import jakarta.persistence.Table;
 import lombok.Getter;
 import lombok.Setter;
+import uk.gov.hmcts.reform.em.stitching.domain.enumeration.TaskPriority;
 import uk.gov.hmcts.reform.em.stitching.domain.enumeration.TaskState;
 
 import java.io.Serializable;
+import java.time.Instant;
 import java.util.Objects;
 
 /**
@@ -63,6 +65,33 @@ public class DocumentTask extends AbstractAuditingEntity implements Serializable
     @Setter
     private int retryAttempts;
 
+    @Getter
+    @Setter
+    @Enumerated(EnumType.STRING)
+    @Column(name = "priority")
+    private TaskPriority priority = TaskPriority.NORMAL;
+
+    /**
+     * Roughly how many pages the stitched bundle will have, used to decide which NEW task to start next.
+     */
+    @Getter
+    @Setter
+    @Column(name = "estimated_pages")
+    private int estimatedPages;
+
+    /**
+     * The worker holding the lease on this task while it is IN_PROGRESS, and when it last renewed it.
+     */
+    @Getter
+    @Setter
+    @Column(name = "worker_id")
+    private String workerId;
+
+    @Getter
+    @Setter
+    @Column(name = "heartbeat_at")
+    private Instant heartbeatAt;
+
     private int version;
 
     public DocumentTask() {
@@ -0,0 +1,114 @@
+package uk.gov.hmcts.reform.em.stitching.domain;
+
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records where each folder coversheet and document was placed in a stitched bundle, so that a later
+ * re-stitch of the same bundle can keep the pages of the documents that have not changed.
+ */
+public class StitchManifest implements Serializable {
+
+    private String layout;
+    private String coverPageSha256;
+    private int coverPages;
+    private int tableOfContentsPages;
+    private String outputSha256;
+    private List<Segment> segments = new ArrayList<>();
+
+    /**
+     * The bundle settings that change how a document's pages are drawn. Pages can only be reused
+     * between stitches with the same layout.
+     */
+    public static String layoutOf(Bundle bundle) {
+        return String.join(",",
+            "toc=" + bundle.hasTableOfContents(),
+            "coversheets=" + bundle.hasCoversheets(),
+            "folderCoversheets=" + bundle.hasFolderCoversheets(),
+            "pagination=" + bundle.getPaginationStyle(),
+            "pageNumberFormat=" + bundle.getPageNumberFormat());
+    }
+
+    /**
+     * The layout of a bundle whose documents are watermarked while they are merged. Their hashes are taken
+     * before the watermark is drawn, so the watermark is part of the layout instead.
+     */
+    public static String layoutOf(Bundle bundle, String watermarkSha256) {
+        return watermarkSha256 == null ? layoutOf(bundle) : layoutOf(bundle) + ",watermark=" + watermarkSha256;
+    }
+
+    /**
+     * Whether this manifest was stitched with the settings of the bundle, whatever watermark was drawn while
+     * merging. The merge itself checks the watermark before it reuses any pages.
+     */
+    public boolean matchesLayoutOf(Bundle bundle) {
+        String bundleLayout = layoutOf(bundle);
+        return bundleLayout.equals(layout) || layout != null && layout.startsWith(bundleLayout + ",watermark=");
+    }
+
+    public static String sha256(File file) throws IOException {
+        return Files.asByteSource(file).hash(Hashing.sha256()).toString();
+    }
+
+    public String getLayout() {
+        return layout;
+    }
+
+    public void setLayout(String layout) {
+        this.layout = layout;
+    }
+
+    public String getCoverPageSha256() {
+        return coverPageSha256;
+    }
+
+    public void setCoverPageSha256(String coverPageSha256) {
+        this.coverPageSha256 = coverPageSha256;
+    }
+
+    public int getCoverPages() {
+        return coverPages;
+    }
+
+    public void setCoverPages(int coverPages) {
+        this.coverPages = coverPages;
+    }
+
+    public int getTableOfContentsPages() {
+        return tableOfContentsPages;
+    }
+
+    public void setTableOfContentsPages(int tableOfContentsPages) {
+        this.tableOfContentsPages = tableOfContentsPages;
+    }
+
+    public String getOutputSha256() {
+        return outputSha256;
+    }
+
+    public void setOutputSha256(String outputSha256) {
+        this.outputSha256 = outputSha256;
+    }
+
+    public List<Segment> getSegments() {
+        return segments;
+    }
+
+    public void setSegments(List<Segment> segments) {
+        this.segments = segments;
+    }
+
+    /**
+     * A run of pages in the stitched document: a folder coversheet, or a document together with its
+     * coversheet. Documents are identified by the SHA-256 of the PDF that was appended.
+     */
+    public record Segment(BundleItemType type, String title, String documentURI, String sha256,
+                          int firstPage, int pageCount) implements Serializable {
+    }
+}
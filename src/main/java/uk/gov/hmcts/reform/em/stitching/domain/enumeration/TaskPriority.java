@@ -0,0 +1,9 @@
+package uk.gov.hmcts.reform.em.stitching.domain.enumeration;
+
+/**
+ * The TaskPriority enumeration. NEW tasks of a higher priority are always started before those of a
+ * lower one.
+ */
+public enum TaskPriority {
+    HIGH, NORMAL, LOW
+}
@@ -0,0 +1,28 @@
+package uk.gov.hmcts.reform.em.stitching.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+import uk.gov.hmcts.reform.em.stitching.repository.DocumentTaskRepository;
+
+/**
+ * Publishes the number of DocumentTasks waiting to be claimed. The count is read from the database each
+ * time the gauge is scraped, so it covers the tasks of every node.
+ */
+@Component
+public class DocumentTaskQueueMetrics implements MeterBinder {
+
+    private final DocumentTaskRepository documentTaskRepository;
+
+    public DocumentTaskQueueMetrics(DocumentTaskRepository documentTaskRepository) {
+        this.documentTaskRepository = documentTaskRepository;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        Gauge.builder("stitching.tasks.new", documentTaskRepository, DocumentTaskRepository::countNewTasks)
+            .description("DocumentTasks waiting to be claimed")
+            .register(meterRegistry);
+    }
+}
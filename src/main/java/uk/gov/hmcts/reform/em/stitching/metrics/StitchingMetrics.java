@@ -0,0 +1,154 @@
+package uk.gov.hmcts.reform.em.stitching.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Meters for each stage of stitching a bundle, published on the Prometheus endpoint. Stages that run per
+ * document are recorded once per document, the rest once per DocumentTask.
+ */
+@Component
+public class StitchingMetrics {
+
+    public static final String DM_STORE = "dm-store";
+    public static final String CDAM = "cdam";
+
+    public static final String CALLBACK_SUCCESS = "success";
+    public static final String CALLBACK_FAILURE = "failure";
+    public static final String CALLBACK_ERROR = "error";
+
+    private static final String SOURCE = "source";
+    private static final String TARGET = "target";
+    private static final String BYTES = "bytes";
+
+    private final MeterRegistry meterRegistry;
+    private final Timer conversionQueueTimer;
+    private final Timer conversionServiceTimer;
+    private final Timer watermarkTimer;
+    private final Timer mergeTimer;
+    private final DistributionSummary mergeThroughput;
+    private final Timer tableOfContentsTimer;
+    private final Timer taskAgeAtClaim;
+
+    public StitchingMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.conversionQueueTimer = Timer.builder("stitching.conversion.queue")
+            .description("Time a document waited for a conversion thread")
+            .register(meterRegistry);
+        this.conversionServiceTimer = Timer.builder("stitching.conversion.service")
+            .description("Time a document held a conversion thread, including any retries")
+            .register(meterRegistry);
+        this.watermarkTimer = Timer.builder("stitching.watermark")
+            .description("Time to watermark a converted document")
+            .register(meterRegistry);
+        this.mergeTimer = Timer.builder("stitching.merge")
+            .description("Time to merge a bundle, including waiting for documents still being prepared")
+            .register(meterRegistry);
+        this.mergeThroughput = DistributionSummary.builder("stitching.merge.throughput")
+            .description("Pages of the stitched document merged per second")
+            .baseUnit("pages")
+            .register(meterRegistry);
+        this.tableOfContentsTimer = Timer.builder("stitching.toc.build")
+            .description("Time to lay out the table of contents of a bundle")
+            .register(meterRegistry);
+        this.taskAgeAtClaim = Timer.builder("stitching.task.age")
+            .description("Time a DocumentTask waited between being created and being claimed by a worker")
+            .register(meterRegistry);
+    }
+
+    public void recordDownload(String source, long nanos, File file) {
+        Timer.builder("stitching.download")
+            .description("Time to download a document")
+            .tag(SOURCE, source)
+            .register(meterRegistry)
+            .record(nanos, TimeUnit.NANOSECONDS);
+        if (Objects.nonNull(file)) {
+            DistributionSummary.builder("stitching.download.size")
+                .description("Size of a downloaded document")
+                .baseUnit(BYTES)
+                .tag(SOURCE, source)
+                .register(meterRegistry)
+                .record(file.length());
+        }
+    }
+
+    public void recordConversion(String converter, String mimeType, long nanos) {
+        Timer.builder("stitching.conversion")
+            .description("Time to convert a document to PDF")
+            .tag("converter", converter)
+            .tag("mime.type", mimeType)
+            .register(meterRegistry)
+            .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordConversionQueueWait(long nanos) {
+        conversionQueueTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordConversionService(long nanos) {
+        conversionServiceTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordDocmosisRetry(int status) {
+        Counter.builder("stitching.docmosis.retries")
+            .description("Docmosis conversions retried after being throttled or failing")
+            .tag("status", String.valueOf(status))
+            .register(meterRegistry)
+            .increment();
+    }
+
+    public <T> T timeWatermark(Supplier<T> watermark) {
+        return watermarkTimer.record(watermark);
+    }
+
+    public void recordMerge(long nanos, int pages) {
+        mergeTimer.record(nanos, TimeUnit.NANOSECONDS);
+        if (nanos > 0) {
+            mergeThroughput.record(pages * (double) TimeUnit.SECONDS.toNanos(1) / nanos);
+        }
+    }
+
+    public void recordTableOfContents(long nanos) {
+        tableOfContentsTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordUpload(String target, long nanos, File file) {
+        Timer.builder("stitching.upload")
+            .description("Time to upload a stitched document")
+            .tag(TARGET, target)
+            .register(meterRegistry)
+            .record(nanos, TimeUnit.NANOSECONDS);
+        if (Objects.nonNull(file)) {
+            DistributionSummary.builder("stitching.upload.size")
+                .description("Size of an uploaded stitched document")
+                .baseUnit(BYTES)
+                .tag(TARGET, target)
+                .register(meterRegistry)
+                .record(file.length());
+        }
+    }
+
+    public void recordCallback(String outcome, long nanos) {
+        Timer.builder("stitching.callback")
+            .description("Time to deliver the completion callback of a DocumentTask")
+            .tag("outcome", outcome)
+            .register(meterRegistry)
+            .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordTaskClaimed(Instant createdDate) {
+        if (Objects.nonNull(createdDate)) {
+            taskAgeAtClaim.record(Duration.between(createdDate, Instant.now()));
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package uk.gov.hmcts.reform.em.stitching.pdf;
+
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.apache.pdfbox.pdmodel.font.encoding.WinAnsiEncoding;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Glyph widths of a standard 14 font, read once from the font and shared by every stitch. Measuring text
+ * against the table gives the same widths as PDFont.getStringWidth on the sanitized text, without
+ * sanitizing or encoding it first, so laying out a table of contents needs no font instance at all.
+ */
+final class FontMetrics implements LineBreaker.TextWidth {
+
+    private static final Map<Standard14Fonts.FontName, FontMetrics> STANDARD_14 = new ConcurrentHashMap<>();
+
+    static final FontMetrics HELVETICA = of(Standard14Fonts.FontName.HELVETICA);
+    static final FontMetrics HELVETICA_BOLD = of(Standard14Fonts.FontName.HELVETICA_BOLD);
+
+    // Characters outside WinAnsiEncoding are removed by PDFUtility.sanitizeText, so they have no width.
+    private static final int ENCODED_CHARACTERS = 256;
+
+    private final String fontName;
+    private final float[] widths = new float[ENCODED_CHARACTERS];
+    private final boolean[] missingGlyphs = new boolean[ENCODED_CHARACTERS];
+
+    private FontMetrics(Standard14Fonts.FontName fontName) {
+        PDType1Font font = new PDType1Font(fontName);
+        this.fontName = fontName.getName();
+        for (char character = 0; character < ENCODED_CHARACTERS; character++) {
+            if (!WinAnsiEncoding.INSTANCE.contains(character)) {
+                continue;
+            }
+            try {
+                widths[character] = font.getStringWidth(String.valueOf(character));
+            } catch (IllegalArgumentException e) {
+                missingGlyphs[character] = true;
+            } catch (IOException e) {
+                widths[character] = 0;
+            }
+        }
+    }
+
+    static FontMetrics of(Standard14Fonts.FontName fontName) {
+        return STANDARD_14.computeIfAbsent(fontName, FontMetrics::new);
+    }
+
+    /**
+     * The shared metrics of a standard 14 font created by this service, or null for any other font, whose
+     * widths have to be read from the font itself.
+     */
+    static FontMetrics forFont(PDFont font) {
+        if (font.getClass() != PDType1Font.class || !font.isStandard14()) {
+            return null;
+        }
+        for (Standard14Fonts.FontName name : Standard14Fonts.FontName.values()) {
+            if (name.getName().equals(font.getName())) {
+                return of(name);
+            }
+        }
+        return null;
+    }
+
+    float getStringWidth(String text, float fontSize) {
+        return width(text, 0, text.length(), fontSize);
+    }
+
+    @Override
+    public float width(String text, int start, int end, float fontSize) {
+        float width = 0;
+        for (int i = start; i < end; i++) {
+            char character = text.charAt(i);
+            if (character >= ENCODED_CHARACTERS) {
+                continue;
+            }
+            if (missingGlyphs[character]) {
+                throw new IllegalArgumentException(String.format(
+                    "No glyph for U+%04X in font %s", (int) character, fontName));
+            }
+            width += widths[character];
+        }
+        return width / 1000 * fontSize;
+    }
+
+    int countLines(String text, int lineWidth, float fontSize) {
+        return LineBreaker.countLines(text, lineWidth, fontSize, this);
+    }
+
+    String[] splitLines(String text, int lineWidth, float fontSize) {
+        return LineBreaker.splitLines(text, lineWidth, fontSize, this);
+    }
+}
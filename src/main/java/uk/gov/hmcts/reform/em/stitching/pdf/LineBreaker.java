@@ -0,0 +1,103 @@
+package uk.gov.hmcts.reform.em.stitching.pdf;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.util.StringUtils.hasLength;
+
+/**
+ * Breaks text into lines of at most a given width, one space-separated word at a time. pdfBox doesn't
+ * support line breaks, so every piece of wrapped text in a stitched document is laid out here.
+ * Counting lines walks the text in place, so the table of contents can size itself without building
+ * the lines it will later draw.
+ */
+final class LineBreaker {
+
+    private static final Logger log = LoggerFactory.getLogger(LineBreaker.class);
+
+    /**
+     * Width in points of the characters of text from start to end, in the given font size. Throws
+     * IllegalArgumentException when the font cannot show one of them.
+     */
+    @FunctionalInterface
+    interface TextWidth {
+        float width(String text, int start, int end, float fontSize);
+    }
+
+    private LineBreaker() {
+
+    }
+
+    static int countLines(String text, int lineWidth, float fontSize, TextWidth textWidth) {
+        return breakLines(text, lineWidth, fontSize, textWidth, null);
+    }
+
+    static String[] splitLines(String text, int lineWidth, float fontSize, TextWidth textWidth) {
+        List<String> lines = new ArrayList<>();
+        breakLines(text, lineWidth, fontSize, textWidth, lines);
+        return lines.toArray(new String[0]);
+    }
+
+    /**
+     * Words are added to the current line until the next one would overflow it, and each word is
+     * followed by a one point space. A word wider than a whole line gets a line to itself. Words the
+     * font cannot show are left out, and trailing spaces are ignored.
+     */
+    private static int breakLines(String text, int lineWidth, float fontSize, TextWidth textWidth,
+                                  List<String> lines) {
+        if (!hasLength(text)) {
+            return 0;
+        }
+        int end = text.length();
+        while (end > 0 && text.charAt(end - 1) == ' ') {
+            end--;
+        }
+        if (end == 0) {
+            return 0;
+        }
+
+        StringBuilder line = lines == null ? null : new StringBuilder();
+        int numberOfLines = 0;
+        boolean lineStarted = false;
+        float currentLineWidth = 0;
+        int wordStart = 0;
+        while (wordStart <= end) {
+            int wordEnd = text.indexOf(' ', wordStart);
+            if (wordEnd < 0 || wordEnd > end) {
+                wordEnd = end;
+            }
+            try {
+                float wordWidth = textWidth.width(text, wordStart, wordEnd, fontSize);
+                if (lineStarted && currentLineWidth + wordWidth > lineWidth) {
+                    numberOfLines++;
+                    endLine(line, lines);
+                    currentLineWidth = 0;
+                }
+                if (line != null) {
+                    line.append(text, wordStart, wordEnd).append(' ');
+                }
+                currentLineWidth += wordWidth;
+                currentLineWidth++;
+                lineStarted = true;
+            } catch (IllegalArgumentException illegalArgumentException) {
+                log.info("actual word :{} and text is :{} ", text.substring(wordStart, wordEnd), text);
+            }
+            wordStart = wordEnd + 1;
+        }
+        if (lineStarted) {
+            numberOfLines++;
+            endLine(line, lines);
+        }
+        return numberOfLines;
+    }
+
+    private static void endLine(StringBuilder line, List<String> lines) {
+        if (line != null) {
+            lines.add(line.substring(0, line.length() - 1));
+            line.setLength(0);
+        }
+    }
+}
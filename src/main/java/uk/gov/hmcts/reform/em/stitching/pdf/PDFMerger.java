@@ -1,6 +1,14 @@
 package uk.gov.hmcts.reform.em.stitching.pdf;
 
 import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSNull;
+import org.apache.pdfbox.cos.COSObject;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.io.IOUtils;
 import org.apache.pdfbox.multipdf.PDFMergerUtility;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDDocumentCatalog;
@@ -8,86 +16,294 @@ import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.documentinterchange.logicalstructure.PDStructureTreeRoot;
 import org.apache.pdfbox.pdmodel.font.PDType1Font;
 import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.apache.pdfbox.pdmodel.interactive.action.PDActionGoTo;
 import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDDocumentOutline;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDOutlineItem;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import uk.gov.hmcts.reform.em.stitching.domain.Bundle;
 import uk.gov.hmcts.reform.em.stitching.domain.BundleDocument;
 import uk.gov.hmcts.reform.em.stitching.domain.BundleItemType;
+import uk.gov.hmcts.reform.em.stitching.domain.BundleLayout;
 import uk.gov.hmcts.reform.em.stitching.domain.SortableBundleItem;
+import uk.gov.hmcts.reform.em.stitching.domain.StitchManifest;
 import uk.gov.hmcts.reform.em.stitching.domain.enumeration.PaginationStyle;
+import uk.gov.hmcts.reform.em.stitching.metrics.StitchingMetrics;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
 
 import static uk.gov.hmcts.reform.em.stitching.pdf.PDFUtility.addCenterText;
-import static uk.gov.hmcts.reform.em.stitching.pdf.PDFUtility.addPageNumbers;
 import static uk.gov.hmcts.reform.em.stitching.pdf.PDFUtility.addRightLink;
 
 @Service
 public class PDFMerger {
     public static final String INDEX_PAGE = "Index Page";
+    private final Logger log = LoggerFactory.getLogger(PDFMerger.class);
+
+    /**
+     * When enabled, the stitched document buffers page content in a temp-file backed stream cache and each
+     * source document is closed as soon as it has been appended, so peak heap no longer grows with the bundle.
+     */
+    @Value("${pdf-merge.streaming}")
+    boolean streaming;
+
+    /**
+     * When enabled, a manifest of the pages each document occupies is recorded on the bundle so that its next
+     * re-stitch can keep the pages of the documents that have not changed.
+     */
+    @Value("${incremental-stitch.enabled}")
+    boolean incrementalStitch;
+
+    /**
+     * When enabled, the bundle watermark is drawn onto each document's pages in the stitched document, rather
+     * than overlaid onto every document file before the merge.
+     */
+    @Value("${pdf-merge.watermark-during-merge}")
+    boolean watermarkDuringMerge;
+
+    private final StitchingMetrics stitchingMetrics;
+
+    public PDFMerger(StitchingMetrics stitchingMetrics) {
+        this.stitchingMetrics = stitchingMetrics;
+    }
 
     public File merge(Bundle bundle, Map<BundleDocument, File> documents, File coverPage) throws IOException {
-        StatefulPDFMerger statefulPDFMerger = new StatefulPDFMerger(documents, bundle, coverPage);
+        Map<BundleDocument, CompletableFuture<File>> readyDocuments = new HashMap<>();
+        documents.forEach((bundleDocument, file) ->
+            readyDocuments.put(bundleDocument, CompletableFuture.completedFuture(file)));
+
+        return mergeWhenReady(bundle, readyDocuments, coverPage);
+    }
+
+    /**
+     * Appends documents in sort order as soon as each one is ready, so stitching can begin while later
+     * documents are still being downloaded or converted. A document whose future completes with null is
+     * left out of the bundle. The table of contents is laid out as each document is appended, taking its
+     * subtitles from the document already open for the merge, and drawn once they all have been.
+     */
+    public File mergeWhenReady(Bundle bundle, Map<BundleDocument, CompletableFuture<File>> documents,
+                               File coverPage) throws IOException {
+        return mergeWhenReady(bundle, documents, coverPage, null);
+    }
+
+    /**
+     * Merges as above, but starts from the previous stitch of the bundle when one is given. The leading
+     * folder coversheets and documents that are unchanged since then keep their pages from the previous
+     * output, and only the table of contents, the outline and the pages after the first change are rebuilt.
+     * The previous stitch is ignored if the bundle's layout, cover page or table of contents length has
+     * changed, or if the bundle has document subtitles.
+     */
+    public File mergeWhenReady(Bundle bundle, Map<BundleDocument, CompletableFuture<File>> documents,
+                               File coverPage, PreviousStitch previousStitch) throws IOException {
+        return mergeWhenReady(bundle, documents, coverPage, previousStitch, null);
+    }
+
+    /**
+     * Merges as above, drawing the watermark onto the pages of every document as they are merged when one is
+     * given. The watermark is shared by all pages, and no document is rewritten before it is merged.
+     */
+    public File mergeWhenReady(Bundle bundle, Map<BundleDocument, CompletableFuture<File>> documents,
+                               File coverPage, PreviousStitch previousStitch, WatermarkTemplate watermark)
+            throws IOException {
+        long start = System.nanoTime();
+        StatefulPDFMerger statefulPDFMerger = new StatefulPDFMerger(documents, bundle, coverPage, streaming,
+            incrementalStitch, previousStitch, watermark, stitchingMetrics);
+
+        File file = statefulPDFMerger.merge();
+        if (file == null) {
+            log.info("Index of bundle {} no longer fits the pages of its previous stitch, stitching in full",
+                bundle.getId());
+            statefulPDFMerger = new StatefulPDFMerger(documents, bundle, coverPage, streaming,
+                incrementalStitch, null, watermark, stitchingMetrics);
+            file = statefulPDFMerger.merge();
+        }
+        stitchingMetrics.recordMerge(System.nanoTime() - start, statefulPDFMerger.currentPageNumber);
+        if (incrementalStitch) {
+            bundle.setStitchManifest(statefulPDFMerger.manifest);
+        }
+        return file;
+    }
 
-        return statefulPDFMerger.merge();
+    public boolean isWatermarkDuringMerge() {
+        return watermarkDuringMerge;
     }
 
     private static class StatefulPDFMerger {
         private final Logger log = LoggerFactory.getLogger(StatefulPDFMerger.class);
         private final PDFMergerUtility merger = new PDFMergerUtility();
-        private final PDDocument document = new PDDocument();
+        private final PDDocument document;
+        private final boolean streaming;
         private final PDFOutline pdfOutline;
         private TableOfContents tableOfContents;
-        private final Map<BundleDocument, File> documents;
+        private final Map<BundleDocument, CompletableFuture<File>> pendingDocuments;
         private final Bundle bundle;
+        // The order of the bundle's items, worked out once and shared by the merge, index and outline.
+        private final BundleLayout layout;
         private static final String BACK_TO_TOP = "Back to index";
+        private static final Set<COSName> OUTLINE_LINKS = Set.of(
+            COSName.PARENT, COSName.PREV, COSName.NEXT, COSName.FIRST, COSName.LAST, COSName.DEST);
         private int currentPageNumber = 0;
+        private final PDType1Font backToTopFont = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
         private final File coverPage;
         private TreeNode<SortableBundleItem> treeRoot;
-        // Keep docs open until merged file saved.
+        // Keep docs open until merged file saved, unless streaming.
         private List<PDDocument> openDocs = new ArrayList<>();
+        private final StitchManifest manifest;
+        private final String coverPageSha256;
+        private final PreviousStitch previousStitch;
+        // Set while the pages of the previous stitch still match the bundle being stitched.
+        private boolean reusing;
+        private int reusedSegments = 0;
+        private final StitchingMetrics stitchingMetrics;
+        // Pages are numbered once the table of contents is drawn, as any pages it inserts move them back.
+        private final List<PageRange> pagesToNumber = new ArrayList<>();
+        private final WatermarkTemplate.Stamper watermarkStamper;
+        // Only documents are watermarked, and like page numbers the stamps wait for the table of contents.
+        private final List<PageRange> pagesToWatermark = new ArrayList<>();
+        private final String manifestLayout;
+        // A document filed more than once shares one file, which is parsed and hashed once for every use.
+        private final Map<String, Integer> remainingUses = new HashMap<>();
+        private final Map<File, PDDocument> sharedSources = new HashMap<>();
+        private final Map<File, String> sourceSha256s = new HashMap<>();
+
+        private record PageRange(int start, int end) {
+        }
 
-        private StatefulPDFMerger(Map<BundleDocument, File> documents, Bundle bundle, File coverPage) {
-            this.documents = documents;
+        private StatefulPDFMerger(Map<BundleDocument, CompletableFuture<File>> pendingDocuments, Bundle bundle,
+                                  File coverPage, boolean streaming, boolean recordManifest,
+                                  PreviousStitch previousStitch, WatermarkTemplate watermark,
+                                  StitchingMetrics stitchingMetrics) throws IOException {
+            this.pendingDocuments = pendingDocuments;
+            this.stitchingMetrics = stitchingMetrics;
             this.bundle = bundle;
+            this.layout = BundleLayout.of(bundle);
             this.coverPage = coverPage;
-            this.treeRoot = createOutline(bundle);
+            this.streaming = streaming;
+            this.manifest = recordManifest ? new StitchManifest() : null;
+            this.coverPageSha256 = coverPage != null && (recordManifest || previousStitch != null)
+                ? StitchManifest.sha256(coverPage) : null;
+            this.previousStitch = previousStitch;
+            this.manifestLayout = StitchManifest.layoutOf(bundle, watermark != null ? watermark.getSha256() : null);
+            this.reusing = canReuse(previousStitch);
+            if (reusing) {
+                this.document = streaming
+                    ? Loader.loadPDF(previousStitch.file(), IOUtils.createTempFileOnlyStreamCache())
+                    : Loader.loadPDF(previousStitch.file());
+            } else {
+                this.document = streaming ? new PDDocument(IOUtils.createTempFileOnlyStreamCache()) : new PDDocument();
+            }
+            this.treeRoot = createOutline();
+            this.watermarkStamper = watermark != null ? watermark.stamperFor(document) : null;
 
             this.pdfOutline = new PDFOutline(document, treeRoot);
 
+            for (BundleDocument bundleDocument : layout.getDocuments()) {
+                if (bundleDocument.getDocumentURI() != null && pendingDocuments.containsKey(bundleDocument)) {
+                    remainingUses.merge(bundleDocument.getDocumentURI(), 1, Integer::sum);
+                }
+            }
+        }
+
+        private boolean canReuse(PreviousStitch previousStitch) {
+            if (previousStitch == null || bundle.getHasDocumentSubtitles()) {
+                return false;
+            }
+            StitchManifest previousManifest = previousStitch.manifest();
+            int tableOfContentsPages = bundle.hasTableOfContents()
+                ? TableOfContents.getNumberPages(layout) : 0;
+            return manifestLayout.equals(previousManifest.getLayout())
+                && Objects.equals(coverPageSha256, previousManifest.getCoverPageSha256())
+                && tableOfContentsPages == previousManifest.getTableOfContentsPages();
         }
 
+        /**
+         * Returns null, without saving anything, when the index has outgrown the pages kept from the previous
+         * stitch, so the bundle can be stitched again in full.
+         */
         private File merge() throws IOException {
             try {
                 pdfOutline.addBundleItem(bundle);
 
                 if (coverPage != null) {
-                    PDDocument coverPageDocument = Loader.loadPDF(coverPage);
-                    openDocs.add(coverPageDocument);
-                    coverPageDocument.getDocumentCatalog().setDocumentOutline(null);
-                    merger.appendDocument(document, coverPageDocument);
-                    currentPageNumber += coverPageDocument.getNumberOfPages();
+                    if (reusing) {
+                        currentPageNumber += previousStitch.manifest().getCoverPages();
+                    } else {
+                        PDDocument coverPageDocument = Loader.loadPDF(coverPage);
+                        openDocs.add(coverPageDocument);
+                        coverPageDocument.getDocumentCatalog().setDocumentOutline(null);
+                        merger.appendDocument(document, coverPageDocument);
+                        currentPageNumber += coverPageDocument.getNumberOfPages();
+                        releaseSource(coverPageDocument);
+                    }
                     pdfOutline.addItem(0, "Cover Page");
                 }
+                final int coverPages = currentPageNumber;
 
+                long tableOfContentsNanos = 0;
                 if (bundle.hasTableOfContents()) {
-                    this.tableOfContents = new TableOfContents(document, bundle, documents);
+                    long tableOfContentsStart = System.nanoTime();
+                    this.tableOfContents = reusing
+                        ? new TableOfContents(document, layout, previousTableOfContentsPages())
+                        : new TableOfContents(document, layout);
+                    tableOfContentsNanos = System.nanoTime() - tableOfContentsStart;
                     pdfOutline.addItem(currentPageNumber, INDEX_PAGE);
                     currentPageNumber += tableOfContents.getNumberPages();
                 }
 
+                if (manifest != null) {
+                    manifest.setLayout(manifestLayout);
+                    manifest.setCoverPageSha256(coverPageSha256);
+                    manifest.setCoverPages(coverPages);
+                    manifest.setTableOfContentsPages(currentPageNumber - coverPages);
+                }
+
                 addContainer(bundle);
+                stopReusing();
+                if (tableOfContents != null && tableOfContents.overflowsExistingPages()) {
+                    return null;
+                }
+
+                int insertedPages = 0;
+                if (tableOfContents != null) {
+                    long drawStart = System.nanoTime();
+                    insertedPages = tableOfContents.draw();
+                    stitchingMetrics.recordTableOfContents(tableOfContentsNanos + System.nanoTime() - drawStart);
+                    moveBack(insertedPages);
+                }
+                if (watermarkStamper != null) {
+                    for (PageRange pageRange : pagesToWatermark) {
+                        watermarkStamper.addDocumentPages(
+                            pageRange.start() + insertedPages, pageRange.end() + insertedPages);
+                    }
+                    watermarkStamper.stamp();
+                }
+                PageNumberStamper pageNumberStamper = new PageNumberStamper(document, bundle.getPaginationStyle());
+                for (PageRange pageRange : pagesToNumber) {
+                    pageNumberStamper.addPages(pageRange.start() + insertedPages, pageRange.end() + insertedPages);
+                }
+                pageNumberStamper.stamp();
 
                 pdfOutline.setRootOutlineItemDest();
 
                 final File file = File.createTempFile("stitched", ".pdf");
                 document.save(file);
+                if (manifest != null) {
+                    manifest.setOutputSha256(StitchManifest.sha256(file));
+                }
                 return file;
             } finally {
                 openDocs.stream().forEach(newDoc -> {
@@ -102,25 +318,43 @@ public class PDFMerger {
         }
 
         private void addContainer(SortableBundleItem container) throws IOException {
-            for (SortableBundleItem item : container.getSortedItems().toList()) {
-                if (item.getSortedItems().findAny().isPresent()) {
-                    if (bundle.hasFolderCoversheets()) {
+            for (SortableBundleItem item : layout.getChildren(container)) {
+                if (layout.isFolder(item)) {
+                    if (bundle.hasFolderCoversheets() && !reuseFolderCoversheet(item)) {
+                        int firstPage = currentPageNumber;
                         addCoversheet(item);
+                        recordSegment(BundleItemType.FOLDER, item, null, firstPage);
                     }
                     addContainer(item);
-                } else if (documents.containsKey(item)) {
+                } else if (pendingDocuments.containsKey(item)) {
+                    File srcFile = awaitDocument(item);
+                    if (srcFile == null) {
+                        continue;
+                    }
+                    boolean usedAgain = isUsedAgain(item);
+                    String sha256 = manifest != null || reusing ? sha256(srcFile) : null;
+                    if (reuseDocument(item, sha256)) {
+                        if (!usedAgain) {
+                            releaseShared(srcFile);
+                        }
+                        continue;
+                    }
+                    int firstPage = currentPageNumber;
                     if (bundle.hasCoversheets()) {
                         addCoversheet(item);
                     }
 
                     try {
-                        File srcFile = documents.get(item);
                         log.debug("Processing PDF, docTitle:{}, filename:{}", item.getTitle(), srcFile.getName());
-                        PDDocument newDoc = Loader.loadPDF(srcFile);
-                        openDocs.add(newDoc);
+                        PDDocument newDoc = loadSource(srcFile, usedAgain);
                         addDocument(item, newDoc);
+                        if (sharedSources.get(srcFile) != newDoc) {
+                            releaseSource(newDoc);
+                        } else if (!usedAgain) {
+                            releaseShared(srcFile);
+                        }
                     } catch (Exception e) {
-                        String filename = documents.get(item).getName();
+                        String filename = srcFile.getName();
                         String docTitle = item.getTitle();
                         String error =
                                 String.format(
@@ -130,6 +364,7 @@ public class PDFMerger {
                                 );
                         throw new IOException(error);
                     }
+                    recordSegment(BundleItemType.DOCUMENT, item, sha256, firstPage);
                 }
             }
 
@@ -138,12 +373,192 @@ public class PDFMerger {
             }
         }
 
+        private boolean isUsedAgain(SortableBundleItem item) {
+            String uri = documentURI(item);
+            return uri != null && remainingUses.merge(uri, -1, Integer::sum) > 0;
+        }
+
+        private String sha256(File srcFile) throws IOException {
+            String sha256 = sourceSha256s.get(srcFile);
+            if (sha256 == null) {
+                sha256 = StitchManifest.sha256(srcFile);
+                sourceSha256s.put(srcFile, sha256);
+            }
+            return sha256;
+        }
+
+        /**
+         * Loads a source document, or returns the one already loaded for an earlier use of the same file. A
+         * source is only kept for its later uses when it has no outline, as appending a document takes its
+         * outline away from it.
+         */
+        private PDDocument loadSource(File srcFile, boolean usedAgain) throws IOException {
+            PDDocument shared = sharedSources.get(srcFile);
+            if (shared != null) {
+                return shared;
+            }
+            PDDocument source = Loader.loadPDF(srcFile);
+            openDocs.add(source);
+            if (usedAgain && source.getDocumentCatalog().getDocumentOutline() == null) {
+                sharedSources.put(srcFile, source);
+            }
+            return source;
+        }
+
+        private void releaseShared(File srcFile) {
+            PDDocument shared = sharedSources.remove(srcFile);
+            if (shared != null) {
+                releaseSource(shared);
+            }
+        }
+
+        private List<PDPage> previousTableOfContentsPages() {
+            List<PDPage> pages = new ArrayList<>();
+            for (int i = 0; i < previousStitch.manifest().getTableOfContentsPages(); i++) {
+                pages.add(document.getPage(currentPageNumber + i));
+            }
+            return pages;
+        }
+
+        /**
+         * Keeps the coversheet of a folder unchanged since the previous stitch. Its "Back to index" link
+         * still points at the right table of contents page, as the index is redrawn identically up to here.
+         */
+        private boolean reuseFolderCoversheet(SortableBundleItem item) throws IOException {
+            StitchManifest.Segment segment = nextReusableSegment(BundleItemType.FOLDER, item, null);
+            if (segment == null) {
+                return false;
+            }
+            if (tableOfContents != null) {
+                tableOfContents.addFolder(item.getTitle(), currentPageNumber);
+            }
+            pdfOutline.addItem(item, currentPageNumber);
+            currentPageNumber += segment.pageCount();
+            keepSegment(segment);
+            return true;
+        }
+
+        /**
+         * Keeps the pages of a document unchanged since the previous stitch, adding only its index entry
+         * and outline item. The pages were numbered when they were first appended.
+         */
+        private boolean reuseDocument(SortableBundleItem item, String sha256) throws IOException {
+            StitchManifest.Segment segment = nextReusableSegment(BundleItemType.DOCUMENT, item, sha256);
+            if (segment == null) {
+                return false;
+            }
+            int documentPages = segment.pageCount();
+            if (bundle.hasCoversheets()) {
+                pdfOutline.addItem(item, currentPageNumber);
+                currentPageNumber++;
+                documentPages--;
+            }
+            if (tableOfContents != null) {
+                tableOfContents.addDocument(item.getTitle(), currentPageNumber, documentPages);
+            }
+            if (!bundle.hasCoversheets()) {
+                pdfOutline.addItem(item, currentPageNumber);
+            }
+            currentPageNumber += documentPages;
+            keepSegment(segment);
+            return true;
+        }
+
+        private StitchManifest.Segment nextReusableSegment(BundleItemType type, SortableBundleItem item,
+                                                           String sha256) {
+            if (!reusing) {
+                return null;
+            }
+            List<StitchManifest.Segment> segments = previousStitch.manifest().getSegments();
+            if (reusedSegments < segments.size()) {
+                StitchManifest.Segment segment = segments.get(reusedSegments);
+                if (segment.type() == type
+                    && segment.firstPage() == currentPageNumber
+                    && Objects.equals(segment.title(), item.getTitle())
+                    && Objects.equals(segment.documentURI(), documentURI(item))
+                    && Objects.equals(segment.sha256(), sha256)) {
+                    reusedSegments++;
+                    return segment;
+                }
+            }
+            stopReusing();
+            return null;
+        }
+
+        /**
+         * Drops the pages of the previous stitch from the first change onwards, so the rest of the bundle
+         * is appended as usual.
+         */
+        private void stopReusing() {
+            if (!reusing) {
+                return;
+            }
+            reusing = false;
+            int previousPages = document.getNumberOfPages();
+            for (int i = previousPages - 1; i >= currentPageNumber; i--) {
+                document.removePage(i);
+            }
+            log.info("Reused {} of {} pages from the previous stitch of bundle {}",
+                currentPageNumber, previousPages, bundle.getId());
+        }
+
+        private void recordSegment(BundleItemType type, SortableBundleItem item, String sha256, int firstPage) {
+            if (manifest != null) {
+                manifest.getSegments().add(new StitchManifest.Segment(type, item.getTitle(), documentURI(item),
+                    sha256, firstPage, currentPageNumber - firstPage));
+            }
+        }
+
+        /**
+         * Accounts for pages the table of contents inserted after those reserved for it. Everything after
+         * the index moves back by that many pages.
+         */
+        private void moveBack(int insertedPages) {
+            if (insertedPages == 0) {
+                return;
+            }
+            currentPageNumber += insertedPages;
+            if (manifest != null) {
+                manifest.setTableOfContentsPages(manifest.getTableOfContentsPages() + insertedPages);
+                manifest.setSegments(manifest.getSegments().stream()
+                    .map(segment -> new StitchManifest.Segment(segment.type(), segment.title(),
+                        segment.documentURI(), segment.sha256(), segment.firstPage() + insertedPages,
+                        segment.pageCount()))
+                    .collect(Collectors.toCollection(ArrayList::new)));
+            }
+        }
+
+        private void keepSegment(StitchManifest.Segment segment) {
+            if (manifest != null) {
+                manifest.getSegments().add(segment);
+            }
+        }
+
+        private String documentURI(SortableBundleItem item) {
+            return item instanceof BundleDocument bundleDocument ? bundleDocument.getDocumentURI() : null;
+        }
+
+        private File awaitDocument(SortableBundleItem item) throws IOException {
+            try {
+                return pendingDocuments.get(item).join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof IOException ioException) {
+                    throw ioException;
+                }
+                if (e.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                throw e;
+            }
+        }
+
         private void addCoversheet(SortableBundleItem item) throws IOException {
             PDPage page = new PDPage();
             document.addPage(page);
+            boolean folder = layout.isFolder(item);
 
             if (tableOfContents != null) {
-                if (item.getSortedItems().count() > 0) {
+                if (folder) {
                     tableOfContents.addFolder(item.getTitle(), currentPageNumber);
                 }
                 addUpwardLink();
@@ -151,7 +566,7 @@ public class PDFMerger {
 
             addCenterText(document, page, item.getTitle(), 330);
 
-            if (item.getSortedItems().count() > 0) {
+            if (folder) {
                 pdfOutline.addItem(item, currentPageNumber);
             }
             currentPageNumber++;
@@ -177,13 +592,12 @@ public class PDFMerger {
                 merger.appendDocument(document, newDoc);
             }
 
+            if (watermarkStamper != null) {
+                pagesToWatermark.add(new PageRange(currentPageNumber, currentPageNumber + newDoc.getNumberOfPages()));
+            }
+
             if (bundle.getPaginationStyle() != PaginationStyle.off) {
-                addPageNumbers(
-                    document,
-                    bundle.getPaginationStyle(),
-                    currentPageNumber,
-                    currentPageNumber + newDoc.getNumberOfPages()
-                );
+                pagesToNumber.add(new PageRange(currentPageNumber, currentPageNumber + newDoc.getNumberOfPages()));
             }
 
             if (tableOfContents != null) {
@@ -203,17 +617,91 @@ public class PDFMerger {
             }
 
             if (newDocOutline != null) {
+                List<PDOutlineItem> copiedItems = new ArrayList<>();
+                newDocOutline.children().forEach(copiedItems::add);
                 pdfOutline.copyOutline(
                     newDocOutline,
                     newDocumentCatalog,
-                    item.getId() + item.getTitle(),
+                    item,
                     currentPageNumber,
                     bundle.getHasDocumentSubtitles());
+                if (streaming && bundle.getHasDocumentSubtitles()) {
+                    detachFromSource(copiedItems);
+                }
             }
 
             currentPageNumber += newDoc.getNumberOfPages();
         }
 
+        private void releaseSource(PDDocument source) {
+            if (streaming) {
+                openDocs.remove(source);
+                try {
+                    source.close();
+                } catch (Exception e) {
+                    log.info("Closing appended document failed, skipping");
+                }
+            }
+        }
+
+        /**
+         * Outline items copied from a source document still hold lazy references into that document,
+         * so they are resolved before the source is closed. GoTo actions left on an item could not be
+         * mapped to a stitched page and would point at a page of the closed source, so they are dropped.
+         */
+        private void detachFromSource(List<PDOutlineItem> copiedItems) {
+            Set<COSBase> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (PDOutlineItem copiedItem : copiedItems) {
+                detachOutlineItem(copiedItem, visited);
+            }
+        }
+
+        private void detachOutlineItem(PDOutlineItem outlineItem, Set<COSBase> visited) {
+            PDOutlineItem current = outlineItem;
+            while (current != null && visited.add(current.getCOSObject())) {
+                COSDictionary item = current.getCOSObject();
+                if (!item.containsKey(COSName.DEST) && current.getAction() instanceof PDActionGoTo) {
+                    item.removeItem(COSName.A);
+                }
+                for (COSName key : new ArrayList<>(item.keySet())) {
+                    if (!OUTLINE_LINKS.contains(key)) {
+                        item.setItem(key, resolve(item.getItem(key), visited));
+                    }
+                }
+                detachOutlineItem(current.getFirstChild(), visited);
+                current = current.getNextSibling();
+            }
+        }
+
+        private COSBase resolve(COSBase base, Set<COSBase> visited) {
+            boolean indirect = base instanceof COSObject;
+            COSBase value = indirect ? ((COSObject) base).getObject() : base;
+            if (value == null || value instanceof COSStream) {
+                return COSNull.NULL;
+            }
+            if (value instanceof COSDictionary dictionary && isPageTreeNode(dictionary)) {
+                return indirect ? COSNull.NULL : value;
+            }
+            if (!visited.add(value)) {
+                return value;
+            }
+            if (value instanceof COSDictionary dictionary) {
+                for (COSName key : new ArrayList<>(dictionary.keySet())) {
+                    dictionary.setItem(key, resolve(dictionary.getItem(key), visited));
+                }
+            } else if (value instanceof COSArray array) {
+                for (int i = 0; i < array.size(); i++) {
+                    array.set(i, resolve(array.get(i), visited));
+                }
+            }
+            return value;
+        }
+
+        private boolean isPageTreeNode(COSDictionary dictionary) {
+            COSName type = dictionary.getCOSName(COSName.TYPE);
+            return COSName.PAGE.equals(type) || COSName.PAGES.equals(type);
+        }
+
         private void addUpwardLink() throws IOException {
             final float yOffset = 730f;
             final PDPage from = document.getPage(currentPageNumber);
@@ -224,35 +712,30 @@ public class PDFMerger {
                 tableOfContents.getPage(),
                 StatefulPDFMerger.BACK_TO_TOP,
                 yOffset,
-                new PDType1Font(Standard14Fonts.FontName.HELVETICA),
+                backToTopFont,
                 12
             );
         }
 
-        private TreeNode<SortableBundleItem> createOutline(Bundle bundle) {
-
+        /**
+         * The outline tree of the bundle: its documents, and its folders too when they have coversheets.
+         * A folder without a coversheet has no outline item, so its contents hang off its nearest ancestor.
+         */
+        private TreeNode<SortableBundleItem> createOutline() {
             TreeNode<SortableBundleItem> root = new TreeNode<>(bundle);
-
-            var all = bundle.getSortedItems().toList();
-            for (var item : all) {
-                createSubs(item, root, bundle);
-            }
-            return root;
-        }
-
-        void createSubs(SortableBundleItem addItem, TreeNode<SortableBundleItem> treeNode, Bundle bundle) {
-            if (bundle.hasFolderCoversheets() && addItem.getType() == BundleItemType.FOLDER) {
-                treeNode = treeNode.addChild(addItem);
-            } else if (addItem.getType() == BundleItemType.DOCUMENT) {
-                treeNode.addChild(addItem);
-                return;
-            }
-            if (addItem.getSortedItems().findAny().isPresent()) {
-                var all = addItem.getSortedItems().toList();
-                for (var item : all) {
-                    createSubs(item, treeNode, bundle);
+            Map<SortableBundleItem, TreeNode<SortableBundleItem>> treeNodes = new IdentityHashMap<>();
+            treeNodes.put(bundle, root);
+            for (SortableBundleItem item : layout.getItems()) {
+                TreeNode<SortableBundleItem> parentNode = treeNodes.get(layout.getParent(item));
+                if (!layout.isFolder(item)) {
+                    parentNode.addChild(item);
+                } else if (bundle.hasFolderCoversheets()) {
+                    treeNodes.put(item, parentNode.addChild(item));
+                } else {
+                    treeNodes.put(item, parentNode);
                 }
             }
+            return root;
         }
     }
 }
@@ -19,6 +19,7 @@ import uk.gov.hmcts.reform.em.stitching.domain.SortableBundleItem;
 
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -33,6 +34,8 @@ public class PDFOutline {
     private final TreeNode<SortableBundleItem> outlineTree;
     protected PDOutlineItem rootOutline;
     protected Set<COSObjectKey> cosObjectKeys;
+    // The outline item added for each bundle item, so parents are found without scanning the outline.
+    private final Map<SortableBundleItem, PDOutlineItem> outlineItems = new IdentityHashMap<>();
 
     public PDFOutline(PDDocument document, TreeNode<SortableBundleItem> outlineTree) {
         this.document = document;
@@ -53,6 +56,7 @@ public class PDFOutline {
         outlineItem.getCOSObject().setItem(createItemKey(item), COSNull.NULL);
         bundleOutline.addLast(outlineItem);
         rootOutline = outlineItem;
+        outlineItems.put(item, outlineItem);
     }
 
     public void setRootOutlineItemDest() {
@@ -62,24 +66,25 @@ public class PDFOutline {
         }
     }
 
-    private void addOutline(PDOutlineItem outlineItem, String key) {
+    private void addOutline(PDOutlineItem outlineItem, SortableBundleItem item) {
+        PDOutlineItem parentFound = findParentOutlineItem(item);
+        if (parentFound == null) {
+            document.getDocumentCatalog().getDocumentOutline().addLast(outlineItem);
+        } else {
+            parentFound.addLast(outlineItem);
+        }
+    }
 
-        var node
-                = outlineTree.findTreeNode(createBundleItemComparable(key), outlineTree);
+    /**
+     * The outline item to add the item under: that of its parent in the outline tree, the bundle's when
+     * the item is not in the tree, or null for the top level when its parent has no outline item.
+     */
+    private PDOutlineItem findParentOutlineItem(SortableBundleItem item) {
+        var node = outlineTree.findTreeNode(item);
         if (node == null) {
-            this.rootOutline.addLast(outlineItem);
-        } else {
-            PDOutlineItem parentFound =
-                findPdOutlineItem(
-                    document.getDocumentCatalog().getDocumentOutline().getFirstChild(),
-                    createItemKey(node.getParentData())
-                );
-            if (parentFound == null) {
-                document.getDocumentCatalog().getDocumentOutline().addLast(outlineItem);
-            } else {
-                parentFound.addLast(outlineItem);
-            }
+            return rootOutline;
         }
+        return outlineItems.get(node.getParentData());
     }
 
     public void addItem(SortableBundleItem item, int page) {
@@ -88,9 +93,9 @@ public class PDFOutline {
         outlineItem.setDestination(document.getPage(page));
         outlineItem.setTitle(trimOutlineTitle(item.getTitle()));
         outlineItem.setBold(true);
-        var key = createItemKey(item);
-        outlineItem.getCOSObject().setItem(key, COSNull.NULL);
-        addOutline(outlineItem, key);
+        outlineItem.getCOSObject().setItem(createItemKey(item), COSNull.NULL);
+        addOutline(outlineItem, item);
+        outlineItems.putIfAbsent(item, outlineItem);
     }
 
     public void addItem(int page, String title) {
@@ -99,27 +104,7 @@ public class PDFOutline {
         outlineItem.setDestination(document.getPage(page));
         outlineItem.setTitle(title);
         outlineItem.setBold(true);
-        addOutline(outlineItem, title);
-    }
-
-    public PDOutlineItem findPdOutlineItem(PDOutlineItem pdOutlineItem, String key) {
-
-        if (pdOutlineItem.getCOSObject().getItem(key) != null) {
-            return pdOutlineItem;
-        }
-
-        for (var child : pdOutlineItem.children()) {
-            var find = findPdOutlineItem(child, key);
-            if (find != null) {
-                return find;
-            }
-        }
-
-        return null;
-    }
-
-    private Comparable<SortableBundleItem> createBundleItemComparable(String key) {
-        return c -> key.equalsIgnoreCase(createItemKey(c)) ? 0 : 1;
+        this.rootOutline.addLast(outlineItem);
     }
 
     private String createItemKey(SortableBundleItem item) {
@@ -136,28 +121,11 @@ public class PDFOutline {
     public void copyOutline(
         PDDocumentOutline srcOutline,
         PDDocumentCatalog documentCatalog,
-        String key, int currentPageNumber, boolean hasDocumentSubtitles) {
+        SortableBundleItem item, int currentPageNumber, boolean hasDocumentSubtitles) {
         cosObjectKeys.clear();
-        PDOutlineItem destLastOutlineItem;
-        var node =
-            outlineTree.findTreeNode(createBundleItemComparable(key), outlineTree);
-        if (node == null) {
-            destLastOutlineItem = this.rootOutline.getLastChild();
-        } else {
-            PDOutlineItem parentFound =
-                findPdOutlineItem(
-                    document.getDocumentCatalog().getDocumentOutline().getFirstChild(),
-                    createItemKey(node.getParentData())
-                );
-            if (parentFound == null) {
-                destLastOutlineItem = document.getDocumentCatalog().getDocumentOutline().getLastChild();
-            } else {
-                destLastOutlineItem = parentFound;
-            }
-        }
 
         //document coversheet outline or doc outline should already be there.
-        destLastOutlineItem = findPdOutlineItem(destLastOutlineItem, key);
+        PDOutlineItem destLastOutlineItem = outlineItems.get(item);
 
         destLastOutlineItem.getCOSObject().setItem(COSName.FILTER, COSName.FLATE_DECODE);
 
@@ -167,22 +135,22 @@ public class PDFOutline {
 
         List<PDOutlineItem> itemList = StreamSupport
             .stream(srcOutline.children().spliterator(), true).toList();
-        for (PDOutlineItem item : itemList) {
-            cosObjectKeys.add(item.getCOSObject().getKey());
-            item.getCOSObject().setKey(null);
-            item.getCOSObject().removeItem(COSName.PREV);
-            item.getCOSObject().removeItem(COSName.PARENT);
-            item.getCOSObject().removeItem(COSName.NEXT);
-            item.setStructureElement(null);
-            setUpDestinations(item, currentPageNumber, documentCatalog);
-            if (item.getCOSObject().containsKey(COSName.DEST)) {
-                item.getCOSObject().removeItem(COSName.A);
+        for (PDOutlineItem srcItem : itemList) {
+            cosObjectKeys.add(srcItem.getCOSObject().getKey());
+            srcItem.getCOSObject().setKey(null);
+            srcItem.getCOSObject().removeItem(COSName.PREV);
+            srcItem.getCOSObject().removeItem(COSName.PARENT);
+            srcItem.getCOSObject().removeItem(COSName.NEXT);
+            srcItem.setStructureElement(null);
+            setUpDestinations(srcItem, currentPageNumber, documentCatalog);
+            if (srcItem.getCOSObject().containsKey(COSName.DEST)) {
+                srcItem.getCOSObject().removeItem(COSName.A);
                 // This will remove the old destination info.
                 // Like navigating to the old/original document page number.
             }
-            item.getCOSObject().setItem(COSName.FIRST, removeNullObject(item.getFirstChild()));
-            item.getCOSObject().setItem(COSName.LAST, removeNullObject(item.getLastChild()));
-            destLastOutlineItem.addLast(item);
+            srcItem.getCOSObject().setItem(COSName.FIRST, removeNullObject(srcItem.getFirstChild()));
+            srcItem.getCOSObject().setItem(COSName.LAST, removeNullObject(srcItem.getLastChild()));
+            destLastOutlineItem.addLast(srcItem);
         }
     }
 
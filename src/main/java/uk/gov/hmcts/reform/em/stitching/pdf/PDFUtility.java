@@ -1,6 +1,5 @@
 package uk.gov.hmcts.reform.em.stitching.pdf;
 
-import org.apache.commons.lang3.ArrayUtils;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
@@ -16,14 +15,8 @@ import org.apache.pdfbox.pdmodel.interactive.annotation.PDBorderStyleDictionary;
 import org.apache.pdfbox.pdmodel.interactive.documentnavigation.destination.PDPageXYZDestination;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.data.util.Pair;
-import uk.gov.hmcts.reform.em.stitching.domain.enumeration.PaginationStyle;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
-
-import static org.springframework.util.StringUtils.hasLength;
 
 public final class PDFUtility {
     public static final int LINE_HEIGHT = 18;
@@ -79,18 +72,12 @@ public final class PDFUtility {
 
     }
 
-    static void addPageNumbers(PDDocument document, PaginationStyle paginationStyle,
-                                      int startNumber, int endNumber) throws IOException {
-        for (int i = startNumber; i < endNumber; i++) {
-            PDPage page = document.getPage(i);
-            Pair<Float, Float> pageNumberLocation = paginationStyle.getPageLocation(page);
-            PDFText pdfText = new PDFText(String.valueOf(i + 1), pageNumberLocation.getFirst(),
-                pageNumberLocation.getSecond(), new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD), 13);
-            addText(document, page, pdfText);
-        }
+    static float getStringWidth(String string, PDFont font, float fontSize) {
+        FontMetrics fontMetrics = FontMetrics.forFont(font);
+        return fontMetrics != null ? fontMetrics.getStringWidth(string, fontSize) : measure(string, font, fontSize);
     }
 
-    static float getStringWidth(String string, PDFont font, float fontSize) {
+    private static float measure(String string, PDFont font, float fontSize) {
         try {
             //Need to sanitize the text, as the getStringWidth() does not except special characters
             return font.getStringWidth(sanitizeText(string)) / 1000 * fontSize;
@@ -108,8 +95,8 @@ public final class PDFUtility {
         int actualLineWidth = (int) (TableOfContents.SPACE_PER_SUBTITLE_LINE
             - (depth * TableOfContents.NESTED_SUBTITLE_INDENT));
 
-        int noOfLines = splitString(text, actualLineWidth,
-            pdType1Font, FONT_SIZE_SUBTITLES).length;
+        int noOfLines = countLines(text, actualLineWidth,
+            pdType1Font, FONT_SIZE_SUBTITLES);
 
         PDAnnotationLink link = generateLink(to, from, xxOffset, yyOffset, noOfLines);
         removeLinkBorder(link);
@@ -201,57 +188,19 @@ public final class PDFUtility {
     }
 
     static String [] splitString(String text, int lineWidth, PDType1Font pdType1Font, float fontSize) {
-        /* pdfBox doesn't support linebreaks. Therefore,
-         * following steps are required to automatically put linebreaks in the pdf
-         * 1) split each word in string and put them into an array of string, e.g. String [] parts
-         * 2) create a list to store the lines
-         * 3) put the words into a string builder, until the limit of width for a line is reached,
-         * 4) add the contents of the string builder to the list
-         * 5) clear the builder to start a new line
-         * 6) loop until all words are added to lines
-         *
-         */
-        if (!hasLength(text)) {
-            return ArrayUtils.toArray();
-        }
-        String [] words = text.split(" "); //save each word into an array-element
-        List<String> lines = new ArrayList<>();
-        StringBuilder stringBuilder = new StringBuilder();
-        float currentLineWidth = 0;
-        for (String word : words) {
-            try {
-                float wordWidth = getStringWidth(word, pdType1Font, fontSize);
-                if (currentLineWidth + wordWidth <= lineWidth) {
-                    currentLineWidth = addWordToCurrentLine(stringBuilder, currentLineWidth, word, wordWidth);
-                    continue;
-                }
-                // Start a new line
-                processLine(lines, stringBuilder);
-                stringBuilder.setLength(0);
-                currentLineWidth = 0;
-                currentLineWidth = addWordToCurrentLine(stringBuilder, currentLineWidth, word, wordWidth);
-            } catch (IllegalArgumentException illegalArgumentException) {
-                log.info("actual word :{} and text is :{} ", word, text);
-            }
-        }
-        processLine(lines, stringBuilder);
-        return lines.toArray(new String[0]);
+        return LineBreaker.splitLines(text, lineWidth, fontSize, textWidth(pdType1Font));
     }
 
-    private static void processLine(List<String> lines, StringBuilder stringBuilder) {
-        if (!stringBuilder.isEmpty()) {
-            stringBuilder.setLength(stringBuilder.length() - 1);
-            lines.add(stringBuilder.toString());
-        }
+    static int countLines(String text, int lineWidth, PDType1Font pdType1Font, float fontSize) {
+        return LineBreaker.countLines(text, lineWidth, fontSize, textWidth(pdType1Font));
     }
 
-    private static float addWordToCurrentLine(StringBuilder stringBuilder,
-                                              float currentLineWidth, String word, float wordWidth) {
-        stringBuilder.append(word);
-        currentLineWidth += wordWidth;
-        stringBuilder.append(" ");
-        currentLineWidth++;
-        return currentLineWidth;
+    private static LineBreaker.TextWidth textWidth(PDFont font) {
+        FontMetrics fontMetrics = FontMetrics.forFont(font);
+        if (fontMetrics != null) {
+            return fontMetrics;
+        }
+        return (text, start, end, fontSize) -> measure(text.substring(start, end), font, fontSize);
     }
 
     private static float calculateCentrePositionX(float pageWidth, float stringWidth) {
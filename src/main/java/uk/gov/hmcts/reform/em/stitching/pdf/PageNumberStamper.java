@@ -0,0 +1,149 @@
+package uk.gov.hmcts.reform.em.stitching.pdf;
+
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.apache.pdfbox.util.NumberFormatUtil;
+import org.springframework.data.util.Pair;
+import uk.gov.hmcts.reform.em.stitching.domain.enumeration.PaginationStyle;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+
+/**
+ * Stamps page numbers onto a document in a single pass over its page tree, once every page to number is
+ * known. Each page gets one small uncompressed content stream showing its number, in a font resource
+ * shared by every page, after a shared stream that saves the graphics state so the page's own content
+ * cannot move or scale the number. This draws the same text as PDFUtility.addText without a
+ * PDPageContentStream, text layout or compression per page.
+ */
+final class PageNumberStamper {
+
+    private static final float FONT_SIZE = 13;
+
+    // Enough for any float formatted with five fraction digits.
+    private static final int NUMBER_BUFFER_SIZE = 32;
+    private static final int MAX_FRACTION_DIGITS = 5;
+
+    private final PDDocument document;
+    private final PaginationStyle paginationStyle;
+    private final PDType1Font font = new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD);
+    private final BitSet pagesToNumber = new BitSet();
+    private final ByteArrayOutputStream fragment = new ByteArrayOutputStream();
+    private final byte[] numberBuffer = new byte[NUMBER_BUFFER_SIZE];
+    private COSStream saveGraphicsState;
+
+    PageNumberStamper(PDDocument document, PaginationStyle paginationStyle) {
+        this.document = document;
+        this.paginationStyle = paginationStyle;
+    }
+
+    /**
+     * Numbers the pages from startNumber up to, but not including, endNumber, counting from 0. Each page is
+     * numbered with its position in the document, counting from 1.
+     */
+    void addPages(int startNumber, int endNumber) {
+        if (startNumber < endNumber) {
+            pagesToNumber.set(startNumber, endNumber);
+        }
+    }
+
+    void stamp() throws IOException {
+        if (paginationStyle == null || paginationStyle == PaginationStyle.off || pagesToNumber.isEmpty()) {
+            return;
+        }
+        int lastPage = pagesToNumber.length() - 1;
+        int pageIndex = 0;
+        for (PDPage page : document.getPages()) {
+            if (pagesToNumber.get(pageIndex)) {
+                stamp(page, pageIndex + 1);
+            }
+            if (pageIndex++ == lastPage) {
+                break;
+            }
+        }
+        pagesToNumber.clear();
+    }
+
+    private void stamp(PDPage page, int pageNumber) throws IOException {
+        PDResources resources = page.getResources();
+        if (resources == null) {
+            resources = new PDResources();
+            page.setResources(resources);
+        }
+        COSName fontName = resources.add(font);
+        Pair<Float, Float> location = paginationStyle.getPageLocation(page);
+        float positionY = page.getMediaBox().getHeight() - location.getSecond();
+
+        COSBase contents = page.getCOSObject().getDictionaryObject(COSName.CONTENTS);
+        boolean hasContents = contents instanceof COSStream || contents instanceof COSArray array && array.size() > 0;
+
+        fragment.reset();
+        if (hasContents) {
+            write("Q\n");
+        }
+        write("BT\n/");
+        write(fontName.getName());
+        write(" ");
+        writeNumber(FONT_SIZE);
+        write(" Tf\n");
+        writeNumber(location.getFirst());
+        write(" ");
+        writeNumber(positionY);
+        write(" Td\n(");
+        write(Integer.toString(pageNumber));
+        write(") Tj\nET\n");
+
+        COSStream numberStream = document.getDocument().createCOSStream();
+        try (OutputStream out = numberStream.createOutputStream()) {
+            fragment.writeTo(out);
+        }
+
+        if (!hasContents) {
+            page.getCOSObject().setItem(COSName.CONTENTS, numberStream);
+            return;
+        }
+        COSArray newContents = new COSArray();
+        newContents.add(saveGraphicsState());
+        if (contents instanceof COSArray existingContents) {
+            newContents.addAll(existingContents);
+        } else {
+            newContents.add(contents);
+        }
+        newContents.add(numberStream);
+        page.getCOSObject().setItem(COSName.CONTENTS, newContents);
+    }
+
+    private COSStream saveGraphicsState() throws IOException {
+        if (saveGraphicsState == null) {
+            saveGraphicsState = document.getDocument().createCOSStream();
+            try (OutputStream out = saveGraphicsState.createOutputStream()) {
+                out.write("q\n".getBytes(StandardCharsets.US_ASCII));
+            }
+        }
+        return saveGraphicsState;
+    }
+
+    private void write(String text) {
+        fragment.writeBytes(text.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private void writeNumber(float value) {
+        int length = NumberFormatUtil.formatFloatFast(value, MAX_FRACTION_DIGITS, numberBuffer);
+        if (length == -1) {
+            write(new BigDecimal(String.valueOf(value)).toPlainString());
+        } else {
+            fragment.write(numberBuffer, 0, length);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package uk.gov.hmcts.reform.em.stitching.pdf;
+
+import uk.gov.hmcts.reform.em.stitching.domain.StitchManifest;
+
+import java.io.File;
+
+/**
+ * The stitched document produced the last time a bundle was stitched, and the manifest recorded for it.
+ */
+public record PreviousStitch(File file, StitchManifest manifest) {
+}
@@ -1,8 +1,9 @@
 package uk.gov.hmcts.reform.em.stitching.pdf;
 
-import org.apache.commons.collections4.CollectionUtils;
+import org.apache.pdfbox.cos.COSName;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDResources;
 import org.apache.pdfbox.pdmodel.font.PDType1Font;
 import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
 import org.apache.pdfbox.pdmodel.interactive.action.PDActionGoTo;
@@ -13,13 +14,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import uk.gov.hmcts.reform.em.stitching.domain.Bundle;
 import uk.gov.hmcts.reform.em.stitching.domain.BundleDocument;
+import uk.gov.hmcts.reform.em.stitching.domain.BundleLayout;
+import uk.gov.hmcts.reform.em.stitching.domain.SortableBundleItem;
 
-import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 
@@ -32,15 +33,23 @@ import static uk.gov.hmcts.reform.em.stitching.pdf.PDFUtility.addCenterText;
 import static uk.gov.hmcts.reform.em.stitching.pdf.PDFUtility.addLink;
 import static uk.gov.hmcts.reform.em.stitching.pdf.PDFUtility.addSubtitleLink;
 import static uk.gov.hmcts.reform.em.stitching.pdf.PDFUtility.addText;
-import static uk.gov.hmcts.reform.em.stitching.pdf.PDFUtility.splitString;
 
+/**
+ * Lays out the index of a bundle as its folders and documents are appended. Each entry is recorded against
+ * the line it starts on, and nothing is drawn until {@link #draw()}, once the whole bundle is known. Pages
+ * are reserved for the entries the bundle metadata accounts for, and more are inserted after them when the
+ * document subtitles found while merging need the room, so no source document has to be opened twice.
+ */
 public class TableOfContents {
 
     private static final int NUM_LINES_PER_PAGE = 38;
     private final List<PDPage> pages = new ArrayList<>();
+    private final List<Entry> entries = new ArrayList<>();
     private final PDDocument document;
     private final Bundle bundle;
-    private final Map<BundleDocument, File> documents;
+    // Pages kept from a previous stitch are followed by pages already numbered, so the index cannot grow.
+    private final boolean fixedPages;
+    private final int reservedPages;
     private static final float TOP_MARGIN_OFFSET = 40f;
     public static final int SPACE_PER_LINE = 500;
     public static final int SPACE_PER_TITLE_LINE = 400; //Also used for folders. May need third variable in the future.
@@ -50,66 +59,118 @@ public class TableOfContents {
     private boolean endOfFolder = false;
     private final Logger logger = LoggerFactory.getLogger(TableOfContents.class);
     private static final int TITLE_XX_OFFSET = 50;
+    // One instance of each font per table of contents, so every line shares the same page resource.
+    private final PDType1Font font = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
+    private final PDType1Font boldFont = new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD);
 
     // Maximum allowed outline nesting depth
     public static final int MAX_OUTLINE_DEPTH = 10;
 
-    public TableOfContents(PDDocument document, Bundle bundle, Map<BundleDocument, File> documents) throws IOException {
+    /**
+     * Draws one entry of the index. The page numbers of the documents are only final once the index knows
+     * how many pages it needs, so they are passed the number of pages inserted after the reserved ones.
+     */
+    @FunctionalInterface
+    private interface EntryWriter {
+        void write(PDPage page, float yyOffset, int insertedPages) throws IOException;
+    }
+
+    private record Entry(int line, EntryWriter writer) {
+    }
+
+    public TableOfContents(PDDocument document, BundleLayout layout) {
         this.document = document;
-        this.bundle = bundle;
-        this.documents = documents;
+        this.bundle = layout.getBundle();
+        this.fixedPages = false;
 
-        int noOfPages = getNumberPages();
+        int noOfPages = getNumberPages(layout);
         for (int i = 0; i < noOfPages; i++) {
             final PDPage page = new PDPage();
             pages.add(page);
             document.addPage(page);
         }
+        this.reservedPages = noOfPages;
+
+        addHeader();
+    }
 
-        if (!isEmpty(bundle.getDescription())) {
-            PDFText pdfText = new PDFText(bundle.getDescription(),
-                50, 80, new PDType1Font(Standard14Fonts.FontName.HELVETICA), 12);
-            addText(document, getPage(), pdfText, SPACE_PER_LINE);
+    /**
+     * Redraws the table of contents onto pages kept from a previous stitch of the bundle. The pages keep
+     * their identity, so the "Back to index" links already pointing at them stay valid.
+     */
+    public TableOfContents(PDDocument document, BundleLayout layout, List<PDPage> existingPages) {
+        this.document = document;
+        this.bundle = layout.getBundle();
+        this.fixedPages = true;
+
+        for (PDPage page : existingPages) {
+            page.getCOSObject().removeItem(COSName.CONTENTS);
+            page.setAnnotations(new ArrayList<>());
+            page.setResources(new PDResources());
+            pages.add(page);
         }
+        this.reservedPages = pages.size();
 
-        int descriptionLines = splitString(bundle.getDescription(), SPACE_PER_LINE,
-            new PDType1Font(Standard14Fonts.FontName.HELVETICA), 12).length;
-        int indexVerticalOffset = max(descriptionLines * 20 + 70, 90);
-        addCenterText(document, getPage(), INDEX_PAGE, indexVerticalOffset);
+        addHeader();
+    }
 
-        String pageNumberTitle = bundle.getPageNumberFormat().getPageNumberTitle();
-        int pageNumberVerticalOffset = indexVerticalOffset + 30;
-        PDFText pdfText = new PDFText(pageNumberTitle,
-            480, pageNumberVerticalOffset, new PDType1Font(Standard14Fonts.FontName.HELVETICA), 12);
-        addText(document, getPage(), pdfText);
+    private void addHeader() {
+        int pageNumberVerticalOffset = getPageNumberVerticalOffset(bundle.getDescription());
+        int indexVerticalOffset = pageNumberVerticalOffset - 30;
 
-        numLinesAdded += (pageNumberVerticalOffset - TOP_MARGIN_OFFSET) / 20;
-        numLinesAdded += 2;
+        addEntry((page, yyOffset, insertedPages) -> {
+            if (!isEmpty(bundle.getDescription())) {
+                PDFText pdfText = new PDFText(bundle.getDescription(),
+                    50, 80, font, 12);
+                addText(document, page, pdfText, SPACE_PER_LINE);
+            }
+
+            addCenterText(document, page, INDEX_PAGE, indexVerticalOffset);
+
+            String pageNumberTitle = bundle.getPageNumberFormat().getPageNumberTitle();
+            PDFText pdfText = new PDFText(pageNumberTitle,
+                480, pageNumberVerticalOffset, font, 12);
+            addText(document, page, pdfText);
+        });
+
+        numLinesAdded += getHeaderLines(pageNumberVerticalOffset);
+    }
+
+    private static int getPageNumberVerticalOffset(String description) {
+        int descriptionLines = FontMetrics.HELVETICA.countLines(description, SPACE_PER_LINE, 12);
+        return max(descriptionLines * 20 + 70, 90) + 30;
     }
 
-    public void addDocument(String documentTitle, int pageNumber, int noOfPages) throws IOException {
+    private static int getHeaderLines(int pageNumberVerticalOffset) {
+        return (int) ((pageNumberVerticalOffset - TOP_MARGIN_OFFSET) / 20) + 2;
+    }
+
+    public void addDocument(String documentTitle, int pageNumber, int noOfPages) {
         addSpaceAfterFolder();
 
-        float yyOffset = getVerticalOffset();
         final PDPage destination = document.getPage(pageNumber);
 
-        int noOfLines = splitString(documentTitle, SPACE_PER_TITLE_LINE,
-            new PDType1Font(Standard14Fonts.FontName.HELVETICA), 12).length;
-        PDFLink pdfLink = new PDFLink(documentTitle,
-            TITLE_XX_OFFSET, yyOffset, new PDType1Font(Standard14Fonts.FontName.HELVETICA), 12, destination);
-        addLink(document, getPage(), pdfLink, noOfLines);
+        int noOfLines = FontMetrics.HELVETICA.countLines(documentTitle, SPACE_PER_TITLE_LINE, 12);
+        addEntry((page, yyOffset, insertedPages) -> {
+            PDFLink pdfLink = new PDFLink(documentTitle,
+                TITLE_XX_OFFSET, yyOffset, font, 12, destination);
+            addLink(document, page, pdfLink, noOfLines);
 
-        String pageNo = bundle.getPageNumberFormat().getPageNumber(pageNumber, noOfPages);
+            String pageNo = bundle.getPageNumberFormat().getPageNumber(pageNumber + insertedPages, noOfPages);
 
-        addText(document, getPage(),
-            new PDFText(pageNo, 480, yyOffset - 3,
-                new PDType1Font(Standard14Fonts.FontName.HELVETICA), 12));
+            addText(document, page,
+                new PDFText(pageNo, 480, yyOffset - 3, font, 12));
+        });
         numLinesAdded += noOfLines;
         endOfFolder = false;
     }
 
-    public void addDocumentWithOutline(String documentTitle, int pageNumber, PDOutlineItem firstOutlineItem)
-        throws IOException {
+    /**
+     * Adds the outline of a document that has just been appended at pageNumber, read from the source
+     * document the merger already has open. The destination of each item is resolved straight away, so
+     * the source can be closed before the index is drawn.
+     */
+    public void addDocumentWithOutline(String documentTitle, int pageNumber, PDOutlineItem firstOutlineItem) {
         if (!bundle.getHasDocumentSubtitles()) {
             return;
         }
@@ -138,7 +199,7 @@ public class TableOfContents {
             return;
         }
 
-        drawOutlineItem(documentTitle, basePageNumber, item, depth);
+        addOutlineItem(documentTitle, basePageNumber, item, depth);
 
         if (Objects.nonNull(item.getFirstChild())) {
             processOutlineNode(documentTitle, basePageNumber, item.getFirstChild(), depth + 1, visited);
@@ -149,38 +210,34 @@ public class TableOfContents {
         }
     }
 
-    private void drawOutlineItem(String documentTitle, int basePageNumber, PDOutlineItem item, int depth) {
-        if (Objects.isNull(item.getTitle())) {
+    private void addOutlineItem(String documentTitle, int basePageNumber, PDOutlineItem item, int depth) {
+        String title = item.getTitle();
+        if (Objects.isNull(title)) {
             return;
         }
 
-        if (depth == 0 && Objects.nonNull(documentTitle) && documentTitle.equalsIgnoreCase(item.getTitle())) {
+        if (depth == 0 && Objects.nonNull(documentTitle) && documentTitle.equalsIgnoreCase(title)) {
             return;
         }
-        
-        try {
-            float yyOffset = getVerticalOffset();
 
+        try {
             int actualLineWidth = (int) (SPACE_PER_SUBTITLE_LINE - (depth * NESTED_SUBTITLE_INDENT));
 
-            int noOfLines = splitString(item.getTitle(), actualLineWidth,
-                new PDType1Font(Standard14Fonts.FontName.HELVETICA), FONT_SIZE_SUBTITLES).length;
+            int noOfLines = FontMetrics.HELVETICA.countLines(title, actualLineWidth, FONT_SIZE_SUBTITLES);
 
             PDPage destination = getDestinationPage(item, basePageNumber, documentTitle);
 
-            addSubtitleLink(
-                document,
-                getPage(),
-                destination,
-                item.getTitle(),
-                yyOffset,
-                new PDType1Font(Standard14Fonts.FontName.HELVETICA),
-                depth
-            );
+            addEntry((page, yyOffset, insertedPages) -> {
+                try {
+                    addSubtitleLink(document, page, destination, title, yyOffset, font, depth);
+                } catch (Exception e) {
+                    logger.error("Error drawing outline item: {}", title, e);
+                }
+            });
 
             numLinesAdded += noOfLines;
         } catch (Exception e) {
-            logger.error("Error processing outline item: {}", item.getTitle(), e);
+            logger.error("Error processing outline item: {}", title, e);
         }
     }
 
@@ -210,86 +267,142 @@ public class TableOfContents {
         return new PDPage();
     }
 
-    public void addFolder(String title, int pageNumber) throws IOException {
+    public void addFolder(String title, int pageNumber) {
         final PDPage destination = document.getPage(pageNumber);
-        float yyOffset = getVerticalOffset();
 
-        PDType1Font folderFont = new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD);
         int folderFontSize = 13;
 
-        addText(document, getPage(),
-            new PDFText(" ", TITLE_XX_OFFSET, yyOffset, folderFont, folderFontSize));
-        yyOffset += LINE_HEIGHT;
-        int noOfLines = splitString(title, SPACE_PER_TITLE_LINE, folderFont, folderFontSize).length;
-        PDFLink pdfLink = new PDFLink(title,
-            TITLE_XX_OFFSET, yyOffset, folderFont, folderFontSize, destination);
-        addLink(document, getPage(), pdfLink, noOfLines);
-        yyOffset += (LINE_HEIGHT * noOfLines);
-        addText(document, getPage(),
-            new PDFText(" ", TITLE_XX_OFFSET, yyOffset, folderFont, folderFontSize));
+        int noOfLines = FontMetrics.HELVETICA_BOLD.countLines(title, SPACE_PER_TITLE_LINE, folderFontSize);
+        addEntry((page, yyOffset, insertedPages) -> {
+            float lineOffset = yyOffset;
+            addText(document, page,
+                new PDFText(" ", TITLE_XX_OFFSET, lineOffset, boldFont, folderFontSize));
+            lineOffset += LINE_HEIGHT;
+            PDFLink pdfLink = new PDFLink(title,
+                TITLE_XX_OFFSET, lineOffset, boldFont, folderFontSize, destination);
+            addLink(document, page, pdfLink, noOfLines);
+            lineOffset += (LINE_HEIGHT * noOfLines);
+            addText(document, page,
+                new PDFText(" ", TITLE_XX_OFFSET, lineOffset, boldFont, folderFontSize));
+        });
         // For each folder added. we add an empty line before and after the folder text in the TOC.
         numLinesAdded += (noOfLines + 2);
         endOfFolder = false;
     }
 
-    private void addSpaceAfterFolder() throws IOException {
+    private void addSpaceAfterFolder() {
         if (endOfFolder) {
-            float yyOffset = getVerticalOffset();
-            PDFText pdfText = new PDFText(" ", TITLE_XX_OFFSET, yyOffset,
-                new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD), 13);
-            addText(document, getPage(), pdfText);
+            addEntry((page, yyOffset, insertedPages) -> {
+                PDFText pdfText = new PDFText(" ", TITLE_XX_OFFSET, yyOffset, boldFont, 13);
+                addText(document, page, pdfText);
+            });
             numLinesAdded += 1;
             endOfFolder = false;
         }
     }
 
-    private float getVerticalOffset() {
-        return TOP_MARGIN_OFFSET + ((numLinesAdded % NUM_LINES_PER_PAGE) * LINE_HEIGHT);
+    private void addEntry(EntryWriter writer) {
+        getPage();
+        entries.add(new Entry(numLinesAdded, writer));
+    }
+
+    /**
+     * Inserts the pages the index needs beyond those reserved for it, straight after them, and draws every
+     * entry. Returns the number of pages inserted, by which every page after the index has moved.
+     */
+    public int draw() throws IOException {
+        PDPage previousPage = pages.get(reservedPages - 1);
+        for (PDPage page : pages.subList(reservedPages, pages.size())) {
+            document.getPages().insertAfter(page, previousPage);
+            previousPage = page;
+        }
+        int insertedPages = pages.size() - reservedPages;
+
+        for (Entry entry : entries) {
+            entry.writer().write(pageOf(entry.line()), getVerticalOffset(entry.line()), insertedPages);
+        }
+        entries.clear();
+        return insertedPages;
     }
 
+    private float getVerticalOffset(int line) {
+        return TOP_MARGIN_OFFSET + ((line % NUM_LINES_PER_PAGE) * LINE_HEIGHT);
+    }
+
+    /**
+     * The page the next entry will be drawn on, which is where the "Back to index" link of a folder
+     * points. Pages beyond those reserved are created as they are reached, and added to the document when
+     * the index is drawn.
+     */
     public PDPage getPage() {
-        int pageIndex = (int) Math.floor((double) numLinesAdded / NUM_LINES_PER_PAGE);
+        int pageIndex = numLinesAdded / NUM_LINES_PER_PAGE;
+        while (!fixedPages && pages.size() <= pageIndex) {
+            pages.add(new PDPage());
+        }
+        return pageOf(numLinesAdded);
+    }
+
+    private PDPage pageOf(int line) {
+        int pageIndex = line / NUM_LINES_PER_PAGE;
 
         return pages.get(Math.min(pageIndex, pages.size() - 1));
     }
 
     public int getNumberPages() {
-        int numberOfLinesForAllTitles = getNumberOfLinesForAllTitles();
-        int numFolders = !bundle.hasFolderCoversheets() ? 0 : (int) bundle.getNestedFolders().count();
-        int numLinesSubtitles = getNumberOfLinesForAllSubtitles();
-        int foldersStartLine =
-            max(splitString(bundle.getDescription(), SPACE_PER_LINE,
-                new PDType1Font(Standard14Fonts.FontName.HELVETICA), 12).length, 2) + 2;
-        // Multiply by 3. For each folder added. we add an empty line before and after the
-        // folder text in the TOC.
-        int numberTocLines = foldersStartLine + (CollectionUtils.isNotEmpty(bundle.getFolders())
-            ? numberOfLinesForAllTitles + (numFolders * 3) + (numLinesSubtitles)
-            : numberOfLinesForAllTitles + numLinesSubtitles);
+        return pages.size();
+    }
+
+    /**
+     * Whether the entries laid out so far run past the pages kept from a previous stitch, which cannot grow.
+     * Entries beyond them would be drawn over the last page, so the bundle has to be stitched in full.
+     */
+    public boolean overflowsExistingPages() {
+        return fixedPages && numLinesAdded > pages.size() * NUM_LINES_PER_PAGE;
+    }
+
+    /**
+     * Pages to reserve for the index of a bundle, worked out from its metadata alone. The header, folder,
+     * document and spacer lines are counted as they are laid out, so without subtitles this is exactly the
+     * number of pages the index takes. Subtitles are only known once each document is merged, so an index
+     * that lists them may need more pages than this.
+     */
+    static int getNumberPages(BundleLayout layout) {
+        Bundle bundle = layout.getBundle();
+        int numberTocLines = getHeaderLines(getPageNumberVerticalOffset(bundle.getDescription()))
+            + countLines(layout, bundle, bundle.hasFolderCoversheets(), false);
         int numPages = (int) Math.ceil((double) numberTocLines / TableOfContents.NUM_LINES_PER_PAGE);
 
         return max(1, numPages);
     }
 
-    private int getNumberOfLinesForAllSubtitles() {
-        if (!bundle.getHasDocumentSubtitles()) {
-            return 0;
+    /**
+     * Counts the lines of the entries of a container the way the merger adds them. A folder is only listed
+     * when the bundle has folder coversheets, and the first document after the end of a folder is preceded
+     * by a spacer line.
+     */
+    private static int countLines(BundleLayout layout, SortableBundleItem container, boolean folderEntries,
+                                  boolean endOfFolder) {
+        int lines = 0;
+        for (SortableBundleItem item : layout.getChildren(container)) {
+            if (layout.isFolder(item)) {
+                if (folderEntries) {
+                    lines += FontMetrics.HELVETICA_BOLD.countLines(item.getTitle(), SPACE_PER_TITLE_LINE, 13) + 2;
+                    endOfFolder = false;
+                }
+                lines += countLines(layout, item, folderEntries, endOfFolder);
+                endOfFolder = true;
+            } else if (item instanceof BundleDocument bundleDocument) {
+                if (endOfFolder) {
+                    lines++;
+                }
+                lines += FontMetrics.HELVETICA.countLines(bundleDocument.getDocTitle(), SPACE_PER_TITLE_LINE, 12);
+                endOfFolder = false;
+            }
         }
-        List<String> subtitles = PdfOutlineUtils.getSubtitles(bundle, documents);
-        return subtitles
-            .stream()
-            .mapToInt(subtitle -> splitString(subtitle, SPACE_PER_SUBTITLE_LINE,
-                new PDType1Font(Standard14Fonts.FontName.HELVETICA), 12).length)
-            .sum();
-    }
-
-    private int getNumberOfLinesForAllTitles() {
-        return bundle.getSortedDocuments()
-            .map(d -> splitString(d.getDocTitle(), SPACE_PER_TITLE_LINE,
-                new PDType1Font(Standard14Fonts.FontName.HELVETICA), 12).length)
-            .mapToInt(Integer::intValue).sum();
+        return lines;
     }
 
     public void setEndOfFolder(boolean value) {
         endOfFolder = value;
     }
-}
\ No newline at end of file
+}
@@ -1,17 +1,27 @@
 package uk.gov.hmcts.reform.em.stitching.pdf;
 
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 public class TreeNode<T> {
 
     private T data;
     private TreeNode<T> parent;
     private List<TreeNode<T>> children;
+    // Every node of the tree by its data, shared by all nodes and kept up to date as children are added.
+    private final Map<T, TreeNode<T>> index;
 
     public TreeNode(T data) {
+        this(data, new IdentityHashMap<>());
+    }
+
+    private TreeNode(T data, Map<T, TreeNode<T>> index) {
         this.data = data;
         this.children = new LinkedList<>();
+        this.index = index;
+        index.putIfAbsent(data, this);
     }
 
     public T getParentData() {
@@ -19,29 +29,17 @@ public class TreeNode<T> {
     }
 
     public TreeNode<T> addChild(T child) {
-        TreeNode<T> childNode = new TreeNode<>(child);
+        TreeNode<T> childNode = new TreeNode<>(child, index);
         childNode.parent = this;
         this.children.add(childNode);
         return childNode;
     }
 
-    public TreeNode<T> findTreeNode(Comparable<T> cmp, TreeNode<T> startNode) {
-        if (cmp.compareTo(startNode.data) == 0) {
-            return this;
-        }
-
-        for (TreeNode<T> element : startNode.children) {
-            T elData = element.data;
-            if (cmp.compareTo(elData) == 0) {
-                return element;
-            } else {
-                var find = findTreeNode(cmp, element);
-                if (find != null) {
-                    return find;
-                }
-            }
-        }
-
-        return null;
+    /**
+     * The node holding this exact instance anywhere in the tree, or null. Items are matched by identity,
+     * so two items that happen to share an id and title are still told apart.
+     */
+    public TreeNode<T> findTreeNode(T data) {
+        return index.get(data);
     }
 }
@@ -0,0 +1,185 @@
+package uk.gov.hmcts.reform.em.stitching.pdf;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.multipdf.LayerUtility;
+import org.apache.pdfbox.multipdf.Overlay;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.PDPageContentStream.AppendMode;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.apache.pdfbox.util.Matrix;
+import uk.gov.hmcts.reform.em.stitching.domain.DocumentImage;
+import uk.gov.hmcts.reform.em.stitching.domain.enumeration.ImageRenderingLocation;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Objects;
+
+/**
+ * The watermark of a bundle, prepared once per DocumentTask. The image is decoded and drawn onto a
+ * one page overlay only once, and the overlay is kept as a small PDF that each use parses again, so
+ * it can be applied to many documents at the same time without sharing any PDFBox objects between them.
+ */
+public final class WatermarkTemplate {
+
+    private final byte[] overlay;
+    private final Overlay.Position position;
+    private final boolean allPages;
+    private final String sha256;
+
+    private WatermarkTemplate(byte[] overlay, Overlay.Position position, boolean allPages, String sha256) {
+        this.overlay = overlay;
+        this.position = position;
+        this.allPages = allPages;
+        this.sha256 = sha256;
+    }
+
+    /**
+     * Draws the image onto a letter size page, centred on the given percentages of its width and height, or
+     * with its lower left corner at the origin when they are not set.
+     */
+    static WatermarkTemplate prepare(File documentImageFile, DocumentImage documentImage) throws IOException {
+        boolean allPages = documentImage.getImageRenderingLocation() == ImageRenderingLocation.ALL_PAGES;
+        Overlay.Position position = documentImage.getImageRendering().getPosition();
+
+        try (PDDocument overlayDocument = new PDDocument()) {
+            PDPage overlayPage = new PDPage();
+            overlayDocument.addPage(overlayPage);
+
+            PDImageXObject pdImage = PDImageXObject.createFromFileByExtension(documentImageFile, overlayDocument);
+            PDRectangle mediaBox = overlayPage.getMediaBox();
+
+            double startX = 0;
+            double startY = 0;
+            if (Objects.nonNull(documentImage.getCoordinateX()) && Objects.nonNull(documentImage.getCoordinateY())) {
+                documentImage.verifyCoordinates();
+                startX = (mediaBox.getWidth() * (documentImage.getCoordinateX() / 100.0))
+                        - ((double) pdImage.getWidth() / 2);
+                startY = (mediaBox.getHeight() * (documentImage.getCoordinateY() / 100.0))
+                        - ((double) pdImage.getHeight() / 2);
+            }
+
+            try (PDPageContentStream contentStream = new PDPageContentStream(overlayDocument, overlayPage)) {
+                contentStream.drawImage(pdImage, (float) startX, (float) startY);
+            }
+
+            ByteArrayOutputStream overlayBytes = new ByteArrayOutputStream();
+            overlayDocument.save(overlayBytes);
+
+            Hasher hasher = Hashing.sha256().newHasher()
+                .putBytes(Files.toByteArray(documentImageFile))
+                .putString(String.join(",", position.name(), String.valueOf(allPages),
+                    String.valueOf(startX), String.valueOf(startY)), StandardCharsets.UTF_8);
+            return new WatermarkTemplate(overlayBytes.toByteArray(), position, allPages, hasher.hash().toString());
+        }
+    }
+
+    /**
+     * Identifies the image and where it is drawn, so a stitch can tell whether pages watermarked by a
+     * previous stitch carry the same watermark.
+     */
+    public String getSha256() {
+        return sha256;
+    }
+
+    /**
+     * Overlays the watermark onto a document file and saves it in place.
+     */
+    void apply(File documentFile) throws IOException {
+        try (PDDocument document = Loader.loadPDF(documentFile);
+             PDDocument overlayDocument = Loader.loadPDF(overlay);
+             Overlay documentOverlay = new Overlay()) {
+            documentOverlay.setInputPDF(document);
+            documentOverlay.setOverlayPosition(position);
+            if (allPages) {
+                documentOverlay.setAllPagesOverlayPDF(overlayDocument);
+            } else {
+                documentOverlay.setFirstPageOverlayPDF(overlayDocument);
+            }
+            documentOverlay.overlay(new HashMap<>());
+            document.save(documentFile);
+        }
+    }
+
+    Stamper stamperFor(PDDocument document) {
+        return new Stamper(document);
+    }
+
+    /**
+     * Watermarks pages already merged into a document, drawing the overlay the same way as
+     * {@link Overlay}. The overlay is imported into the document once, as a form that every page shares.
+     */
+    final class Stamper {
+
+        private final PDDocument document;
+        private final BitSet pagesToWatermark = new BitSet();
+        private PDFormXObject form;
+
+        private Stamper(PDDocument document) {
+            this.document = document;
+        }
+
+        /**
+         * Watermarks the pages of one source document, from firstPage up to, but not including, endPage.
+         */
+        void addDocumentPages(int firstPage, int endPage) {
+            if (firstPage < endPage) {
+                pagesToWatermark.set(firstPage, allPages ? endPage : firstPage + 1);
+            }
+        }
+
+        void stamp() throws IOException {
+            if (pagesToWatermark.isEmpty()) {
+                return;
+            }
+            int lastPage = pagesToWatermark.length() - 1;
+            int pageIndex = 0;
+            for (PDPage page : document.getPages()) {
+                if (pagesToWatermark.get(pageIndex)) {
+                    stamp(page);
+                }
+                if (pageIndex++ == lastPage) {
+                    break;
+                }
+            }
+            pagesToWatermark.clear();
+        }
+
+        private void stamp(PDPage page) throws IOException {
+            PDFormXObject overlayForm = form();
+            PDRectangle pageMediaBox = page.getMediaBox();
+            PDRectangle overlayMediaBox = overlayForm.getBBox();
+            Matrix shift = Matrix.getTranslateInstance(
+                (pageMediaBox.getWidth() - overlayMediaBox.getWidth()) / 2,
+                (pageMediaBox.getHeight() - overlayMediaBox.getHeight()) / 2);
+
+            try (PDPageContentStream contents = position == Overlay.Position.FOREGROUND
+                ? new PDPageContentStream(document, page, AppendMode.APPEND, true, true)
+                : new PDPageContentStream(document, page, AppendMode.PREPEND, true)) {
+                contents.saveGraphicsState();
+                contents.transform(shift);
+                contents.drawForm(overlayForm);
+                contents.restoreGraphicsState();
+            }
+        }
+
+        private PDFormXObject form() throws IOException {
+            if (form == null) {
+                try (PDDocument overlayDocument = Loader.loadPDF(overlay)) {
+                    form = new LayerUtility(document).importPageAsForm(overlayDocument, 0);
+                }
+            }
+            return form;
+        }
+    }
+}
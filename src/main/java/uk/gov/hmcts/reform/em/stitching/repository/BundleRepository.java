@@ -4,6 +4,8 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 import uk.gov.hmcts.reform.em.stitching.domain.Bundle;
 
+import java.util.Optional;
+
 
 /**
  * Spring Data  repository for the Bundle entity.
@@ -12,4 +14,6 @@ import uk.gov.hmcts.reform.em.stitching.domain.Bundle;
 @Repository
 public interface BundleRepository extends JpaRepository<Bundle, Long> {
 
+    Optional<Bundle> findFirstByStitchedDocumentURIAndStitchManifestIsNotNullOrderByIdDesc(
+        String stitchedDocumentURI);
 }
@@ -0,0 +1,17 @@
+package uk.gov.hmcts.reform.em.stitching.repository;
+
+/**
+ * The oldest NEW DocumentTask of one priority, jurisdiction and case type.
+ */
+public interface DocumentTaskQueueHead {
+
+    Long getId();
+
+    String getPriority();
+
+    String getJurisdictionId();
+
+    String getCaseTypeId();
+
+    Integer getEstimatedPages();
+}
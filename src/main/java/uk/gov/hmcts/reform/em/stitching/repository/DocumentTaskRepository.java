@@ -1,12 +1,14 @@
 package uk.gov.hmcts.reform.em.stitching.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import uk.gov.hmcts.reform.em.stitching.domain.DocumentTask;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -27,4 +29,123 @@ public interface DocumentTaskRepository extends JpaRepository<DocumentTask, Long
     List<Long> findAllByTaskStatus(@Param("status") String status,
                                            @Param("numberOfRows") int numberOfRows);
 
+    /**
+     * Locks the oldest NEW task this build can process, of at most maxEstimatedPages. Rows already locked
+     * by another worker are skipped rather than waited on, so concurrent callers each get a different task.
+     * Tasks queued before sizes were estimated have 0 estimated pages and are taken to be of any size, so
+     * only a caller without a limit gets them.
+     */
+    @Query(value =
+        "SELECT m.id FROM versioned_document_task m WHERE m.task_state = 'NEW' AND m.version <= :version"
+            + " AND COALESCE(NULLIF(m.estimated_pages, 0), 2147483647) <= :maxEstimatedPages"
+            + " ORDER BY m.created_date LIMIT 1 FOR UPDATE SKIP LOCKED",
+        nativeQuery = true)
+    Optional<Long> lockNextNewTaskId(@Param("version") int version,
+                                     @Param("maxEstimatedPages") int maxEstimatedPages);
+
+    /**
+     * The oldest NEW task of each priority, jurisdiction and case type that this build can process, of at
+     * most maxEstimatedPages, as for lockNextNewTaskId. These are the tasks a worker chooses between.
+     */
+    @Query(value =
+        "SELECT DISTINCT ON (m.priority, m.jurisdiction_id, m.case_type_id) m.id AS id, m.priority AS priority,"
+            + " m.jurisdiction_id AS jurisdictionId, m.case_type_id AS caseTypeId,"
+            + " m.estimated_pages AS estimatedPages"
+            + " FROM versioned_document_task m WHERE m.task_state = 'NEW' AND m.version <= :version"
+            + " AND COALESCE(NULLIF(m.estimated_pages, 0), 2147483647) <= :maxEstimatedPages"
+            + " ORDER BY m.priority, m.jurisdiction_id, m.case_type_id, m.id",
+        nativeQuery = true)
+    List<DocumentTaskQueueHead> findNewTaskQueueHeads(@Param("version") int version,
+                                                      @Param("maxEstimatedPages") int maxEstimatedPages);
+
+    /**
+     * Locks the given task if it is still NEW and not already locked by another worker.
+     */
+    @Query(value =
+        "SELECT m.id FROM versioned_document_task m WHERE m.id = :id AND m.task_state = 'NEW'"
+            + " FOR UPDATE SKIP LOCKED",
+        nativeQuery = true)
+    Optional<Long> lockNewTaskId(@Param("id") Long id);
+
+    @Query(value = "SELECT count(*) FROM versioned_document_task m WHERE m.task_state = 'NEW'", nativeQuery = true)
+    long countNewTasks();
+
+    /**
+     * Renews the leases this worker still holds on the given tasks.
+     *
+     * @return The number of leases renewed.
+     */
+    @Modifying
+    @Query(value =
+        "UPDATE versioned_document_task SET heartbeat_at = :now"
+            + " WHERE id IN (:ids) AND worker_id = :workerId AND task_state = 'IN_PROGRESS'",
+        nativeQuery = true)
+    int renewLeases(@Param("ids") Collection<Long> ids, @Param("workerId") String workerId,
+                    @Param("now") Instant now);
+
+    /**
+     * Writes the outcome of a task, provided the given worker still holds its lease.
+     *
+     * @return 1 if the outcome was written, or 0 if the lease has been lost.
+     */
+    @Modifying
+    @Query(value =
+        "UPDATE versioned_document_task SET task_state = :taskState, failure_description = :failureDescription"
+            + " WHERE id = :id AND worker_id = :workerId AND task_state = 'IN_PROGRESS'",
+        nativeQuery = true)
+    int completeLeasedTask(@Param("id") Long id, @Param("workerId") String workerId,
+                           @Param("taskState") String taskState,
+                           @Param("failureDescription") String failureDescription);
+
+    /**
+     * Fails IN_PROGRESS tasks whose lease expired before expiredBefore and which have already been
+     * retried maxRetryAttempts times. Tasks from before leases were introduced expire from when they
+     * were last modified.
+     */
+    @Modifying
+    @Query(value =
+        "UPDATE versioned_document_task SET task_state = 'FAILED', failure_description = :failureDescription,"
+            + " worker_id = NULL, heartbeat_at = NULL"
+            + " WHERE task_state = 'IN_PROGRESS' AND COALESCE(heartbeat_at, last_modified_date) < :expiredBefore"
+            + " AND retry_attempts >= :maxRetryAttempts",
+        nativeQuery = true)
+    int failExpiredLeases(@Param("expiredBefore") Instant expiredBefore,
+                          @Param("maxRetryAttempts") int maxRetryAttempts,
+                          @Param("failureDescription") String failureDescription);
+
+    /**
+     * Returns IN_PROGRESS tasks whose lease expired before expiredBefore to NEW, counting a retry.
+     */
+    @Modifying
+    @Query(value =
+        "UPDATE versioned_document_task SET task_state = 'NEW', retry_attempts = retry_attempts + 1,"
+            + " worker_id = NULL, heartbeat_at = NULL"
+            + " WHERE task_state = 'IN_PROGRESS' AND COALESCE(heartbeat_at, last_modified_date) < :expiredBefore",
+        nativeQuery = true)
+    int requeueExpiredLeases(@Param("expiredBefore") Instant expiredBefore);
+
+    /**
+     * Locks the callbacks of finished tasks that are due to be sent, oldest task first. Callbacks already
+     * locked by another node are skipped, as are those in flight or waiting for a retry.
+     */
+    @Query(value =
+        "SELECT m.id FROM versioned_document_task m JOIN callback c ON c.id = m.callback_id"
+            + " WHERE m.task_state IN ('DONE', 'FAILED') AND c.callback_state = 'NEW' AND m.version <= :version"
+            + " AND (c.next_attempt_at IS NULL OR c.next_attempt_at <= :now)"
+            + " ORDER BY m.last_modified_date LIMIT :limit FOR UPDATE OF c SKIP LOCKED",
+        nativeQuery = true)
+    List<Long> lockDueCallbackTaskIds(@Param("version") int version, @Param("now") Instant now,
+                                      @Param("limit") int limit);
+
+    /**
+     * Locks the callback of a task while it is still leased until leasedUntil, as set by the claim that
+     * holds it.
+     */
+    @Query(value =
+        "SELECT m.id FROM versioned_document_task m JOIN callback c ON c.id = m.callback_id"
+            + " WHERE m.id = :id AND c.callback_state = 'NEW' AND c.next_attempt_at = :leasedUntil"
+            + " FOR UPDATE OF c",
+        nativeQuery = true)
+    List<Long> lockLeasedCallbackTaskId(@Param("id") Long id, @Param("leasedUntil") Instant leasedUntil);
+
 }
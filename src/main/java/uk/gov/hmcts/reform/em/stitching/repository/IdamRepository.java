@@ -1,22 +1,136 @@
 package uk.gov.hmcts.reform.em.stitching.repository;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.hash.Hashing;
+import jakarta.annotation.PreDestroy;
+import org.ehcache.UserManagedCache;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.config.builders.UserManagedCacheBuilder;
+import org.ehcache.expiry.ExpiryPolicy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import uk.gov.hmcts.reform.idam.client.IdamClient;
 import uk.gov.hmcts.reform.idam.client.models.UserInfo;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.function.Supplier;
+
+/**
+ * Looks up the user a bearer token belongs to. The user info of each token is kept in memory until the
+ * token expires, or for at most the configured time to live, so the download and upload of a task and the
+ * user's later tasks do not go back to IDAM for it. Tokens are only held as a SHA-256 hash.
+ */
 @Component
 public class IdamRepository {
 
+    private static final String BEARER = "Bearer ";
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
     private final IdamClient idamClient;
 
+    private final UserManagedCache<String, CachedUserInfo> userInfoCache;
+
+    private final Duration maxTimeToLive;
+
+    private final Clock clock;
+
     @Autowired
-    public IdamRepository(IdamClient idamClient) {
+    public IdamRepository(IdamClient idamClient,
+                          @Value("${idam.user-info-cache.max-entries}") long maxEntries,
+                          @Value("${idam.user-info-cache.max-ttl-seconds}") long maxTimeToLiveSeconds) {
+        this(idamClient, maxEntries, Duration.ofSeconds(maxTimeToLiveSeconds), Clock.systemUTC());
+    }
+
+    IdamRepository(IdamClient idamClient, long maxEntries, Duration maxTimeToLive, Clock clock) {
         this.idamClient = idamClient;
+        this.maxTimeToLive = maxTimeToLive;
+        this.clock = clock;
+        this.userInfoCache = maxEntries > 0 && maxTimeToLive.isPositive()
+            ? UserManagedCacheBuilder.newUserManagedCacheBuilder(String.class, CachedUserInfo.class)
+                .withResourcePools(ResourcePoolsBuilder.heap(maxEntries))
+                .withExpiry(new UntilTokenExpires())
+                .build(true)
+            : null;
     }
 
     public UserInfo getUserInfo(String bearerToken) {
-        String token = bearerToken.startsWith("Bearer ") ? bearerToken : "Bearer " + bearerToken;
-        return idamClient.getUserInfo(token);
+        String token = bearerToken.startsWith(BEARER) ? bearerToken : BEARER + bearerToken;
+        if (userInfoCache == null) {
+            return idamClient.getUserInfo(token);
+        }
+
+        String key = Hashing.sha256().hashString(token, StandardCharsets.UTF_8).toString();
+        CachedUserInfo cached = userInfoCache.get(key);
+        if (cached != null && cached.expiresAt().isAfter(clock.instant())) {
+            return cached.userInfo();
+        }
+
+        UserInfo userInfo = idamClient.getUserInfo(token);
+        Instant expiresAt = expiresAt(token);
+        if (userInfo != null && expiresAt != null) {
+            userInfoCache.put(key, new CachedUserInfo(userInfo, expiresAt));
+        }
+        return userInfo;
+    }
+
+    /**
+     * When the user info of a token stops being reused: the token's own expiry, or the maximum time to
+     * live from now if that is sooner. Returns null for tokens that are not JWTs with an expiry, which
+     * are not cached. The token has already been accepted by IDAM, so its claims are not verified again.
+     */
+    private Instant expiresAt(String token) {
+        Instant maxExpiry = clock.instant().plus(maxTimeToLive);
+        try {
+            String[] parts = token.substring(BEARER.length()).split("\\.");
+            if (parts.length != 3) {
+                return null;
+            }
+            JsonNode claims = OBJECT_MAPPER.readTree(Base64.getUrlDecoder().decode(parts[1]));
+            if (!claims.path("exp").canConvertToLong()) {
+                return null;
+            }
+            Instant tokenExpiry = Instant.ofEpochSecond(claims.get("exp").asLong());
+            return tokenExpiry.isBefore(maxExpiry) ? tokenExpiry : maxExpiry;
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (userInfoCache != null) {
+            userInfoCache.close();
+        }
+    }
+
+    private record CachedUserInfo(UserInfo userInfo, Instant expiresAt) {
+    }
+
+    private final class UntilTokenExpires implements ExpiryPolicy<String, CachedUserInfo> {
+
+        @Override
+        public Duration getExpiryForCreation(String key, CachedUserInfo value) {
+            Duration timeToLive = Duration.between(clock.instant(), value.expiresAt());
+            return timeToLive.isNegative() ? Duration.ZERO : timeToLive;
+        }
+
+        @Override
+        public Duration getExpiryForAccess(String key, Supplier<? extends CachedUserInfo> value) {
+            return null;
+        }
+
+        @Override
+        public Duration getExpiryForUpdate(String key, Supplier<? extends CachedUserInfo> oldValue,
+                                           CachedUserInfo newValue) {
+            return getExpiryForCreation(key, newValue);
+        }
     }
 }
@@ -1,24 +1,29 @@
 package uk.gov.hmcts.reform.em.stitching.service;
 
+import okhttp3.MultipartBody;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
 import org.apache.commons.io.FileUtils;
+import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.Resource;
 import org.springframework.data.util.Pair;
 import org.springframework.http.HttpStatusCode;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import uk.gov.hmcts.reform.authorisation.generators.AuthTokenGenerator;
 import uk.gov.hmcts.reform.ccd.document.am.feign.CaseDocumentClientApi;
 import uk.gov.hmcts.reform.ccd.document.am.model.Classification;
 import uk.gov.hmcts.reform.ccd.document.am.model.Document;
-import uk.gov.hmcts.reform.ccd.document.am.model.DocumentUploadRequest;
-import uk.gov.hmcts.reform.ccd.document.am.model.UploadResponse;
 import uk.gov.hmcts.reform.em.stitching.domain.BundleDocument;
 import uk.gov.hmcts.reform.em.stitching.domain.DocumentTask;
-import uk.gov.hmcts.reform.em.stitching.service.dto.ByteArrayMultipartFile;
+import uk.gov.hmcts.reform.em.stitching.metrics.StitchingMetrics;
 import uk.gov.hmcts.reform.em.stitching.service.impl.DocumentTaskProcessingException;
 import uk.gov.hmcts.reform.em.stitching.service.impl.FileAndMediaType;
 
@@ -29,37 +34,67 @@ import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
 import java.nio.file.attribute.PosixFilePermission;
 import java.nio.file.attribute.PosixFilePermissions;
-import java.util.Arrays;
 import java.util.EnumSet;
 import java.util.Objects;
 import java.util.UUID;
 import java.util.stream.Stream;
 
 import static pl.touk.throwing.ThrowingFunction.unchecked;
+import static uk.gov.hmcts.reform.em.stitching.service.CloseableCloser.close;
 
 @Service
 public class CdamService {
     private final Logger log = LoggerFactory.getLogger(CdamService.class);
 
+    private static final String UPLOAD_ENDPOINT = "/cases/documents";
+
     private final CaseDocumentClientApi caseDocumentClientApi;
 
     private final AuthTokenGenerator authTokenGenerator;
 
-    public CdamService(CaseDocumentClientApi caseDocumentClientApi, AuthTokenGenerator authTokenGenerator) {
+    private final DocumentDownloadExecutor documentDownloadExecutor;
+
+    private final DocumentCache documentCache;
+
+    private final StitchingMetrics stitchingMetrics;
+
+    private final OkHttpClient okHttpClient;
+
+    private final String caseDocumentAmUrl;
+
+    public CdamService(CaseDocumentClientApi caseDocumentClientApi, AuthTokenGenerator authTokenGenerator,
+                       DocumentDownloadExecutor documentDownloadExecutor,
+                       @Qualifier("documentDownloadCache") DocumentCache documentCache,
+                       StitchingMetrics stitchingMetrics, OkHttpClient okHttpClient,
+                       @Value("${case_document_am.url}") String caseDocumentAmUrl) {
         this.caseDocumentClientApi = caseDocumentClientApi;
         this.authTokenGenerator = authTokenGenerator;
+        this.documentDownloadExecutor = documentDownloadExecutor;
+        this.documentCache = documentCache;
+        this.stitchingMetrics = stitchingMetrics;
+        this.okHttpClient = okHttpClient;
+        this.caseDocumentAmUrl = caseDocumentAmUrl;
     }
 
     public Stream<Pair<BundleDocument, FileAndMediaType>> downloadFiles(DocumentTask documentTask) {
-        return documentTask.getBundle().getSortedDocuments()
-            .parallel()
-            .map(unchecked(bundleDocument -> downloadFile(
-                    documentTask.getJwt(),
-                    documentTask.getServiceAuth(),
-                    bundleDocument))
+        return documentDownloadExecutor.downloadAll(
+            documentTask.getBundle().getDistinctDocuments(),
+            unchecked(bundleDocument -> timedDownloadFile(documentTask, bundleDocument))
             );
     }
 
+    private Pair<BundleDocument, FileAndMediaType> timedDownloadFile(
+            DocumentTask documentTask,
+            BundleDocument bundleDocument
+    ) throws DocumentTaskProcessingException {
+        long start = System.nanoTime();
+        Pair<BundleDocument, FileAndMediaType> download =
+            downloadFile(documentTask.getJwt(), documentTask.getServiceAuth(), bundleDocument);
+        long downloadNanos = System.nanoTime() - start;
+        stitchingMetrics.recordDownload(StitchingMetrics.CDAM, downloadNanos, download.getSecond().getFile());
+        return Pair.of(download.getFirst(), download.getSecond().withDownloadNanos(downloadNanos));
+    }
+
     public Pair<BundleDocument, FileAndMediaType> downloadFile(
             String auth,
             String serviceAuth,
@@ -67,6 +102,15 @@ public class CdamService {
     ) throws DocumentTaskProcessingException {
         String docId = bundleDocument.getDocumentURI().substring(bundleDocument.getDocumentURI().lastIndexOf('/') + 1);
         UUID documentId = UUID.fromString(docId);
+        Document metadata = null;
+        if (documentCache.isEnabled()) {
+            // Fetched once, to find the cached binary and, on a miss, to name and type the download.
+            metadata = caseDocumentClientApi.getMetadataForDocument(auth, serviceAuth, documentId);
+            Pair<BundleDocument, FileAndMediaType> cached = downloadFromCache(bundleDocument, metadata);
+            if (Objects.nonNull(cached)) {
+                return cached;
+            }
+        }
         ResponseEntity<Resource> response =  caseDocumentClientApi.getDocumentBinary(auth, serviceAuth, documentId);
         HttpStatusCode status = null;
         try {
@@ -75,9 +119,13 @@ public class CdamService {
                 var byteArrayResource = (ByteArrayResource) response.getBody();
                 if (Objects.nonNull(byteArrayResource)) {
                     try (var inputStream = byteArrayResource.getInputStream()) {
-                        Document document = caseDocumentClientApi.getMetadataForDocument(auth, serviceAuth, documentId);
+                        Document document = Objects.nonNull(metadata) ? metadata
+                            : caseDocumentClientApi.getMetadataForDocument(auth, serviceAuth, documentId);
                         var fileName = document.originalDocumentName;
                         File file = copyResponseToFile(inputStream, fileName);
+                        if (documentCache.isEnabled() && Objects.nonNull(document.modifiedOn)) {
+                            documentCache.put(cacheKey(bundleDocument, document), file);
+                        }
                         return Pair.of(bundleDocument,
                             new FileAndMediaType(file, okhttp3.MediaType.get(document.mimeType)));
                     }
@@ -92,6 +140,29 @@ public class CdamService {
                 status));
     }
 
+    private Pair<BundleDocument, FileAndMediaType> downloadFromCache(
+            BundleDocument bundleDocument, Document document) throws DocumentTaskProcessingException {
+        try {
+            if (Objects.isNull(document) || Objects.isNull(document.modifiedOn)) {
+                return null;
+            }
+            var tempDir = Files.createTempDirectory("pg",
+                PosixFilePermissions.asFileAttribute(EnumSet.allOf(PosixFilePermission.class)));
+            var file = new File(tempDir.toAbsolutePath().toFile(), document.originalDocumentName);
+            if (documentCache.copyTo(cacheKey(bundleDocument, document), file)) {
+                return Pair.of(bundleDocument, new FileAndMediaType(file, okhttp3.MediaType.get(document.mimeType)));
+            }
+            FileUtils.deleteQuietly(tempDir.toFile());
+            return null;
+        } catch (IOException e) {
+            throw new DocumentTaskProcessingException("Could not download the file from CDAM", e);
+        }
+    }
+
+    private String cacheKey(BundleDocument bundleDocument, Document document) {
+        return bundleDocument.getDocumentURI() + "@" + document.modifiedOn.toInstant();
+    }
+
     private File copyResponseToFile(InputStream inputStream, String fileName) throws DocumentTaskProcessingException {
         try {
 
@@ -107,31 +178,49 @@ public class CdamService {
         }
     }
 
+    /**
+     * Uploads the stitched bundle to CDAM. The file is sent straight from disk, a segment at a time, so the
+     * heap used does not depend on the size of the bundle. The Feign client encodes every multipart body
+     * into a single array, so the upload is made with the OkHttp client instead.
+     */
     public void uploadDocuments(File file, DocumentTask documentTask) throws DocumentTaskProcessingException {
-
+        Response response = null;
         try {
-            ByteArrayMultipartFile multipartFile =
-                ByteArrayMultipartFile.builder()
-                    .content(FileUtils.readFileToByteArray(file))
-                    .name(StringFormattingUtils.generateFileName(documentTask.getBundle().getFileName()))
-                    .contentType(MediaType.valueOf("application/pdf"))
+            MultipartBody requestBody = new MultipartBody.Builder()
+                .setType(MultipartBody.FORM)
+                .addFormDataPart("classification", Classification.PUBLIC.toString())
+                .addFormDataPart("caseTypeId", documentTask.getCaseTypeId())
+                .addFormDataPart("jurisdictionId", documentTask.getJurisdictionId())
+                .addFormDataPart("files",
+                    StringFormattingUtils.generateFileName(documentTask.getBundle().getFileName()),
+                    RequestBody.create(file, okhttp3.MediaType.get("application/pdf")))
                 .build();
 
-            DocumentUploadRequest documentUploadRequest = new DocumentUploadRequest(Classification.PUBLIC.toString(),
-                documentTask.getCaseTypeId(), documentTask.getJurisdictionId(),
-                Arrays.asList(multipartFile));
+            Request request = new Request.Builder()
+                .addHeader("Authorization", documentTask.getJwt())
+                .addHeader("ServiceAuthorization", authTokenGenerator.generate())
+                .url(caseDocumentAmUrl + UPLOAD_ENDPOINT)
+                .post(requestBody)
+                .build();
 
-            UploadResponse uploadResponse = caseDocumentClientApi.uploadDocuments(documentTask.getJwt(),
-                    authTokenGenerator.generate(),
-                documentUploadRequest);
-            Document document = uploadResponse.getDocuments().get(0);
+            response = okHttpClient.newCall(request).execute();
+            if (!response.isSuccessful()) {
+                throw new DocumentTaskProcessingException(
+                    "Could not upload the file to CDAM. Response code: " + response.code());
+            }
 
-            documentTask.getBundle().setHashToken(document.hashToken);
-            documentTask.getBundle().setStitchedDocumentURI(document.links.self.href);
+            JSONObject document = new JSONObject(response.body().string())
+                .getJSONArray("documents")
+                .getJSONObject(0);
+            documentTask.getBundle().setHashToken(document.getString("hashToken"));
+            documentTask.getBundle().setStitchedDocumentURI(
+                document.getJSONObject("_links").getJSONObject("self").getString("href"));
         } catch (IOException e) {
             throw new DocumentTaskProcessingException("Could not upload the file to CDAM", e);
-        } catch (Exception e) {
+        } catch (RuntimeException e) {
             throw new DocumentTaskProcessingException(e.getMessage(), e);
+        } finally {
+            close(response);
         }
     }
 }
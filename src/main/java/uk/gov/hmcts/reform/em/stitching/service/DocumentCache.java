@@ -0,0 +1,140 @@
+package uk.gov.hmcts.reform.em.stitching.service;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.hash.HashingInputStream;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps copies of documents on local disk so they are not fetched or converted again for the next
+ * bundle that uses them. Entries are looked up by a caller-supplied key, evicted least recently used
+ * first once the cache grows beyond its size limit, and checked against the SHA-256 recorded when they
+ * were stored before being handed out.
+ *
+ * <p>Callers always receive their own copy of an entry, as the stitching pipeline modifies and deletes
+ * the files it is given. The index is held in memory, so the cache starts empty on every restart.
+ */
+public class DocumentCache {
+
+    private static final Logger log = LoggerFactory.getLogger(DocumentCache.class);
+
+    private final Path directory;
+    private final long maxBytes;
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    public DocumentCache(Path directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        if (isEnabled()) {
+            try {
+                FileUtils.deleteDirectory(directory.toFile());
+                Files.createDirectories(directory);
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not create the document cache in " + directory, e);
+            }
+        }
+    }
+
+    public static DocumentCache disabled() {
+        return new DocumentCache(null, 0);
+    }
+
+    public boolean isEnabled() {
+        return maxBytes > 0;
+    }
+
+    /**
+     * Copies the entry for the key to the target file.
+     *
+     * @return true if the entry was found and passed its integrity check, false otherwise.
+     */
+    public boolean copyTo(String key, File target) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+        }
+        if (entry == null) {
+            return false;
+        }
+        try {
+            HashCode sha256 = copy(entry.path(), target.toPath());
+            if (sha256.equals(entry.sha256())) {
+                return true;
+            }
+            log.warn("Document cache entry for {} failed its integrity check and has been removed", key);
+        } catch (IOException e) {
+            log.warn("Could not read document cache entry for {}: {}", key, e.getMessage());
+        }
+        remove(key, entry);
+        return false;
+    }
+
+    /**
+     * Stores a copy of the file under the key. Failures are logged and otherwise ignored.
+     */
+    public void put(String key, File source) {
+        if (!isEnabled() || source.length() > maxBytes) {
+            return;
+        }
+        Path path = directory.resolve(Hashing.sha256().hashString(key, StandardCharsets.UTF_8).toString());
+        try {
+            Path staged = Files.createTempFile(directory, "staged", ".tmp");
+            HashCode sha256 = copy(source.toPath(), staged);
+            Files.move(staged, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            add(key, new Entry(path, Files.size(path), sha256));
+        } catch (IOException e) {
+            log.warn("Could not add {} to the document cache: {}", key, e.getMessage());
+        }
+    }
+
+    public synchronized long size() {
+        return totalBytes;
+    }
+
+    private synchronized void add(String key, Entry entry) {
+        Entry replaced = entries.put(key, entry);
+        if (replaced != null) {
+            totalBytes -= replaced.size();
+        }
+        totalBytes += entry.size();
+        Iterator<Map.Entry<String, Entry>> leastRecentlyUsed = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && leastRecentlyUsed.hasNext()) {
+            Entry evicted = leastRecentlyUsed.next().getValue();
+            leastRecentlyUsed.remove();
+            totalBytes -= evicted.size();
+            if (!evicted.path().equals(entry.path())) {
+                FileUtils.deleteQuietly(evicted.path().toFile());
+            }
+        }
+    }
+
+    private synchronized void remove(String key, Entry entry) {
+        if (entries.remove(key, entry)) {
+            totalBytes -= entry.size();
+            FileUtils.deleteQuietly(entry.path().toFile());
+        }
+    }
+
+    private static HashCode copy(Path source, Path target) throws IOException {
+        try (HashingInputStream in = new HashingInputStream(Hashing.sha256(), Files.newInputStream(source))) {
+            Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+            return in.hash();
+        }
+    }
+
+    private record Entry(Path path, long size, HashCode sha256) {
+    }
+}
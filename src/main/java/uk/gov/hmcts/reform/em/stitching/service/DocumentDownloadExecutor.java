@@ -0,0 +1,128 @@
+package uk.gov.hmcts.reform.em.stitching.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Runs blocking document downloads off the common ForkJoinPool. Each call to {@link #downloadAll} may
+ * have at most max-concurrent-per-task downloads in flight, and max-concurrent caps the total across
+ * every task on this instance.
+ */
+@Component
+public class DocumentDownloadExecutor {
+
+    private final ExecutorService executor;
+    private final Semaphore globalPermits;
+    private final int maxConcurrentPerTask;
+
+    public DocumentDownloadExecutor(@Value("${document-download.virtual-threads}") boolean virtualThreads,
+                                    @Value("${document-download.max-concurrent}") int maxConcurrent,
+                                    @Value("${document-download.max-concurrent-per-task}") int maxConcurrentPerTask) {
+        this.executor = virtualThreads
+            ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("document-download-", 0).factory())
+            : Executors.newFixedThreadPool(maxConcurrent, Thread.ofPlatform().name("document-download-", 0).factory());
+        this.globalPermits = new Semaphore(maxConcurrent, true);
+        this.maxConcurrentPerTask = maxConcurrentPerTask;
+    }
+
+    /**
+     * Starts downloading every item and returns the results in the order they complete. Closing the
+     * returned stream cancels any downloads that have not finished. A failed download is rethrown
+     * unchanged when the stream reaches it.
+     */
+    public <T, R> Stream<R> downloadAll(Stream<T> items, Function<T, R> download) {
+        List<T> pending = items.toList();
+        CompletionService<R> completionService = new ExecutorCompletionService<>(executor);
+        TaskDownloads<T, R> taskDownloads = new TaskDownloads<>(pending.iterator(), download, completionService);
+        for (int i = 0; i < maxConcurrentPerTask; i++) {
+            taskDownloads.submitNext();
+        }
+
+        return Stream.generate(() -> takeNext(completionService))
+            .limit(pending.size())
+            .onClose(taskDownloads::cancel);
+    }
+
+    /**
+     * Submits the items of one call to {@link #downloadAll} no more than max-concurrent-per-task at a time,
+     * each finished download submitting the next. An item waiting for its turn is never handed to the
+     * executor, so it cannot hold a thread of the fixed pool used without virtual threads while the
+     * downloads of other tasks queue behind it.
+     */
+    private final class TaskDownloads<T, R> {
+        private final Iterator<T> remaining;
+        private final Function<T, R> download;
+        private final CompletionService<R> completionService;
+        private final List<Future<R>> futures = new ArrayList<>();
+        private boolean cancelled;
+
+        private TaskDownloads(Iterator<T> remaining, Function<T, R> download,
+                              CompletionService<R> completionService) {
+            this.remaining = remaining;
+            this.download = download;
+            this.completionService = completionService;
+        }
+
+        private synchronized void submitNext() {
+            if (cancelled || !remaining.hasNext()) {
+                return;
+            }
+            T item = remaining.next();
+            futures.add(completionService.submit(() -> {
+                try {
+                    return withGlobalPermit(() -> download.apply(item));
+                } finally {
+                    submitNext();
+                }
+            }));
+        }
+
+        private synchronized void cancel() {
+            cancelled = true;
+            futures.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private <R> R withGlobalPermit(Supplier<R> download) throws InterruptedException {
+        globalPermits.acquire();
+        try {
+            return download.get();
+        } finally {
+            globalPermits.release();
+        }
+    }
+
+    private <R> R takeNext(CompletionService<R> completionService) {
+        try {
+            return completionService.take().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a document download", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
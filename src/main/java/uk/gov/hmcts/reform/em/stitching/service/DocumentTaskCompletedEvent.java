@@ -0,0 +1,8 @@
+package uk.gov.hmcts.reform.em.stitching.service;
+
+/**
+ * Published when a DocumentTask with a callback has finished stitching, whether it succeeded or failed, so
+ * the callback can be sent without waiting for the next sweep.
+ */
+public record DocumentTaskCompletedEvent(Long documentTaskId) {
+}
@@ -0,0 +1,8 @@
+package uk.gov.hmcts.reform.em.stitching.service;
+
+/**
+ * Published when a new DocumentTask has been saved, so workers can pick it up without waiting for the
+ * next poll.
+ */
+public record DocumentTaskCreatedEvent(Long documentTaskId) {
+}
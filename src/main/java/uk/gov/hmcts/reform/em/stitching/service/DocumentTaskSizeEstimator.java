@@ -0,0 +1,56 @@
+package uk.gov.hmcts.reform.em.stitching.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import uk.gov.hmcts.reform.em.stitching.domain.Bundle;
+import uk.gov.hmcts.reform.em.stitching.domain.StitchManifest;
+import uk.gov.hmcts.reform.em.stitching.repository.BundleRepository;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Estimates how many pages a bundle will have once stitched, before any of its documents are downloaded.
+ * Documents that were in the last stitch onto the same stitchedDocumentURI count the pages they took up
+ * then; any other document counts the configured pages-per-document.
+ */
+@Component
+public class DocumentTaskSizeEstimator {
+
+    private final BundleRepository bundleRepository;
+
+    private final int pagesPerDocument;
+
+    public DocumentTaskSizeEstimator(BundleRepository bundleRepository,
+                                     @Value("${document-task-queue.pages-per-document}") int pagesPerDocument) {
+        this.bundleRepository = bundleRepository;
+        this.pagesPerDocument = pagesPerDocument;
+    }
+
+    public int estimatePages(Bundle bundle) {
+        if (bundle == null) {
+            return 0;
+        }
+        Map<String, Integer> pageHints = pageHints(bundle);
+        long pages = bundle.getSortedDocuments()
+            .mapToLong(document -> pageHints.getOrDefault(document.getDocumentURI(), pagesPerDocument))
+            .sum();
+        return (int) Math.min(Integer.MAX_VALUE, pages);
+    }
+
+    private Map<String, Integer> pageHints(Bundle bundle) {
+        if (bundle.getStitchedDocumentURI() == null) {
+            return Map.of();
+        }
+        return bundleRepository
+            .findFirstByStitchedDocumentURIAndStitchManifestIsNotNullOrderByIdDesc(bundle.getStitchedDocumentURI())
+            .map(Bundle::getStitchManifest)
+            .map(StitchManifest::getSegments)
+            .map(segments -> segments.stream()
+                .filter(segment -> Objects.nonNull(segment.documentURI()))
+                .collect(Collectors.toMap(
+                    StitchManifest.Segment::documentURI, StitchManifest.Segment::pageCount, Math::max)))
+            .orElse(Map.of());
+    }
+}
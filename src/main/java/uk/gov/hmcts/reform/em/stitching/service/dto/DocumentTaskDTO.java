@@ -4,6 +4,7 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import lombok.ToString;
+import uk.gov.hmcts.reform.em.stitching.domain.enumeration.TaskPriority;
 import uk.gov.hmcts.reform.em.stitching.domain.enumeration.TaskState;
 
 import java.io.Serializable;
@@ -38,6 +39,8 @@ public class DocumentTaskDTO extends AbstractAuditingDTO implements Serializable
 
     private String jurisdictionId;
 
+    private TaskPriority priority;
+
     public String getServiceAuth() {
         return serviceAuth;
     }
@@ -71,6 +74,14 @@ public class DocumentTaskDTO extends AbstractAuditingDTO implements Serializable
         this.jurisdictionId = jurisdictionId;
     }
 
+    public TaskPriority getPriority() {
+        return priority;
+    }
+
+    public void setPriority(TaskPriority priority) {
+        this.priority = priority;
+    }
+
     public Long getId() {
         return id;
     }
@@ -8,18 +8,25 @@ import okhttp3.Request;
 import okhttp3.Response;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.util.Pair;
 import org.springframework.stereotype.Service;
 import uk.gov.hmcts.reform.authorisation.generators.AuthTokenGenerator;
 import uk.gov.hmcts.reform.em.stitching.domain.BundleDocument;
+import uk.gov.hmcts.reform.em.stitching.metrics.StitchingMetrics;
 import uk.gov.hmcts.reform.em.stitching.repository.IdamRepository;
 import uk.gov.hmcts.reform.em.stitching.service.DmStoreDownloader;
+import uk.gov.hmcts.reform.em.stitching.service.DocumentCache;
+import uk.gov.hmcts.reform.em.stitching.service.DocumentDownloadExecutor;
 import uk.gov.hmcts.reform.idam.client.models.UserInfo;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.stream.Stream;
 
 import static pl.touk.throwing.ThrowingFunction.unchecked;
@@ -30,6 +37,8 @@ public class DmStoreDownloaderImpl implements DmStoreDownloader {
 
     private final Logger log = LoggerFactory.getLogger(DmStoreDownloaderImpl.class);
 
+    private static final int MAX_CACHED_BINARIES = 10_000;
+
     private final OkHttpClient okHttpClient;
 
     private final AuthTokenGenerator authTokenGenerator;
@@ -40,16 +49,44 @@ public class DmStoreDownloaderImpl implements DmStoreDownloader {
 
     private final IdamRepository idamRepository;
 
+    private final DocumentDownloadExecutor documentDownloadExecutor;
+
+    private final DocumentCache documentCache;
+
+    private final StitchingMetrics stitchingMetrics;
+
+    /**
+     * When enabled, the binary of a document is fetched straight from its URI, taking its media type from
+     * the response, and its meta-data is only fetched when that fails.
+     */
+    private final boolean binaryFastPath;
+
+    // The validator of the cached binary of each document, so the next download can be made conditional.
+    private final Map<String, CachedBinary> cachedBinaries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedBinary> eldest) {
+            return size() > MAX_CACHED_BINARIES;
+        }
+    };
+
     public DmStoreDownloaderImpl(OkHttpClient okHttpClient,
                                  AuthTokenGenerator authTokenGenerator,
                                  DmStoreUriFormatter dmStoreUriFormatter,
                                  ObjectMapper objectMapper,
-                                 IdamRepository idamRepository) {
+                                 IdamRepository idamRepository,
+                                 DocumentDownloadExecutor documentDownloadExecutor,
+                                 @Qualifier("documentDownloadCache") DocumentCache documentCache,
+                                 StitchingMetrics stitchingMetrics,
+                                 @Value("${dm-store-app.binary-fast-path}") boolean binaryFastPath) {
         this.okHttpClient = okHttpClient;
         this.authTokenGenerator = authTokenGenerator;
         this.dmStoreUriFormatter = dmStoreUriFormatter;
         this.objectMapper = objectMapper;
         this.idamRepository = idamRepository;
+        this.documentDownloadExecutor = documentDownloadExecutor;
+        this.documentCache = documentCache;
+        this.stitchingMetrics = stitchingMetrics;
+        this.binaryFastPath = binaryFastPath;
     }
 
     @Override
@@ -58,14 +95,120 @@ public class DmStoreDownloaderImpl implements DmStoreDownloader {
         UserInfo userInfo = idamRepository.getUserInfo(jwt);
         String userId = userInfo.getUid();
         String userRoles = String.join(",", userInfo.getRoles());
-        return bundleDocuments
-            .parallel()
-            .map(unchecked(bundleDocument -> downloadFile(bundleDocument, userId, userRoles)));
+        return documentDownloadExecutor.downloadAll(
+            bundleDocuments,
+            unchecked(bundleDocument -> timedDownloadFile(bundleDocument, userId, userRoles)));
+    }
+
+    private Pair<BundleDocument, FileAndMediaType> timedDownloadFile(BundleDocument bundleDocument,
+                                                                     String userId, String userRoles)
+            throws DocumentTaskProcessingException {
+        long start = System.nanoTime();
+        Pair<BundleDocument, FileAndMediaType> download = downloadFile(bundleDocument, userId, userRoles);
+        long downloadNanos = System.nanoTime() - start;
+        stitchingMetrics.recordDownload(StitchingMetrics.DM_STORE, downloadNanos, download.getSecond().getFile());
+        return Pair.of(download.getFirst(), download.getSecond().withDownloadNanos(downloadNanos));
     }
 
     private Pair<BundleDocument, FileAndMediaType> downloadFile(BundleDocument bundleDocument,
                                                                 String userId, String userRoles)
             throws DocumentTaskProcessingException {
+        if (binaryFastPath) {
+            FileAndMediaType binary = downloadBinary(bundleDocument.getDocumentURI(), userId, userRoles);
+            if (binary != null) {
+                return Pair.of(bundleDocument, binary);
+            }
+        }
+        return downloadFileWithMetaData(bundleDocument, userId, userRoles);
+    }
+
+    /**
+     * Fetches the binary of a document in a single request. A binary cached from an earlier download is
+     * revalidated with its ETag or Last-Modified date rather than fetched again. Returns null when the
+     * binary cannot be fetched this way, so the caller falls back to looking it up from the meta-data.
+     */
+    private FileAndMediaType downloadBinary(String documentUri, String userId, String userRoles)
+            throws DocumentTaskProcessingException {
+        String documentBinaryUrl = binaryUrl(documentUri);
+        if (documentBinaryUrl == null) {
+            return null;
+        }
+        CachedBinary cached = cachedBinary(documentUri);
+        Response response = null;
+        try {
+            response = getDocumentStoreResponse(documentBinaryUrl, userId, userRoles, cached);
+            if (response.code() == 304 && cached != null) {
+                File cachedFile = copyFromCache(cached.cacheKey());
+                if (cachedFile != null) {
+                    return new FileAndMediaType(cachedFile, cached.mediaType());
+                }
+                forgetCachedBinary(documentUri);
+                close(response);
+                response = getDocumentStoreResponse(documentBinaryUrl, userId, userRoles, null);
+            }
+            MediaType mediaType = response.body().contentType();
+            if (!response.isSuccessful() || mediaType == null) {
+                log.debug("Falling back to the meta-data of {}, binary HTTP response: {}",
+                    documentUri, response.code());
+                return null;
+            }
+            mediaType = MediaType.get(mediaType.type() + "/" + mediaType.subtype());
+            File file = copyResponseToFile(response, documentBinaryUrl);
+            cacheBinary(documentUri, response, file, mediaType);
+            return new FileAndMediaType(file, mediaType);
+        } catch (RuntimeException | IOException e) {
+            throw new DocumentTaskProcessingException("Could not access the binary: " + e.getMessage(), e);
+        } finally {
+            close(response);
+        }
+    }
+
+    private String binaryUrl(String documentUri) {
+        if (documentUri == null) {
+            return null;
+        }
+        try {
+            String documentUrl = dmStoreUriFormatter.formatDmStoreUri(documentUri);
+            return documentUrl.endsWith("/binary") ? documentUrl : documentUrl + "/binary";
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private CachedBinary cachedBinary(String documentUri) {
+        if (!documentCache.isEnabled()) {
+            return null;
+        }
+        synchronized (cachedBinaries) {
+            return cachedBinaries.get(documentUri);
+        }
+    }
+
+    private void forgetCachedBinary(String documentUri) {
+        synchronized (cachedBinaries) {
+            cachedBinaries.remove(documentUri);
+        }
+    }
+
+    private void cacheBinary(String documentUri, Response response, File file, MediaType mediaType) {
+        if (!documentCache.isEnabled()) {
+            return;
+        }
+        String etag = response.header("ETag");
+        String validator = etag != null ? etag : response.header("Last-Modified");
+        if (validator == null) {
+            return;
+        }
+        String cacheKey = documentUri + "@" + validator;
+        documentCache.put(cacheKey, file);
+        synchronized (cachedBinaries) {
+            cachedBinaries.put(documentUri, new CachedBinary(cacheKey, validator, etag != null, mediaType));
+        }
+    }
+
+    private Pair<BundleDocument, FileAndMediaType> downloadFileWithMetaData(BundleDocument bundleDocument,
+                                                                            String userId, String userRoles)
+            throws DocumentTaskProcessingException {
         Response getDocumentMetaDataResponse = null;
         Response getDocumentContentResponse =  null;
         try {
@@ -77,13 +220,24 @@ public class DmStoreDownloaderImpl implements DmStoreDownloader {
                 JsonNode documentMetaData = objectMapper.readTree(getDocumentMetaDataResponse.body().byteStream());
 
                 String documentBinaryUrl = documentMetaData.get("_links").get("binary").get("href").asText();
+                MediaType mediaType = MediaType.get(documentMetaData.get("mimeType").asText());
+                String cacheKey = documentMetaData.hasNonNull("modifiedOn")
+                    ? bundleDocument.getDocumentURI() + "@" + documentMetaData.get("modifiedOn").asText()
+                    : null;
+
+                File cachedFile = copyFromCache(cacheKey);
+                if (cachedFile != null) {
+                    return Pair.of(bundleDocument, new FileAndMediaType(cachedFile, mediaType));
+                }
 
                 getDocumentContentResponse = getDocumentStoreResponse(documentBinaryUrl, userId, userRoles);
 
                 if (getDocumentContentResponse.isSuccessful()) {
-                    return Pair.of(bundleDocument,
-                            new FileAndMediaType(copyResponseToFile(getDocumentContentResponse, documentBinaryUrl),
-                                MediaType.get(documentMetaData.get("mimeType").asText())));
+                    File file = copyResponseToFile(getDocumentContentResponse, documentBinaryUrl);
+                    if (cacheKey != null) {
+                        documentCache.put(cacheKey, file);
+                    }
+                    return Pair.of(bundleDocument, new FileAndMediaType(file, mediaType));
                 } else {
                     throw new DocumentTaskProcessingException(
                             "Could not access the binary. HTTP response: " + getDocumentContentResponse.code());
@@ -104,15 +258,35 @@ public class DmStoreDownloaderImpl implements DmStoreDownloader {
 
     private Response getDocumentStoreResponse(String documentUri, String userId, String userRoles)
             throws IOException {
+        return getDocumentStoreResponse(documentUri, userId, userRoles, null);
+    }
+
+    private Response getDocumentStoreResponse(String documentUri, String userId, String userRoles,
+                                              CachedBinary cached) throws IOException {
 
         String fixedUrl = dmStoreUriFormatter.formatDmStoreUri(documentUri);
 
-        return okHttpClient.newCall(new Request.Builder()
+        Request.Builder request = new Request.Builder()
                 .addHeader("user-id", userId)
                 .addHeader("user-roles", userRoles)
                 .addHeader("ServiceAuthorization", authTokenGenerator.generate())
-                .url(fixedUrl)
-                .build()).execute();
+                .url(fixedUrl);
+        if (cached != null) {
+            request.addHeader(cached.etag() ? "If-None-Match" : "If-Modified-Since", cached.validator());
+        }
+        return okHttpClient.newCall(request.build()).execute();
+    }
+
+    private File copyFromCache(String cacheKey) throws IOException {
+        if (cacheKey == null || !documentCache.isEnabled()) {
+            return null;
+        }
+        File file = File.createTempFile("dm-store", ".tmp");
+        if (documentCache.copyTo(cacheKey, file)) {
+            return file;
+        }
+        Files.deleteIfExists(file.toPath());
+        return null;
     }
 
     private File copyResponseToFile(Response response, String documentBinaryUrl)
@@ -127,4 +301,6 @@ public class DmStoreDownloaderImpl implements DmStoreDownloader {
         }
     }
 
+    private record CachedBinary(String cacheKey, String validator, boolean etag, MediaType mediaType) {
+    }
 }
@@ -1,8 +1,10 @@
 package uk.gov.hmcts.reform.em.stitching.service.impl;
 
 import org.springframework.data.util.Pair;
+import uk.gov.hmcts.reform.em.stitching.conversion.CachingConverter;
 import uk.gov.hmcts.reform.em.stitching.conversion.FileToPDFConverter;
 import uk.gov.hmcts.reform.em.stitching.domain.BundleDocument;
+import uk.gov.hmcts.reform.em.stitching.metrics.StitchingMetrics;
 import uk.gov.hmcts.reform.em.stitching.service.DocumentConversionService;
 import uk.gov.hmcts.reform.em.stitching.service.exception.DocmosisConversionException;
 
@@ -15,17 +17,26 @@ public class DocumentConversionServiceImpl implements DocumentConversionService
 
     private final List<FileToPDFConverter> converters;
 
-    public DocumentConversionServiceImpl(List<FileToPDFConverter> converters) {
+    private final StitchingMetrics stitchingMetrics;
+
+    public DocumentConversionServiceImpl(List<FileToPDFConverter> converters, StitchingMetrics stitchingMetrics) {
         this.converters = converters;
+        this.stitchingMetrics = stitchingMetrics;
     }
 
     @Override
     public Pair<BundleDocument, File> convert(Pair<BundleDocument, FileAndMediaType> pair) {
         FileAndMediaType fileAndMediaType = pair.getSecond();
+        String mimeType = fileAndMediaType.getMediaType().toString();
         File convertedFile = converters.stream().parallel()
-            .filter(f -> f.accepts().contains(fileAndMediaType.getMediaType().toString()))
+            .filter(f -> f.accepts().contains(mimeType))
             .findFirst()
-            .map(unchecked(f -> f.convert(fileAndMediaType.getFile())))
+            .map(unchecked(f -> {
+                long start = System.nanoTime();
+                File converted = f.convert(fileAndMediaType.getFile());
+                stitchingMetrics.recordConversion(converterName(f), mimeType, System.nanoTime() - start);
+                return converted;
+            }))
             .orElseThrow(() -> {
                 String errMsg = String.format(
                         "Error converting document: %s with file type: %s",
@@ -36,5 +47,11 @@ public class DocumentConversionServiceImpl implements DocumentConversionService
         return Pair.of(pair.getFirst(), convertedFile);
     }
 
-}
+    private String converterName(FileToPDFConverter converter) {
+        FileToPDFConverter named = converter instanceof CachingConverter cachingConverter
+            ? cachingConverter.getConverter()
+            : converter;
+        return named.getClass().getSimpleName();
+    }
 
+}
@@ -2,14 +2,18 @@ package uk.gov.hmcts.reform.em.stitching.service.impl;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import uk.gov.hmcts.reform.em.stitching.config.security.SecurityUtils;
 import uk.gov.hmcts.reform.em.stitching.domain.DocumentTask;
+import uk.gov.hmcts.reform.em.stitching.domain.enumeration.TaskPriority;
 import uk.gov.hmcts.reform.em.stitching.info.BuildInfo;
 import uk.gov.hmcts.reform.em.stitching.repository.DocumentTaskRepository;
+import uk.gov.hmcts.reform.em.stitching.service.DocumentTaskCreatedEvent;
 import uk.gov.hmcts.reform.em.stitching.service.DocumentTaskService;
+import uk.gov.hmcts.reform.em.stitching.service.DocumentTaskSizeEstimator;
 import uk.gov.hmcts.reform.em.stitching.service.dto.DocumentTaskDTO;
 import uk.gov.hmcts.reform.em.stitching.service.mapper.DocumentTaskMapper;
 
@@ -28,21 +32,29 @@ public class DocumentTaskServiceImpl implements DocumentTaskService {
     private final DocumentTaskMapper documentTaskMapper;
     private final BuildInfo buildInfo;
     private final SecurityUtils securityUtils;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DocumentTaskSizeEstimator documentTaskSizeEstimator;
 
     public DocumentTaskServiceImpl(DocumentTaskRepository documentTaskRepository,
                                    DocumentTaskMapper documentTaskMapper,
                                    BuildInfo buildInfo,
-                                   SecurityUtils securityUtils) {
+                                   SecurityUtils securityUtils,
+                                   ApplicationEventPublisher eventPublisher,
+                                   DocumentTaskSizeEstimator documentTaskSizeEstimator) {
         this.documentTaskRepository = documentTaskRepository;
         this.documentTaskMapper = documentTaskMapper;
         this.buildInfo = buildInfo;
         this.securityUtils = securityUtils;
+        this.eventPublisher = eventPublisher;
+        this.documentTaskSizeEstimator = documentTaskSizeEstimator;
     }
 
     /**
      * Save a documentTask. Saving the task also sets the version -
      * bear in mind that if a task is loaded as one version it may
      * be saved back as a different (more recent) version as the model will be updated.
+     * Its size is estimated here, so workers can choose between NEW tasks without loading them.
+     * Workers are told about the new task once the transaction commits.
      *
      * @param documentTaskDto the entity to save
      * @return the persisted entity
@@ -53,7 +65,12 @@ public class DocumentTaskServiceImpl implements DocumentTaskService {
         log.debug("Request to save DocumentTask : {}", documentTaskDto);
         DocumentTask documentTask = documentTaskMapper.toEntity(documentTaskDto);
         documentTask.setVersion(buildInfo.getBuildNumber());
+        if (documentTask.getPriority() == null) {
+            documentTask.setPriority(TaskPriority.NORMAL);
+        }
+        documentTask.setEstimatedPages(documentTaskSizeEstimator.estimatePages(documentTask.getBundle()));
         documentTask = documentTaskRepository.save(documentTask);
+        eventPublisher.publishEvent(new DocumentTaskCreatedEvent(documentTask.getId()));
 
         return documentTaskMapper.toDto(documentTask);
     }
@@ -8,10 +8,21 @@ public class FileAndMediaType {
 
     private final File file;
     private final MediaType mediaType;
+    // How long the file took to download, or 0 when it was not timed.
+    private final long downloadNanos;
 
     public FileAndMediaType(File file, MediaType mediaType) {
+        this(file, mediaType, 0);
+    }
+
+    public FileAndMediaType(File file, MediaType mediaType, long downloadNanos) {
         this.file = file;
         this.mediaType = mediaType;
+        this.downloadNanos = downloadNanos;
+    }
+
+    public FileAndMediaType withDownloadNanos(long downloadNanos) {
+        return new FileAndMediaType(file, mediaType, downloadNanos);
     }
 
     public File getFile() {
@@ -21,4 +32,8 @@ public class FileAndMediaType {
     public MediaType getMediaType() {
         return mediaType;
     }
+
+    public long getDownloadNanos() {
+        return downloadNanos;
+    }
 }
@@ -0,0 +1 @@
+CREATE INDEX CONCURRENTLY IF NOT EXISTS ver_doc_task_new_created_date_index ON versioned_document_task(created_date) WHERE task_state = 'NEW';
@@ -0,0 +1 @@
+ALTER TABLE public.bundle ADD COLUMN stitch_manifest jsonb;
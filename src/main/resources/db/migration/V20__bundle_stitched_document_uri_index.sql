@@ -0,0 +1 @@
+CREATE INDEX CONCURRENTLY IF NOT EXISTS bundle_stitched_document_uri_manifest_index ON bundle(stitched_document_uri) WHERE stitch_manifest IS NOT NULL;
@@ -0,0 +1 @@
+ALTER TABLE public.callback ADD COLUMN next_attempt_at timestamp;
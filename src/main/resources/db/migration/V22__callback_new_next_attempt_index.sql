@@ -0,0 +1 @@
+CREATE INDEX CONCURRENTLY IF NOT EXISTS callback_new_next_attempt_index ON callback(next_attempt_at) WHERE callback_state = 'NEW';
@@ -0,0 +1,2 @@
+ALTER TABLE public.versioned_document_task ADD COLUMN priority varchar(20) NOT NULL DEFAULT 'NORMAL';
+ALTER TABLE public.versioned_document_task ADD COLUMN estimated_pages integer NOT NULL DEFAULT 0;
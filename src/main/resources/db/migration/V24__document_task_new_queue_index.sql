@@ -0,0 +1 @@
+CREATE INDEX CONCURRENTLY IF NOT EXISTS versioned_document_task_new_queue_index ON versioned_document_task(priority, jurisdiction_id, case_type_id, id) WHERE task_state = 'NEW';
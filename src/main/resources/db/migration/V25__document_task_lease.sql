@@ -0,0 +1,2 @@
+ALTER TABLE public.versioned_document_task ADD COLUMN worker_id varchar(255);
+ALTER TABLE public.versioned_document_task ADD COLUMN heartbeat_at timestamp;
@@ -0,0 +1 @@
+CREATE INDEX CONCURRENTLY IF NOT EXISTS versioned_document_task_in_progress_heartbeat_index ON versioned_document_task(heartbeat_at) WHERE task_state = 'IN_PROGRESS';
@@ -0,0 +1,93 @@
+package uk.gov.hmcts.reform.em.stitching.batch;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uk.gov.hmcts.reform.em.stitching.metrics.StitchingMetrics;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConversionSchedulerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Deque<Runnable> submitted = new ArrayDeque<>();
+    private final Executor executor = submitted::addLast;
+
+    private ConversionScheduler scheduler;
+
+    @BeforeEach
+    void setup() {
+        scheduler = new ConversionScheduler(executor, 1, 10, new StitchingMetrics(meterRegistry));
+    }
+
+    @Test
+    void takesTurnsBetweenTasks() {
+        List<String> order = new ArrayList<>();
+        ConversionScheduler.TaskQueue largeBundle = scheduler.newQueue();
+        ConversionScheduler.TaskQueue smallBundle = scheduler.newQueue();
+
+        for (int i = 1; i <= 3; i++) {
+            String name = "large-" + i;
+            largeBundle.submit(() -> order.add(name));
+        }
+        smallBundle.submit(() -> order.add("small-1"));
+        runAll();
+
+        assertEquals(List.of("large-1", "large-2", "small-1", "large-3"), order);
+    }
+
+    @Test
+    void runsNoMoreThanTheConcurrencyLimit() {
+        scheduler = new ConversionScheduler(executor, 2, 10, new StitchingMetrics(meterRegistry));
+        ConversionScheduler.TaskQueue queue = scheduler.newQueue();
+
+        for (int i = 0; i < 5; i++) {
+            queue.submit(() -> "converted");
+        }
+
+        assertEquals(2, submitted.size());
+        runAll();
+        assertTrue(submitted.isEmpty());
+    }
+
+    @Test
+    void completesWithTheConversionResult() {
+        CompletableFuture<String> converted = scheduler.newQueue().submit(() -> "converted");
+        runAll();
+
+        assertEquals("converted", converted.join());
+        assertEquals(1, meterRegistry.get("stitching.conversion.queue").timer().count());
+        assertEquals(1, meterRegistry.get("stitching.conversion.service").timer().count());
+    }
+
+    @Test
+    void failedConversionFreesItsThread() {
+        ConversionScheduler.TaskQueue queue = scheduler.newQueue();
+        CompletableFuture<String> failed = queue.submit(() -> {
+            throw new IllegalStateException("conversion failed");
+        });
+        CompletableFuture<String> next = queue.submit(() -> "converted");
+        runAll();
+
+        CompletionException exception = assertThrows(CompletionException.class, failed::join);
+        assertInstanceOf(IllegalStateException.class, exception.getCause());
+        assertEquals("converted", next.join());
+    }
+
+    private void runAll() {
+        while (!submitted.isEmpty()) {
+            submitted.pollFirst().run();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package uk.gov.hmcts.reform.em.stitching.batch;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.hmcts.reform.em.stitching.info.BuildInfo;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DocumentTaskCallbackDispatcherTest {
+
+    @Mock
+    private DocumentTaskCallbackProcessor documentTaskCallbackProcessor;
+
+    @Mock
+    private BuildInfo buildInfo;
+
+    private static final Instant CLAIMED = Instant.parse("2026-01-01T10:05:00Z");
+
+    private static final Instant RENEWED = Instant.parse("2026-01-01T10:06:00Z");
+
+    private final AtomicInteger sentRequests = new AtomicInteger();
+
+    private DocumentTaskCallbackDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        OkHttpClient okHttpClient = new OkHttpClient.Builder()
+            .addInterceptor(chain -> {
+                sentRequests.incrementAndGet();
+                if (chain.request().url().encodedPath().equals("/unreachable")) {
+                    throw new IOException("Connection refused");
+                }
+                int code = chain.request().url().encodedPath().equals("/callback") ? 200 : 500;
+                return new Response.Builder()
+                    .request(chain.request())
+                    .protocol(Protocol.HTTP_1_1)
+                    .code(code)
+                    .message("")
+                    .body(ResponseBody.create("Internal Server Error", MediaType.get("text/plain")))
+                    .build();
+            })
+            .build();
+        when(buildInfo.getBuildNumber()).thenReturn(1);
+        dispatcher = new DocumentTaskCallbackDispatcher(documentTaskCallbackProcessor, okHttpClient, buildInfo,
+            64, 5, 20);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.shutdown();
+    }
+
+    @Test
+    void sendsClaimedCallbacksAndRecordsTheResponseUnderTheRenewedLease() {
+        DocumentTaskCallbackProcessor.CallbackDelivery delivery = delivery("/callback", CLAIMED);
+        DocumentTaskCallbackProcessor.CallbackDelivery started = startDelivery(delivery);
+        when(documentTaskCallbackProcessor.recordResponse(eq(started), eq(200), eq(""), anyLong()))
+            .thenReturn(Optional.empty());
+
+        dispatcher.dispatch();
+
+        verify(documentTaskCallbackProcessor, timeout(5000))
+            .recordResponse(eq(started), eq(200), eq(""), anyLong());
+    }
+
+    @Test
+    void recordsTheBodyOfAFailedResponse() {
+        DocumentTaskCallbackProcessor.CallbackDelivery started = startDelivery(delivery("/failing", CLAIMED));
+
+        dispatcher.dispatch();
+
+        verify(documentTaskCallbackProcessor, timeout(5000))
+            .recordResponse(eq(started), eq(500), eq("Internal Server Error"), anyLong());
+    }
+
+    @Test
+    void recordsCallbacksThatCouldNotBeSent() {
+        DocumentTaskCallbackProcessor.CallbackDelivery started = startDelivery(delivery("/unreachable", CLAIMED));
+
+        dispatcher.dispatch();
+
+        verify(documentTaskCallbackProcessor, timeout(5000)).recordError(eq(started), any(), anyLong());
+        verify(documentTaskCallbackProcessor, never())
+            .recordResponse(any(), anyInt(), anyString(), anyLong());
+    }
+
+    @Test
+    void doesNotSendCallbacksClaimedByAnotherNodeWhileQueued() {
+        DocumentTaskCallbackProcessor.CallbackDelivery delivery = delivery("/callback", CLAIMED);
+        when(documentTaskCallbackProcessor.claimDueCallbacks(1, 20)).thenReturn(List.of(delivery));
+        when(documentTaskCallbackProcessor.startDelivery(delivery)).thenReturn(Optional.empty());
+
+        dispatcher.dispatch();
+
+        verify(documentTaskCallbackProcessor, timeout(5000)).startDelivery(delivery);
+        assertEquals(0, sentRequests.get());
+        verify(documentTaskCallbackProcessor, after(200).never())
+            .recordResponse(any(), anyInt(), anyString(), anyLong());
+        verify(documentTaskCallbackProcessor, never()).recordError(any(), any(), anyLong());
+    }
+
+    private DocumentTaskCallbackProcessor.CallbackDelivery startDelivery(
+        DocumentTaskCallbackProcessor.CallbackDelivery delivery) {
+        DocumentTaskCallbackProcessor.CallbackDelivery started = delivery(delivery.request().url().encodedPath(),
+            RENEWED);
+        when(documentTaskCallbackProcessor.claimDueCallbacks(1, 20)).thenReturn(List.of(delivery));
+        when(documentTaskCallbackProcessor.startDelivery(delivery)).thenReturn(Optional.of(started));
+        return started;
+    }
+
+    private DocumentTaskCallbackProcessor.CallbackDelivery delivery(String path, Instant leasedUntil) {
+        Request request = new Request.Builder()
+            .url("http://localhost" + path)
+            .post(RequestBody.create("{}", DocumentTaskCallbackProcessor.JSON))
+            .build();
+        return new DocumentTaskCallbackProcessor.CallbackDelivery(100L, 1234L, request, leasedUntil);
+    }
+}
@@ -2,13 +2,6 @@ package uk.gov.hmcts.reform.em.stitching.batch;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import okhttp3.Call;
-import okhttp3.MediaType;
-import okhttp3.OkHttpClient;
-import okhttp3.Protocol;
-import okhttp3.Request;
-import okhttp3.Response;
-import okhttp3.ResponseBody;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -20,23 +13,32 @@ import uk.gov.hmcts.reform.em.stitching.domain.Bundle;
 import uk.gov.hmcts.reform.em.stitching.domain.Callback;
 import uk.gov.hmcts.reform.em.stitching.domain.DocumentTask;
 import uk.gov.hmcts.reform.em.stitching.domain.enumeration.CallbackState;
+import uk.gov.hmcts.reform.em.stitching.metrics.StitchingMetrics;
+import uk.gov.hmcts.reform.em.stitching.repository.DocumentTaskRepository;
 import uk.gov.hmcts.reform.em.stitching.service.dto.DocumentTaskDTO;
 import uk.gov.hmcts.reform.em.stitching.service.mapper.DocumentTaskMapper;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class DocumentTaskCallbackProcessorTest {
 
-    @Mock
-    private OkHttpClient okHttpClient;
-
     @Mock
     private AuthTokenGenerator authTokenGenerator;
 
@@ -47,19 +49,29 @@ class DocumentTaskCallbackProcessorTest {
     private ObjectMapper objectMapper;
 
     @Mock
-    private Call httpCall;
+    private DocumentTaskDTO documentTaskDTO;
+
+    @Mock
+    private StitchingMetrics stitchingMetrics;
 
     @Mock
-    private DocumentTaskDTO documentTaskDTO;
+    private DocumentTaskRepository documentTaskRepository;
 
     @InjectMocks
     private DocumentTaskCallbackProcessor documentTaskCallbackProcessor;
 
     private DocumentTask documentTask;
 
+    private DocumentTaskCallbackProcessor.CallbackDelivery delivery;
+
+    private Instant leasedUntil;
+
     @BeforeEach
     void setUp() {
         documentTaskCallbackProcessor.callBackMaxAttempts = 3;
+        documentTaskCallbackProcessor.backoffMillis = 2000;
+        documentTaskCallbackProcessor.maxBackoffMillis = 60000;
+        documentTaskCallbackProcessor.leaseSeconds = 300;
 
         documentTask = new DocumentTask();
         documentTask.setId(100L);
@@ -74,82 +86,170 @@ class DocumentTaskCallbackProcessorTest {
         Bundle bundle = new Bundle();
         bundle.setId(1234L);
         documentTask.setBundle(bundle);
+
+        leasedUntil = Instant.parse("2026-01-01T10:05:00Z");
+        callback.setNextAttemptAt(leasedUntil);
+        delivery = new DocumentTaskCallbackProcessor.CallbackDelivery(100L, 1234L, null, leasedUntil);
     }
 
     @Test
-    void shouldHandleSuccessfulCallback() throws IOException {
+    void shouldClaimDueCallbacksAndLeaseThem() throws JsonProcessingException {
         mockDependencies();
-        Response response = createResponse(200, "{}");
-        when(httpCall.execute()).thenReturn(response);
+        when(documentTaskRepository.lockDueCallbackTaskIds(eq(1), any(Instant.class), eq(20)))
+            .thenReturn(List.of(100L));
+        when(documentTaskRepository.findById(100L)).thenReturn(Optional.of(documentTask));
+
+        List<DocumentTaskCallbackProcessor.CallbackDelivery> deliveries =
+            documentTaskCallbackProcessor.claimDueCallbacks(1, 20);
+
+        assertEquals(1, deliveries.size());
+        assertEquals(100L, deliveries.getFirst().documentTaskId());
+        assertEquals(1234L, deliveries.getFirst().bundleId());
+        assertEquals("http://localhost/callback", deliveries.getFirst().request().url().toString());
+        assertEquals("auth-token", deliveries.getFirst().request().header("ServiceAuthorization"));
+        assertEquals("jwt-token", deliveries.getFirst().request().header("Authorization"));
+        assertTrue(documentTask.getCallback().getNextAttemptAt().isAfter(Instant.now().plusSeconds(290)));
+        assertEquals(documentTask.getCallback().getNextAttemptAt(), deliveries.getFirst().leasedUntil());
+        assertEquals(CallbackState.NEW, documentTask.getCallback().getCallbackState());
+    }
+
+    @Test
+    void shouldFailCallbackWhoseRequestCannotBeBuilt() throws JsonProcessingException {
+        when(authTokenGenerator.generate()).thenReturn("auth-token");
+        when(documentTaskMapper.toDto(any(DocumentTask.class))).thenReturn(documentTaskDTO);
+        when(objectMapper.writeValueAsString(any())).thenThrow(new JsonProcessingException("Json Error") {});
+        when(documentTaskRepository.lockDueCallbackTaskIds(eq(1), any(Instant.class), eq(20)))
+            .thenReturn(List.of(100L));
+        when(documentTaskRepository.findById(100L)).thenReturn(Optional.of(documentTask));
 
-        DocumentTask result = documentTaskCallbackProcessor.process(documentTask);
+        List<DocumentTaskCallbackProcessor.CallbackDelivery> deliveries =
+            documentTaskCallbackProcessor.claimDueCallbacks(1, 20);
 
-        assertEquals(CallbackState.SUCCESS, result.getCallback().getCallbackState());
-        verify(okHttpClient).newCall(any(Request.class));
+        assertTrue(deliveries.isEmpty());
+        assertEquals(CallbackState.FAILURE, documentTask.getCallback().getCallbackState());
     }
 
     @Test
-    void shouldIncrementAttemptsOnFailure() throws IOException {
-        mockDependencies();
+    void shouldRenewLeaseWhenDeliveryStarts() {
+        mockLeased();
+
+        Optional<DocumentTaskCallbackProcessor.CallbackDelivery> started =
+            documentTaskCallbackProcessor.startDelivery(delivery);
+
+        assertTrue(started.isPresent());
+        assertTrue(started.get().leasedUntil().isAfter(Instant.now().plusSeconds(290)));
+        assertEquals(started.get().leasedUntil(), documentTask.getCallback().getNextAttemptAt());
+        assertEquals(100L, started.get().documentTaskId());
+    }
+
+    @Test
+    void shouldNotStartDeliveryClaimedByAnotherNode() {
+        when(documentTaskRepository.lockLeasedCallbackTaskId(100L, leasedUntil)).thenReturn(List.of());
+
+        assertTrue(documentTaskCallbackProcessor.startDelivery(delivery).isEmpty());
+        assertEquals(leasedUntil, documentTask.getCallback().getNextAttemptAt());
+        verify(documentTaskRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void shouldHandleSuccessfulCallback() {
+        mockLeased();
+
+        Optional<Instant> retryAt = documentTaskCallbackProcessor.recordResponse(delivery, 200, "", 1000);
+
+        assertTrue(retryAt.isEmpty());
+        assertEquals(CallbackState.SUCCESS, documentTask.getCallback().getCallbackState());
+        assertNull(documentTask.getCallback().getNextAttemptAt());
+        verify(stitchingMetrics).recordCallback(eq(StitchingMetrics.CALLBACK_SUCCESS), anyLong());
+    }
+
+    @Test
+    void shouldIncrementAttemptsAndRetryOnFailure() {
+        mockLeased();
         documentTask.getCallback().setAttempts(0);
-        Response response = createResponse(500, "Internal Server Error");
-        when(httpCall.execute()).thenReturn(response);
 
-        DocumentTask result = documentTaskCallbackProcessor.process(documentTask);
+        Optional<Instant> retryAt =
+            documentTaskCallbackProcessor.recordResponse(delivery, 500, "Internal Server Error", 1000);
 
-        assertEquals(CallbackState.NEW, result.getCallback().getCallbackState());
-        assertEquals(1, result.getCallback().getAttempts());
-        assertTrue(result.getCallback().getFailureDescription().contains("HTTP Callback failed"));
+        assertTrue(retryAt.isPresent());
+        assertEquals(retryAt.get(), documentTask.getCallback().getNextAttemptAt());
+        assertEquals(CallbackState.NEW, documentTask.getCallback().getCallbackState());
+        assertEquals(1, documentTask.getCallback().getAttempts());
+        assertTrue(documentTask.getCallback().getFailureDescription().contains("HTTP Callback failed"));
+        verify(stitchingMetrics).recordCallback(eq(StitchingMetrics.CALLBACK_FAILURE), anyLong());
     }
 
     @Test
-    void shouldFailTaskWhenMaxAttemptsReached() throws IOException {
-        mockDependencies();
-        documentTask.getCallback().setAttempts(2); 
-        Response response = createResponse(503, "Service Unavailable");
-        when(httpCall.execute()).thenReturn(response);
+    void shouldFailTaskWhenMaxAttemptsReached() {
+        mockLeased();
+        documentTask.getCallback().setAttempts(2);
 
-        DocumentTask result = documentTaskCallbackProcessor.process(documentTask);
+        Optional<Instant> retryAt =
+            documentTaskCallbackProcessor.recordResponse(delivery, 503, "Service Unavailable", 1000);
 
-        assertEquals(CallbackState.FAILURE, result.getCallback().getCallbackState());
-        assertEquals(3, result.getCallback().getAttempts());
+        assertTrue(retryAt.isEmpty());
+        assertEquals(CallbackState.FAILURE, documentTask.getCallback().getCallbackState());
+        assertEquals(3, documentTask.getCallback().getAttempts());
+        assertNull(documentTask.getCallback().getNextAttemptAt());
     }
 
     @Test
-    void shouldHandleIoExceptionAsFailure() throws IOException {
-        mockDependencies();
-        when(httpCall.execute()).thenThrow(new IOException("Connection reset"));
+    void shouldRetryAfterIoException() {
+        mockLeased();
 
-        DocumentTask result = documentTaskCallbackProcessor.process(documentTask);
+        Optional<Instant> retryAt =
+            documentTaskCallbackProcessor.recordError(delivery, new IOException("Connection reset"), 1000);
 
-        assertEquals(CallbackState.FAILURE, result.getCallback().getCallbackState());
+        assertTrue(retryAt.isPresent());
+        assertEquals(CallbackState.NEW, documentTask.getCallback().getCallbackState());
+        assertEquals(1, documentTask.getCallback().getAttempts());
+        assertTrue(documentTask.getCallback().getFailureDescription().contains("Connection reset"));
+        verify(stitchingMetrics).recordCallback(eq(StitchingMetrics.CALLBACK_ERROR), anyLong());
     }
 
     @Test
-    void shouldHandleJsonProcessingExceptionAsFailure() throws IOException {
-        when(authTokenGenerator.generate()).thenReturn("auth-token");
-        when(documentTaskMapper.toDto(any(DocumentTask.class))).thenReturn(documentTaskDTO);
-        when(objectMapper.writeValueAsString(any())).thenThrow(new JsonProcessingException("Json Error") {});
+    void shouldIgnoreOutcomeOfRemovedTask() {
+        when(documentTaskRepository.lockLeasedCallbackTaskId(100L, leasedUntil)).thenReturn(List.of(100L));
+        when(documentTaskRepository.findById(100L)).thenReturn(Optional.empty());
 
-        DocumentTask result = documentTaskCallbackProcessor.process(documentTask);
+        assertTrue(documentTaskCallbackProcessor.recordResponse(delivery, 500, "", 1000).isEmpty());
+    }
 
-        assertEquals(CallbackState.FAILURE, result.getCallback().getCallbackState());
+    @Test
+    void shouldIgnoreOutcomeOfCallbackClaimedByAnotherNode() {
+        when(documentTaskRepository.lockLeasedCallbackTaskId(100L, leasedUntil)).thenReturn(List.of());
+
+        assertTrue(documentTaskCallbackProcessor.recordResponse(delivery, 200, "", 1000).isEmpty());
+        assertTrue(documentTaskCallbackProcessor
+            .recordError(delivery, new IOException("Connection reset"), 1000).isEmpty());
+
+        assertEquals(CallbackState.NEW, documentTask.getCallback().getCallbackState());
+        assertEquals(0, documentTask.getCallback().getAttempts());
+        assertEquals(leasedUntil, documentTask.getCallback().getNextAttemptAt());
+        verify(documentTaskRepository, never()).findById(anyLong());
+        verifyNoInteractions(stitchingMetrics);
+    }
+
+    @Test
+    void backoffDoublesUpToTheMaximum() {
+        for (int attempts = 1; attempts <= 40; attempts++) {
+            long ceiling = Math.min(60000, 2000L << Math.min(attempts - 1, 30));
+            Duration backoff = documentTaskCallbackProcessor.backoff(attempts);
+
+            assertNotNull(backoff);
+            assertTrue(backoff.toMillis() >= ceiling / 2, "attempt " + attempts + " waited " + backoff);
+            assertTrue(backoff.toMillis() <= ceiling, "attempt " + attempts + " waited " + backoff);
+        }
+    }
+
+    private void mockLeased() {
+        when(documentTaskRepository.lockLeasedCallbackTaskId(100L, leasedUntil)).thenReturn(List.of(100L));
+        when(documentTaskRepository.findById(100L)).thenReturn(Optional.of(documentTask));
     }
 
     private void mockDependencies() throws JsonProcessingException {
         when(authTokenGenerator.generate()).thenReturn("auth-token");
         when(documentTaskMapper.toDto(any(DocumentTask.class))).thenReturn(documentTaskDTO);
         when(objectMapper.writeValueAsString(any())).thenReturn("{}");
-        when(okHttpClient.newCall(any(Request.class))).thenReturn(httpCall);
-    }
-
-    private Response createResponse(int code, String body) {
-        return new Response.Builder()
-            .request(new Request.Builder().url("http://localhost/callback").build())
-            .protocol(Protocol.HTTP_2)
-            .code(code)
-            .message("")
-            .body(ResponseBody.create(body, MediaType.get("application/json")))
-            .build();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,104 @@
+package uk.gov.hmcts.reform.em.stitching.batch;
+
+import org.junit.jupiter.api.Test;
+import uk.gov.hmcts.reform.em.stitching.repository.DocumentTaskQueueHead;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DocumentTaskFairShareTest {
+
+    @Test
+    void higherPriorityGoesFirst() {
+        DocumentTaskFairShare fairShare = new DocumentTaskFairShare("");
+
+        List<DocumentTaskQueueHead> ordered = fairShare.order(List.of(
+            new Head(1L, "LOW", "IA", "Asylum", 1),
+            new Head(2L, "NORMAL", "IA", "Asylum", 1),
+            new Head(3L, "HIGH", "CIVIL", "CIVIL", 500)));
+
+        assertEquals(List.of(3L, 2L, 1L), ordered.stream().map(DocumentTaskQueueHead::getId).toList());
+    }
+
+    @Test
+    void largeBundlesDoNotHoldUpOtherJurisdictions() {
+        DocumentTaskFairShare fairShare = new DocumentTaskFairShare("");
+        fairShare.charge(new Head(1L, "NORMAL", "IA", "Asylum", 1000));
+
+        List<DocumentTaskQueueHead> ordered = fairShare.order(List.of(
+            new Head(2L, "NORMAL", "IA", "Asylum", 1000),
+            new Head(3L, "NORMAL", "CIVIL", "CIVIL", 3)));
+
+        assertEquals(3L, ordered.getFirst().getId());
+    }
+
+    @Test
+    void sharesPagesInProportionToWeight() {
+        DocumentTaskFairShare fairShare = new DocumentTaskFairShare("IA=3");
+        List<String> started = new ArrayList<>();
+
+        for (long id = 1; id <= 8; id++) {
+            DocumentTaskQueueHead next = fairShare.order(List.of(
+                new Head(id * 2, "NORMAL", "IA", "Asylum", 10),
+                new Head(id * 2 + 1, "NORMAL", "CIVIL", "CIVIL", 10))).getFirst();
+            fairShare.charge(next);
+            started.add(next.getJurisdictionId());
+        }
+
+        assertEquals(6, started.stream().filter("IA"::equals).count());
+        assertEquals(2, started.stream().filter("CIVIL"::equals).count());
+    }
+
+    @Test
+    void newcomerDoesNotGetCreditForTimeItWasIdle() {
+        DocumentTaskFairShare fairShare = new DocumentTaskFairShare("");
+        for (long id = 1; id <= 5; id++) {
+            fairShare.charge(new Head(id, "NORMAL", "IA", "Asylum", 10));
+        }
+        fairShare.charge(new Head(6L, "NORMAL", "CIVIL", "CIVIL", 20));
+
+        List<DocumentTaskQueueHead> ordered = fairShare.order(List.of(
+            new Head(7L, "NORMAL", "CIVIL", "CIVIL", 10),
+            new Head(8L, "NORMAL", "IA", "Asylum", 10)));
+
+        assertEquals(8L, ordered.getFirst().getId());
+    }
+
+    @Test
+    void rejectsInvalidWeights() {
+        assertThrows(IllegalArgumentException.class, () -> new DocumentTaskFairShare("IA=0"));
+        assertThrows(IllegalArgumentException.class, () -> new DocumentTaskFairShare("IA"));
+    }
+
+    private record Head(Long id, String priority, String jurisdictionId, String caseTypeId,
+                        Integer estimatedPages) implements DocumentTaskQueueHead {
+
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public String getPriority() {
+            return priority;
+        }
+
+        @Override
+        public String getJurisdictionId() {
+            return jurisdictionId;
+        }
+
+        @Override
+        public String getCaseTypeId() {
+            return caseTypeId;
+        }
+
+        @Override
+        public Integer getEstimatedPages() {
+            return estimatedPages;
+        }
+    }
+}
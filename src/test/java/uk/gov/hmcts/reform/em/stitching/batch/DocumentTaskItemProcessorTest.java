@@ -2,27 +2,36 @@ package uk.gov.hmcts.reform.em.stitching.batch;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.persistence.EntityManager;
 import okhttp3.MediaType;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
+import org.mockito.MockedStatic;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.util.Pair;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 import pl.touk.throwing.exception.WrappedException;
 import uk.gov.hmcts.reform.em.stitching.domain.Bundle;
 import uk.gov.hmcts.reform.em.stitching.domain.BundleDocument;
 import uk.gov.hmcts.reform.em.stitching.domain.BundleTest;
+import uk.gov.hmcts.reform.em.stitching.domain.Callback;
 import uk.gov.hmcts.reform.em.stitching.domain.DocumentTask;
 import uk.gov.hmcts.reform.em.stitching.domain.enumeration.TaskState;
+import uk.gov.hmcts.reform.em.stitching.metrics.StitchingMetrics;
 import uk.gov.hmcts.reform.em.stitching.pdf.PDFMerger;
 import uk.gov.hmcts.reform.em.stitching.pdf.PDFWatermark;
+import uk.gov.hmcts.reform.em.stitching.pdf.WatermarkTemplate;
 import uk.gov.hmcts.reform.em.stitching.service.CdamService;
 import uk.gov.hmcts.reform.em.stitching.service.DmStoreDownloader;
 import uk.gov.hmcts.reform.em.stitching.service.DmStoreUploader;
 import uk.gov.hmcts.reform.em.stitching.service.DocumentConversionService;
+import uk.gov.hmcts.reform.em.stitching.service.DocumentTaskCompletedEvent;
 import uk.gov.hmcts.reform.em.stitching.service.impl.DocumentTaskProcessingException;
 import uk.gov.hmcts.reform.em.stitching.service.impl.FileAndMediaType;
 import uk.gov.hmcts.reform.em.stitching.service.mapper.DocumentTaskMapper;
@@ -31,13 +40,20 @@ import uk.gov.hmcts.reform.em.stitching.template.DocmosisClient;
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
-import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.eq;
@@ -82,7 +98,15 @@ class DocumentTaskItemProcessorTest {
     EntityManager entityManager;
 
     @Mock
-    DocumentTaskStateMarker documentTaskStateMarker;
+    PreviousStitchLocator previousStitchLocator;
+
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    DocumentTaskLeases documentTaskLeases;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
 
     private DocumentTaskItemProcessor itemProcessor;
 
@@ -94,10 +118,7 @@ class DocumentTaskItemProcessorTest {
         lenient().when(entityManager.merge(any()))
             .thenAnswer(invocation -> invocation.getArguments()[0]);
 
-        lenient().doNothing().when(documentTaskStateMarker).commitTaskAsInProgress(anyLong());
-
-        lenient().doReturn(new DocumentTask()).when(entityManager)
-            .find(eq(DocumentTask.class), any());
+        lenient().when(documentTaskLeases.complete(any(), any(), any())).thenReturn(true);
 
         itemProcessor = new DocumentTaskItemProcessor(
                 dmStoreDownloader,
@@ -108,10 +129,24 @@ class DocumentTaskItemProcessorTest {
                 pdfWatermark,
                 cdamService,
                 entityManager,
-            documentTaskStateMarker
+            new DocumentPipeline(Runnable::run,
+                new ConversionScheduler(Runnable::run, 4, 20, new StitchingMetrics(meterRegistry)), Runnable::run),
+            previousStitchLocator,
+            new StitchingMetrics(meterRegistry),
+            eventPublisher,
+            documentTaskLeases
         );
     }
 
+    private void processClaimedTask(DocumentTaskItemProcessor processor, DocumentTask documentTask) {
+        if (documentTask.getId() == null) {
+            documentTask.setId(1L);
+        }
+        documentTask.setTaskState(TaskState.IN_PROGRESS);
+        when(entityManager.find(DocumentTask.class, documentTask.getId())).thenReturn(documentTask);
+        processor.processClaimedTask(documentTask.getId());
+    }
+
     @Test
     void usesCoverPageRender() throws IOException, DocumentTaskProcessingException {
         final File coverPageFile = new File(ClassLoader.getSystemResource(COVER_PAGE_TEMPLATE).getPath());
@@ -143,7 +178,7 @@ class DocumentTaskItemProcessorTest {
         when(docmosisClient.renderDocmosisTemplate(COVER_PAGE_TEMPLATE,
                 coverPageData)).thenReturn(coverPageFile);
 
-        itemProcessor.process(documentTaskWithCoversheet);
+        processClaimedTask(itemProcessor, documentTaskWithCoversheet);
         verify(docmosisClient, times(1)).renderDocmosisTemplate(COVER_PAGE_TEMPLATE, coverPageData);
     }
 
@@ -157,12 +192,47 @@ class DocumentTaskItemProcessorTest {
             .when(dmStoreDownloader.downloadFiles(any(), anyString()))
             .thenThrow(new WrappedException(new DocumentTaskProcessingException("problem")));
 
-        itemProcessor.process(documentTask);
+        processClaimedTask(itemProcessor, documentTask);
 
         assertEquals("problem", documentTask.getFailureDescription());
         assertEquals(TaskState.FAILED, documentTask.getTaskState());
     }
 
+    @Test
+    void testFailedTaskWithCallbackPublishesCompletion() {
+        DocumentTask documentTask = new DocumentTask();
+        documentTask.setId(1L);
+        documentTask.setBundle(BundleTest.getTestBundle());
+        documentTask.setJwt("mockJwt");
+        Callback callback = new Callback();
+        callback.setCallbackUrl("https://callback.example.com/stitched");
+        documentTask.setCallback(callback);
+
+        Mockito
+            .when(dmStoreDownloader.downloadFiles(any(), anyString()))
+            .thenThrow(new WrappedException(new DocumentTaskProcessingException("problem")));
+
+        processClaimedTask(itemProcessor, documentTask);
+
+        assertEquals(TaskState.FAILED, documentTask.getTaskState());
+        verify(eventPublisher).publishEvent(new DocumentTaskCompletedEvent(1L));
+    }
+
+    @Test
+    void testTaskWithoutCallbackDoesNotPublishCompletion() {
+        DocumentTask documentTask = new DocumentTask();
+        documentTask.setBundle(BundleTest.getTestBundle());
+        documentTask.setJwt("mockJwt");
+
+        Mockito
+            .when(dmStoreDownloader.downloadFiles(any(), anyString()))
+            .thenThrow(new WrappedException(new DocumentTaskProcessingException("problem")));
+
+        processClaimedTask(itemProcessor, documentTask);
+
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
     @Test
     void testStitch() throws DocumentTaskProcessingException {
         DocumentTask documentTask = new DocumentTask();
@@ -197,25 +267,145 @@ class DocumentTaskItemProcessorTest {
         when(documentConverter.convert(pair1)).thenReturn(convertedMockPair1);
         when(documentConverter.convert(pair2)).thenReturn(convertedMockPair2);
 
-        Mockito
-                .when(pdfWatermark.processDocumentWatermark(
-                        any(),
-                        eq(convertedMockPair1),
-                        eq(documentTask.getBundle().getDocumentImage())))
-                .thenReturn(convertedMockPair1);
-
-        Mockito
-                .when(pdfWatermark.processDocumentWatermark(
-                        any(),
-                        eq(convertedMockPair2),
-                        eq(documentTask.getBundle().getDocumentImage())))
-                .thenReturn(convertedMockPair2);
+        WatermarkTemplate watermark = mock(WatermarkTemplate.class);
+        when(pdfWatermark.prepareTemplate(any(), eq(documentTask.getBundle().getDocumentImage())))
+            .thenReturn(watermark);
+        when(pdfWatermark.processDocumentWatermark(watermark, convertedMockPair1)).thenReturn(convertedMockPair1);
+        when(pdfWatermark.processDocumentWatermark(watermark, convertedMockPair2)).thenReturn(convertedMockPair2);
 
-        itemProcessor.process(documentTask);
+        processClaimedTask(itemProcessor, documentTask);
 
         assertNull(documentTask.getFailureDescription());
         assertNotEquals(null, documentTask.getBundle().getStitchedDocumentURI());
         assertEquals(TaskState.DONE, documentTask.getTaskState());
+        assertEquals(2, meterRegistry.get("stitching.watermark").timer().count());
+        assertEquals(1, meterRegistry.get("stitching.upload").tag("target", StitchingMetrics.DM_STORE).timer().count());
+    }
+
+    @Test
+    void testStitchWatermarksDuringMerge() throws DocumentTaskProcessingException {
+        DocumentTask documentTask = new DocumentTask();
+        documentTask.setBundle(BundleTest.getTestBundle());
+        documentTask.setJwt("mockJwt");
+
+        File file = mock(File.class);
+        URL url = ClassLoader.getSystemResource(PDF_FILENAME);
+
+        Pair<BundleDocument, FileAndMediaType> pair1 = Pair.of(documentTask.getBundle().getDocuments().get(0),
+                new FileAndMediaType(new File(url.getFile()), MediaType.get("application/pdf")));
+        Pair<BundleDocument, FileAndMediaType> pair2 = Pair.of(documentTask.getBundle().getDocuments().get(1),
+                new FileAndMediaType(new File(url.getFile()), MediaType.get("application/pdf")));
+
+        when(dmStoreDownloader.downloadFiles(any(), anyString())).thenReturn(Stream.of(pair1, pair2));
+        when(documentConverter.convert(pair1))
+            .thenReturn(Pair.of(documentTask.getBundle().getDocuments().get(0), file));
+        when(documentConverter.convert(pair2))
+            .thenReturn(Pair.of(documentTask.getBundle().getDocuments().get(1), file));
+
+        WatermarkTemplate watermark = mock(WatermarkTemplate.class);
+        when(pdfWatermark.prepareTemplate(any(), eq(documentTask.getBundle().getDocumentImage())))
+            .thenReturn(watermark);
+        when(pdfMerger.isWatermarkDuringMerge()).thenReturn(true);
+
+        processClaimedTask(itemProcessor, documentTask);
+
+        verify(pdfMerger).mergeWhenReady(any(), any(), any(), any(), eq(watermark));
+        verify(pdfWatermark, never()).processDocumentWatermark(any(WatermarkTemplate.class), any());
+        assertEquals(TaskState.DONE, documentTask.getTaskState());
+    }
+
+    @Test
+    void testMergeStartsBeforeLaterDocumentsAreConverted() throws Exception {
+        DocumentTask documentTask = new DocumentTask();
+        documentTask.setBundle(BundleTest.getTestBundle());
+        documentTask.setJwt("mockJwt");
+        documentTask.getBundle().setDocumentImage(null);
+
+        BundleDocument firstDocument = documentTask.getBundle().getSortedDocuments().toList().get(0);
+        BundleDocument secondDocument = documentTask.getBundle().getSortedDocuments().toList().get(1);
+        secondDocument.setDocumentURI("http://dm-store/documents/second");
+        File file = new File(ClassLoader.getSystemResource(PDF_FILENAME).getFile());
+        Pair<BundleDocument, FileAndMediaType> pair1 =
+            Pair.of(firstDocument, new FileAndMediaType(file, MediaType.get("application/pdf")));
+        Pair<BundleDocument, FileAndMediaType> pair2 =
+            Pair.of(secondDocument, new FileAndMediaType(file, MediaType.get("application/pdf")));
+
+        CountDownLatch mergeStarted = new CountDownLatch(1);
+        when(dmStoreDownloader.downloadFiles(any(), anyString())).thenReturn(Stream.of(pair1, pair2));
+        when(documentConverter.convert(pair1)).thenReturn(Pair.of(firstDocument, file));
+        when(documentConverter.convert(pair2)).thenAnswer(invocation -> {
+            mergeStarted.await(10, TimeUnit.SECONDS);
+            return Pair.of(secondDocument, file);
+        });
+        when(pdfMerger.mergeWhenReady(any(), any(), any(), any(), any())).thenAnswer(invocation -> {
+            Map<BundleDocument, CompletableFuture<File>> documents = invocation.getArgument(1);
+            assertEquals(file, documents.get(firstDocument).join());
+            assertFalse(documents.get(secondDocument).isDone());
+            mergeStarted.countDown();
+            assertEquals(file, documents.get(secondDocument).join());
+            return null;
+        });
+
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            DocumentTaskItemProcessor pipelinedProcessor = new DocumentTaskItemProcessor(
+                dmStoreDownloader,
+                dmStoreUploader,
+                documentConverter,
+                pdfMerger,
+                docmosisClient,
+                pdfWatermark,
+                cdamService,
+                entityManager,
+                new DocumentPipeline(executor,
+                    new ConversionScheduler(executor, 4, 20, new StitchingMetrics(meterRegistry)), executor),
+                previousStitchLocator,
+                new StitchingMetrics(meterRegistry),
+                eventPublisher,
+                documentTaskLeases
+            );
+
+            processClaimedTask(pipelinedProcessor, documentTask);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertNull(documentTask.getFailureDescription());
+        assertEquals(TaskState.DONE, documentTask.getTaskState());
+        verify(dmStoreUploader).uploadFile(any(), eq(documentTask));
+    }
+
+    @Test
+    void testRepeatedDocumentIsDownloadedAndConvertedOnce() throws DocumentTaskProcessingException {
+        DocumentTask documentTask = new DocumentTask();
+        documentTask.setBundle(BundleTest.getTestBundle());
+        documentTask.setJwt("mockJwt");
+        documentTask.getBundle().setDocumentImage(null);
+
+        BundleDocument firstDocument = documentTask.getBundle().getSortedDocuments().toList().get(0);
+        BundleDocument repeatedDocument = documentTask.getBundle().getSortedDocuments().toList().get(1);
+        File file = new File(ClassLoader.getSystemResource(PDF_FILENAME).getFile());
+        Pair<BundleDocument, FileAndMediaType> download =
+            Pair.of(firstDocument, new FileAndMediaType(file, MediaType.get("application/pdf")));
+
+        when(dmStoreDownloader.downloadFiles(any(), anyString())).thenAnswer(invocation -> {
+            Stream<BundleDocument> requested = invocation.getArgument(0);
+            assertEquals(List.of(firstDocument), requested.toList());
+            return Stream.of(download);
+        });
+        when(documentConverter.convert(download)).thenReturn(Pair.of(firstDocument, file));
+        when(pdfMerger.mergeWhenReady(any(), any(), any(), any(), any())).thenAnswer(invocation -> {
+            Map<BundleDocument, CompletableFuture<File>> documents = invocation.getArgument(1);
+            assertEquals(file, documents.get(firstDocument).join());
+            assertEquals(file, documents.get(repeatedDocument).join());
+            return null;
+        });
+
+        processClaimedTask(itemProcessor, documentTask);
+
+        verify(documentConverter).convert(any());
+        assertNull(documentTask.getFailureDescription());
+        assertEquals(TaskState.DONE, documentTask.getTaskState());
     }
 
     @Test
@@ -253,25 +443,12 @@ class DocumentTaskItemProcessorTest {
         when(documentConverter.convert(pair1)).thenReturn(convertedMockPair1);
         when(documentConverter.convert(pair2)).thenReturn(convertedMockPair2);
 
-        Mockito
-            .when(pdfWatermark.processDocumentWatermark(
-                    any(),
-                    eq(convertedMockPair1),
-                    eq(documentTask.getBundle().getDocumentImage())))
-            .thenReturn(convertedMockPair1);
-
-        Mockito
-            .when(pdfWatermark.processDocumentWatermark(
-                    any(),
-                    eq(convertedMockPair2),
-                    eq(documentTask.getBundle().getDocumentImage())))
-            .thenReturn(convertedMockPair2);
-
-        itemProcessor.process(documentTask);
+        processClaimedTask(itemProcessor, documentTask);
 
         assertNull(documentTask.getFailureDescription());
         assertNotEquals(null, documentTask.getBundle().getStitchedDocumentURI());
         assertEquals(TaskState.DONE, documentTask.getTaskState());
+        assertEquals(1, meterRegistry.get("stitching.upload").tag("target", StitchingMetrics.CDAM).timer().count());
     }
 
     @Test
@@ -309,21 +486,7 @@ class DocumentTaskItemProcessorTest {
         when(documentConverter.convert(pair1)).thenReturn(convertedMockPair1);
         when(documentConverter.convert(pair2)).thenReturn(convertedMockPair2);
 
-        Mockito
-                .when(pdfWatermark.processDocumentWatermark(
-                        any(),
-                        eq(convertedMockPair1),
-                        eq(documentTask.getBundle().getDocumentImage())))
-                .thenReturn(convertedMockPair1);
-
-        Mockito
-                .when(pdfWatermark.processDocumentWatermark(
-                        any(),
-                        eq(convertedMockPair2),
-                        eq(documentTask.getBundle().getDocumentImage())))
-                .thenReturn(convertedMockPair2);
-
-        itemProcessor.process(documentTask);
+        processClaimedTask(itemProcessor, documentTask);
 
         assertNull(documentTask.getFailureDescription());
         assertNotEquals(null, documentTask.getBundle().getStitchedDocumentURI());
@@ -365,21 +528,7 @@ class DocumentTaskItemProcessorTest {
         when(documentConverter.convert(pair1)).thenReturn(convertedMockPair1);
         when(documentConverter.convert(pair2)).thenReturn(convertedMockPair2);
 
-        Mockito
-                .when(pdfWatermark.processDocumentWatermark(
-                        any(),
-                        eq(convertedMockPair1),
-                        eq(documentTask.getBundle().getDocumentImage())))
-                .thenReturn(convertedMockPair1);
-
-        Mockito
-                .when(pdfWatermark.processDocumentWatermark(
-                        any(),
-                        eq(convertedMockPair2),
-                        eq(documentTask.getBundle().getDocumentImage())))
-                .thenReturn(convertedMockPair2);
-
-        itemProcessor.process(documentTask);
+        processClaimedTask(itemProcessor, documentTask);
 
         assertNull(documentTask.getFailureDescription());
         assertNotEquals(null, documentTask.getBundle().getStitchedDocumentURI());
@@ -387,17 +536,58 @@ class DocumentTaskItemProcessorTest {
     }
 
     @Test
-    void testProcessWhenTaskAlreadyInProgressReturnsNull() {
+    void testProcessClaimedTask() {
         DocumentTask documentTask = new DocumentTask();
-        documentTask.setId(1L);
+        documentTask.setId(2L);
+        documentTask.setTaskState(TaskState.IN_PROGRESS);
+        documentTask.setBundle(BundleTest.getTestBundle());
+        documentTask.setJwt("mockJwt");
+        when(entityManager.find(DocumentTask.class, 2L)).thenReturn(documentTask);
+        when(dmStoreDownloader.downloadFiles(any(), anyString()))
+            .thenThrow(new WrappedException(new DocumentTaskProcessingException("problem")));
+
+        itemProcessor.processClaimedTask(2L);
+
+        assertEquals(TaskState.FAILED, documentTask.getTaskState());
+        assertEquals("problem", documentTask.getFailureDescription());
+        verify(documentTaskLeases).complete(2L, TaskState.FAILED, "problem");
+    }
+
+    @Test
+    void testProcessClaimedTaskDiscardsOutcomeWhenLeaseLost() {
+        DocumentTask documentTask = new DocumentTask();
+        documentTask.setId(4L);
+        documentTask.setBundle(BundleTest.getTestBundle());
+        documentTask.setJwt("mockJwt");
+        Callback callback = new Callback();
+        callback.setCallbackUrl("https://callback.example.com/stitched");
+        documentTask.setCallback(callback);
+        when(dmStoreDownloader.downloadFiles(any(), anyString()))
+            .thenThrow(new WrappedException(new DocumentTaskProcessingException("problem")));
+        when(documentTaskLeases.complete(4L, TaskState.FAILED, "problem")).thenReturn(false);
+        TransactionStatus transactionStatus = mock(TransactionStatus.class);
 
-        DocumentTask freshTaskFromDb = new DocumentTask();
-        freshTaskFromDb.setTaskState(TaskState.IN_PROGRESS);
-        when(entityManager.find(DocumentTask.class, 1L)).thenReturn(freshTaskFromDb);
+        try (MockedStatic<TransactionAspectSupport> transactions = Mockito.mockStatic(TransactionAspectSupport.class)) {
+            transactions.when(TransactionAspectSupport::currentTransactionStatus).thenReturn(transactionStatus);
 
-        DocumentTask result = itemProcessor.process(documentTask);
+            processClaimedTask(itemProcessor, documentTask);
+        }
 
-        assertNull(result);
+        verify(transactionStatus).setRollbackOnly();
+        assertEquals(TaskState.IN_PROGRESS, documentTask.getTaskState());
+        assertNull(documentTask.getFailureDescription());
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void testProcessClaimedTaskSkipsTaskNoLongerInProgress() {
+        DocumentTask documentTask = new DocumentTask();
+        documentTask.setTaskState(TaskState.DONE);
+        when(entityManager.find(DocumentTask.class, 3L)).thenReturn(documentTask);
+
+        itemProcessor.processClaimedTask(3L);
+
+        assertEquals(TaskState.DONE, documentTask.getTaskState());
         verify(dmStoreDownloader, never()).downloadFiles(any(), anyString());
         verify(cdamService, never()).downloadFiles(any());
     }
@@ -0,0 +1,99 @@
+package uk.gov.hmcts.reform.em.stitching.batch;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.hmcts.reform.em.stitching.domain.enumeration.TaskState;
+import uk.gov.hmcts.reform.em.stitching.repository.DocumentTaskRepository;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DocumentTaskLeasesTest {
+
+    @Mock
+    private DocumentTaskRepository documentTaskRepository;
+
+    private DocumentTaskLeases documentTaskLeases;
+
+    @BeforeEach
+    void setUp() {
+        documentTaskLeases = new DocumentTaskLeases(documentTaskRepository, "pod-1", 300, 3);
+    }
+
+    @Test
+    void eachRunOfAPodHasItsOwnWorkerId() {
+        DocumentTaskLeases restarted = new DocumentTaskLeases(documentTaskRepository, "pod-1", 300, 3);
+
+        assertTrue(documentTaskLeases.getWorkerId().startsWith("pod-1-"));
+        assertNotEquals(documentTaskLeases.getWorkerId(), restarted.getWorkerId());
+    }
+
+    @Test
+    void heartbeatRenewsTheLeasesStillHeld() {
+        documentTaskLeases.hold(1L);
+        documentTaskLeases.hold(2L);
+        documentTaskLeases.release(1L);
+        when(documentTaskRepository.renewLeases(eq(List.of(2L)), eq(documentTaskLeases.getWorkerId()),
+            any(Instant.class))).thenReturn(1);
+
+        documentTaskLeases.heartbeat();
+
+        verify(documentTaskRepository).renewLeases(eq(List.of(2L)), eq(documentTaskLeases.getWorkerId()),
+            any(Instant.class));
+    }
+
+    @Test
+    void heartbeatDoesNothingWithoutLeases() {
+        documentTaskLeases.heartbeat();
+
+        verifyNoInteractions(documentTaskRepository);
+    }
+
+    @Test
+    void completeWritesTheOutcomeWhileTheLeaseIsHeld() {
+        when(documentTaskRepository.completeLeasedTask(1L, documentTaskLeases.getWorkerId(), "DONE", null))
+            .thenReturn(1);
+
+        assertTrue(documentTaskLeases.complete(1L, TaskState.DONE, null));
+    }
+
+    @Test
+    void completeReportsALostLease() {
+        when(documentTaskRepository.completeLeasedTask(1L, documentTaskLeases.getWorkerId(), "FAILED", "problem"))
+            .thenReturn(0);
+
+        assertFalse(documentTaskLeases.complete(1L, TaskState.FAILED, "problem"));
+    }
+
+    @Test
+    void reaperFailsTasksOutOfRetriesAndRequeuesTheRest() {
+        Instant before = Instant.now();
+
+        documentTaskLeases.reapExpiredLeases();
+
+        Instant after = Instant.now();
+        ArgumentCaptor<Instant> expiredBefore = ArgumentCaptor.forClass(Instant.class);
+        InOrder inOrder = inOrder(documentTaskRepository);
+        inOrder.verify(documentTaskRepository).failExpiredLeases(expiredBefore.capture(), eq(3), anyString());
+        inOrder.verify(documentTaskRepository).requeueExpiredLeases(expiredBefore.getValue());
+        assertFalse(expiredBefore.getValue().isBefore(before.minusSeconds(300)));
+        assertFalse(expiredBefore.getValue().isAfter(after.minusSeconds(300)));
+    }
+}
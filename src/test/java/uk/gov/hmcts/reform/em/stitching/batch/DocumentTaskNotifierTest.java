@@ -0,0 +1,44 @@
+package uk.gov.hmcts.reform.em.stitching.batch;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import uk.gov.hmcts.reform.em.stitching.service.DocumentTaskCreatedEvent;
+
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class DocumentTaskNotifierTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private DocumentTaskNotifier documentTaskNotifier;
+
+    @BeforeEach
+    void setUp() {
+        documentTaskNotifier = new DocumentTaskNotifier(jdbcTemplate);
+    }
+
+    @Test
+    void notifiesChannelWithTaskId() {
+        documentTaskNotifier.notifyEnabled = true;
+
+        documentTaskNotifier.onDocumentTaskCreated(new DocumentTaskCreatedEvent(42L));
+
+        verify(jdbcTemplate).queryForList("SELECT pg_notify(?, ?)", DocumentTaskNotifier.CHANNEL, "42");
+    }
+
+    @Test
+    void doesNothingWhenDisabled() {
+        documentTaskNotifier.notifyEnabled = false;
+
+        documentTaskNotifier.onDocumentTaskCreated(new DocumentTaskCreatedEvent(42L));
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
@@ -7,12 +7,21 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import uk.gov.hmcts.reform.em.stitching.domain.DocumentTask;
 import uk.gov.hmcts.reform.em.stitching.domain.enumeration.TaskState;
+import uk.gov.hmcts.reform.em.stitching.repository.DocumentTaskQueueHead;
 import uk.gov.hmcts.reform.em.stitching.repository.DocumentTaskRepository;
 
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -21,12 +30,16 @@ class DocumentTaskStateMarkerTest {
     @Mock
     private DocumentTaskRepository documentTaskRepository;
 
+    @Mock
+    private DocumentTaskLeases documentTaskLeases;
+
     private DocumentTaskStateMarker documentTaskStateMarker;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        documentTaskStateMarker = new DocumentTaskStateMarker(documentTaskRepository);
+        documentTaskStateMarker = new DocumentTaskStateMarker(
+            documentTaskRepository, new DocumentTaskFairShare(""), documentTaskLeases);
     }
 
     @Test
@@ -37,10 +50,13 @@ class DocumentTaskStateMarkerTest {
         documentTask.setTaskState(TaskState.NEW);
 
         when(documentTaskRepository.findById(taskId)).thenReturn(Optional.of(documentTask));
+        when(documentTaskLeases.getWorkerId()).thenReturn("worker-1");
 
         documentTaskStateMarker.commitTaskAsInProgress(taskId);
 
         assertEquals(TaskState.IN_PROGRESS, documentTask.getTaskState());
+        assertEquals("worker-1", documentTask.getWorkerId());
+        assertNotNull(documentTask.getHeartbeatAt());
         verify(documentTaskRepository).findById(taskId);
     }
 
@@ -85,4 +101,68 @@ class DocumentTaskStateMarkerTest {
 
         verify(documentTaskRepository).findById(nonExistentTaskId);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testClaimNextTaskMarksLockedTaskInProgress() {
+        final Long taskId = 5L;
+        DocumentTask documentTask = new DocumentTask();
+        documentTask.setId(taskId);
+        documentTask.setTaskState(TaskState.NEW);
+
+        when(documentTaskRepository.findNewTaskQueueHeads(1, 50))
+            .thenReturn(List.of(queueHead(taskId, "NORMAL", "IA", "Asylum", 10)));
+        when(documentTaskRepository.lockNewTaskId(taskId)).thenReturn(Optional.of(taskId));
+        when(documentTaskRepository.findById(taskId)).thenReturn(Optional.of(documentTask));
+
+        assertEquals(Optional.of(taskId), documentTaskStateMarker.claimNextTask(1, 50));
+        assertEquals(TaskState.IN_PROGRESS, documentTask.getTaskState());
+    }
+
+    @Test
+    void testClaimNextTaskWhenNothingToClaim() {
+        when(documentTaskRepository.findNewTaskQueueHeads(1, 50)).thenReturn(List.of());
+
+        assertTrue(documentTaskStateMarker.claimNextTask(1, 50).isEmpty());
+        verify(documentTaskRepository, never()).findById(any());
+        verify(documentTaskRepository, never()).lockNextNewTaskId(anyInt(), anyInt());
+    }
+
+    @Test
+    void testClaimNextTaskPrefersHigherPriority() {
+        DocumentTask documentTask = new DocumentTask();
+        when(documentTaskRepository.findNewTaskQueueHeads(1, 50)).thenReturn(List.of(
+            queueHead(6L, "NORMAL", "IA", "Asylum", 10),
+            queueHead(7L, "HIGH", "CIVIL", "CIVIL", 10)));
+        when(documentTaskRepository.lockNewTaskId(7L)).thenReturn(Optional.of(7L));
+        when(documentTaskRepository.findById(7L)).thenReturn(Optional.of(documentTask));
+
+        assertEquals(Optional.of(7L), documentTaskStateMarker.claimNextTask(1, 50));
+        verify(documentTaskRepository, never()).lockNewTaskId(6L);
+    }
+
+    @Test
+    void testClaimNextTaskSkipsTasksLockedByAnotherWorker() {
+        DocumentTask documentTask = new DocumentTask();
+        when(documentTaskRepository.findNewTaskQueueHeads(1, 50)).thenReturn(List.of(
+            queueHead(6L, "NORMAL", "IA", "Asylum", 10),
+            queueHead(7L, "NORMAL", "CIVIL", "CIVIL", 10)));
+        when(documentTaskRepository.lockNewTaskId(6L)).thenReturn(Optional.empty());
+        when(documentTaskRepository.lockNewTaskId(7L)).thenReturn(Optional.empty());
+        when(documentTaskRepository.lockNextNewTaskId(1, 50)).thenReturn(Optional.of(8L));
+        when(documentTaskRepository.findById(8L)).thenReturn(Optional.of(documentTask));
+
+        assertEquals(Optional.of(8L), documentTaskStateMarker.claimNextTask(1, 50));
+        assertEquals(TaskState.IN_PROGRESS, documentTask.getTaskState());
+    }
+
+    static DocumentTaskQueueHead queueHead(Long id, String priority, String jurisdictionId, String caseTypeId,
+                                           int estimatedPages) {
+        DocumentTaskQueueHead head = mock(DocumentTaskQueueHead.class);
+        lenient().when(head.getId()).thenReturn(id);
+        lenient().when(head.getPriority()).thenReturn(priority);
+        lenient().when(head.getJurisdictionId()).thenReturn(jurisdictionId);
+        lenient().when(head.getCaseTypeId()).thenReturn(caseTypeId);
+        lenient().when(head.getEstimatedPages()).thenReturn(estimatedPages);
+        return head;
+    }
+}
@@ -0,0 +1,181 @@
+package uk.gov.hmcts.reform.em.stitching.batch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.hmcts.reform.em.stitching.info.BuildInfo;
+import uk.gov.hmcts.reform.em.stitching.service.DocumentTaskCreatedEvent;
+
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DocumentTaskWorkerPoolTest {
+
+    @Mock
+    private DocumentTaskStateMarker documentTaskStateMarker;
+
+    @Mock
+    private DocumentTaskItemProcessor documentTaskItemProcessor;
+
+    @Mock
+    private BuildInfo buildInfo;
+
+    @Mock
+    private DocumentTaskLeases documentTaskLeases;
+
+    private DocumentTaskWorkerPool workerPool;
+
+    private static final int SMALL_BUNDLE_PAGES = 50;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        workerPool.shutdown();
+    }
+
+    private DocumentTaskWorkerPool newWorkerPool(int threads, int fastLaneThreads) {
+        return new DocumentTaskWorkerPool(documentTaskStateMarker, documentTaskItemProcessor, buildInfo,
+            documentTaskLeases, threads, fastLaneThreads, SMALL_BUNDLE_PAGES);
+    }
+
+    @Test
+    void dispatchDoesNothingWhenThereAreNoTasks() {
+        workerPool = newWorkerPool(2, 0);
+        when(documentTaskStateMarker.claimNextTask(anyInt(), anyInt())).thenReturn(Optional.empty());
+
+        workerPool.dispatch();
+
+        verify(documentTaskItemProcessor, never()).processClaimedTask(anyLong());
+    }
+
+    @Test
+    void workersProcessClaimedTasksConcurrently() throws InterruptedException {
+        workerPool = newWorkerPool(3, 0);
+        AtomicInteger nextTaskId = new AtomicInteger();
+        when(documentTaskStateMarker.claimNextTask(anyInt(), anyInt())).thenAnswer(invocation -> {
+            int taskId = nextTaskId.incrementAndGet();
+            return taskId <= 3 ? Optional.of((long) taskId) : Optional.empty();
+        });
+        CountDownLatch allStarted = new CountDownLatch(3);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            allStarted.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return null;
+        }).when(documentTaskItemProcessor).processClaimedTask(anyLong());
+
+        workerPool.dispatch();
+
+        assertTrue(allStarted.await(10, TimeUnit.SECONDS), "Claimed tasks were not processed in parallel");
+        release.countDown();
+        verify(documentTaskItemProcessor, timeout(5000)).processClaimedTask(1L);
+        verify(documentTaskItemProcessor, timeout(5000)).processClaimedTask(2L);
+        verify(documentTaskItemProcessor, timeout(5000)).processClaimedTask(3L);
+    }
+
+    @Test
+    void workerClaimsNextTaskAfterFinishingOne() {
+        workerPool = newWorkerPool(1, 0);
+        when(documentTaskStateMarker.claimNextTask(anyInt(), anyInt()))
+            .thenReturn(Optional.of(1L), Optional.of(2L), Optional.empty());
+
+        workerPool.dispatch();
+
+        verify(documentTaskItemProcessor, timeout(5000)).processClaimedTask(1L);
+        verify(documentTaskItemProcessor, timeout(5000)).processClaimedTask(2L);
+    }
+
+    @Test
+    void workerHoldsTheLeaseWhileStitching() {
+        workerPool = newWorkerPool(1, 0);
+        when(documentTaskStateMarker.claimNextTask(anyInt(), anyInt())).thenReturn(Optional.of(1L), Optional.empty());
+        doThrow(new IllegalStateException("boom")).when(documentTaskItemProcessor).processClaimedTask(1L);
+
+        workerPool.dispatch();
+
+        verify(documentTaskLeases, timeout(5000)).release(1L);
+        InOrder inOrder = inOrder(documentTaskLeases, documentTaskItemProcessor);
+        inOrder.verify(documentTaskLeases).hold(1L);
+        inOrder.verify(documentTaskItemProcessor).processClaimedTask(1L);
+        inOrder.verify(documentTaskLeases).release(1L);
+    }
+
+    @Test
+    void workerCarriesOnAfterTaskFails() {
+        workerPool = newWorkerPool(1, 0);
+        when(documentTaskStateMarker.claimNextTask(anyInt(), anyInt()))
+            .thenReturn(Optional.of(1L), Optional.of(2L), Optional.empty());
+        doThrow(new IllegalStateException("boom")).when(documentTaskItemProcessor).processClaimedTask(1L);
+
+        workerPool.dispatch();
+
+        verify(documentTaskItemProcessor, timeout(5000)).processClaimedTask(2L);
+    }
+
+    @Test
+    void dispatchStopsClaimingWhenEveryWorkerIsBusy() throws InterruptedException {
+        workerPool = newWorkerPool(1, 0);
+        CountDownLatch release = new CountDownLatch(1);
+        when(documentTaskStateMarker.claimNextTask(anyInt(), anyInt())).thenReturn(Optional.of(1L), Optional.empty());
+        doAnswer(invocation -> {
+            release.await(10, TimeUnit.SECONDS);
+            return null;
+        }).when(documentTaskItemProcessor).processClaimedTask(anyLong());
+
+        workerPool.dispatch();
+        workerPool.dispatch();
+
+        release.countDown();
+        verify(documentTaskItemProcessor, timeout(5000)).processClaimedTask(1L);
+        // One claim from the first dispatch and one from the worker once it finished; none from the second.
+        verify(documentTaskStateMarker, timeout(5000).times(2)).claimNextTask(anyInt(), anyInt());
+    }
+
+    @Test
+    void createdTaskWakesWorkersWithoutWaitingForPoll() {
+        workerPool = newWorkerPool(1, 0);
+        when(documentTaskStateMarker.claimNextTask(anyInt(), anyInt())).thenReturn(Optional.of(1L), Optional.empty());
+
+        workerPool.onDocumentTaskCreated(new DocumentTaskCreatedEvent(1L));
+
+        verify(documentTaskItemProcessor, timeout(5000)).processClaimedTask(1L);
+    }
+
+    @Test
+    void fastLaneTakesSmallBundlesWhileGeneralWorkersAreBusy() throws InterruptedException {
+        workerPool = newWorkerPool(1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(documentTaskStateMarker.claimNextTask(anyInt(), eq(Integer.MAX_VALUE)))
+            .thenReturn(Optional.of(1L), Optional.empty());
+        when(documentTaskStateMarker.claimNextTask(anyInt(), eq(SMALL_BUNDLE_PAGES)))
+            .thenReturn(Optional.empty(), Optional.of(2L), Optional.empty());
+        doAnswer(invocation -> {
+            release.await(10, TimeUnit.SECONDS);
+            return null;
+        }).when(documentTaskItemProcessor).processClaimedTask(1L);
+
+        workerPool.dispatch();
+        verify(documentTaskItemProcessor, timeout(5000)).processClaimedTask(1L);
+        workerPool.dispatch();
+
+        verify(documentTaskItemProcessor, timeout(5000)).processClaimedTask(2L);
+        release.countDown();
+    }
+}
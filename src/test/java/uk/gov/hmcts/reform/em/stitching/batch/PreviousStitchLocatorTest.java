@@ -0,0 +1,164 @@
+package uk.gov.hmcts.reform.em.stitching.batch;
+
+import okhttp3.MediaType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.util.Pair;
+import uk.gov.hmcts.reform.em.stitching.domain.Bundle;
+import uk.gov.hmcts.reform.em.stitching.domain.BundleDocument;
+import uk.gov.hmcts.reform.em.stitching.domain.DocumentTask;
+import uk.gov.hmcts.reform.em.stitching.domain.StitchManifest;
+import uk.gov.hmcts.reform.em.stitching.pdf.PreviousStitch;
+import uk.gov.hmcts.reform.em.stitching.repository.BundleRepository;
+import uk.gov.hmcts.reform.em.stitching.service.CdamService;
+import uk.gov.hmcts.reform.em.stitching.service.DmStoreDownloader;
+import uk.gov.hmcts.reform.em.stitching.service.impl.DocumentTaskProcessingException;
+import uk.gov.hmcts.reform.em.stitching.service.impl.FileAndMediaType;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PreviousStitchLocatorTest {
+
+    private static final String STITCHED_DOCUMENT_URI = "http://dm-store/documents/stitched";
+
+    @Mock
+    private BundleRepository bundleRepository;
+
+    @Mock
+    private DmStoreDownloader dmStoreDownloader;
+
+    @Mock
+    private CdamService cdamService;
+
+    @TempDir
+    private Path tempDir;
+
+    private PreviousStitchLocator previousStitchLocator;
+    private DocumentTask documentTask;
+    private File stitchedFile;
+    private StitchManifest manifest;
+
+    @BeforeEach
+    void setup() throws IOException {
+        previousStitchLocator = new PreviousStitchLocator(bundleRepository, dmStoreDownloader, cdamService, true);
+
+        Bundle bundle = new Bundle();
+        bundle.setStitchedDocumentURI(STITCHED_DOCUMENT_URI);
+        documentTask = new DocumentTask();
+        documentTask.setBundle(bundle);
+        documentTask.setJwt("jwt");
+
+        stitchedFile = Files.writeString(tempDir.resolve("stitched.pdf"), "stitched").toFile();
+        manifest = new StitchManifest();
+        manifest.setLayout(StitchManifest.layoutOf(bundle));
+        manifest.setOutputSha256(StitchManifest.sha256(stitchedFile));
+    }
+
+    @Test
+    void findReturnsEmptyWhenDisabled() {
+        previousStitchLocator = new PreviousStitchLocator(bundleRepository, dmStoreDownloader, cdamService, false);
+
+        assertTrue(previousStitchLocator.find(documentTask, false).isEmpty());
+        verifyNoInteractions(bundleRepository);
+    }
+
+    @Test
+    void findReturnsEmptyForFirstStitch() {
+        documentTask.getBundle().setStitchedDocumentURI(null);
+
+        assertTrue(previousStitchLocator.find(documentTask, false).isEmpty());
+        verifyNoInteractions(bundleRepository);
+    }
+
+    @Test
+    void findReturnsEmptyWithoutManifest() {
+        when(bundleRepository.findFirstByStitchedDocumentURIAndStitchManifestIsNotNullOrderByIdDesc(
+            STITCHED_DOCUMENT_URI)).thenReturn(Optional.empty());
+
+        assertTrue(previousStitchLocator.find(documentTask, false).isEmpty());
+        verify(dmStoreDownloader, never()).downloadFiles(any(), anyString());
+    }
+
+    @Test
+    void findReturnsPreviousStitchFromDmStore() {
+        givenPreviousManifest();
+        when(dmStoreDownloader.downloadFiles(any(), eq("jwt"))).thenReturn(Stream.of(download()));
+
+        Optional<PreviousStitch> previousStitch = previousStitchLocator.find(documentTask, false);
+
+        assertTrue(previousStitch.isPresent());
+        assertEquals(stitchedFile, previousStitch.get().file());
+        assertEquals(manifest, previousStitch.get().manifest());
+    }
+
+    @Test
+    void findReturnsPreviousStitchWatermarkedWhileMerging() {
+        manifest.setLayout(StitchManifest.layoutOf(documentTask.getBundle(), "sha"));
+        givenPreviousManifest();
+        when(dmStoreDownloader.downloadFiles(any(), eq("jwt"))).thenReturn(Stream.of(download()));
+
+        Optional<PreviousStitch> previousStitch = previousStitchLocator.find(documentTask, false);
+
+        assertTrue(previousStitch.isPresent());
+        assertEquals(manifest, previousStitch.get().manifest());
+    }
+
+    @Test
+    void findReturnsPreviousStitchFromCdam() throws DocumentTaskProcessingException {
+        givenPreviousManifest();
+        documentTask.setServiceAuth("serviceAuth");
+        when(cdamService.downloadFile(eq("jwt"), eq("serviceAuth"), any())).thenReturn(download());
+
+        assertTrue(previousStitchLocator.find(documentTask, true).isPresent());
+    }
+
+    @Test
+    void findReturnsEmptyWhenStitchedDocumentHasChanged() throws IOException {
+        givenPreviousManifest();
+        Files.writeString(stitchedFile.toPath(), "changed since it was stitched");
+        when(dmStoreDownloader.downloadFiles(any(), eq("jwt"))).thenReturn(Stream.of(download()));
+
+        assertTrue(previousStitchLocator.find(documentTask, false).isEmpty());
+        assertFalse(stitchedFile.exists());
+    }
+
+    @Test
+    void findReturnsEmptyWhenDownloadFails() {
+        givenPreviousManifest();
+        when(dmStoreDownloader.downloadFiles(any(), eq("jwt"))).thenThrow(new IllegalStateException("boom"));
+
+        assertTrue(previousStitchLocator.find(documentTask, false).isEmpty());
+    }
+
+    private void givenPreviousManifest() {
+        Bundle previousBundle = new Bundle();
+        previousBundle.setStitchManifest(manifest);
+        when(bundleRepository.findFirstByStitchedDocumentURIAndStitchManifestIsNotNullOrderByIdDesc(
+            STITCHED_DOCUMENT_URI)).thenReturn(Optional.of(previousBundle));
+    }
+
+    private Pair<BundleDocument, FileAndMediaType> download() {
+        return Pair.of(new BundleDocument(), new FileAndMediaType(stitchedFile, MediaType.get("application/pdf")));
+    }
+}
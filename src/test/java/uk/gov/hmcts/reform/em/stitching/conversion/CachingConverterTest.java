@@ -0,0 +1,57 @@
+package uk.gov.hmcts.reform.em.stitching.conversion;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.gov.hmcts.reform.em.stitching.service.DocumentCache;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CachingConverterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void sameContentIsOnlyConvertedOnce() throws IOException {
+        FileToPDFConverter converter = mock(FileToPDFConverter.class);
+        File source = Files.writeString(tempDir.resolve("source.docx"), "word").toFile();
+        File sameContent = Files.writeString(tempDir.resolve("copy.docx"), "word").toFile();
+        when(converter.convert(source)).thenReturn(Files.writeString(tempDir.resolve("out.pdf"), "pdf").toFile());
+        CachingConverter cachingConverter =
+            new CachingConverter(converter, new DocumentCache(tempDir.resolve("cache"), 1024));
+
+        cachingConverter.convert(source);
+        File converted = cachingConverter.convert(sameContent);
+
+        verify(converter, times(1)).convert(source);
+        assertEquals("pdf", Files.readString(converted.toPath()));
+        assertNotEquals(tempDir.resolve("out.pdf").toFile(), converted);
+        Files.delete(converted.toPath());
+    }
+
+    @Test
+    void delegatesAcceptsAndConvertsWhenCacheDisabled() throws IOException {
+        FileToPDFConverter converter = mock(FileToPDFConverter.class);
+        File source = tempDir.resolve("source.docx").toFile();
+        File converted = tempDir.resolve("out.pdf").toFile();
+        when(converter.accepts()).thenReturn(List.of("application/msword"));
+        when(converter.convert(source)).thenReturn(converted);
+        CachingConverter cachingConverter = new CachingConverter(converter, DocumentCache.disabled());
+
+        assertEquals(List.of("application/msword"), cachingConverter.accepts());
+        assertEquals(converted, cachingConverter.convert(source));
+        assertEquals(converted, cachingConverter.convert(source));
+        verify(converter, times(2)).convert(source);
+    }
+}
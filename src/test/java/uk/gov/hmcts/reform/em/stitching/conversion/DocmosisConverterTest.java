@@ -1,5 +1,6 @@
 package uk.gov.hmcts.reform.em.stitching.conversion;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import okhttp3.Interceptor;
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
@@ -11,21 +12,36 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
+import uk.gov.hmcts.reform.em.stitching.metrics.StitchingMetrics;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 
 class DocmosisConverterTest {
 
     private static final String PDF_FILENAME = "test-files/annotationTemplate.pdf";
 
+    private static final DocmosisConverter.Throttling THROTTLING = new DocmosisConverter.Throttling(2, 3, 1, 5);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     private DocmosisConverter converter;
 
     @BeforeEach
@@ -35,7 +51,12 @@ class DocmosisConverterTest {
             .addInterceptor(DocmosisConverterTest::intercept)
             .build();
 
-        converter = new DocmosisConverter("key", "http://example.org", okHttpClient);
+        converter = docmosisConverter(okHttpClient);
+    }
+
+    private DocmosisConverter docmosisConverter(OkHttpClient okHttpClient) {
+        return new DocmosisConverter("key", "http://example.org", okHttpClient, THROTTLING,
+            new StitchingMetrics(meterRegistry));
     }
 
     private static Response intercept(Interceptor.Chain chain) throws IOException {
@@ -99,6 +120,19 @@ class DocmosisConverterTest {
         assertNotEquals(input.getName(), output.getName());
     }
 
+    @Test
+    void convertWritesTheWholeResponseToDisk() throws IOException {
+        File input = new File(ClassLoader.getSystemResource("test-files/wordDocument.doc").getPath());
+        File output = converter.convert(input);
+
+        try (InputStream expected = ClassLoader.getSystemResourceAsStream(PDF_FILENAME)) {
+            assertNotNull(expected);
+            assertArrayEquals(IOUtils.toByteArray(expected), Files.readAllBytes(output.toPath()));
+        } finally {
+            Files.deleteIfExists(output.toPath());
+        }
+    }
+
     @Test()
     void convertError() {
         OkHttpClient okHttpClient = new OkHttpClient
@@ -106,10 +140,95 @@ class DocmosisConverterTest {
                 .addInterceptor(DocmosisConverterTest::errorIntercept)
                 .build();
 
-        converter = new DocmosisConverter("key", "http://example.org", okHttpClient);
+        converter = docmosisConverter(okHttpClient);
 
         File input = new File(ClassLoader.getSystemResource("test-files/rtf.rtf").getPath());
         assertThrows(IOException.class, () -> converter.convert(input));
+        assertEquals(0, meterRegistry.find("stitching.docmosis.retries").counters().size());
+    }
+
+    @Test
+    void convertRetriesWhenThrottled() throws IOException {
+        AtomicInteger calls = new AtomicInteger();
+        OkHttpClient okHttpClient = new OkHttpClient
+                .Builder()
+                .addInterceptor(chain -> calls.incrementAndGet() < 3
+                    ? statusIntercept(chain, 429) : intercept(chain))
+                .build();
+        converter = docmosisConverter(okHttpClient);
+
+        File input = new File(ClassLoader.getSystemResource("test-files/rtf.rtf").getPath());
+        File output = converter.convert(input);
+
+        assertEquals(3, calls.get());
+        assertEquals(2, meterRegistry.get("stitching.docmosis.retries").tag("status", "429").counter().count());
+        Files.deleteIfExists(output.toPath());
+    }
 
+    @Test
+    void convertGivesUpAfterMaxAttempts() {
+        AtomicInteger calls = new AtomicInteger();
+        OkHttpClient okHttpClient = new OkHttpClient
+                .Builder()
+                .addInterceptor(chain -> {
+                    calls.incrementAndGet();
+                    return statusIntercept(chain, 503);
+                })
+                .build();
+        converter = docmosisConverter(okHttpClient);
+
+        File input = new File(ClassLoader.getSystemResource("test-files/rtf.rtf").getPath());
+        IOException exception = assertThrows(IOException.class, () -> converter.convert(input));
+
+        assertEquals(3, calls.get());
+        assertTrue(exception.getMessage().contains("(503)"));
+    }
+
+    @Test
+    void convertLimitsConcurrentRequests() throws Exception {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        OkHttpClient okHttpClient = new OkHttpClient
+                .Builder()
+                .addInterceptor(chain -> {
+                    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(20);
+                        return intercept(chain);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IOException(e);
+                    } finally {
+                        inFlight.decrementAndGet();
+                    }
+                })
+                .build();
+        converter = docmosisConverter(okHttpClient);
+        File input = new File(ClassLoader.getSystemResource("test-files/rtf.rtf").getPath());
+
+        ExecutorService executor = Executors.newFixedThreadPool(6);
+        try {
+            List<Future<File>> conversions = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                conversions.add(executor.submit(() -> converter.convert(input)));
+            }
+            for (Future<File> conversion : conversions) {
+                Files.deleteIfExists(conversion.get(10, TimeUnit.SECONDS).toPath());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertTrue(maxInFlight.get() <= THROTTLING.maxConcurrent());
+    }
+
+    private static Response statusIntercept(Interceptor.Chain chain, int code) {
+        return new Response.Builder()
+                .body(ResponseBody.create("Busy", MediaType.get("text/plain")))
+                .request(chain.request())
+                .message("Busy")
+                .code(code)
+                .protocol(Protocol.HTTP_2)
+                .build();
     }
 }
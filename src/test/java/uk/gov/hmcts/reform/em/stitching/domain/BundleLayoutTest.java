@@ -0,0 +1,152 @@
+package uk.gov.hmcts.reform.em.stitching.domain;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BundleLayoutTest {
+
+    private Bundle bundle;
+    private BundleDocument document1;
+    private BundleDocument document2;
+    private BundleFolder folder1;
+    private BundleDocument folder1document1;
+    private BundleDocument folder1document2;
+    private BundleFolder folder2;
+    private BundleDocument folder2document1;
+    private BundleFolder folder3;
+    private BundleDocument folder3document1;
+    private BundleFolder emptyFolder;
+
+    /**
+     * The same bundle as BundleTest.sortsItems, with an empty folder nested in folder2.
+     */
+    @BeforeEach
+    void setup() {
+        bundle = new Bundle();
+        bundle.setDocuments(new ArrayList<>());
+        bundle.setFolders(new ArrayList<>());
+        document1 = getBundleDocument(1);
+        document2 = getBundleDocument(4);
+        folder1 = getBundleFolder(2);
+        folder1document1 = getBundleDocument(1);
+        folder1document2 = getBundleDocument(2);
+        folder2 = getBundleFolder(3);
+        folder2document1 = getBundleDocument(1);
+        folder3 = getBundleFolder(2);
+        folder3document1 = getBundleDocument(1);
+        emptyFolder = getBundleFolder(3);
+
+        bundle.getDocuments().add(document2);
+        bundle.getDocuments().add(document1);
+        bundle.getFolders().add(folder1);
+        bundle.getFolders().add(folder2);
+
+        folder1.getDocuments().add(folder1document2);
+        folder1.getDocuments().add(folder1document1);
+
+        folder2.getFolders().add(folder3);
+        folder2.getFolders().add(emptyFolder);
+        folder2.getDocuments().add(folder2document1);
+
+        folder3.getDocuments().add(folder3document1);
+    }
+
+    @Test
+    void documentsAreInTheSameOrderAsTheBundle() {
+        BundleLayout layout = BundleLayout.of(bundle);
+
+        assertEquals(bundle.getSortedDocuments().toList(), layout.getDocuments());
+        assertEquals(bundle.getSortedDocuments().toList(), layout.getSortedDocuments().toList());
+    }
+
+    @Test
+    void childrenAreInTheSameOrderAsTheSortedItems() {
+        BundleLayout layout = BundleLayout.of(bundle);
+
+        assertEquals(bundle.getSortedItems().toList(), layout.getChildren(bundle));
+        assertEquals(folder1.getSortedItems().toList(), layout.getChildren(folder1));
+        assertEquals(folder2.getSortedItems().toList(), layout.getChildren(folder2));
+        assertEquals(List.of(), layout.getChildren(document1));
+    }
+
+    @Test
+    void itemsAreFlattenedWithEachFolderFollowedByItsContents() {
+        BundleLayout layout = BundleLayout.of(bundle);
+
+        assertEquals(List.of(document1, folder1, folder1document1, folder1document2, folder2, folder2document1,
+            folder3, folder3document1, document2), layout.getItems());
+        assertEquals(3, layout.getFolderCount());
+    }
+
+    @Test
+    void foldersWithoutDocumentsAreLeftOut() {
+        BundleLayout layout = BundleLayout.of(bundle);
+
+        assertFalse(layout.getItems().contains(emptyFolder));
+        assertFalse(layout.isFolder(emptyFolder));
+        assertEquals(0, layout.getDocumentCount(emptyFolder));
+        assertEquals(-1, layout.getDepth(emptyFolder));
+    }
+
+    @Test
+    void recordsParentsDepthsAndDocumentCounts() {
+        BundleLayout layout = BundleLayout.of(bundle);
+
+        assertNull(layout.getParent(bundle));
+        assertEquals(bundle, layout.getParent(folder2));
+        assertEquals(folder2, layout.getParent(folder3));
+        assertEquals(folder3, layout.getParent(folder3document1));
+
+        assertEquals(0, layout.getDepth(bundle));
+        assertEquals(1, layout.getDepth(document1));
+        assertEquals(2, layout.getDepth(folder3));
+        assertEquals(3, layout.getDepth(folder3document1));
+
+        assertEquals(6, layout.getDocumentCount(bundle));
+        assertEquals(2, layout.getDocumentCount(folder2));
+        assertEquals(1, layout.getDocumentCount(folder3document1));
+    }
+
+    @Test
+    void tellsFoldersFromDocuments() {
+        BundleLayout layout = BundleLayout.of(bundle);
+
+        assertTrue(layout.isFolder(folder1));
+        assertTrue(layout.isFolder(folder3));
+        assertFalse(layout.isFolder(document1));
+        assertFalse(layout.isFolder(bundle));
+    }
+
+    @Test
+    void emptyBundleHasNoItems() {
+        BundleLayout layout = BundleLayout.of(new Bundle());
+
+        assertEquals(List.of(), layout.getItems());
+        assertEquals(List.of(), layout.getDocuments());
+        assertEquals(0, layout.getFolderCount());
+    }
+
+    private static BundleDocument getBundleDocument(int index) {
+        BundleDocument doc = new BundleDocument();
+        doc.setSortIndex(index);
+
+        return doc;
+    }
+
+    private static BundleFolder getBundleFolder(int index) {
+        BundleFolder folder = new BundleFolder();
+        folder.setDocuments(new ArrayList<>());
+        folder.setFolders(new ArrayList<>());
+        folder.setSortIndex(index);
+
+        return folder;
+    }
+}
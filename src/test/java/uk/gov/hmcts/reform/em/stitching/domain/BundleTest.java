@@ -8,13 +8,11 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import uk.gov.hmcts.reform.em.stitching.domain.enumeration.ImageRendering;
 import uk.gov.hmcts.reform.em.stitching.domain.enumeration.ImageRenderingLocation;
-import uk.gov.hmcts.reform.em.stitching.pdf.PdfOutlineUtils;
 
 import java.io.File;
 import java.io.IOException;
 import java.time.Instant;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.stream.Stream;
 
@@ -26,12 +24,6 @@ public class BundleTest {
     private static final String DEFAULT_DOCUMENT_ID = "/AAAAAAAAAA";
 
     private final ObjectMapper mapper = new ObjectMapper();
-    private static final File FILE_1 = new File(
-        ClassLoader.getSystemResource("test-files/Potential_Energy_PDF.pdf").getPath()
-    );
-    private static final File FILE_2 = new File(
-        ClassLoader.getSystemResource("test-files/TEST_INPUT_FILE.pdf").getPath()
-    );
     private static final File FILE_3 = new File(
         ClassLoader.getSystemResource("test-files/bundle.json").getPath()
     );
@@ -163,6 +155,26 @@ public class BundleTest {
         }
     }
 
+    @Test
+    void distinctDocumentsLeaveOutRepeatedURIs() {
+        Bundle bundle = BundleTest.getTestBundle();
+        bundle.setDocuments(new ArrayList<>());
+        bundle.setFolders(new ArrayList<>());
+        BundleDocument document1 = getBundleDocument(1);
+        document1.setDocumentURI("AAAAAAA");
+        BundleDocument document2 = getBundleDocument(2);
+        document2.setDocumentURI("BBBBBBB");
+        BundleDocument repeated = getBundleDocument(3);
+        repeated.setDocumentURI("AAAAAAA");
+        BundleDocument withoutURI = getBundleDocument(4);
+        BundleDocument alsoWithoutURI = getBundleDocument(5);
+        bundle.getDocuments().addAll(List.of(repeated, document2, document1, withoutURI, alsoWithoutURI));
+
+        assertEquals(List.of(document1, document2, withoutURI, alsoWithoutURI),
+            bundle.getDistinctDocuments().toList());
+        assertEquals(5, bundle.getSortedDocuments().count());
+    }
+
     @Test
     void testRemovalOfEmptyFolders() {
         Bundle bundle = BundleTest.getTestBundle();
@@ -306,18 +318,6 @@ public class BundleTest {
         return folder;
     }
 
-    @Test
-    void testNumberOfSubtitlesInPDF() {
-        Bundle bundle = getTestBundle();
-        HashMap<BundleDocument, File> documents = new HashMap<>();
-        documents.put(bundle.getDocuments().get(0), FILE_1);
-        documents.put(bundle.getDocuments().get(1), FILE_2);
-
-        int numberOfSubtitle = PdfOutlineUtils.getNumberOfSubtitles(bundle, documents);
-
-        assertEquals(8, numberOfSubtitle);
-    }
-
     public static Bundle getTestBundleForFailure() throws IOException {
         ObjectMapper mapper = new ObjectMapper()
             .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
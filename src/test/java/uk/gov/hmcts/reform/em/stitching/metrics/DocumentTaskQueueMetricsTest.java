@@ -0,0 +1,27 @@
+package uk.gov.hmcts.reform.em.stitching.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.hmcts.reform.em.stitching.repository.DocumentTaskRepository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DocumentTaskQueueMetricsTest {
+
+    @Mock
+    private DocumentTaskRepository documentTaskRepository;
+
+    @Test
+    void gaugeReportsNewTasks() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        new DocumentTaskQueueMetrics(documentTaskRepository).bindTo(meterRegistry);
+        when(documentTaskRepository.countNewTasks()).thenReturn(7L);
+
+        assertEquals(7, meterRegistry.get("stitching.tasks.new").gauge().value());
+    }
+}
@@ -0,0 +1,96 @@
+package uk.gov.hmcts.reform.em.stitching.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StitchingMetricsTest {
+
+    @TempDir
+    private Path tempDir;
+
+    private SimpleMeterRegistry meterRegistry;
+    private StitchingMetrics stitchingMetrics;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        stitchingMetrics = new StitchingMetrics(meterRegistry);
+    }
+
+    @Test
+    void recordDownloadTagsLatencyAndSizeBySource() throws IOException {
+        File file = Files.write(tempDir.resolve("document.pdf"), new byte[1024]).toFile();
+
+        stitchingMetrics.recordDownload(StitchingMetrics.CDAM, TimeUnit.MILLISECONDS.toNanos(20), file);
+
+        assertEquals(20, meterRegistry.get("stitching.download").tag("source", StitchingMetrics.CDAM).timer()
+            .totalTime(TimeUnit.MILLISECONDS));
+        assertEquals(1024, meterRegistry.get("stitching.download.size").tag("source", StitchingMetrics.CDAM)
+            .summary().totalAmount());
+    }
+
+    @Test
+    void recordConversionTagsConverterAndMimeType() {
+        stitchingMetrics.recordConversion("DocmosisConverter", "application/msword", 1);
+        stitchingMetrics.recordConversion("ImageConverter", "image/png", 1);
+
+        assertEquals(1, meterRegistry.get("stitching.conversion")
+            .tag("converter", "DocmosisConverter").tag("mime.type", "application/msword").timer().count());
+        assertEquals(2, meterRegistry.get("stitching.conversion").timers().size());
+    }
+
+    @Test
+    void timeWatermarkReturnsResult() {
+        assertEquals("watermarked", stitchingMetrics.timeWatermark(() -> "watermarked"));
+        assertEquals(1, meterRegistry.get("stitching.watermark").timer().count());
+    }
+
+    @Test
+    void recordMergeRecordsPagesPerSecond() {
+        stitchingMetrics.recordMerge(TimeUnit.SECONDS.toNanos(2), 100);
+
+        assertEquals(1, meterRegistry.get("stitching.merge").timer().count());
+        assertEquals(50, meterRegistry.get("stitching.merge.throughput").summary().totalAmount());
+    }
+
+    @Test
+    void recordUploadTagsLatencyAndSizeByTarget() throws IOException {
+        File file = Files.write(tempDir.resolve("stitched.pdf"), new byte[2048]).toFile();
+
+        stitchingMetrics.recordUpload(StitchingMetrics.DM_STORE, 1, file);
+
+        assertEquals(1, meterRegistry.get("stitching.upload").tag("target", StitchingMetrics.DM_STORE).timer()
+            .count());
+        assertEquals(2048, meterRegistry.get("stitching.upload.size").summary().totalAmount());
+    }
+
+    @Test
+    void recordCallbackTagsOutcome() {
+        stitchingMetrics.recordCallback(StitchingMetrics.CALLBACK_FAILURE, 1);
+
+        assertEquals(1, meterRegistry.get("stitching.callback").tag("outcome", StitchingMetrics.CALLBACK_FAILURE)
+            .timer().count());
+    }
+
+    @Test
+    void recordTaskClaimedRecordsAgeOfTask() {
+        stitchingMetrics.recordTaskClaimed(Instant.now().minus(Duration.ofMinutes(5)));
+        stitchingMetrics.recordTaskClaimed(null);
+
+        assertEquals(1, meterRegistry.get("stitching.task.age").timer().count());
+        assertTrue(meterRegistry.get("stitching.task.age").timer().totalTime(TimeUnit.MINUTES) >= 5);
+    }
+}
@@ -0,0 +1,72 @@
+package uk.gov.hmcts.reform.em.stitching.pdf;
+
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FontMetricsTest {
+
+    @Test
+    void widthsMatchTheFont() throws IOException {
+        PDType1Font font = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
+        String text = "Witness statement of the applicant, dated 1 January 2024 (exhibits A-F) £ é ü";
+
+        assertEquals(font.getStringWidth(PDFUtility.sanitizeText(text)) / 1000 * 12,
+            FontMetrics.HELVETICA.getStringWidth(text, 12));
+    }
+
+    @Test
+    void everyEncodedCharacterMatchesTheFont() throws IOException {
+        PDType1Font font = new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD);
+        for (char character = 32; character < 256; character++) {
+            String text = PDFUtility.sanitizeText(String.valueOf(character));
+            float expected;
+            try {
+                expected = font.getStringWidth(text) / 1000 * 13;
+            } catch (IllegalArgumentException e) {
+                assertThrows(IllegalArgumentException.class,
+                    () -> FontMetrics.HELVETICA_BOLD.getStringWidth(text, 13));
+                continue;
+            }
+            assertEquals(expected, FontMetrics.HELVETICA_BOLD.getStringWidth(text, 13), "U+" + (int) character);
+        }
+    }
+
+    @Test
+    void charactersOutsideTheEncodingHaveNoWidth() {
+        assertEquals(FontMetrics.HELVETICA.getStringWidth("ab", 12),
+            FontMetrics.HELVETICA.getStringWidth("a•b", 12));
+    }
+
+    @Test
+    void forFontSharesMetricsOfStandardFonts() {
+        assertSame(FontMetrics.HELVETICA,
+            FontMetrics.forFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA)));
+        assertSame(FontMetrics.of(Standard14Fonts.FontName.TIMES_ROMAN),
+            FontMetrics.forFont(new PDType1Font(Standard14Fonts.FontName.TIMES_ROMAN)));
+    }
+
+    @Test
+    void forFontIgnoresSubclassedFonts() {
+        PDType1Font spyFont = Mockito.spy(new PDType1Font(Standard14Fonts.FontName.HELVETICA));
+
+        assertNull(FontMetrics.forFont(spyFont));
+    }
+
+    @Test
+    void countLinesMatchesSplitLines() {
+        String title = "Witness statement of the applicant in support of the application for a final order, "
+            + "with exhibits A to F, dated 1 January 2024";
+
+        assertEquals(FontMetrics.HELVETICA.splitLines(title, 400, 12).length,
+            FontMetrics.HELVETICA.countLines(title, 400, 12));
+    }
+}
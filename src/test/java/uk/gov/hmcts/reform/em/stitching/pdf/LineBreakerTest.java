@@ -0,0 +1,49 @@
+package uk.gov.hmcts.reform.em.stitching.pdf;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LineBreakerTest {
+
+    // Every character is 10 points wide, and each word is followed by a 1 point space.
+    private static final LineBreaker.TextWidth FIXED_WIDTH = (text, start, end, fontSize) -> (end - start) * 10f;
+
+    @Test
+    void wrapsWordsThatOverflowTheLine() {
+        assertArrayEquals(new String[] {"aa bb", "cc"}, LineBreaker.splitLines("aa bb cc", 45, 12, FIXED_WIDTH));
+        assertEquals(2, LineBreaker.countLines("aa bb cc", 45, 12, FIXED_WIDTH));
+    }
+
+    @Test
+    void givesWideWordsALineOfTheirOwn() {
+        assertArrayEquals(new String[] {"a", "bbbbbbbb", "c"},
+            LineBreaker.splitLines("a bbbbbbbb c", 30, 12, FIXED_WIDTH));
+    }
+
+    @Test
+    void keepsEmptyWordsBetweenRepeatedSpaces() {
+        assertArrayEquals(new String[] {" a  b"}, LineBreaker.splitLines(" a  b", 100, 12, FIXED_WIDTH));
+    }
+
+    @Test
+    void ignoresTrailingSpaces() {
+        assertArrayEquals(new String[] {"a"}, LineBreaker.splitLines("a   ", 100, 12, FIXED_WIDTH));
+        assertEquals(0, LineBreaker.countLines("   ", 100, 12, FIXED_WIDTH));
+        assertEquals(0, LineBreaker.countLines(null, 100, 12, FIXED_WIDTH));
+    }
+
+    @Test
+    void leavesOutWordsTheFontCannotShow() {
+        LineBreaker.TextWidth textWidth = (text, start, end, fontSize) -> {
+            if (text.charAt(start) == 'x') {
+                throw new IllegalArgumentException("No glyph");
+            }
+            return FIXED_WIDTH.width(text, start, end, fontSize);
+        };
+
+        assertArrayEquals(new String[] {"a b"}, LineBreaker.splitLines("a xx b", 100, 12, textWidth));
+        assertEquals(1, LineBreaker.countLines("a xx b", 100, 12, textWidth));
+    }
+}
@@ -1,5 +1,6 @@
 package uk.gov.hmcts.reform.em.stitching.pdf;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.apache.pdfbox.Loader;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.text.PDFTextStripper;
@@ -8,6 +9,7 @@ import org.junit.jupiter.api.Test;
 import uk.gov.hmcts.reform.em.stitching.domain.Bundle;
 import uk.gov.hmcts.reform.em.stitching.domain.BundleDocument;
 import uk.gov.hmcts.reform.em.stitching.domain.BundleFolder;
+import uk.gov.hmcts.reform.em.stitching.metrics.StitchingMetrics;
 
 import java.io.File;
 import java.io.IOException;
@@ -41,7 +43,7 @@ class PDFMergerCoversheetsTest {
 
     @BeforeEach
     void setUp() throws IOException {
-        merger = new PDFMerger();
+        merger = new PDFMerger(new StitchingMetrics(new SimpleMeterRegistry()));
         documents = new HashMap<>();
         file1 = createTestPdf("Title of the bundle", 2);
 
@@ -0,0 +1,235 @@
+package uk.gov.hmcts.reform.em.stitching.pdf;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDOutlineItem;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uk.gov.hmcts.reform.em.stitching.domain.Bundle;
+import uk.gov.hmcts.reform.em.stitching.domain.BundleDocument;
+import uk.gov.hmcts.reform.em.stitching.domain.BundleItemType;
+import uk.gov.hmcts.reform.em.stitching.domain.StitchManifest;
+import uk.gov.hmcts.reform.em.stitching.domain.enumeration.PaginationStyle;
+import uk.gov.hmcts.reform.em.stitching.metrics.StitchingMetrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static uk.gov.hmcts.reform.em.stitching.pdf.PDFMergerTestUtil.countSubstrings;
+import static uk.gov.hmcts.reform.em.stitching.pdf.PDFMergerTestUtil.createTestPdf;
+
+class PDFMergerIncrementalTest {
+
+    private static final String MARKER = "Kept from previous stitch";
+
+    private PDFMerger merger;
+    private File firstFile;
+    private File secondFile;
+    private File thirdFile;
+
+    @BeforeEach
+    void setup() throws IOException {
+        merger = new PDFMerger(new StitchingMetrics(new SimpleMeterRegistry()));
+        merger.incrementalStitch = true;
+        firstFile = createTestPdf("First document", 2);
+        secondFile = createTestPdf("Second document", 3);
+        thirdFile = createTestPdf("Third document", 5);
+    }
+
+    @Test
+    void mergeRecordsManifest() throws IOException {
+        Bundle bundle = createBundle(2);
+
+        File merged = merger.mergeWhenReady(bundle, documents(bundle, firstFile, secondFile), null);
+
+        StitchManifest manifest = bundle.getStitchManifest();
+        assertNotNull(manifest);
+        assertEquals(StitchManifest.layoutOf(bundle), manifest.getLayout());
+        assertEquals(StitchManifest.sha256(merged), manifest.getOutputSha256());
+        assertEquals(0, manifest.getCoverPages());
+        assertEquals(1, manifest.getTableOfContentsPages());
+        assertEquals(List.of(
+            new StitchManifest.Segment(BundleItemType.DOCUMENT, "Doc 0", "uri-0", StitchManifest.sha256(firstFile),
+                1, 2),
+            new StitchManifest.Segment(BundleItemType.DOCUMENT, "Doc 1", "uri-1", StitchManifest.sha256(secondFile),
+                3, 3)),
+            manifest.getSegments());
+    }
+
+    @Test
+    void mergeDoesNotRecordManifestWhenDisabled() throws IOException {
+        merger.incrementalStitch = false;
+        Bundle bundle = createBundle(2);
+
+        merger.mergeWhenReady(bundle, documents(bundle, firstFile, secondFile), null);
+
+        assertNull(bundle.getStitchManifest());
+    }
+
+    @Test
+    void restitchKeepsPagesOfUnchangedDocumentsAndAppendsNewOnes() throws IOException {
+        PreviousStitch previousStitch = stitchAndMark(createBundle(2), firstFile, secondFile);
+        Bundle bundle = createBundle(3);
+
+        File merged = merger.mergeWhenReady(
+            bundle, documents(bundle, firstFile, secondFile, thirdFile), null, previousStitch);
+
+        try (PDDocument document = Loader.loadPDF(merged)) {
+            assertEquals(1 + 2 + 3 + 5, document.getNumberOfPages());
+            assertTrue(pageText(document, 2).contains(MARKER));
+            assertTrue(pageText(document, 7).contains("Third document"));
+
+            String index = pageText(document, 1);
+            assertEquals(1, countSubstrings(index, "Index Page"));
+            assertTrue(index.contains("Doc 2"));
+            int outlineItems = 0;
+            for (PDOutlineItem ignored : document.getDocumentCatalog().getDocumentOutline().getFirstChild()
+                .children()) {
+                outlineItems++;
+            }
+            assertEquals(1 + 3, outlineItems);
+        }
+        assertEquals(3, bundle.getStitchManifest().getSegments().size());
+        assertEquals(6, bundle.getStitchManifest().getSegments().get(2).firstPage());
+    }
+
+    @Test
+    void restitchRebuildsFromFirstChangedDocument() throws IOException {
+        PreviousStitch previousStitch = stitchAndMark(createBundle(2), secondFile, firstFile);
+        Bundle bundle = createBundle(2);
+
+        File merged = merger.mergeWhenReady(bundle, documents(bundle, thirdFile, firstFile), null, previousStitch);
+
+        try (PDDocument document = Loader.loadPDF(merged)) {
+            assertEquals(1 + 5 + 2, document.getNumberOfPages());
+            assertFalse(pageText(document, 2).contains(MARKER));
+            assertTrue(pageText(document, 2).contains("Third document"));
+        }
+    }
+
+    @Test
+    void restitchDropsPagesOfRemovedDocuments() throws IOException {
+        PreviousStitch previousStitch = stitchAndMark(createBundle(3), firstFile, secondFile, thirdFile);
+        Bundle bundle = createBundle(1);
+
+        File merged = merger.mergeWhenReady(bundle, documents(bundle, firstFile), null, previousStitch);
+
+        try (PDDocument document = Loader.loadPDF(merged)) {
+            assertEquals(1 + 2, document.getNumberOfPages());
+            assertTrue(pageText(document, 2).contains(MARKER));
+            assertFalse(pageText(document, 1).contains("Doc 1"));
+        }
+    }
+
+    @Test
+    void restitchWithDifferentLayoutStitchesInFull() throws IOException {
+        PreviousStitch previousStitch = stitchAndMark(createBundle(2), firstFile, secondFile);
+        Bundle bundle = createBundle(2);
+        bundle.setHasCoversheets(true);
+
+        File merged = merger.mergeWhenReady(bundle, documents(bundle, firstFile, secondFile), null, previousStitch);
+
+        try (PDDocument document = Loader.loadPDF(merged)) {
+            assertEquals(1 + 1 + 2 + 1 + 3, document.getNumberOfPages());
+            for (int page = 1; page <= document.getNumberOfPages(); page++) {
+                assertFalse(pageText(document, page).contains(MARKER));
+            }
+        }
+    }
+
+    @Test
+    void restitchStitchesInFullWhenIndexNeedsAnotherPage() throws IOException {
+        // The header takes six lines, so 32 one line entries fill the 38 lines of the first index page.
+        PreviousStitch previousStitch = stitchAndMark(createBundle(32), copiesOf(firstFile, 32));
+        assertEquals(1, previousStitch.manifest().getTableOfContentsPages());
+        Bundle bundle = createBundle(33);
+
+        File merged = merger.mergeWhenReady(bundle, documents(bundle, copiesOf(firstFile, 33)), null, previousStitch);
+
+        try (PDDocument document = Loader.loadPDF(merged)) {
+            assertEquals(2 + 33 * 2, document.getNumberOfPages());
+            assertTrue(pageText(document, 2).contains("Doc 32"));
+            assertFalse(pageText(document, 1).contains("Doc 32"));
+            assertFalse(pageText(document, 3).contains(MARKER));
+            assertTrue(pageText(document, 3).contains("First document"));
+        }
+        assertEquals(2, bundle.getStitchManifest().getTableOfContentsPages());
+        assertEquals(2, bundle.getStitchManifest().getSegments().getFirst().firstPage());
+    }
+
+    private File[] copiesOf(File file, int copies) {
+        return Collections.nCopies(copies, file).toArray(new File[0]);
+    }
+
+    private Bundle createBundle(int numberOfDocuments) {
+        Bundle bundle = new Bundle();
+        bundle.setId(1L);
+        bundle.setBundleTitle("Incremental bundle");
+        bundle.setDescription("Bundle description");
+        bundle.setHasTableOfContents(true);
+        bundle.setPaginationStyle(PaginationStyle.topLeft);
+        for (int i = 0; i < numberOfDocuments; i++) {
+            BundleDocument bundleDocument = new BundleDocument();
+            bundleDocument.setId((long) i);
+            bundleDocument.setDocTitle("Doc " + i);
+            bundleDocument.setDocumentURI("uri-" + i);
+            bundleDocument.setSortIndex(i);
+            bundle.getDocuments().add(bundleDocument);
+        }
+        return bundle;
+    }
+
+    private Map<BundleDocument, CompletableFuture<File>> documents(Bundle bundle, File... files) {
+        Map<BundleDocument, CompletableFuture<File>> documents = new HashMap<>();
+        for (int i = 0; i < files.length; i++) {
+            documents.put(bundle.getDocuments().get(i), CompletableFuture.completedFuture(files[i]));
+        }
+        return documents;
+    }
+
+    /**
+     * Stitches the bundle and writes a marker onto the first page of its first document, so the tests can
+     * tell pages kept from this stitch apart from pages appended again.
+     */
+    private PreviousStitch stitchAndMark(Bundle bundle, File... files) throws IOException {
+        File stitched = merger.mergeWhenReady(bundle, documents(bundle, files), null);
+        File marked = File.createTempFile("previous-stitch", ".pdf");
+        marked.deleteOnExit();
+        try (PDDocument document = Loader.loadPDF(stitched)) {
+            try (PDPageContentStream contents = new PDPageContentStream(document, document.getPage(1),
+                PDPageContentStream.AppendMode.APPEND, true)) {
+                contents.beginText();
+                contents.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), 12);
+                contents.newLineAtOffset(100, 600);
+                contents.showText(MARKER);
+                contents.endText();
+            }
+            document.save(marked);
+        }
+        StitchManifest manifest = bundle.getStitchManifest();
+        manifest.setOutputSha256(StitchManifest.sha256(marked));
+        return new PreviousStitch(marked, manifest);
+    }
+
+    private String pageText(PDDocument document, int page) throws IOException {
+        PDFTextStripper stripper = new PDFTextStripper();
+        stripper.setStartPage(page);
+        stripper.setEndPage(page);
+        return stripper.getText(document);
+    }
+}
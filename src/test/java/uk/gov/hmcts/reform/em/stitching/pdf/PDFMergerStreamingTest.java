@@ -0,0 +1,166 @@
+package uk.gov.hmcts.reform.em.stitching.pdf;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDOutlineItem;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uk.gov.hmcts.reform.em.stitching.domain.Bundle;
+import uk.gov.hmcts.reform.em.stitching.domain.BundleDocument;
+import uk.gov.hmcts.reform.em.stitching.domain.enumeration.PaginationStyle;
+import uk.gov.hmcts.reform.em.stitching.metrics.StitchingMetrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static uk.gov.hmcts.reform.em.stitching.pdf.PDFMergerTestUtil.createFlatTestBundle;
+
+class PDFMergerStreamingTest {
+
+    private static final File FILE_3 = new File(
+        ClassLoader.getSystemResource("test-files/Potential_Energy_PDF.pdf").getPath()
+    );
+
+    private static final int PAGES_PER_DOCUMENT = 100;
+    private static final int NUM_DOCUMENTS = 50;
+    private static final int CONTENT_BYTES_PER_PAGE = 32 * 1024;
+    private static final long MAX_HEAP_GROWTH_BYTES = 64L * 1024 * 1024;
+
+    private final MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+    private PDFMerger merger;
+    private File stitched;
+
+    @BeforeEach
+    void setup() {
+        merger = new PDFMerger(new StitchingMetrics(new SimpleMeterRegistry()));
+        merger.streaming = true;
+    }
+
+    @AfterEach
+    void cleanup() throws IOException {
+        if (stitched != null) {
+            Files.deleteIfExists(stitched.toPath());
+        }
+    }
+
+    @Test
+    void streamingMergeKeepsHeapBoundedForLargeBundle() throws Exception {
+        File source = createUncompressedPdf(PAGES_PER_DOCUMENT);
+        Bundle bundle = createFlatTestBundle();
+        bundle.setHasTableOfContents(false);
+        bundle.setHasCoversheets(false);
+        bundle.setPaginationStyle(PaginationStyle.off);
+        bundle.setDocuments(new ArrayList<>());
+        HashMap<BundleDocument, File> documents = new HashMap<>();
+        for (int i = 0; i < NUM_DOCUMENTS; i++) {
+            BundleDocument bundleDocument = new BundleDocument();
+            bundleDocument.setId((long) i);
+            bundleDocument.setDocTitle("Bundle Doc " + i);
+            bundleDocument.setSortIndex(i);
+            bundle.getDocuments().add(bundleDocument);
+            documents.put(bundleDocument, source);
+        }
+
+        long baseline = usedHeapAfterGc();
+        AtomicLong peak = new AtomicLong(baseline);
+        AtomicBoolean merging = new AtomicBoolean(true);
+        Thread sampler = new Thread(() -> {
+            while (merging.get()) {
+                peak.accumulateAndGet(usedHeapAfterGc(), Math::max);
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        });
+        sampler.setDaemon(true);
+        sampler.start();
+
+        try {
+            stitched = merger.merge(bundle, documents, null);
+        } finally {
+            merging.set(false);
+            sampler.join();
+            Files.deleteIfExists(source.toPath());
+        }
+
+        long growth = peak.get() - baseline;
+        assertTrue(growth < MAX_HEAP_GROWTH_BYTES,
+            "Heap grew by " + growth / (1024 * 1024) + "MB while stitching "
+                + PAGES_PER_DOCUMENT * NUM_DOCUMENTS + " pages");
+
+        try (PDDocument stitchedDocument = Loader.loadPDF(stitched)) {
+            assertEquals(PAGES_PER_DOCUMENT * NUM_DOCUMENTS, stitchedDocument.getNumberOfPages());
+        }
+    }
+
+    @Test
+    void streamingMergeKeepsCopiedOutlinesAfterSourcesAreClosed() throws IOException {
+        Bundle bundle = createFlatTestBundle();
+        bundle.setHasTableOfContents(true);
+        bundle.setHasDocumentSubtitles(true);
+        HashMap<BundleDocument, File> documents = new HashMap<>();
+        documents.put(bundle.getDocuments().get(0), FILE_3);
+        documents.put(bundle.getDocuments().get(1), FILE_3);
+
+        stitched = merger.merge(bundle, documents, null);
+
+        try (PDDocument stitchedDocument = Loader.loadPDF(stitched);
+             PDDocument source = Loader.loadPDF(FILE_3)) {
+            PDOutlineItem bundleItem = stitchedDocument.getDocumentCatalog().getDocumentOutline().getFirstChild();
+            assertNotNull(bundleItem);
+            int copiedItems = 0;
+            for (PDOutlineItem documentItem : bundleItem.children()) {
+                for (PDOutlineItem subtitle : documentItem.children()) {
+                    assertNotNull(subtitle.getTitle());
+                    copiedItems++;
+                }
+            }
+            assertTrue(copiedItems > 0, "Expected document outlines to be copied into the stitched bundle");
+            assertTrue(stitchedDocument.getNumberOfPages() > source.getNumberOfPages() * 2);
+        }
+    }
+
+    private long usedHeapAfterGc() {
+        System.gc();
+        return memoryBean.getHeapMemoryUsage().getUsed();
+    }
+
+    private static File createUncompressedPdf(int pages) throws IOException {
+        File pdf = File.createTempFile("streaming_input", ".pdf");
+        pdf.deleteOnExit();
+        String comment = "x".repeat(78);
+
+        try (PDDocument doc = new PDDocument()) {
+            for (int i = 0; i < pages; i++) {
+                PDPage page = new PDPage();
+                doc.addPage(page);
+                try (PDPageContentStream contents = new PDPageContentStream(
+                    doc, page, PDPageContentStream.AppendMode.OVERWRITE, false)) {
+                    // Uncompressed comment lines give every page a sizeable content stream to copy.
+                    for (int written = 0; written < CONTENT_BYTES_PER_PAGE; written += comment.length() + 2) {
+                        contents.addComment(comment);
+                    }
+                }
+            }
+            doc.save(pdf);
+        }
+        return pdf;
+    }
+}
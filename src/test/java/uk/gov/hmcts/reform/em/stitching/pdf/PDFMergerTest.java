@@ -2,7 +2,9 @@ package uk.gov.hmcts.reform.em.stitching.pdf;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.cos.COSName;
 import org.apache.pdfbox.multipdf.PDFMergerUtility;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDDocumentCatalog;
@@ -10,6 +12,7 @@ import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.documentinterchange.logicalstructure.PDStructureTreeRoot;
 import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDDocumentOutline;
 import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDOutlineItem;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDOutlineNode;
 import org.apache.pdfbox.text.PDFTextStripper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -19,7 +22,12 @@ import org.mockito.Mockito;
 import uk.gov.hmcts.reform.em.stitching.domain.Bundle;
 import uk.gov.hmcts.reform.em.stitching.domain.BundleDocument;
 import uk.gov.hmcts.reform.em.stitching.domain.BundleFolder;
+import uk.gov.hmcts.reform.em.stitching.domain.DocumentImage;
+import uk.gov.hmcts.reform.em.stitching.domain.StitchManifest;
+import uk.gov.hmcts.reform.em.stitching.domain.enumeration.ImageRendering;
+import uk.gov.hmcts.reform.em.stitching.domain.enumeration.ImageRenderingLocation;
 import uk.gov.hmcts.reform.em.stitching.domain.enumeration.PaginationStyle;
+import uk.gov.hmcts.reform.em.stitching.metrics.StitchingMetrics;
 
 import java.io.File;
 import java.io.IOException;
@@ -28,7 +36,9 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -63,6 +73,9 @@ class PDFMergerTest {
     private static final File FILE_3 = new File(
             ClassLoader.getSystemResource("test-files/Potential_Energy_PDF.pdf").getPath()
     );
+    private static final File WATERMARK_FILE = new File(
+            ClassLoader.getSystemResource("test-files/schmcts.png").getPath()
+    );
 
     private Bundle bundle;
     private Bundle bundleWithMultilineDocumentTitles;
@@ -73,6 +86,9 @@ class PDFMergerTest {
 
     private static final String COVER_PAGE_TEMPLATE = "FL-FRM-GOR-ENG-12345";
 
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final StitchingMetrics stitchingMetrics = new StitchingMetrics(meterRegistry);
+
     @BeforeEach
     void setup() throws IOException {
         bundle = createFlatTestBundle();
@@ -97,7 +113,7 @@ class PDFMergerTest {
 
     @Test
     void mergeWithTableOfContents() throws IOException {
-        PDFMerger merger = new PDFMerger();
+        PDFMerger merger = new PDFMerger(stitchingMetrics);
         bundle.setHasTableOfContents(true);
         File merged = merger.merge(bundle, documents, null);
         PDDocument mergedDocument = Loader.loadPDF(merged);
@@ -113,11 +129,13 @@ class PDFMergerTest {
         mergedDocument.close();
 
         assertEquals(expectedPages, mergedDocument.getNumberOfPages());
+        assertEquals(1, meterRegistry.get("stitching.merge").timer().count());
+        assertEquals(1, meterRegistry.get("stitching.toc.build").timer().count());
     }
 
     @Test
     void mergeWithTableOfContentsWithMultilineTitles() throws IOException {
-        PDFMerger merger = new PDFMerger();
+        PDFMerger merger = new PDFMerger(stitchingMetrics);
         bundleWithMultilineDocumentTitles.setHasTableOfContents(true);
         File merged = merger.merge(bundleWithMultilineDocumentTitles, documentsWithMultilineTitles, null);
         PDDocument mergedDocument = Loader.loadPDF(merged);
@@ -137,7 +155,7 @@ class PDFMergerTest {
 
     @Test
     void mergeWithTableOfContentsAndCoverPage() throws IOException {
-        PDFMerger merger = new PDFMerger();
+        PDFMerger merger = new PDFMerger(stitchingMetrics);
 
         bundle.setCoverpageTemplateData(coverPageData);
         bundle.setHasTableOfContents(true);
@@ -167,7 +185,7 @@ class PDFMergerTest {
         bundle.setHasTableOfContents(true);
         bundle.setCoverpageTemplate(COVER_PAGE_TEMPLATE);
         bundleWithMultilineDocumentTitles.setHasTableOfContents(true);
-        PDFMerger merger = new PDFMerger();
+        PDFMerger merger = new PDFMerger(stitchingMetrics);
         File merged = merger.merge(bundleWithMultilineDocumentTitles, documentsWithMultilineTitles, coverPageFile);
         PDDocument mergedDocument = Loader.loadPDF(merged);
 
@@ -188,7 +206,7 @@ class PDFMergerTest {
 
     @Test
     void mergeWithoutTableOfContents() throws IOException {
-        PDFMerger merger = new PDFMerger();
+        PDFMerger merger = new PDFMerger(stitchingMetrics);
         bundle.setHasTableOfContents(false);
 
         File merged = merger.merge(bundle, documents, null);
@@ -208,7 +226,7 @@ class PDFMergerTest {
 
     @Test
     void mergeWithoutTableOfContentsAndCoverPage() throws IOException {
-        PDFMerger merger = new PDFMerger();
+        PDFMerger merger = new PDFMerger(stitchingMetrics);
         bundle.setHasTableOfContents(false);
 
         File merged = merger.merge(bundle, documents, coverPageFile);
@@ -229,7 +247,7 @@ class PDFMergerTest {
 
     @Test
     void noTableOfContentsBundleTitleFrequencyTest() throws IOException {
-        PDFMerger merger = new PDFMerger();
+        PDFMerger merger = new PDFMerger(stitchingMetrics);
         PDFTextStripper pdfStripper = new PDFTextStripper();
         bundle.setHasTableOfContents(false);
         File stitched = merger.merge(bundle, documents, null);
@@ -268,7 +286,7 @@ class PDFMergerTest {
             documents.put(bundleDocument, file1);
         }
 
-        PDFMerger merger = new PDFMerger();
+        PDFMerger merger = new PDFMerger(stitchingMetrics);
         File stitched = merger.merge(bundle, documents, null);
 
         try (PDDocument doc1 = Loader.loadPDF(file1);
@@ -313,14 +331,14 @@ class PDFMergerTest {
             }
         }
 
-        PDFMerger merger = new PDFMerger();
+        PDFMerger merger = new PDFMerger(stitchingMetrics);
         File stitched = merger.merge(bundle, documents, null);
 
         try (PDDocument doc1 = Loader.loadPDF(FILE_3);
              PDDocument stitchedDocument = Loader.loadPDF(stitched)) {
 
             final int documentPages = numFolders + (doc1.getNumberOfPages() * numDocuments);
-            final int numOfSubtitle = PdfOutlineUtils.getNumberOfSubtitles(bundle, documents);
+            final int numOfSubtitle = numDocuments * countOutlineItems(doc1.getDocumentCatalog().getDocumentOutline());
             final int tocItems = numDocuments + (numFolders * 3) + numOfSubtitle;
             final int tocPages = (int) Math.ceil((double) tocItems / 38);
             final int expectedPages = documentPages + tocPages;
@@ -361,7 +379,7 @@ class PDFMergerTest {
         bundle.getDocuments().add(bundleDocument2);
         documents.put(bundleDocument2, file1);
 
-        PDFMerger merger = new PDFMerger();
+        PDFMerger merger = new PDFMerger(stitchingMetrics);
         File stitched = merger.merge(bundle, documents, null);
 
         PDDocument doc1 = Loader.loadPDF(file1);
@@ -371,8 +389,7 @@ class PDFMergerTest {
         final int additionalSpaceAfterEndOfFolder = 1;
         final int folderItems = 3;
         final int documentItems = 3;
-        final int numOfSubtitle = PdfOutlineUtils.getNumberOfSubtitles(bundle, documents);
-        final int tocItems = documentItems + folderItems + additionalSpaceAfterEndOfFolder + numOfSubtitle;
+        final int tocItems = documentItems + folderItems + additionalSpaceAfterEndOfFolder;
         final int tocPages = (int) Math.ceil((double) tocItems / 40);
         final int folderPages = 1;
         final int expectedPages = documentPages + tocPages + folderPages;
@@ -402,7 +419,7 @@ class PDFMergerTest {
             documents.put(bundleDocument, FILE_2);
         }
 
-        PDFMerger merger = new PDFMerger();
+        PDFMerger merger = new PDFMerger(stitchingMetrics);
         File stitched = merger.merge(bundle, documents, null);
 
         try (PDDocument stitchedDocument = Loader.loadPDF(stitched)) {
@@ -448,7 +465,7 @@ class PDFMergerTest {
             documents.put(bundleDocument, FILE_2);
         }
 
-        PDFMerger merger = new PDFMerger();
+        PDFMerger merger = new PDFMerger(stitchingMetrics);
         File stitched = merger.merge(bundle, documents, null);
 
         try (PDDocument stitchedDocument = Loader.loadPDF(stitched)) {
@@ -494,7 +511,7 @@ class PDFMergerTest {
             documents.put(bundleDocument, FILE_2);
         }
 
-        PDFMerger merger = new PDFMerger();
+        PDFMerger merger = new PDFMerger(stitchingMetrics);
         File stitched = merger.merge(bundle, documents, null);
 
         try (PDDocument stitchedDocument = Loader.loadPDF(stitched)) {
@@ -530,7 +547,7 @@ class PDFMergerTest {
         File file = new File(ClassLoader.getSystemResource("test-files/TestExcelConversion.xlsx").getPath());
         documents.put(bundleDocument, file);
 
-        PDFMerger merger = new PDFMerger();
+        PDFMerger merger = new PDFMerger(stitchingMetrics);
 
         IOException exception = assertThrows(
             IOException.class,
@@ -545,7 +562,7 @@ class PDFMergerTest {
 
     @Test
     void mergeWithTableOfContentsWithNoBundleDescription() throws IOException {
-        PDFMerger merger = new PDFMerger();
+        PDFMerger merger = new PDFMerger(stitchingMetrics);
         bundle.setHasTableOfContents(true);
         bundle.setDescription("");
         File merged = merger.merge(bundle, documents, null);
@@ -566,7 +583,7 @@ class PDFMergerTest {
 
     @Test
     void mergeWithTableOfContentsWithMultilineTitlesWithNoBundleDescription() throws IOException {
-        PDFMerger merger = new PDFMerger();
+        PDFMerger merger = new PDFMerger(stitchingMetrics);
         bundleWithMultilineDocumentTitles.setHasTableOfContents(true);
         bundleWithMultilineDocumentTitles.setDescription("");
         File merged = merger.merge(bundleWithMultilineDocumentTitles, documentsWithMultilineTitles, null);
@@ -593,7 +610,7 @@ class PDFMergerTest {
         documents2 = new HashMap<>();
         documents2.put(newBundle.getDocuments().get(0), file1);
         documents2.put(newBundle.getDocuments().get(1), FILE_3);
-        PDFMerger merger = new PDFMerger();
+        PDFMerger merger = new PDFMerger(stitchingMetrics);
         File merged = merger.merge(newBundle, documents2, null);
         PDDocument mergedDocument = Loader.loadPDF(merged);
 
@@ -619,7 +636,7 @@ class PDFMergerTest {
         documents2 = new HashMap<>();
         documents2.put(newBundle.getDocuments().get(0), file1);
         documents2.put(newBundle.getDocuments().get(1), FILE_3);
-        PDFMerger merger = new PDFMerger();
+        PDFMerger merger = new PDFMerger(stitchingMetrics);
         File merged = merger.merge(newBundle, documents2, null);
         PDDocument mergedDocument = Loader.loadPDF(merged);
 
@@ -644,7 +661,7 @@ class PDFMergerTest {
         HashMap<BundleDocument, File> newDocuments2 = new HashMap<>();
         newDocuments2.put(newBundle.getDocuments().get(0), file1);
 
-        PDFMerger merger = new PDFMerger();
+        PDFMerger merger = new PDFMerger(stitchingMetrics);
         File merged = merger.merge(newBundle, newDocuments2, null);
         PDDocument mergedDocument = Loader.loadPDF(merged);
 
@@ -666,7 +683,7 @@ class PDFMergerTest {
         HashMap<BundleDocument, File> newDocuments2 = new HashMap<>();
         newDocuments2.put(newBundle.getDocuments().get(0), FILE_3);
 
-        PDFMerger merger = new PDFMerger();
+        PDFMerger merger = new PDFMerger(stitchingMetrics);
         File merged = merger.merge(newBundle, newDocuments2, null);
         try (PDDocument mergedDocument = Loader.loadPDF(merged)) {
             assertEquals("ąćęłńóśźż",
@@ -683,7 +700,7 @@ class PDFMergerTest {
         String docTitle = Stream.generate(() -> "DocName ").limit(20).collect(Collectors.joining());
         bundle.getDocuments().get(0).setDocTitle(docTitle);
 
-        PDFMerger merger = new PDFMerger();
+        PDFMerger merger = new PDFMerger(stitchingMetrics);
         File stitched = merger.merge(bundle, documents, null);
 
         PDFTextStripper pdfStripper = new PDFTextStripper();
@@ -738,7 +755,7 @@ class PDFMergerTest {
                 mockedLoader.when(() -> Loader.loadPDF(normalFile)).thenReturn(spiedNormalPdfDoc);
                 mockedLoader.when(() -> Loader.loadPDF(faultyFile)).thenReturn(spiedFaultyPdfDoc);
 
-                PDFMerger merger = new PDFMerger();
+                PDFMerger merger = new PDFMerger(stitchingMetrics);
                 mergedFileResult = merger.merge(testBundle, testDocuments, null);
                 assertNotNull(mergedFileResult, "Merged file should be created.");
 
@@ -801,7 +818,7 @@ class PDFMergerTest {
                  )
             ) {
                 mockedLoader.when(() -> Loader.loadPDF(realFileForDocItem)).thenReturn(spiedNewDoc);
-                PDFMerger merger = new PDFMerger();
+                PDFMerger merger = new PDFMerger(stitchingMetrics);
                 mergedFileResult = merger.merge(testBundle, testDocuments, null);
                 assertNotNull(mergedFileResult);
 
@@ -853,7 +870,7 @@ class PDFMergerTest {
         deepDocs.put(deepBundle.getDocuments().get(0), deepPdf);
         deepDocs.put(deepBundle.getDocuments().get(1), FILE_2);
 
-        PDFMerger merger = new PDFMerger();
+        PDFMerger merger = new PDFMerger(stitchingMetrics);
 
         File merged = merger.merge(deepBundle, deepDocs, null);
 
@@ -885,7 +902,7 @@ class PDFMergerTest {
         docs.put(emptyOutlineBundle.getDocuments().get(0), emptyOutlinePdf);
         docs.put(emptyOutlineBundle.getDocuments().get(1), FILE_2);
 
-        PDFMerger merger = new PDFMerger();
+        PDFMerger merger = new PDFMerger(stitchingMetrics);
 
         File merged = merger.merge(emptyOutlineBundle, docs, null);
 
@@ -920,7 +937,7 @@ class PDFMergerTest {
 
         bundle.setHasTableOfContents(true);
         bundle.setHasDocumentSubtitles(true);
-        PDFMerger merger = new PDFMerger();
+        PDFMerger merger = new PDFMerger(stitchingMetrics);
 
         HashMap<BundleDocument, File> testDocuments = new HashMap<>();
         testDocuments.put(bundle.getDocuments().get(0), documentWithOutline);
@@ -967,7 +984,7 @@ class PDFMergerTest {
 
         bundle.setHasTableOfContents(true);
         bundle.setHasDocumentSubtitles(false);
-        PDFMerger merger = new PDFMerger();
+        PDFMerger merger = new PDFMerger(stitchingMetrics);
 
         HashMap<BundleDocument, File> testDocuments = new HashMap<>();
         testDocuments.put(bundle.getDocuments().get(0), documentWithOutline);
@@ -991,4 +1008,128 @@ class PDFMergerTest {
         }
     }
 
-}
\ No newline at end of file
+    @Test
+    void mergeWhenReadySkipsDocumentsWithoutAFile() throws IOException {
+        bundle.setHasTableOfContents(false);
+        Map<BundleDocument, CompletableFuture<File>> pendingDocuments = new HashMap<>();
+        pendingDocuments.put(bundle.getDocuments().get(0), CompletableFuture.completedFuture(file1));
+        pendingDocuments.put(bundle.getDocuments().get(1), CompletableFuture.completedFuture(null));
+
+        File merged = new PDFMerger(stitchingMetrics).mergeWhenReady(bundle, pendingDocuments, null);
+
+        try (PDDocument mergedDocument = Loader.loadPDF(merged);
+             PDDocument doc1 = Loader.loadPDF(file1)) {
+            assertEquals(doc1.getNumberOfPages(), mergedDocument.getNumberOfPages());
+        } finally {
+            merged.delete();
+        }
+    }
+
+    @Test
+    void mergeWhenReadyRethrowsDocumentFailure() {
+        bundle.setHasTableOfContents(false);
+        Map<BundleDocument, CompletableFuture<File>> pendingDocuments = new HashMap<>();
+        pendingDocuments.put(bundle.getDocuments().get(0), CompletableFuture.completedFuture(file1));
+        pendingDocuments.put(bundle.getDocuments().get(1),
+            CompletableFuture.failedFuture(new IllegalStateException("conversion failed")));
+
+        PDFMerger merger = new PDFMerger(stitchingMetrics);
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+            () -> merger.mergeWhenReady(bundle, pendingDocuments, null));
+
+        assertEquals("conversion failed", exception.getMessage());
+    }
+
+    @Test
+    void mergeWhenReadyWatermarksEveryDocumentPage() throws IOException {
+        bundle.setHasTableOfContents(true);
+        DocumentImage documentImage = watermarkImage(ImageRenderingLocation.ALL_PAGES);
+        WatermarkTemplate watermark = new PDFWatermark().prepareTemplate(WATERMARK_FILE, documentImage);
+
+        PDFMerger merger = new PDFMerger(stitchingMetrics);
+        merger.incrementalStitch = true;
+        File merged = merger.mergeWhenReady(bundle, readyDocuments(file1, file1), null, null, watermark);
+
+        try (PDDocument mergedDocument = Loader.loadPDF(merged)) {
+            assertEquals(List.of(false, true, true, true, true), watermarkedPages(mergedDocument));
+        } finally {
+            merged.delete();
+        }
+        assertTrue(bundle.getStitchManifest().getLayout().endsWith(",watermark=" + watermark.getSha256()));
+    }
+
+    @Test
+    void mergeWhenReadyWatermarksFirstPageOfEachDocument() throws IOException {
+        bundle.setHasTableOfContents(true);
+        DocumentImage documentImage = watermarkImage(ImageRenderingLocation.FIRST_PAGE);
+        WatermarkTemplate watermark = new PDFWatermark().prepareTemplate(WATERMARK_FILE, documentImage);
+
+        File merged = new PDFMerger(stitchingMetrics)
+            .mergeWhenReady(bundle, readyDocuments(file1, file1), null, null, watermark);
+
+        try (PDDocument mergedDocument = Loader.loadPDF(merged)) {
+            assertEquals(List.of(false, true, false, true, false), watermarkedPages(mergedDocument));
+        } finally {
+            merged.delete();
+        }
+    }
+
+    @Test
+    void mergeWhenReadyAppendsARepeatedDocumentEachTimeItAppears() throws IOException {
+        bundle.getDocuments().get(1).setDocumentURI(bundle.getDocuments().get(0).getDocumentURI());
+        PDFMerger merger = new PDFMerger(stitchingMetrics);
+        merger.streaming = true;
+        merger.incrementalStitch = true;
+
+        File merged = merger.mergeWhenReady(bundle, readyDocuments(file1, file1), null);
+
+        try (PDDocument mergedDocument = Loader.loadPDF(merged);
+             PDDocument doc1 = Loader.loadPDF(file1)) {
+            assertEquals(1 + doc1.getNumberOfPages() * 2, mergedDocument.getNumberOfPages());
+        } finally {
+            merged.delete();
+        }
+        List<StitchManifest.Segment> segments = bundle.getStitchManifest().getSegments();
+        assertEquals(2, segments.size());
+        assertEquals(segments.get(0).sha256(), segments.get(1).sha256());
+        assertEquals(segments.get(0).pageCount(), segments.get(1).pageCount());
+    }
+
+    private static int countOutlineItems(PDOutlineNode node) {
+        int count = 0;
+        if (node != null) {
+            for (PDOutlineItem item : node.children()) {
+                count += (item.getTitle() != null ? 1 : 0) + countOutlineItems(item);
+            }
+        }
+        return count;
+    }
+
+    private static DocumentImage watermarkImage(ImageRenderingLocation location) {
+        DocumentImage documentImage = new DocumentImage();
+        documentImage.setImageRendering(ImageRendering.OPAQUE);
+        documentImage.setImageRenderingLocation(location);
+        documentImage.setCoordinateX(50);
+        documentImage.setCoordinateY(50);
+        return documentImage;
+    }
+
+    private Map<BundleDocument, CompletableFuture<File>> readyDocuments(File first, File second) {
+        Map<BundleDocument, CompletableFuture<File>> pendingDocuments = new HashMap<>();
+        pendingDocuments.put(bundle.getDocuments().get(0), CompletableFuture.completedFuture(first));
+        pendingDocuments.put(bundle.getDocuments().get(1), CompletableFuture.completedFuture(second));
+        return pendingDocuments;
+    }
+
+    private static List<Boolean> watermarkedPages(PDDocument document) throws IOException {
+        List<Boolean> watermarked = new ArrayList<>();
+        for (PDPage page : document.getPages()) {
+            boolean hasForm = false;
+            for (COSName name : page.getResources().getXObjectNames()) {
+                hasForm |= page.getResources().isFormXObject(name);
+            }
+            watermarked.add(hasForm);
+        }
+        return watermarked;
+    }
+}
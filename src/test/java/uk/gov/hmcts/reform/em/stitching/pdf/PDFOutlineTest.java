@@ -1,5 +1,6 @@
 package uk.gov.hmcts.reform.em.stitching.pdf;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.apache.pdfbox.Loader;
 import org.apache.pdfbox.cos.COSBase;
 import org.apache.pdfbox.cos.COSDictionary;
@@ -21,6 +22,7 @@ import org.junit.jupiter.api.Test;
 import uk.gov.hmcts.reform.em.stitching.domain.Bundle;
 import uk.gov.hmcts.reform.em.stitching.domain.BundleDocument;
 import uk.gov.hmcts.reform.em.stitching.domain.SortableBundleItem;
+import uk.gov.hmcts.reform.em.stitching.metrics.StitchingMetrics;
 
 import java.io.File;
 import java.io.IOException;
@@ -142,7 +144,7 @@ class PDFOutlineTest {
         documentsMap.put(newBundle.getDocuments().get(0), FILE_1);
         documentsMap.put(newBundle.getDocuments().get(1), FILE_2);
 
-        PDFMerger merger = new PDFMerger();
+        PDFMerger merger = new PDFMerger(new StitchingMetrics(new SimpleMeterRegistry()));
 
         newBundle.setHasTableOfContents(true);
         newBundle.setHasDocumentSubtitles(true);
@@ -193,7 +195,7 @@ class PDFOutlineTest {
         documentsMap.put(newBundle.getDocuments().get(0), FILE_3);
         documentsMap.put(newBundle.getDocuments().get(1), FILE_4);
 
-        PDFMerger merger = new PDFMerger();
+        PDFMerger merger = new PDFMerger(new StitchingMetrics(new SimpleMeterRegistry()));
         newBundle.setHasTableOfContents(true);
         newBundle.setHasDocumentSubtitles(true);
         File mergedFile = merger.merge(newBundle, documentsMap, null);
@@ -308,37 +310,6 @@ class PDFOutlineTest {
         assertEquals(-1, pageNum);
     }
 
-    @Test
-    void findPdOutlineItemForNonExistentKey() {
-        PDDocumentOutline outline = new PDDocumentOutline();
-        PDOutlineItem rootItem = new PDOutlineItem();
-        rootItem.setTitle("Root");
-        rootItem.getCOSObject().setItem(COSName.getPDFName("key1LRoot"), COSNull.NULL);
-        outline.addLast(rootItem);
-        document.getDocumentCatalog().setDocumentOutline(outline);
-
-        pdfOutline = new PDFOutline(document, null);
-        assertNull(pdfOutline.findPdOutlineItem(rootItem, "nonExistentKey"));
-    }
-
-    @Test
-    void findPdOutlineNestedItem() {
-        PDDocumentOutline outline = new PDDocumentOutline();
-        PDOutlineItem rootItem = new PDOutlineItem();
-        rootItem.setTitle("Root");
-        rootItem.getCOSObject().setItem(COSName.getPDFName("key1LRoot"), COSNull.NULL);
-        outline.addLast(rootItem);
-
-        PDOutlineItem childItem = new PDOutlineItem();
-        childItem.setTitle("Child");
-        childItem.getCOSObject().setItem(COSName.getPDFName("key2LChild"), COSNull.NULL);
-        rootItem.addLast(childItem);
-        document.getDocumentCatalog().setDocumentOutline(outline);
-
-        pdfOutline = new PDFOutline(document, null);
-        assertEquals(childItem, pdfOutline.findPdOutlineItem(rootItem, "key2LChild"));
-    }
-
     @Test
     void addOutlineToDocumentWhenParentNotFound() {
         SortableBundleItem rootItem = createMockSortableItem(1L, "TreeRoot");
@@ -372,11 +343,10 @@ class PDFOutlineTest {
         pdfOutline = new PDFOutline(document, outlineTree);
         pdfOutline.addBundleItem(rootBundleItem);
 
-        PDOutlineItem dummyLastChild = new PDOutlineItem();
-        dummyLastChild.setTitle("Dummy Last Child of Root");
-        String keyForNonExistentItemInTree = "nonExistentKeyInTree";
-        dummyLastChild.getCOSObject().setItem(COSName.getPDFName(keyForNonExistentItemInTree), COSNull.NULL);
-        pdfOutline.rootOutline.addLast(dummyLastChild);
+        SortableBundleItem itemNotInTree = createMockSortableItem(3L, "Dummy Last Child of Root");
+        pdfOutline.addItem(itemNotInTree, 0);
+        PDOutlineItem dummyLastChild = pdfOutline.rootOutline.getLastChild();
+        assertEquals("Dummy Last Child of Root", dummyLastChild.getTitle());
 
         try (PDDocument srcDoc = new PDDocument()) {
             srcDoc.addPage(new PDPage());
@@ -387,8 +357,7 @@ class PDFOutlineTest {
             srcOutline.addLast(srcItem1);
             srcDoc.getDocumentCatalog().setDocumentOutline(srcOutline);
 
-            pdfOutline.copyOutline(srcOutline, srcDoc.getDocumentCatalog(),
-                keyForNonExistentItemInTree, 0, true);
+            pdfOutline.copyOutline(srcOutline, srcDoc.getDocumentCatalog(), itemNotInTree, 0, true);
         }
 
         boolean found = false;
@@ -398,7 +367,7 @@ class PDFOutlineTest {
                 break;
             }
         }
-        assertTrue(found, "Copied item should be added as child of the item found by key.");
+        assertTrue(found, "Copied item should be added as child of the outline item of the bundle item.");
     }
 
     @Test
@@ -418,11 +387,9 @@ class PDFOutlineTest {
         docOutline.addLast(pdfMainRoot);
         document.getDocumentCatalog().setDocumentOutline(docOutline);
 
-        PDOutlineItem pdfTreeChildItemPlaceholder = new PDOutlineItem();
-        pdfTreeChildItemPlaceholder.setTitle(treeChildItem.getTitle());
-        String keyForChildInTree = createItemKeyForTest(treeChildItem);
-        pdfTreeChildItemPlaceholder.getCOSObject().setItem(COSName.getPDFName(keyForChildInTree), COSNull.NULL);
-        pdfMainRoot.addLast(pdfTreeChildItemPlaceholder);
+        pdfOutline.addItem(treeChildItem, 0);
+        PDOutlineItem pdfTreeChildItemPlaceholder = docOutline.getLastChild();
+        assertEquals(treeChildItem.getTitle(), pdfTreeChildItemPlaceholder.getTitle());
 
         try (PDDocument srcDoc = new PDDocument()) {
             srcDoc.addPage(new PDPage());
@@ -433,7 +400,7 @@ class PDFOutlineTest {
             srcOutline.addLast(srcItem1);
             srcDoc.getDocumentCatalog().setDocumentOutline(srcOutline);
 
-            pdfOutline.copyOutline(srcOutline, srcDoc.getDocumentCatalog(), keyForChildInTree, 0, true);
+            pdfOutline.copyOutline(srcOutline, srcDoc.getDocumentCatalog(), treeChildItem, 0, true);
         }
 
         boolean found = false;
@@ -443,7 +410,7 @@ class PDFOutlineTest {
                 break;
             }
         }
-        assertTrue(found, "Copied item should be added as child of the pre-existing item for the key.");
+        assertTrue(found, "Copied item should be added as child of the top level item for the bundle item.");
     }
 
     @Test
@@ -454,15 +421,13 @@ class PDFOutlineTest {
         pdfOutline.addBundleItem(rootSortableItem);
 
         String parentKeyInPdf = createItemKeyForTest(rootSortableItem);
-        PDOutlineItem pdfParentOutlineItem = pdfOutline.findPdOutlineItem(
-            document.getDocumentCatalog().getDocumentOutline().getFirstChild(), parentKeyInPdf);
+        PDOutlineItem pdfParentOutlineItem = document.getDocumentCatalog().getDocumentOutline().getFirstChild();
         assertNotNull(pdfParentOutlineItem);
+        assertNotNull(pdfParentOutlineItem.getCOSObject().getItem(parentKeyInPdf));
 
-        PDOutlineItem pdfChildPlaceholder = new PDOutlineItem();
-        pdfChildPlaceholder.setTitle(childSortableItem.getTitle());
-        String keyForCopyOutline = createItemKeyForTest(childSortableItem);
-        pdfChildPlaceholder.getCOSObject().setItem(COSName.getPDFName(keyForCopyOutline), COSNull.NULL);
-        pdfParentOutlineItem.addLast(pdfChildPlaceholder);
+        pdfOutline.addItem(childSortableItem, 0);
+        PDOutlineItem pdfChildPlaceholder = pdfParentOutlineItem.getLastChild();
+        assertEquals(childSortableItem.getTitle(), pdfChildPlaceholder.getTitle());
 
         try (PDDocument srcDoc = new PDDocument()) {
             srcDoc.addPage(new PDPage());
@@ -489,7 +454,7 @@ class PDFOutlineTest {
             when(spiedActualCosDict.getKey()).thenReturn(predefinedKeyForSkip);
             srcOutline.addLast(spiedSourceItem);
 
-            pdfOutline.copyOutline(srcOutline, srcDocCatalog, keyForCopyOutline, 0, true);
+            pdfOutline.copyOutline(srcOutline, srcDocCatalog, childSortableItem, 0, true);
         }
 
         PDOutlineItem copiedItem = null;
@@ -551,11 +516,8 @@ class PDFOutlineTest {
         pdfOutline = new PDFOutline(document, outlineTree);
         pdfOutline.addBundleItem(rootBundleItem);
 
-        String key = createItemKeyForTest(childBundleItem);
-        PDOutlineItem childDestItem = new PDOutlineItem();
-        childDestItem.setTitle(childBundleItem.getTitle());
-        childDestItem.getCOSObject().setItem(COSName.getPDFName(key), COSNull.NULL);
-        pdfOutline.rootOutline.addLast(childDestItem);
+        pdfOutline.addItem(childBundleItem, 0);
+        PDOutlineItem childDestItem = pdfOutline.rootOutline.getLastChild();
 
         try (PDDocument srcDoc = new PDDocument()) {
             srcDoc.addPage(new PDPage());
@@ -566,7 +528,7 @@ class PDFOutlineTest {
             srcOutline.addLast(srcItem);
             srcDoc.getDocumentCatalog().setDocumentOutline(srcOutline);
 
-            pdfOutline.copyOutline(srcOutline, srcDoc.getDocumentCatalog(), key, 0, false);
+            pdfOutline.copyOutline(srcOutline, srcDoc.getDocumentCatalog(), childBundleItem, 0, false);
         }
 
         assertNull(childDestItem.getFirstChild(), "No children should be copied when hasDocumentSubtitles is false.");
@@ -583,11 +545,8 @@ class PDFOutlineTest {
         pdfOutline = new PDFOutline(document, outlineTree);
         pdfOutline.addBundleItem(rootBundleItem);
 
-        String key = createItemKeyForTest(childBundleItem);
-        PDOutlineItem childDestItem = new PDOutlineItem();
-        childDestItem.setTitle(childBundleItem.getTitle());
-        childDestItem.getCOSObject().setItem(COSName.getPDFName(key), COSNull.NULL);
-        pdfOutline.rootOutline.addLast(childDestItem);
+        pdfOutline.addItem(childBundleItem, 0);
+        PDOutlineItem childDestItem = pdfOutline.rootOutline.getLastChild();
 
         try (PDDocument srcDoc = new PDDocument()) {
             srcDoc.addPage(new PDPage());
@@ -598,13 +557,52 @@ class PDFOutlineTest {
             srcOutline.addLast(srcItem);
             srcDoc.getDocumentCatalog().setDocumentOutline(srcOutline);
 
-            pdfOutline.copyOutline(srcOutline, srcDoc.getDocumentCatalog(), key, 0, true);
+            pdfOutline.copyOutline(srcOutline, srcDoc.getDocumentCatalog(), childBundleItem, 0, true);
         }
 
         assertNotNull(childDestItem.getFirstChild(), "Children should be copied when hasDocumentSubtitles is true.");
         assertEquals("SourceSubtitle", childDestItem.getFirstChild().getTitle());
     }
 
+    @Test
+    void copyOutlineTellsApartItemsWithTheSameIdAndTitle() throws IOException {
+        SortableBundleItem rootBundleItem = createMockSortableItem(1L, "RootBundleItem");
+        SortableBundleItem firstFolder = createMockSortableItem(2L, "Folder");
+        SortableBundleItem secondFolder = createMockSortableItem(2L, "Folder");
+        SortableBundleItem firstDocument = createMockSortableItem(null, "Document");
+        SortableBundleItem secondDocument = createMockSortableItem(null, "Document");
+
+        outlineTree = new TreeNode<>(rootBundleItem);
+        outlineTree.addChild(firstFolder).addChild(firstDocument);
+        outlineTree.addChild(secondFolder).addChild(secondDocument);
+
+        pdfOutline = new PDFOutline(document, outlineTree);
+        pdfOutline.addBundleItem(rootBundleItem);
+        pdfOutline.addItem(firstFolder, 0);
+        pdfOutline.addItem(firstDocument, 0);
+        pdfOutline.addItem(secondFolder, 0);
+        pdfOutline.addItem(secondDocument, 0);
+
+        try (PDDocument srcDoc = new PDDocument()) {
+            srcDoc.addPage(new PDPage());
+            PDDocumentOutline srcOutline = new PDDocumentOutline();
+            PDOutlineItem srcItem = new PDOutlineItem();
+            srcItem.setTitle("SourceSubtitle");
+            srcItem.setDestination(srcDoc.getPage(0));
+            srcOutline.addLast(srcItem);
+            srcDoc.getDocumentCatalog().setDocumentOutline(srcOutline);
+
+            pdfOutline.copyOutline(srcOutline, srcDoc.getDocumentCatalog(), secondDocument, 0, true);
+        }
+
+        PDOutlineItem firstFolderItem = pdfOutline.rootOutline.getFirstChild();
+        PDOutlineItem secondFolderItem = firstFolderItem.getNextSibling();
+        assertEquals("Document", firstFolderItem.getFirstChild().getTitle());
+        assertEquals("Document", secondFolderItem.getFirstChild().getTitle());
+        assertNull(firstFolderItem.getFirstChild().getFirstChild());
+        assertEquals("SourceSubtitle", secondFolderItem.getFirstChild().getFirstChild().getTitle());
+    }
+
     private String createItemKeyForTest(SortableBundleItem item) {
         return item.getId() + item.getTitle();
     }
@@ -8,7 +8,6 @@ import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
 import org.apache.pdfbox.text.PDFTextStripper;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
-import uk.gov.hmcts.reform.em.stitching.domain.enumeration.PaginationStyle;
 
 import java.io.IOException;
 
@@ -92,40 +91,6 @@ class PDFUtilityTest {
         document.close();
     }
 
-    @Test
-    void addPageNumbersAddsNumbersToPages() throws IOException {
-        PDDocument document = new PDDocument();
-        for (int i = 0; i < 5; i++) {
-            document.addPage(new PDPage());
-        }
-
-        PDFUtility.addPageNumbers(document, PaginationStyle.bottomRight, 0, 5);
-
-        String text = new PDFTextStripper().getText(document);
-        for (int i = 1; i <= 5; i++) {
-            assertTrue(text.contains(String.valueOf(i)));
-        }
-
-        document.close();
-    }
-
-    @Test
-    void addPageNumbersHandlesInvalidRange() throws IOException {
-        PDDocument document = new PDDocument();
-        for (int i = 0; i < 5; i++) {
-            document.addPage(new PDPage());
-        }
-
-        PDFUtility.addPageNumbers(document, PaginationStyle.bottomRight, 5, 0);
-
-        String text = new PDFTextStripper().getText(document);
-        for (int i = 1; i <= 5; i++) {
-            assertTrue(text.isEmpty());
-        }
-
-        document.close();
-    }
-
     @Test
     void getStringWidthCalculatesWidthCorrectly() {
         float width = PDFUtility.getStringWidth("Sample Text",
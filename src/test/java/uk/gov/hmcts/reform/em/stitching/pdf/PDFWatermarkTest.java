@@ -12,6 +12,7 @@ import uk.gov.hmcts.reform.em.stitching.domain.enumeration.ImageRenderingLocatio
 import java.io.File;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -45,7 +46,8 @@ class PDFWatermarkTest {
         documentImage.setCoordinateY(-1);
 
         PDFWatermark pdfWatermark = new PDFWatermark();
-        pdfWatermark.processDocumentWatermark(WATERMARK_FILE, document, documentImage);
+        WatermarkTemplate template = pdfWatermark.prepareTemplate(WATERMARK_FILE, documentImage);
+        pdfWatermark.processDocumentWatermark(template, document);
 
         assertEquals(Integer.valueOf(100), documentImage.getCoordinateX());
         assertEquals(Integer.valueOf(0), documentImage.getCoordinateY());
@@ -56,7 +58,8 @@ class PDFWatermarkTest {
         Pair<BundleDocument, File> document = Pair.of(bundle.getDocuments().get(0), FILE_1);
 
         PDFWatermark pdfWatermark = new PDFWatermark();
-        pdfWatermark.processDocumentWatermark(WATERMARK_FILE, document, documentImage);
+        WatermarkTemplate template = pdfWatermark.prepareTemplate(WATERMARK_FILE, documentImage);
+        pdfWatermark.processDocumentWatermark(template, document);
 
         assertNull(documentImage.getCoordinateX());
         assertNull(documentImage.getCoordinateY());
@@ -67,7 +70,8 @@ class PDFWatermarkTest {
         Pair<BundleDocument, File> document = Pair.of(bundle.getDocuments().get(0), FILE_1);
 
         PDFWatermark pdfWatermark = new PDFWatermark();
-        Pair<BundleDocument, File> result = pdfWatermark.processDocumentWatermark(null, document, documentImage);
+        WatermarkTemplate template = pdfWatermark.prepareTemplate(null, documentImage);
+        Pair<BundleDocument, File> result = pdfWatermark.processDocumentWatermark(template, document);
 
         assertEquals(document, result);
     }
@@ -78,8 +82,8 @@ class PDFWatermarkTest {
         documentImage.setImageRenderingLocation(ImageRenderingLocation.FIRST_PAGE);
 
         PDFWatermark pdfWatermark = new PDFWatermark();
-        Pair<BundleDocument, File> result =
-                pdfWatermark.processDocumentWatermark(WATERMARK_FILE, document, documentImage);
+        WatermarkTemplate template = pdfWatermark.prepareTemplate(WATERMARK_FILE, documentImage);
+        Pair<BundleDocument, File> result = pdfWatermark.processDocumentWatermark(template, document);
 
         assertEquals(document, result);
     }
@@ -91,8 +95,8 @@ class PDFWatermarkTest {
         when(image.getImageRenderingLocation()).thenThrow(NullPointerException.class);
 
         PDFWatermark pdfWatermark = new PDFWatermark();
-        Pair<BundleDocument, File> result =
-                pdfWatermark.processDocumentWatermark(WATERMARK_FILE, document, image);
+        WatermarkTemplate template = pdfWatermark.prepareTemplate(WATERMARK_FILE, image);
+        Pair<BundleDocument, File> result = pdfWatermark.processDocumentWatermark(template, document);
 
         assertEquals(document, result);
     }
@@ -102,9 +106,26 @@ class PDFWatermarkTest {
         Pair<BundleDocument, File> document = Pair.of(bundle.getDocuments().get(0), new File(""));
 
         PDFWatermark pdfWatermark = new PDFWatermark();
-        Pair<BundleDocument, File> result =
-                pdfWatermark.processDocumentWatermark(WATERMARK_FILE, document, documentImage);
+        WatermarkTemplate template = pdfWatermark.prepareTemplate(WATERMARK_FILE, documentImage);
+        Pair<BundleDocument, File> result = pdfWatermark.processDocumentWatermark(template, document);
 
         assertEquals(document, result);
     }
+
+    @Test
+    void prepareTemplateDocumentImageFileNull() {
+        assertNull(new PDFWatermark().prepareTemplate(null, documentImage));
+    }
+
+    @Test
+    void prepareTemplateIdentifiesImageAndPlacement() {
+        PDFWatermark pdfWatermark = new PDFWatermark();
+        WatermarkTemplate template = pdfWatermark.prepareTemplate(WATERMARK_FILE, documentImage);
+
+        assertEquals(template.getSha256(), pdfWatermark.prepareTemplate(WATERMARK_FILE, documentImage).getSha256());
+
+        documentImage.setImageRenderingLocation(ImageRenderingLocation.FIRST_PAGE);
+        assertNotEquals(template.getSha256(),
+                pdfWatermark.prepareTemplate(WATERMARK_FILE, documentImage).getSha256());
+    }
 }
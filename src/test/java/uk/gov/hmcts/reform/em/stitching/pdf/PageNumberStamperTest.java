@@ -0,0 +1,138 @@
+package uk.gov.hmcts.reform.em.stitching.pdf;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.pdfbox.util.Matrix;
+import org.junit.jupiter.api.Test;
+import uk.gov.hmcts.reform.em.stitching.domain.enumeration.PaginationStyle;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PageNumberStamperTest {
+
+    @Test
+    void numbersOnlyTheAddedPages() throws IOException {
+        try (PDDocument document = createDocument(5)) {
+            PageNumberStamper pageNumberStamper = new PageNumberStamper(document, PaginationStyle.bottomCenter);
+            pageNumberStamper.addPages(0, 2);
+            pageNumberStamper.addPages(3, 5);
+            pageNumberStamper.stamp();
+
+            assertEquals("1", textOfPage(document, 1));
+            assertEquals("2", textOfPage(document, 2));
+            assertEquals("", textOfPage(document, 3));
+            assertEquals("4", textOfPage(document, 4));
+            assertEquals("5", textOfPage(document, 5));
+        }
+    }
+
+    @Test
+    void keepsTheExistingContentOfThePage() throws IOException {
+        try (PDDocument document = createDocument(2)) {
+            for (PDPage page : document.getPages()) {
+                try (PDPageContentStream contents = new PDPageContentStream(document, page)) {
+                    contents.transform(Matrix.getScaleInstance(0.5f, 0.5f));
+                    contents.beginText();
+                    contents.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), 12);
+                    contents.newLineAtOffset(100, 700);
+                    contents.showText("Existing");
+                    contents.endText();
+                }
+            }
+
+            PageNumberStamper pageNumberStamper = new PageNumberStamper(document, PaginationStyle.topLeft);
+            pageNumberStamper.addPages(0, 2);
+            pageNumberStamper.stamp();
+
+            PDPage firstPage = document.getPage(0);
+            PDPage secondPage = document.getPage(1);
+            String text = textOfPage(document, 2);
+            assertTrue(text.contains("Existing"));
+            assertTrue(text.contains("2"));
+
+            COSArray firstContents = (COSArray) firstPage.getCOSObject().getDictionaryObject(COSName.CONTENTS);
+            COSArray secondContents = (COSArray) secondPage.getCOSObject().getDictionaryObject(COSName.CONTENTS);
+            assertEquals(3, firstContents.size());
+            assertSame(firstContents.getObject(0), secondContents.getObject(0));
+        }
+    }
+
+    @Test
+    void numbersAreKeptWhenTheDocumentIsSaved() throws IOException {
+        ByteArrayOutputStream saved = new ByteArrayOutputStream();
+        try (PDDocument document = createDocument(3)) {
+            PageNumberStamper pageNumberStamper = new PageNumberStamper(document, PaginationStyle.bottomRight);
+            pageNumberStamper.addPages(0, 3);
+            pageNumberStamper.stamp();
+            document.save(saved);
+        }
+
+        try (PDDocument document = Loader.loadPDF(saved.toByteArray())) {
+            for (int page = 1; page <= 3; page++) {
+                assertEquals(String.valueOf(page), textOfPage(document, page));
+            }
+        }
+    }
+
+    @Test
+    void numbersEveryPageInTheRange() throws IOException {
+        try (PDDocument document = createDocument(5)) {
+            PageNumberStamper pageNumberStamper = new PageNumberStamper(document, PaginationStyle.bottomRight);
+            pageNumberStamper.addPages(0, 5);
+            pageNumberStamper.stamp();
+
+            for (int page = 1; page <= 5; page++) {
+                assertEquals(String.valueOf(page), textOfPage(document, page));
+            }
+        }
+    }
+
+    @Test
+    void invalidRangeStampsNothing() throws IOException {
+        try (PDDocument document = createDocument(5)) {
+            PageNumberStamper pageNumberStamper = new PageNumberStamper(document, PaginationStyle.bottomRight);
+            pageNumberStamper.addPages(5, 0);
+            pageNumberStamper.stamp();
+
+            assertEquals("", new PDFTextStripper().getText(document).trim());
+        }
+    }
+
+    @Test
+    void paginationOffStampsNothing() throws IOException {
+        try (PDDocument document = createDocument(2)) {
+            PageNumberStamper pageNumberStamper = new PageNumberStamper(document, PaginationStyle.off);
+            pageNumberStamper.addPages(0, 2);
+            pageNumberStamper.stamp();
+
+            assertEquals("", new PDFTextStripper().getText(document).trim());
+        }
+    }
+
+    private static PDDocument createDocument(int pages) {
+        PDDocument document = new PDDocument();
+        for (int i = 0; i < pages; i++) {
+            document.addPage(new PDPage());
+        }
+        return document;
+    }
+
+    private static String textOfPage(PDDocument document, int page) throws IOException {
+        PDFTextStripper stripper = new PDFTextStripper();
+        stripper.setStartPage(page);
+        stripper.setEndPage(page);
+        return stripper.getText(document).trim();
+    }
+}
@@ -18,28 +18,26 @@ import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
 import uk.gov.hmcts.reform.em.stitching.domain.Bundle;
 import uk.gov.hmcts.reform.em.stitching.domain.BundleDocument;
+import uk.gov.hmcts.reform.em.stitching.domain.BundleFolder;
+import uk.gov.hmcts.reform.em.stitching.domain.BundleLayout;
 import uk.gov.hmcts.reform.em.stitching.domain.enumeration.PageNumberFormat;
 
-import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyFloat;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
-import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.mockStatic;
@@ -55,10 +53,8 @@ class TableOfContentsTest {
     private Bundle mockBundle;
 
     private PDDocument document;
-    private Map<BundleDocument, File> documentsMap;
 
     private MockedStatic<PDFUtility> mockedPdfUtility;
-    private MockedStatic<PdfOutlineUtils> mockedPdfOutlineUtils;
 
     private static final float TITLE_XX_OFFSET_VALUE = 50f;
     private static final int NUM_LINES_PER_PAGE_CONST = 38;
@@ -66,16 +62,8 @@ class TableOfContentsTest {
     @BeforeEach
     void setUp() {
         document = new PDDocument();
-        documentsMap = new HashMap<>();
 
         mockedPdfUtility = mockStatic(PDFUtility.class);
-        mockedPdfOutlineUtils = mockStatic(PdfOutlineUtils.class);
-
-        mockedPdfUtility.when(() -> PDFUtility.splitString(anyString(), anyInt(), any(PDType1Font.class), anyFloat()))
-            .thenReturn(new String[]{"default single line"});
-
-        mockedPdfUtility.when(() -> PDFUtility.splitString(eq(null), anyInt(), any(PDType1Font.class), anyFloat()))
-            .thenReturn(new String[]{});
 
         mockedPdfUtility.when(() -> PDFUtility.addText(any(PDDocument.class), any(PDPage.class), any(PDFText.class),
             anyInt())).thenAnswer(invocation -> null);
@@ -91,72 +79,43 @@ class TableOfContentsTest {
 
         lenient().when(mockBundle.getDescription()).thenReturn("Default Bundle Description");
         lenient().when(mockBundle.getPageNumberFormat()).thenReturn(PageNumberFormat.PAGE_RANGE);
-        lenient().when(mockBundle.getSortedDocuments()).thenAnswer(invocation -> Stream.empty());
-        lenient().when(mockBundle.getNestedFolders()).thenAnswer(invocation -> Stream.empty());
         lenient().when(mockBundle.hasFolderCoversheets()).thenReturn(true);
         lenient().when(mockBundle.getHasDocumentSubtitles()).thenReturn(true);
-
-        mockedPdfOutlineUtils.when(() -> PdfOutlineUtils.getSubtitles(any(), any()))
-            .thenReturn(Collections.emptyList());
-
-        mockSpecificSplitString("Default Bundle Description",
-            TableOfContents.SPACE_PER_LINE, 12f, new String[]{"Default Bundle Description"});
     }
 
     @AfterEach
     void tearDown() throws IOException {
         mockedPdfUtility.close();
-        mockedPdfOutlineUtils.close();
         if (document != null) {
             document.close();
         }
     }
 
-    private void mockSpecificSplitString(String textToMatch, int spacePerLine, float fontSize, String[] resultLines) {
-        if (textToMatch == null) {
-            mockedPdfUtility.when(() -> PDFUtility.splitString(
-                    eq(null), eq(spacePerLine), any(PDType1Font.class), eq(fontSize)))
-                .thenReturn(resultLines);
-            return;
-        }
-        mockedPdfUtility.when(() -> PDFUtility.splitString(
-                eq(textToMatch), eq(spacePerLine), any(PDType1Font.class), eq(fontSize)))
-            .thenReturn(resultLines);
-    }
-
-    private void setupBundleForLineCounting(String description, List<BundleDocument> docs, List<String> subtitles) {
+    private void setupBundleForLineCounting(String description, List<BundleDocument> docs) {
         when(mockBundle.getDescription()).thenReturn(description);
-        mockSpecificSplitString(description, TableOfContents.SPACE_PER_LINE, 12f,
-            description == null || description.isEmpty() ? new String[]{} : description.split("\n"));
-
-        when(mockBundle.getSortedDocuments()).thenAnswer(invocation -> docs.stream());
-        for (BundleDocument doc : docs) {
-            String docTitle = doc.getDocTitle();
-            mockSpecificSplitString(docTitle, TableOfContents.SPACE_PER_TITLE_LINE, 12f,
-                docTitle == null ? new String[]{} : docTitle.split("\n"));
-        }
-
-        mockedPdfOutlineUtils.when(() -> PdfOutlineUtils.getSubtitles(mockBundle, documentsMap)).thenReturn(subtitles);
-
-        for (String subtitle : subtitles) {
-            mockSpecificSplitString(subtitle, TableOfContents.SPACE_PER_SUBTITLE_LINE, 12f,
-                subtitle == null ? new String[]{} : subtitle.split("\n"));
-        }
+        when(mockBundle.getDocuments()).thenReturn(docs);
+    }
 
-        lenient().when(mockBundle.getNestedFolders()).thenAnswer(invocation -> Stream.empty());
+    private BundleFolder folderWithDocument() {
+        BundleFolder folder = new BundleFolder();
+        folder.getDocuments().add(new BundleDocument());
+        return folder;
     }
 
     @Test
     void constructorAddsInitialTextAndPages() throws IOException {
         String description = "Test Bundle Description";
-        setupBundleForLineCounting(description, Collections.emptyList(), Collections.emptyList());
+        setupBundleForLineCounting(description, Collections.emptyList());
 
-        final TableOfContents toc = new TableOfContents(document, mockBundle, documentsMap);
+        final TableOfContents toc = new TableOfContents(document, BundleLayout.of(mockBundle));
 
         assertEquals(1, document.getNumberOfPages(),
             "PDDocument should have 1 page added by TOC constructor based on its getNumberPages call.");
 
         PDPage expectedTocPage = document.getPage(0);
+        mockedPdfUtility.verify(() -> PDFUtility.addCenterText(any(), any(), anyString(), anyInt()), never());
+
+        assertEquals(0, toc.draw());
 
         mockedPdfUtility.verify(() -> PDFUtility.addText(eq(document), eq(expectedTocPage),
             argThat(pdfText -> description.equals(pdfText.getText())), eq(TableOfContents.SPACE_PER_LINE)));
@@ -173,11 +132,8 @@ class TableOfContentsTest {
     void constructorWithEmptyDescription() throws IOException {
         when(mockBundle.getDescription()).thenReturn("");
         when(mockBundle.getPageNumberFormat()).thenReturn(PageNumberFormat.PAGE_RANGE);
-        when(mockBundle.getSortedDocuments()).thenAnswer(invocation -> Stream.empty());
-        when(mockBundle.getNestedFolders()).thenAnswer(invocation -> Stream.empty());
-        mockSpecificSplitString("", TableOfContents.SPACE_PER_LINE, 12f, new String[]{});
 
-        new TableOfContents(document, mockBundle, documentsMap);
+        new TableOfContents(document, BundleLayout.of(mockBundle)).draw();
 
         mockedPdfUtility.verify(() -> PDFUtility.addText(eq(document), any(PDPage.class),
             argThat(pdfText -> pdfText.getXxOffset() == 50f && pdfText.getYyOffset() == 80f), anyInt()), never());
@@ -185,18 +141,16 @@ class TableOfContentsTest {
 
     @Test
     void addDocumentWritesTitleAndPageNumber() throws IOException {
-        setupBundleForLineCounting("Desc", Collections.emptyList(), Collections.emptyList());
-        final TableOfContents toc = new TableOfContents(document, mockBundle, documentsMap);
+        setupBundleForLineCounting("Desc", Collections.emptyList());
+        final TableOfContents toc = new TableOfContents(document, BundleLayout.of(mockBundle));
 
         document.addPage(new PDPage());
         int destinationPageNumInMainDoc = document.getNumberOfPages() - 1;
 
         String docTitle = "Test Document";
-        mockSpecificSplitString(docTitle, TableOfContents.SPACE_PER_TITLE_LINE, 12f, new String[]{docTitle});
-        String docTitle2 = "Test Document 2";
-        mockSpecificSplitString(docTitle2, TableOfContents.SPACE_PER_TITLE_LINE, 12f, new String[]{docTitle2});
 
         toc.addDocument(docTitle, destinationPageNumInMainDoc, 5);
+        toc.draw();
 
         mockedPdfUtility.verify(() -> PDFUtility.addLink(eq(document), eq(toc.getPage()),
             argThat(link -> docTitle.equals(link.getText()) && link.getXxOffset() == TITLE_XX_OFFSET_VALUE),
@@ -212,68 +166,57 @@ class TableOfContentsTest {
 
     @Test
     void addDocumentWhenEndOfFolderAddsExtraSpace() throws IOException {
-        setupBundleForLineCounting("Desc", Collections.emptyList(), Collections.emptyList());
-        TableOfContents toc = new TableOfContents(document, mockBundle, documentsMap);
+        setupBundleForLineCounting("Desc", Collections.emptyList());
+        TableOfContents toc = new TableOfContents(document, BundleLayout.of(mockBundle));
 
         document.addPage(new PDPage());
         int destinationPageNumInMainDoc = document.getNumberOfPages() - 1;
 
         String docTitle = "Another Document";
-        mockSpecificSplitString(docTitle, TableOfContents.SPACE_PER_TITLE_LINE, 12f, new String[]{docTitle});
 
         toc.setEndOfFolder(true);
         toc.addDocument(docTitle, destinationPageNumInMainDoc, 3);
 
-        mockedPdfUtility.verify(() -> PDFUtility.addText(eq(document), eq(toc.getPage()),
-            argThat(isEndOfFolderSpaceLine())
-        ), times(1));
-        mockedPdfUtility.verify(() -> PDFUtility.addLink(eq(document), eq(toc.getPage()),
-            argThat(link -> docTitle.equals(link.getText())), eq(1)
-        ));
-
         String docTitle2 = "DocAfterReset";
-        mockSpecificSplitString(docTitle2, TableOfContents.SPACE_PER_TITLE_LINE, 12f, new String[]{docTitle2});
         toc.addDocument(docTitle2, destinationPageNumInMainDoc, 2);
+        toc.draw();
 
+        mockedPdfUtility.verify(() -> PDFUtility.addLink(eq(document), eq(toc.getPage()),
+            argThat(link -> docTitle.equals(link.getText())), eq(1)
+        ));
         mockedPdfUtility.verify(() -> PDFUtility.addText(any(PDDocument.class), any(PDPage.class),
             argThat(isEndOfFolderSpaceLine())), times(1));
     }
 
     @Test
     void addFolderWritesFolderTitle() throws IOException {
-        setupBundleForLineCounting("Desc", Collections.emptyList(), Collections.emptyList());
-        TableOfContents toc = new TableOfContents(document, mockBundle, documentsMap);
+        setupBundleForLineCounting("Desc", Collections.emptyList());
+        TableOfContents toc = new TableOfContents(document, BundleLayout.of(mockBundle));
 
         document.addPage(new PDPage());
         int destinationPageNumInMainDoc = document.getNumberOfPages() - 1;
 
         String folderTitle = "My Folder";
-        mockSpecificSplitString(folderTitle,
-            TableOfContents.SPACE_PER_TITLE_LINE, 13f, new String[]{folderTitle});
 
         toc.setEndOfFolder(true);
         toc.addFolder(folderTitle, destinationPageNumInMainDoc);
 
+        String docAfterFolder = "DocAfterFolder";
+        toc.addDocument(docAfterFolder, destinationPageNumInMainDoc, 1);
+        toc.draw();
+
         mockedPdfUtility.verify(() -> PDFUtility.addLink(eq(document), eq(toc.getPage()),
             argThat(link -> folderTitle.equals(link.getText()) && link.getFontSize() == 13),
             eq(1)
         ));
         mockedPdfUtility.verify(() -> PDFUtility.addText(any(PDDocument.class), any(PDPage.class),
             argThat(isEndOfFolderSpaceLine())), times(2));
-
-        String docAfterFolder = "DocAfterFolder";
-        mockSpecificSplitString(docAfterFolder, TableOfContents.SPACE_PER_TITLE_LINE,
-            12f, new String[]{docAfterFolder});
-        toc.addDocument(docAfterFolder, destinationPageNumInMainDoc, 1);
-
-        mockedPdfUtility.verify(() -> PDFUtility.addText(any(PDDocument.class), any(PDPage.class),
-            argThat(isEndOfFolderSpaceLine())), times(2));
     }
 
     @Test
     void addDocumentWithOutlineWhenPageRetrievalFails() throws IOException {
-        setupBundleForLineCounting("Desc", Collections.emptyList(), Collections.emptyList());
-        final TableOfContents toc = new TableOfContents(document, mockBundle, documentsMap);
+        setupBundleForLineCounting("Desc", Collections.emptyList());
+        final TableOfContents toc = new TableOfContents(document, BundleLayout.of(mockBundle));
 
         PDOutlineItem mockSibling = mock(PDOutlineItem.class);
         PDPageDestination mockPageDest = mock(PDPageDestination.class);
@@ -283,6 +226,7 @@ class TableOfContentsTest {
         when(mockPageDest.retrievePageNumber()).thenThrow(new RuntimeException("Simulated page retrieval failure"));
 
         toc.addDocumentWithOutline("Main Doc Title", 10, mockSibling);
+        toc.draw();
 
         mockedPdfUtility.verify(() -> PDFUtility.addSubtitleLink(
             any(), any(), any(), any(), anyFloat(), any(), anyInt()), never());
@@ -290,8 +234,8 @@ class TableOfContentsTest {
 
     @Test
     void addDocumentWithOutlineWithValidSibling() throws IOException {
-        setupBundleForLineCounting("Desc", Collections.emptyList(), Collections.emptyList());
-        final TableOfContents toc = new TableOfContents(document, mockBundle, documentsMap);
+        setupBundleForLineCounting("Desc", Collections.emptyList());
+        final TableOfContents toc = new TableOfContents(document, BundleLayout.of(mockBundle));
 
         PDOutlineItem mockSibling = mock(PDOutlineItem.class);
         PDPageDestination mockPageDest = mock(PDPageDestination.class);
@@ -303,15 +247,13 @@ class TableOfContentsTest {
         int siblingOriginalPageNum = 2;
         when(mockPageDest.retrievePageNumber()).thenReturn(siblingOriginalPageNum);
 
-        mockSpecificSplitString(siblingTitle,
-            TableOfContents.SPACE_PER_SUBTITLE_LINE, 12f, new String[]{siblingTitle});
-
         int requiredPageIndex = siblingOriginalPageNum + mainDocPageForSiblingLink;
         for (int i = document.getNumberOfPages(); i <= requiredPageIndex; i++) {
             document.addPage(new PDPage());
         }
 
         toc.addDocumentWithOutline("Main Document With Outline", mainDocPageForSiblingLink, mockSibling);
+        toc.draw();
 
         mockedPdfUtility.verify(() -> PDFUtility.addSubtitleLink(
             eq(document),
@@ -326,13 +268,14 @@ class TableOfContentsTest {
 
     @Test
     void addDocumentWithOutlineTitleMatchesDocumentTitleIgnoreCase() throws IOException {
-        setupBundleForLineCounting("Desc", Collections.emptyList(), Collections.emptyList());
-        final TableOfContents toc = new TableOfContents(document, mockBundle, documentsMap);
+        setupBundleForLineCounting("Desc", Collections.emptyList());
+        final TableOfContents toc = new TableOfContents(document, BundleLayout.of(mockBundle));
 
         PDOutlineItem root = mock(PDOutlineItem.class);
         when(root.getTitle()).thenReturn("cAsE iNsEnSiTiVe mAtCh");
 
         toc.addDocumentWithOutline("Case Insensitive Match", 1, root);
+        toc.draw();
 
         mockedPdfUtility.verify(() -> PDFUtility.addSubtitleLink(
             any(), any(), any(), any(), anyFloat(), any(), anyInt()), never());
@@ -340,8 +283,8 @@ class TableOfContentsTest {
 
     @Test
     void addDocumentWithOutlineNullDocumentTitle() throws IOException {
-        setupBundleForLineCounting("Desc", Collections.emptyList(), Collections.emptyList());
-        final TableOfContents toc = new TableOfContents(document, mockBundle, documentsMap);
+        setupBundleForLineCounting("Desc", Collections.emptyList());
+        final TableOfContents toc = new TableOfContents(document, BundleLayout.of(mockBundle));
 
         PDOutlineItem root = mock(PDOutlineItem.class);
         when(root.getTitle()).thenReturn("Some Subtitle");
@@ -352,6 +295,7 @@ class TableOfContentsTest {
         document.addPage(new PDPage());
 
         toc.addDocumentWithOutline(null, 0, root);
+        toc.draw();
 
         mockedPdfUtility.verify(() -> PDFUtility.addSubtitleLink(
             any(), any(), any(), eq("Some Subtitle"), anyFloat(), any(), eq(0)), times(1));
@@ -359,8 +303,8 @@ class TableOfContentsTest {
 
     @Test
     void addDocumentWithOutlineActionGoTo() throws IOException {
-        setupBundleForLineCounting("Desc", Collections.emptyList(), Collections.emptyList());
-        final TableOfContents toc = new TableOfContents(document, mockBundle, documentsMap);
+        setupBundleForLineCounting("Desc", Collections.emptyList());
+        final TableOfContents toc = new TableOfContents(document, BundleLayout.of(mockBundle));
 
         PDOutlineItem root = mock(PDOutlineItem.class);
         when(root.getTitle()).thenReturn("Action Go To Item");
@@ -375,6 +319,7 @@ class TableOfContentsTest {
         document.addPage(new PDPage());
 
         toc.addDocumentWithOutline("Doc", 0, root);
+        toc.draw();
 
         mockedPdfUtility.verify(() -> PDFUtility.addSubtitleLink(
             any(), any(), any(), eq("Action Go To Item"), anyFloat(), any(), eq(0)), times(1));
@@ -382,8 +327,8 @@ class TableOfContentsTest {
 
     @Test
     void addDocumentWithOutlineNullActionNotGoTo() throws IOException {
-        setupBundleForLineCounting("Desc", Collections.emptyList(), Collections.emptyList());
-        final TableOfContents toc = new TableOfContents(document, mockBundle, documentsMap);
+        setupBundleForLineCounting("Desc", Collections.emptyList());
+        final TableOfContents toc = new TableOfContents(document, BundleLayout.of(mockBundle));
 
         PDOutlineItem root = mock(PDOutlineItem.class);
         when(root.getTitle()).thenReturn("Null Dest Item");
@@ -391,6 +336,7 @@ class TableOfContentsTest {
         when(root.getAction()).thenReturn(null);
 
         toc.addDocumentWithOutline("Doc", 0, root);
+        toc.draw();
 
         mockedPdfUtility.verify(() -> PDFUtility.addSubtitleLink(
             any(), any(), any(), eq("Null Dest Item"), anyFloat(), any(), eq(0)), times(1));
@@ -398,8 +344,8 @@ class TableOfContentsTest {
 
     @Test
     void addDocumentWithOutlineNegativePageNumber() throws IOException {
-        setupBundleForLineCounting("Desc", Collections.emptyList(), Collections.emptyList());
-        final TableOfContents toc = new TableOfContents(document, mockBundle, documentsMap);
+        setupBundleForLineCounting("Desc", Collections.emptyList());
+        final TableOfContents toc = new TableOfContents(document, BundleLayout.of(mockBundle));
 
         PDOutlineItem root = mock(PDOutlineItem.class);
         when(root.getTitle()).thenReturn("Negative Page Item");
@@ -409,6 +355,7 @@ class TableOfContentsTest {
         when(dest.retrievePageNumber()).thenReturn(-1);
 
         toc.addDocumentWithOutline("Doc", 0, root);
+        toc.draw();
 
         mockedPdfUtility.verify(() -> PDFUtility.addSubtitleLink(
             any(), any(), any(), eq("Negative Page Item"), anyFloat(), any(), eq(0)), times(1));
@@ -416,8 +363,8 @@ class TableOfContentsTest {
 
     @Test
     void addDocumentWithOutlineOutOfBoundsPageNumber() throws IOException {
-        setupBundleForLineCounting("Desc", Collections.emptyList(), Collections.emptyList());
-        final TableOfContents toc = new TableOfContents(document, mockBundle, documentsMap);
+        setupBundleForLineCounting("Desc", Collections.emptyList());
+        final TableOfContents toc = new TableOfContents(document, BundleLayout.of(mockBundle));
 
         PDOutlineItem root = mock(PDOutlineItem.class);
         when(root.getTitle()).thenReturn("Out of Bounds Item");
@@ -427,6 +374,7 @@ class TableOfContentsTest {
         when(dest.retrievePageNumber()).thenReturn(100);
 
         toc.addDocumentWithOutline("Doc", 0, root);
+        toc.draw();
 
         mockedPdfUtility.verify(() -> PDFUtility.addSubtitleLink(
             any(), any(), any(), eq("Out of Bounds Item"), anyFloat(), any(), eq(0)), times(1));
@@ -434,8 +382,8 @@ class TableOfContentsTest {
 
     @Test
     void addDocumentWithOutlineNamedDestination() throws IOException {
-        setupBundleForLineCounting("Desc", Collections.emptyList(), Collections.emptyList());
-        final TableOfContents toc = new TableOfContents(document, mockBundle, documentsMap);
+        setupBundleForLineCounting("Desc", Collections.emptyList());
+        final TableOfContents toc = new TableOfContents(document, BundleLayout.of(mockBundle));
 
         PDOutlineItem root = mock(PDOutlineItem.class);
         when(root.getTitle()).thenReturn("Named Destination Item");
@@ -444,6 +392,7 @@ class TableOfContentsTest {
         when(root.getDestination()).thenReturn(dest);
 
         toc.addDocumentWithOutline("Doc", 0, root);
+        toc.draw();
 
         mockedPdfUtility.verify(() -> PDFUtility.addSubtitleLink(
             any(), any(), any(), eq("Named Destination Item"), anyFloat(), any(), eq(0)), times(1));
@@ -451,8 +400,8 @@ class TableOfContentsTest {
 
     @Test
     void processOutlineNodeHandlesNullItemViaReflection() throws Exception {
-        setupBundleForLineCounting("Desc", Collections.emptyList(), Collections.emptyList());
-        TableOfContents toc = new TableOfContents(document, mockBundle, documentsMap);
+        setupBundleForLineCounting("Desc", Collections.emptyList());
+        TableOfContents toc = new TableOfContents(document, BundleLayout.of(mockBundle));
 
         Method method = TableOfContents.class.getDeclaredMethod(
             "processOutlineNode", String.class, int.class, PDOutlineItem.class, int.class, java.util.Set.class);
@@ -463,25 +412,35 @@ class TableOfContentsTest {
 
     @Test
     void getNumberPagesWithFolders() throws IOException {
-        List<Object> mockedFolders = Collections.singletonList(new Object());
-        doReturn(mockedFolders).when(mockBundle).getFolders();
+        // Six lines of header, then two lines for each untitled folder and none for its untitled document.
+        when(mockBundle.getFolders()).thenReturn(Collections.nCopies(17, folderWithDocument()));
 
-        setupBundleForLineCounting("Desc", Collections.emptyList(), Collections.emptyList());
-        TableOfContents toc = new TableOfContents(document, mockBundle, documentsMap);
+        setupBundleForLineCounting("Desc", Collections.emptyList());
+        TableOfContents toc = new TableOfContents(document, BundleLayout.of(mockBundle));
 
         int pages = toc.getNumberPages();
-        assertEquals(1, pages);
+        assertEquals(2, pages);
+    }
+
+    @Test
+    void getNumberPagesIgnoresFoldersWithoutDocuments() throws IOException {
+        when(mockBundle.getFolders()).thenReturn(Collections.nCopies(12, new BundleFolder()));
+
+        setupBundleForLineCounting("Desc", Collections.emptyList());
+        TableOfContents toc = new TableOfContents(document, BundleLayout.of(mockBundle));
+
+        assertEquals(1, toc.getNumberPages());
     }
 
     @Test
     void getNumberPagesWhenHasFolderCoversheetsIsFalse() throws IOException {
         when(mockBundle.hasFolderCoversheets()).thenReturn(false);
+        when(mockBundle.getFolders()).thenReturn(Collections.nCopies(12, folderWithDocument()));
 
-        setupBundleForLineCounting("Desc", Collections.emptyList(), Collections.emptyList());
+        setupBundleForLineCounting("Desc", Collections.emptyList());
 
-        TableOfContents toc = new TableOfContents(document, mockBundle, documentsMap);
+        TableOfContents toc = new TableOfContents(document, BundleLayout.of(mockBundle));
 
-        verify(mockBundle, never()).getNestedFolders();
         assertEquals(1, toc.getNumberPages());
     }
 
@@ -494,12 +453,12 @@ class TableOfContentsTest {
             BundleDocument doc = mock(BundleDocument.class);
             String title = "Doc " + i;
             when(doc.getDocTitle()).thenReturn(title);
-            mockSpecificSplitString(title, TableOfContents.SPACE_PER_TITLE_LINE, 12f, new String[]{title});
             docs.add(doc);
         }
-        setupBundleForLineCounting("L1\nL2\nL3\nL4\nL5", docs, Collections.emptyList());
+        // Each word is wider than a line of the description, so it takes five lines.
+        setupBundleForLineCounting(String.join(" ", Collections.nCopies(5, "W".repeat(50))), docs);
 
-        TableOfContents toc = new TableOfContents(document, mockBundle, documentsMap);
+        TableOfContents toc = new TableOfContents(document, BundleLayout.of(mockBundle));
         assertEquals(3, document.getNumberOfPages(), "PDDocument should have 3 pages for TOC.");
 
         final PDPage firstTocPage = document.getPage(0);
@@ -527,24 +486,23 @@ class TableOfContentsTest {
 
     @Test
     void addDocumentWithOutlineWhenEndOfFolder() throws IOException {
-        setupBundleForLineCounting("Desc", Collections.emptyList(), Collections.emptyList());
-        TableOfContents toc = new TableOfContents(document, mockBundle, documentsMap);
+        setupBundleForLineCounting("Desc", Collections.emptyList());
+        TableOfContents toc = new TableOfContents(document, BundleLayout.of(mockBundle));
 
         toc.setEndOfFolder(true);
 
         toc.addDocumentWithOutline("Doc After Folder", 5, null);
 
-        mockedPdfUtility.verify(() -> PDFUtility.addText(
-            eq(document), eq(toc.getPage()), argThat(isEndOfFolderSpaceLine())), times(1));
-
         String docAfterReset = "DocAfterReset";
-        mockSpecificSplitString(docAfterReset, TableOfContents.SPACE_PER_TITLE_LINE, 12f,
-            new String[]{docAfterReset});
         int nextPage = 6;
         while (document.getNumberOfPages() <= nextPage) {
             document.addPage(new PDPage());
         }
         toc.addDocument(docAfterReset, nextPage, 1);
+        toc.draw();
+
+        mockedPdfUtility.verify(() -> PDFUtility.addText(
+            eq(document), eq(toc.getPage()), argThat(isEndOfFolderSpaceLine())), times(1));
 
         mockedPdfUtility.verify(() -> PDFUtility.addText(any(PDDocument.class), any(PDPage.class),
             argThat(isEndOfFolderSpaceLine())), times(1));
@@ -552,8 +510,8 @@ class TableOfContentsTest {
 
     @Test
     void testProcessOutlineNodeDepthLimit() throws IOException {
-        setupBundleForLineCounting("Desc", Collections.emptyList(), Collections.emptyList());
-        final TableOfContents toc = new TableOfContents(document, mockBundle, documentsMap);
+        setupBundleForLineCounting("Desc", Collections.emptyList());
+        final TableOfContents toc = new TableOfContents(document, BundleLayout.of(mockBundle));
 
         PDOutlineItem level0 = mock(PDOutlineItem.class);
         lenient().when(level0.getTitle()).thenReturn("Level 0");
@@ -571,6 +529,7 @@ class TableOfContentsTest {
         }
 
         toc.addDocumentWithOutline("Main Doc", 1, level0);
+        toc.draw();
 
         mockedPdfUtility.verify(() -> PDFUtility.addSubtitleLink(
             any(), any(), any(), any(), anyFloat(), any(), anyInt()), times(12));
@@ -578,8 +537,8 @@ class TableOfContentsTest {
 
     @Test
     void testProcessOutlineNodeCircularReference() throws IOException {
-        setupBundleForLineCounting("Desc", Collections.emptyList(), Collections.emptyList());
-        final TableOfContents toc = new TableOfContents(document, mockBundle, documentsMap);
+        setupBundleForLineCounting("Desc", Collections.emptyList());
+        final TableOfContents toc = new TableOfContents(document, BundleLayout.of(mockBundle));
 
         PDOutlineItem root = mock(PDOutlineItem.class);
         when(root.getTitle()).thenReturn("Root");
@@ -595,6 +554,7 @@ class TableOfContentsTest {
         when(item2.getNextSibling()).thenReturn(item1);
 
         toc.addDocumentWithOutline("Main Doc", 1, root);
+        toc.draw();
 
         mockedPdfUtility.verify(() -> PDFUtility.addSubtitleLink(
             any(), any(), any(), any(), anyFloat(), any(), anyInt()), times(3));
@@ -602,8 +562,8 @@ class TableOfContentsTest {
 
     @Test
     void testProcessOutlineNodeNullTitle() throws IOException {
-        setupBundleForLineCounting("Desc", Collections.emptyList(), Collections.emptyList());
-        final TableOfContents toc = new TableOfContents(document, mockBundle, documentsMap);
+        setupBundleForLineCounting("Desc", Collections.emptyList());
+        final TableOfContents toc = new TableOfContents(document, BundleLayout.of(mockBundle));
 
         PDOutlineItem root = mock(PDOutlineItem.class);
         when(root.getTitle()).thenReturn("Root");
@@ -621,24 +581,25 @@ class TableOfContentsTest {
         when(item3.getTitle()).thenReturn("Valid Title 2");
 
         toc.addDocumentWithOutline("Main Doc", 1, root);
+        toc.draw();
 
         mockedPdfUtility.verify(() -> PDFUtility.addSubtitleLink(
             any(), any(), any(), any(), anyFloat(), any(), anyInt()), times(3));
-
-        mockedPdfUtility.verify(() -> PDFUtility.splitString(
-            eq(null), anyInt(), any(), anyFloat()), never());
+        mockedPdfUtility.verify(() -> PDFUtility.addSubtitleLink(
+            any(), any(), any(), eq(null), anyFloat(), any(), anyInt()), never());
     }
 
     @Test
     void addDocumentWithOutlineWhenSubtitlesDisabled() throws IOException {
-        setupBundleForLineCounting("Desc", Collections.emptyList(), Collections.emptyList());
+        setupBundleForLineCounting("Desc", Collections.emptyList());
         when(mockBundle.getHasDocumentSubtitles()).thenReturn(false);
 
-        final TableOfContents toc = new TableOfContents(document, mockBundle, documentsMap);
+        final TableOfContents toc = new TableOfContents(document, BundleLayout.of(mockBundle));
 
         PDOutlineItem mockOutlineItem = mock(PDOutlineItem.class);
 
         toc.addDocumentWithOutline("Main Doc", 1, mockOutlineItem);
+        toc.draw();
 
         verify(mockOutlineItem, never()).getTitle();
         mockedPdfUtility.verify(() -> PDFUtility.addSubtitleLink(
@@ -646,14 +607,69 @@ class TableOfContentsTest {
     }
 
     @Test
-    void getNumberPagesWhenSubtitlesDisabledReturnsZeroSubtitleLines() throws IOException {
-        setupBundleForLineCounting("Desc", Collections.emptyList(), Collections.emptyList());
-        when(mockBundle.getHasDocumentSubtitles()).thenReturn(false);
+    void getNumberPagesReservesPagesWithoutReadingSubtitles() throws IOException {
+        setupBundleForLineCounting("Desc", Collections.emptyList());
 
-        TableOfContents toc = new TableOfContents(document, mockBundle, documentsMap);
+        TableOfContents toc = new TableOfContents(document, BundleLayout.of(mockBundle));
 
         assertEquals(1, toc.getNumberPages());
-        mockedPdfOutlineUtils.verify(() -> PdfOutlineUtils.getSubtitles(any(), any()), never());
+        verify(mockBundle, never()).getHasDocumentSubtitles();
+    }
+
+    @Test
+    void drawInsertsPagesNeededBySubtitlesAfterReservedPages() throws IOException {
+        setupBundleForLineCounting("Desc", Collections.emptyList());
+        final TableOfContents toc = new TableOfContents(document, BundleLayout.of(mockBundle));
+        final PDPage reservedPage = document.getPage(0);
+
+        PDPage documentPage = new PDPage();
+        document.addPage(documentPage);
+
+        PDOutlineItem firstItem = mock(PDOutlineItem.class);
+        PDOutlineItem current = firstItem;
+        for (int i = 0; i < NUM_LINES_PER_PAGE_CONST; i++) {
+            when(current.getTitle()).thenReturn("Subtitle " + i);
+            if (i < NUM_LINES_PER_PAGE_CONST - 1) {
+                PDOutlineItem next = mock(PDOutlineItem.class);
+                when(current.getNextSibling()).thenReturn(next);
+                current = next;
+            }
+        }
+
+        toc.addDocument("Doc", 1, 1);
+        toc.addDocumentWithOutline("Doc", 1, firstItem);
+        final PDPage lastTocPage = toc.getPage();
+
+        assertEquals(2, document.getNumberOfPages());
+        assertEquals(1, toc.draw());
+
+        assertEquals(3, document.getNumberOfPages());
+        assertEquals(reservedPage, document.getPage(0));
+        assertEquals(lastTocPage, document.getPage(1));
+        assertEquals(documentPage, document.getPage(2));
+        assertEquals(2, toc.getNumberPages());
+        mockedPdfUtility.verify(() -> PDFUtility.addLink(eq(document), eq(reservedPage),
+            argThat(link -> documentPage.equals(link.getDestination())), eq(1)));
+        mockedPdfUtility.verify(() -> PDFUtility.addText(eq(document), eq(reservedPage),
+            argThat(pdfText -> "3 - 3".equals(pdfText.getText()))));
+        mockedPdfUtility.verify(() -> PDFUtility.addSubtitleLink(
+            eq(document), eq(lastTocPage), any(), eq("Subtitle 37"), anyFloat(), any(), eq(0)));
+    }
+
+    @Test
+    void existingPagesAreNotExtended() throws IOException {
+        PDPage existingPage = new PDPage();
+        document.addPage(existingPage);
+        final TableOfContents toc = new TableOfContents(document, BundleLayout.of(mockBundle), List.of(existingPage));
+
+        for (int i = 0; i < NUM_LINES_PER_PAGE_CONST; i++) {
+            toc.addDocument("Doc " + i, 0, 1);
+        }
+
+        assertEquals(existingPage, toc.getPage());
+        assertTrue(toc.overflowsExistingPages());
+        assertEquals(0, toc.draw());
+        assertEquals(1, document.getNumberOfPages());
     }
 
     private ArgumentMatcher<PDFText> isEndOfFolderSpaceLine() {
@@ -8,6 +8,14 @@ import org.mockito.MockitoAnnotations;
 import uk.gov.hmcts.reform.idam.client.IdamClient;
 import uk.gov.hmcts.reform.idam.client.models.UserInfo;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
 import static java.util.Arrays.asList;
 import static org.apache.commons.lang3.RandomStringUtils.secure;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -24,13 +32,15 @@ class IdamRepositoryTest {
 
     private IdamRepository idamRepository;
 
+    private final MutableClock clock = new MutableClock();
+
     private static final  String FORE_NAME = "ABC";
     private static final  String SURNAME = "XYZ";
 
     @BeforeEach
     void setup() {
         MockitoAnnotations.openMocks(this);
-        idamRepository = new IdamRepository(idamClient);
+        idamRepository = new IdamRepository(idamClient, 100, Duration.ofMinutes(5), clock);
     }
 
     @Test
@@ -71,6 +81,90 @@ class IdamRepositoryTest {
         verify(idamClient).getUserInfo(eq(bearerToken));
     }
 
+    @Test
+    void getUserInfoIsCachedUntilTheTokenExpires() {
+        String token = jwt(clock.instant().plusSeconds(60));
+        Mockito.when(idamClient.getUserInfo("Bearer " + token)).thenReturn(UserInfo.builder().uid("1").build());
+
+        assertEquals("1", idamRepository.getUserInfo(token).getUid());
+        assertEquals("1", idamRepository.getUserInfo("Bearer " + token).getUid());
+        verify(idamClient, times(1)).getUserInfo(anyString());
+
+        clock.advance(Duration.ofSeconds(61));
+        idamRepository.getUserInfo(token);
+        verify(idamClient, times(2)).getUserInfo(anyString());
+    }
+
+    @Test
+    void getUserInfoIsCachedForAtMostTheMaxTimeToLive() {
+        String token = jwt(clock.instant().plus(Duration.ofHours(8)));
+        Mockito.when(idamClient.getUserInfo("Bearer " + token)).thenReturn(UserInfo.builder().uid("1").build());
+
+        idamRepository.getUserInfo(token);
+        clock.advance(Duration.ofMinutes(4));
+        idamRepository.getUserInfo(token);
+        verify(idamClient, times(1)).getUserInfo(anyString());
+
+        clock.advance(Duration.ofMinutes(2));
+        idamRepository.getUserInfo(token);
+        verify(idamClient, times(2)).getUserInfo(anyString());
+    }
+
+    @Test
+    void getUserInfoIsNotCachedWhenDisabled() {
+        idamRepository = new IdamRepository(idamClient, 0, Duration.ofMinutes(5), clock);
+        String token = jwt(clock.instant().plusSeconds(60));
+        Mockito.when(idamClient.getUserInfo("Bearer " + token)).thenReturn(UserInfo.builder().uid("1").build());
+
+        idamRepository.getUserInfo(token);
+        idamRepository.getUserInfo(token);
+
+        verify(idamClient, times(2)).getUserInfo(anyString());
+    }
+
+    @Test
+    void getUserInfoDoesNotCacheFailedLookups() {
+        String token = jwt(clock.instant().plusSeconds(60));
+        Mockito.when(idamClient.getUserInfo("Bearer " + token))
+            .thenReturn(null, UserInfo.builder().uid("1").build());
+
+        assertNull(FORE_NAME, idamRepository.getUserInfo(token));
+        assertEquals("1", idamRepository.getUserInfo(token).getUid());
+        verify(idamClient, times(2)).getUserInfo(anyString());
+    }
+
+    private static String jwt(Instant expiry) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString("{\"alg\":\"RS256\"}".getBytes(StandardCharsets.UTF_8))
+            + "." + encoder.encodeToString(("{\"sub\":\"user\",\"exp\":" + expiry.getEpochSecond() + "}")
+                .getBytes(StandardCharsets.UTF_8))
+            + ".signature";
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant instant = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+
     @Test
     void getUserDetailsTestFailure() {
 
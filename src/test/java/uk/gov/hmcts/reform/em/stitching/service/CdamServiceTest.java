@@ -1,12 +1,25 @@
 package uk.gov.hmcts.reform.em.stitching.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.Okio;
+import okio.Sink;
+import okio.Timeout;
 import org.apache.commons.io.FileUtils;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
-import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.Resource;
@@ -16,11 +29,10 @@ import org.springframework.http.ResponseEntity;
 import uk.gov.hmcts.reform.authorisation.generators.AuthTokenGenerator;
 import uk.gov.hmcts.reform.ccd.document.am.feign.CaseDocumentClientApi;
 import uk.gov.hmcts.reform.ccd.document.am.model.Document;
-import uk.gov.hmcts.reform.ccd.document.am.model.DocumentUploadRequest;
-import uk.gov.hmcts.reform.ccd.document.am.model.UploadResponse;
 import uk.gov.hmcts.reform.em.stitching.domain.Bundle;
 import uk.gov.hmcts.reform.em.stitching.domain.BundleDocument;
 import uk.gov.hmcts.reform.em.stitching.domain.DocumentTask;
+import uk.gov.hmcts.reform.em.stitching.metrics.StitchingMetrics;
 import uk.gov.hmcts.reform.em.stitching.service.impl.DocumentTaskProcessingException;
 import uk.gov.hmcts.reform.em.stitching.service.impl.FileAndMediaType;
 
@@ -28,8 +40,11 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.RandomAccessFile;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Stream;
@@ -37,6 +52,7 @@ import java.util.stream.Stream;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
@@ -57,14 +73,18 @@ class CdamServiceTest {
     @Mock
     private ByteArrayResource byteArrayResource;
 
-    @Mock
-    private UploadResponse uploadResponse;
-
     @Mock
     private AuthTokenGenerator authTokenGenerator;
 
     private Document document;
     private File mockFile;
+    private OkHttpClient okHttpClient;
+    private Request uploadRequest;
+    private String uploadBody;
+    private long uploadedBytes;
+    private boolean countUploadOnly;
+    private int uploadResponseCode;
+    private String uploadResponseBody;
 
     private static final UUID DOC_STORE_UUID = UUID.randomUUID();
     private static final String AUTH_TOKEN = "xxx";
@@ -73,10 +93,18 @@ class CdamServiceTest {
     private static final String VALID_DOC_URI = DOC_URI_PREFIX + DOC_STORE_UUID;
     private static final String MOCK_FILE_NAME = "one-page.pdf";
     private static final String MOCK_FILE_MIME_TYPE = "application/pdf";
+    private static final String SELF_LINK = DOC_URI_PREFIX + DOC_STORE_UUID;
+    private static final long LARGE_FILE_SIZE = 1024L * 1024 * 1024;
 
     @BeforeEach
     void setup() throws IOException {
-        cdamService = new CdamService(caseDocumentClientApi, authTokenGenerator);
+        uploadResponseCode = 200;
+        uploadResponseBody =
+            "{ documents: [ { hashToken: 'token', _links: { self: { href: '" + SELF_LINK + "' } } } ] }";
+        okHttpClient = new OkHttpClient.Builder().addInterceptor(this::interceptUpload).build();
+        cdamService = new CdamService(caseDocumentClientApi, authTokenGenerator,
+            new DocumentDownloadExecutor(true, 10, 5), DocumentCache.disabled(),
+            new StitchingMetrics(new SimpleMeterRegistry()), okHttpClient, "http://localhost:4455");
         document = Document.builder()
             .originalDocumentName(MOCK_FILE_NAME)
             .mimeType(MOCK_FILE_MIME_TYPE)
@@ -149,6 +177,7 @@ class CdamServiceTest {
             assertNotNull(pair.getSecond().getFile());
             assertTrue(pair.getSecond().getFile().exists());
             assertTrue(pair.getSecond().getFile().length() > 0);
+            assertTrue(pair.getSecond().getDownloadNanos() > 0);
             pair.getSecond().getFile().delete();
         });
 
@@ -200,6 +229,37 @@ class CdamServiceTest {
         inputStream.close();
     }
 
+    @Test
+    void downloadFileReusesCachedBinaryForUnmodifiedDocument(@TempDir Path cacheDir) throws Exception {
+        cdamService = new CdamService(caseDocumentClientApi, authTokenGenerator,
+            new DocumentDownloadExecutor(true, 10, 5), new DocumentCache(cacheDir, 10 * 1024 * 1024),
+            new StitchingMetrics(new SimpleMeterRegistry()), okHttpClient, "http://localhost:4455");
+        BundleDocument bundleDocument = createBundleDocument(VALID_DOC_URI);
+        Document modifiedDocument = Document.builder()
+            .originalDocumentName(MOCK_FILE_NAME)
+            .mimeType(MOCK_FILE_MIME_TYPE)
+            .modifiedOn(new Date(0))
+            .build();
+        when(caseDocumentClientApi.getMetadataForDocument(AUTH_TOKEN, SERVICE_AUTH_TOKEN, DOC_STORE_UUID))
+            .thenReturn(modifiedDocument);
+        when(caseDocumentClientApi.getDocumentBinary(AUTH_TOKEN, SERVICE_AUTH_TOKEN, DOC_STORE_UUID))
+            .thenReturn(ResponseEntity.ok(byteArrayResource));
+        when(byteArrayResource.getInputStream()).thenReturn(new FileInputStream("src/test/resources/one-page.pdf"));
+
+        File downloaded = cdamService.downloadFile(AUTH_TOKEN, SERVICE_AUTH_TOKEN, bundleDocument)
+            .getSecond().getFile();
+        File cached = cdamService.downloadFile(AUTH_TOKEN, SERVICE_AUTH_TOKEN, bundleDocument)
+            .getSecond().getFile();
+
+        verify(caseDocumentClientApi, times(1)).getDocumentBinary(AUTH_TOKEN, SERVICE_AUTH_TOKEN, DOC_STORE_UUID);
+        // One metadata request for each download, the miss reusing it for the file name and type.
+        verify(caseDocumentClientApi, times(2)).getMetadataForDocument(AUTH_TOKEN, SERVICE_AUTH_TOKEN, DOC_STORE_UUID);
+        assertEquals(MOCK_FILE_NAME, cached.getName());
+        assertEquals(FileUtils.checksumCRC32(downloaded), FileUtils.checksumCRC32(cached));
+        FileUtils.deleteQuietly(downloaded.getParentFile());
+        FileUtils.deleteQuietly(cached.getParentFile());
+    }
+
     @Test
     void downloadFileWhenCdamReturnsNullResponseEntityThrowsException() {
         BundleDocument bundleDocument = createBundleDocument(VALID_DOC_URI);
@@ -271,36 +331,46 @@ class CdamServiceTest {
     @Test
     void uploadDocumentsSuccessful() throws DocumentTaskProcessingException {
         final DocumentTask documentTask = populateDocumentTask();
-        Document testDoc = Document.builder().originalDocumentName("template1.docx")
-            .hashToken("token")
-            .links(getLinks())
-            .build();
-
         when(authTokenGenerator.generate()).thenReturn("s2s-token");
-        when(caseDocumentClientApi.uploadDocuments(
-            anyString(),
-            anyString(),
-            any(DocumentUploadRequest.class)))
-            .thenReturn(uploadResponse);
-        when(uploadResponse.getDocuments()).thenReturn(List.of(testDoc));
 
         cdamService.uploadDocuments(mockFile, documentTask);
 
-        verify(authTokenGenerator).generate();
-        verify(caseDocumentClientApi).uploadDocuments(
-            Mockito.eq(documentTask.getJwt()),
-            Mockito.eq("s2s-token"),
-            any(DocumentUploadRequest.class));
+        assertEquals("http://localhost:4455/cases/documents", uploadRequest.url().toString());
+        assertEquals(AUTH_TOKEN, uploadRequest.header("Authorization"));
+        assertEquals("s2s-token", uploadRequest.header("ServiceAuthorization"));
+        assertTrue(uploadBody.contains("mock content"));
+        assertTrue(uploadBody.contains("PUBLICLAW"));
+        assertTrue(uploadBody.contains("XYZ"));
+        assertTrue(uploadBody.contains("PUBLIC"));
 
-        assertNotNull(documentTask.getBundle().getHashToken());
         assertEquals("token", documentTask.getBundle().getHashToken());
-        assertNotNull(documentTask.getBundle().getStitchedDocumentURI());
-        assertEquals(getLinks().self.href, documentTask.getBundle().getStitchedDocumentURI());
+        assertEquals(SELF_LINK, documentTask.getBundle().getStitchedDocumentURI());
+    }
+
+    @Test
+    @Tag("bounded-heap")
+    void uploadDocumentsStreamsTheFileFromDisk(@TempDir Path uploadDir) throws Exception {
+        // Run by boundedHeapTest, so an upload that buffered the file would run out of memory.
+        assertTrue(Runtime.getRuntime().maxMemory() < LARGE_FILE_SIZE / 2,
+            "The heap must be much smaller than the uploaded file");
+        final DocumentTask documentTask = populateDocumentTask();
+        when(authTokenGenerator.generate()).thenReturn("s2s-token");
+        File largeFile = uploadDir.resolve("large.pdf").toFile();
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(largeFile, "rw")) {
+            randomAccessFile.setLength(LARGE_FILE_SIZE);
+        }
+        countUploadOnly = true;
+
+        cdamService.uploadDocuments(largeFile, documentTask);
+
+        assertTrue(uploadedBytes > LARGE_FILE_SIZE);
+        assertEquals(SELF_LINK, documentTask.getBundle().getStitchedDocumentURI());
     }
 
     @Test
-    void uploadDocumentsWhenReadFileToByteArrayThrowsIoExceptionThrowsException() throws IOException {
+    void uploadDocumentsWhenFileCannotBeReadThrowsException() throws IOException {
         DocumentTask documentTask = populateDocumentTask();
+        when(authTokenGenerator.generate()).thenReturn("s2s-token");
         File tempDirForTest = Files.createTempDirectory("testDirForUploadFail").toFile();
         tempDirForTest.deleteOnExit();
 
@@ -321,38 +391,81 @@ class CdamServiceTest {
 
         assertEquals("s2s generation error", exception.getMessage());
         assertInstanceOf(RuntimeException.class, exception.getCause());
-        verify(caseDocumentClientApi, never()).uploadDocuments(any(), any(), any());
+        assertNull(uploadRequest);
     }
 
     @Test
-    void uploadDocumentsWhenCdamUploadThrowsExceptionThrowsException() {
+    void uploadDocumentsWhenCdamRejectsUploadThrowsException() {
         DocumentTask documentTask = populateDocumentTask();
         when(authTokenGenerator.generate()).thenReturn("s2s-token");
-        when(caseDocumentClientApi.uploadDocuments(anyString(), anyString(), any(DocumentUploadRequest.class)))
-            .thenThrow(new RuntimeException("cdam upload feign error"));
+        uploadResponseCode = 500;
 
         DocumentTaskProcessingException exception = assertThrows(DocumentTaskProcessingException.class,
             () -> cdamService.uploadDocuments(mockFile, documentTask));
 
-        assertEquals("cdam upload feign error", exception.getMessage());
-        assertInstanceOf(RuntimeException.class, exception.getCause());
+        assertEquals("Could not upload the file to CDAM. Response code: 500", exception.getMessage());
+        assertNull(documentTask.getBundle().getStitchedDocumentURI());
     }
 
-    static Document.Links getLinks() {
-        Document.Links links = new Document.Links();
-        Document.Link self = new Document.Link();
-        Document.Link binary = new Document.Link();
+    @Test
+    void uploadDocumentsWhenCdamResponseIsInvalidThrowsException() {
+        DocumentTask documentTask = populateDocumentTask();
+        when(authTokenGenerator.generate()).thenReturn("s2s-token");
+        uploadResponseBody = "{}";
 
-        var selfLink = "http://localhost:samplefile/" + DOC_STORE_UUID;
-        var binaryLink = "http://localhost:samplefile/" + DOC_STORE_UUID + "/binary";
+        DocumentTaskProcessingException exception = assertThrows(DocumentTaskProcessingException.class,
+            () -> cdamService.uploadDocuments(mockFile, documentTask));
 
-        self.href = selfLink;
-        binary.href = binaryLink;
+        assertInstanceOf(RuntimeException.class, exception.getCause());
+    }
 
-        links.self = self;
-        links.binary = binary;
+    private Response interceptUpload(Interceptor.Chain chain) throws IOException {
+        uploadRequest = chain.request();
+        if (countUploadOnly) {
+            CountingSink countingSink = new CountingSink();
+            try (BufferedSink sink = Okio.buffer(countingSink)) {
+                uploadRequest.body().writeTo(sink);
+            }
+            uploadedBytes = countingSink.count;
+        } else {
+            Buffer buffer = new Buffer();
+            uploadRequest.body().writeTo(buffer);
+            uploadBody = buffer.readUtf8();
+        }
+        return new Response.Builder()
+            .body(ResponseBody.create(uploadResponseBody, okhttp3.MediaType.get("application/json")))
+            .request(uploadRequest)
+            .message(uploadResponseCode == 200 ? "OK" : "Error")
+            .code(uploadResponseCode)
+            .protocol(Protocol.HTTP_1_1)
+            .build();
+    }
 
-        return links;
+    /**
+     * Counts the bytes written without keeping them, so a large upload never has to fit on the heap.
+     */
+    private static final class CountingSink implements Sink {
+        private long count;
+
+        @Override
+        public void write(Buffer source, long byteCount) throws IOException {
+            count += byteCount;
+            source.skip(byteCount);
+        }
+
+        @Override
+        public void flush() {
+            // Nothing is kept.
+        }
+
+        @Override
+        public Timeout timeout() {
+            return Timeout.NONE;
+        }
+
+        @Override
+        public void close() {
+            // Nothing is kept.
+        }
     }
 }
-
@@ -0,0 +1,80 @@
+package uk.gov.hmcts.reform.em.stitching.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DocumentCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void copyToReturnsCopyOfStoredFile() throws IOException {
+        DocumentCache documentCache = new DocumentCache(tempDir.resolve("cache"), 1024);
+        File source = file("source", "content");
+        documentCache.put("doc-1", source);
+        Files.delete(source.toPath());
+
+        File target = tempDir.resolve("target").toFile();
+
+        assertTrue(documentCache.copyTo("doc-1", target));
+        assertEquals("content", Files.readString(target.toPath()));
+    }
+
+    @Test
+    void copyToMissesUnknownKey() {
+        DocumentCache documentCache = new DocumentCache(tempDir.resolve("cache"), 1024);
+
+        assertFalse(documentCache.copyTo("doc-1", tempDir.resolve("target").toFile()));
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvicted() throws IOException {
+        DocumentCache documentCache = new DocumentCache(tempDir.resolve("cache"), 20);
+        documentCache.put("doc-1", file("one", "0123456789"));
+        documentCache.put("doc-2", file("two", "0123456789"));
+        assertTrue(documentCache.copyTo("doc-1", tempDir.resolve("target-1").toFile()));
+
+        documentCache.put("doc-3", file("three", "0123456789"));
+
+        assertTrue(documentCache.copyTo("doc-1", tempDir.resolve("target-2").toFile()));
+        assertFalse(documentCache.copyTo("doc-2", tempDir.resolve("target-3").toFile()));
+        assertTrue(documentCache.copyTo("doc-3", tempDir.resolve("target-4").toFile()));
+        assertEquals(20, documentCache.size());
+    }
+
+    @Test
+    void corruptedEntryIsDiscarded() throws IOException {
+        Path directory = tempDir.resolve("cache");
+        DocumentCache documentCache = new DocumentCache(directory, 1024);
+        documentCache.put("doc-1", file("source", "content"));
+        try (var entries = Files.list(directory)) {
+            Files.writeString(entries.findFirst().orElseThrow(), "tampered");
+        }
+
+        assertFalse(documentCache.copyTo("doc-1", tempDir.resolve("target").toFile()));
+        assertEquals(0, documentCache.size());
+    }
+
+    @Test
+    void disabledCacheStoresNothing() throws IOException {
+        DocumentCache documentCache = DocumentCache.disabled();
+        documentCache.put("doc-1", file("source", "content"));
+
+        assertFalse(documentCache.isEnabled());
+        assertFalse(documentCache.copyTo("doc-1", tempDir.resolve("target").toFile()));
+    }
+
+    private File file(String name, String content) throws IOException {
+        return Files.writeString(tempDir.resolve(name), content).toFile();
+    }
+}
@@ -0,0 +1,128 @@
+package uk.gov.hmcts.reform.em.stitching.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import pl.touk.throwing.exception.WrappedException;
+import uk.gov.hmcts.reform.em.stitching.service.impl.DocumentTaskProcessingException;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static pl.touk.throwing.ThrowingFunction.unchecked;
+
+class DocumentDownloadExecutorTest {
+
+    private DocumentDownloadExecutor documentDownloadExecutor;
+
+    @AfterEach
+    void tearDown() {
+        documentDownloadExecutor.shutdown();
+    }
+
+    @Test
+    void downloadAllReturnsEveryResult() {
+        documentDownloadExecutor = new DocumentDownloadExecutor(true, 10, 5);
+
+        List<Integer> results = documentDownloadExecutor.downloadAll(
+            IntStream.range(0, 20).boxed(), item -> item * 2).toList();
+
+        assertEquals(20, results.size());
+        assertTrue(results.containsAll(IntStream.range(0, 20).map(item -> item * 2).boxed().toList()));
+    }
+
+    @Test
+    void downloadAllRespectsPerTaskLimit() {
+        documentDownloadExecutor = new DocumentDownloadExecutor(true, 50, 4);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+
+        documentDownloadExecutor.downloadAll(IntStream.range(0, 40).boxed(), item -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            sleep(20);
+            inFlight.decrementAndGet();
+            return item;
+        }).toList();
+
+        assertTrue(maxInFlight.get() <= 4, "More than 4 downloads ran at once: " + maxInFlight.get());
+        assertTrue(maxInFlight.get() > 1, "Downloads did not run concurrently");
+    }
+
+    @Test
+    void downloadAllRespectsGlobalLimitAcrossTasks() throws InterruptedException {
+        documentDownloadExecutor = new DocumentDownloadExecutor(true, 3, 3);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        CountDownLatch tasksFinished = new CountDownLatch(2);
+
+        Runnable task = () -> {
+            documentDownloadExecutor.downloadAll(IntStream.range(0, 15).boxed(), item -> {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                sleep(20);
+                inFlight.decrementAndGet();
+                return item;
+            }).toList();
+            tasksFinished.countDown();
+        };
+        Thread.ofVirtual().start(task);
+        Thread.ofVirtual().start(task);
+
+        assertTrue(tasksFinished.await(30, TimeUnit.SECONDS));
+        assertTrue(maxInFlight.get() <= 3, "More than 3 downloads ran at once: " + maxInFlight.get());
+    }
+
+    @Test
+    void downloadAllOnPlatformThreadsDoesNotHoldThreadsForWaitingItems() throws InterruptedException {
+        documentDownloadExecutor = new DocumentDownloadExecutor(false, 2, 1);
+        CountDownLatch firstTaskStarted = new CountDownLatch(1);
+        CountDownLatch secondTaskFinished = new CountDownLatch(1);
+
+        Thread.ofVirtual().start(() -> documentDownloadExecutor.downloadAll(IntStream.range(0, 5).boxed(), item -> {
+            firstTaskStarted.countDown();
+            await(secondTaskFinished);
+            return item;
+        }).toList());
+        assertTrue(firstTaskStarted.await(5, TimeUnit.SECONDS));
+
+        Thread.ofVirtual().start(() -> {
+            documentDownloadExecutor.downloadAll(Stream.of(1), item -> item).toList();
+            secondTaskFinished.countDown();
+        });
+
+        assertTrue(secondTaskFinished.await(5, TimeUnit.SECONDS),
+            "The second task waited behind items of the first task holding the pool's threads");
+    }
+
+    @Test
+    void downloadAllRethrowsFailureUnchanged() {
+        documentDownloadExecutor = new DocumentDownloadExecutor(false, 2, 2);
+        Stream<String> results = documentDownloadExecutor.downloadAll(Stream.of("a"), unchecked(item -> {
+            throw new DocumentTaskProcessingException("download failed");
+        }));
+
+        WrappedException exception = assertThrows(WrappedException.class, results::toList);
+        assertEquals("download failed", exception.getCause().getMessage());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package uk.gov.hmcts.reform.em.stitching.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.hmcts.reform.em.stitching.domain.Bundle;
+import uk.gov.hmcts.reform.em.stitching.domain.BundleDocument;
+import uk.gov.hmcts.reform.em.stitching.domain.BundleItemType;
+import uk.gov.hmcts.reform.em.stitching.domain.StitchManifest;
+import uk.gov.hmcts.reform.em.stitching.repository.BundleRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DocumentTaskSizeEstimatorTest {
+
+    @Mock
+    private BundleRepository bundleRepository;
+
+    @Test
+    void countsPagesPerDocumentWithoutAPreviousStitch() {
+        DocumentTaskSizeEstimator estimator = new DocumentTaskSizeEstimator(bundleRepository, 10);
+
+        assertEquals(30, estimator.estimatePages(bundle(null, "doc-1", "doc-2", "doc-3")));
+        verifyNoInteractions(bundleRepository);
+    }
+
+    @Test
+    void usesThePageCountsOfThePreviousStitch() {
+        DocumentTaskSizeEstimator estimator = new DocumentTaskSizeEstimator(bundleRepository, 10);
+        StitchManifest manifest = new StitchManifest();
+        manifest.setSegments(List.of(
+            new StitchManifest.Segment(BundleItemType.FOLDER, "Folder", null, null, 1, 1),
+            new StitchManifest.Segment(BundleItemType.DOCUMENT, "Doc 1", "doc-1", "sha", 2, 250)));
+        Bundle previous = new Bundle();
+        previous.setStitchManifest(manifest);
+        when(bundleRepository.findFirstByStitchedDocumentURIAndStitchManifestIsNotNullOrderByIdDesc("stitched"))
+            .thenReturn(Optional.of(previous));
+
+        assertEquals(260, estimator.estimatePages(bundle("stitched", "doc-1", "doc-2")));
+    }
+
+    @Test
+    void estimatesNothingWithoutABundle() {
+        assertEquals(0, new DocumentTaskSizeEstimator(bundleRepository, 10).estimatePages(null));
+    }
+
+    private Bundle bundle(String stitchedDocumentURI, String... documentURIs) {
+        Bundle bundle = new Bundle();
+        bundle.setStitchedDocumentURI(stitchedDocumentURI);
+        for (int i = 0; i < documentURIs.length; i++) {
+            BundleDocument document = new BundleDocument();
+            document.setDocumentURI(documentURIs[i]);
+            document.setSortIndex(i);
+            bundle.getDocuments().add(document);
+        }
+        return bundle;
+    }
+}
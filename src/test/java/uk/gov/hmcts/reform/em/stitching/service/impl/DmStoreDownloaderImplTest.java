@@ -1,35 +1,46 @@
 package uk.gov.hmcts.reform.em.stitching.service.impl;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import okhttp3.Interceptor;
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
 import okhttp3.Protocol;
+import okhttp3.Request;
 import okhttp3.Response;
 import okhttp3.ResponseBody;
 import org.apache.pdfbox.io.IOUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.util.Pair;
 import pl.touk.throwing.exception.WrappedException;
 import uk.gov.hmcts.reform.em.stitching.domain.BundleDocument;
+import uk.gov.hmcts.reform.em.stitching.metrics.StitchingMetrics;
 import uk.gov.hmcts.reform.em.stitching.repository.IdamRepository;
 import uk.gov.hmcts.reform.em.stitching.service.DmStoreDownloader;
+import uk.gov.hmcts.reform.em.stitching.service.DocumentCache;
+import uk.gov.hmcts.reform.em.stitching.service.DocumentDownloadExecutor;
 import uk.gov.hmcts.reform.idam.client.models.UserInfo;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.stream.Stream;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -67,6 +78,9 @@ class DmStoreDownloaderImplTest {
     private boolean throwIOExceptionForMetadata;
     private boolean throwIOExceptionForBinary;
     private boolean useEmptyBinaryResponseBody;
+    private String binaryEtag;
+    private String unavailableBinaryUrl;
+    private final List<Request> requests = Collections.synchronizedList(new ArrayList<>());
 
     @BeforeEach
     void setup() {
@@ -100,17 +114,29 @@ class DmStoreDownloaderImplTest {
                 .addInterceptor(this::intercept)
                 .build();
         dmStoreDownloader = new DmStoreDownloaderImpl(
-            http, () -> "auth", dmStoreUriFormatter, new ObjectMapper(), idamRepository);
+            http, () -> "auth", dmStoreUriFormatter, new ObjectMapper(), idamRepository,
+            new DocumentDownloadExecutor(true, 10, 5), DocumentCache.disabled(),
+            new StitchingMetrics(new SimpleMeterRegistry()), false);
     }
 
     private Response intercept(Interceptor.Chain chain) throws IOException {
         String requestUrl = chain.request().url().toString();
+        requests.add(chain.request());
 
         if (requestUrl.startsWith(DUMMY_DM_STORE_BASE_URL) && requestUrl.endsWith("/binary")) {
             if (this.throwIOExceptionForBinary) {
                 throw new IOException("Simulated IOException for binary request");
             }
-            if (this.binaryResponseCode != 200) {
+            if (binaryEtag != null && binaryEtag.equals(chain.request().header("If-None-Match"))) {
+                return new Response.Builder()
+                    .body(ResponseBody.create(new byte[0], null))
+                    .request(chain.request())
+                    .message("Not Modified")
+                    .code(304)
+                    .protocol(Protocol.HTTP_2)
+                    .build();
+            }
+            if (this.binaryResponseCode != 200 || requestUrl.equals(unavailableBinaryUrl)) {
                 return new Response.Builder()
                     .body(ResponseBody.create("", MediaType.get("application/octet-stream")))
                     .request(chain.request())
@@ -123,13 +149,16 @@ class DmStoreDownloaderImplTest {
             assertNotNull(fileStream, "PDF test file not found: " + PDF_FILENAME);
             byte[] responseBodyBytes = useEmptyBinaryResponseBody ? new byte[0] : IOUtils.toByteArray(fileStream);
             fileStream.close();
-            return new Response.Builder()
+            Response.Builder response = new Response.Builder()
                 .body(ResponseBody.create(responseBodyBytes, Objects.requireNonNull(MediaType.get("application/pdf"))))
                 .request(chain.request())
                 .message("Binary OK")
                 .code(200)
-                .protocol(Protocol.HTTP_2)
-                .build();
+                .protocol(Protocol.HTTP_2);
+            if (binaryEtag != null) {
+                response.header("ETag", binaryEtag);
+            }
+            return response.build();
         } else {
             if (this.throwIOExceptionForMetadata) {
                 throw new IOException("Simulated IOException for metadata request");
@@ -146,6 +175,13 @@ class DmStoreDownloaderImplTest {
         }
     }
 
+    private DmStoreDownloader fastPathDownloader(DocumentCache documentCache) {
+        return new DmStoreDownloaderImpl(
+            new OkHttpClient.Builder().addInterceptor(this::intercept).build(), () -> "auth", dmStoreUriFormatter,
+            new ObjectMapper(), idamRepository, new DocumentDownloadExecutor(true, 10, 5), documentCache,
+            new StitchingMetrics(new SimpleMeterRegistry()), true);
+    }
+
     private DocumentTaskProcessingException assertAndGetCause(Runnable executable) {
         WrappedException wrappedEx = assertThrows(
             WrappedException.class,
@@ -187,6 +223,86 @@ class DmStoreDownloaderImplTest {
         Files.deleteIfExists(tempFile.toPath());
     }
 
+    @Test
+    void downloadFileReusesCachedBinaryForUnmodifiedDocument(@TempDir Path cacheDir) throws IOException {
+        dmStoreDownloader = new DmStoreDownloaderImpl(
+            new OkHttpClient.Builder().addInterceptor(this::intercept).build(), () -> "auth", dmStoreUriFormatter,
+            new ObjectMapper(), idamRepository, new DocumentDownloadExecutor(true, 10, 5),
+            new DocumentCache(cacheDir, 10 * 1024 * 1024), new StitchingMetrics(new SimpleMeterRegistry()), false);
+        this.metadataResponseBody = String.format("{ \"mimeType\": \"application/pdf\", "
+            + "\"modifiedOn\": \"2024-01-01T00:00:00Z\", "
+            + "\"_links\": { \"binary\": { \"href\": \"%s/documents/some-doc/binary\" } } }",
+            DUMMY_DM_STORE_BASE_URL);
+        BundleDocument bundleDocument = new BundleDocument();
+        bundleDocument.setDocumentURI("/AAAA");
+
+        File downloaded = dmStoreDownloader.downloadFiles(Stream.of(bundleDocument), TEST_JWT)
+            .toList().getFirst().getSecond().getFile();
+        this.throwIOExceptionForBinary = true;
+        File cached = dmStoreDownloader.downloadFiles(Stream.of(bundleDocument), TEST_JWT)
+            .toList().getFirst().getSecond().getFile();
+
+        assertNotEquals(downloaded, cached);
+        assertArrayEquals(Files.readAllBytes(downloaded.toPath()), Files.readAllBytes(cached.toPath()));
+        Files.deleteIfExists(downloaded.toPath());
+        Files.deleteIfExists(cached.toPath());
+    }
+
+    @Test
+    void downloadFileFetchesBinaryWithoutMetaData() throws IOException {
+        dmStoreDownloader = fastPathDownloader(DocumentCache.disabled());
+        this.throwIOExceptionForMetadata = true;
+        BundleDocument bundleDocument = new BundleDocument();
+        bundleDocument.setDocumentURI("/AAAA");
+
+        FileAndMediaType result = dmStoreDownloader.downloadFiles(Stream.of(bundleDocument), TEST_JWT)
+            .toList().getFirst().getSecond();
+
+        assertEquals(List.of(DUMMY_DM_STORE_BASE_URL + "/AAAA/binary"),
+            requests.stream().map(request -> request.url().toString()).toList());
+        assertEquals(MediaType.get("application/pdf"), result.getMediaType());
+        assertTrue(result.getFile().length() > 0);
+        Files.deleteIfExists(result.getFile().toPath());
+    }
+
+    @Test
+    void downloadFileFallsBackToMetaDataWhenBinaryIsUnavailable() throws IOException {
+        dmStoreDownloader = fastPathDownloader(DocumentCache.disabled());
+        this.unavailableBinaryUrl = DUMMY_DM_STORE_BASE_URL + "/AAAA/binary";
+        BundleDocument bundleDocument = new BundleDocument();
+        bundleDocument.setDocumentURI("/AAAA");
+
+        FileAndMediaType result = dmStoreDownloader.downloadFiles(Stream.of(bundleDocument), TEST_JWT)
+            .toList().getFirst().getSecond();
+
+        assertEquals(List.of(unavailableBinaryUrl, DUMMY_DM_STORE_BASE_URL + "/AAAA",
+                DUMMY_DM_STORE_BASE_URL + "/documents/some-doc/binary"),
+            requests.stream().map(request -> request.url().toString()).toList());
+        assertEquals(MediaType.get("application/pdf"), result.getMediaType());
+        Files.deleteIfExists(result.getFile().toPath());
+    }
+
+    @Test
+    void downloadFileRevalidatesCachedBinary(@TempDir Path cacheDir) throws IOException {
+        dmStoreDownloader = fastPathDownloader(new DocumentCache(cacheDir, 10 * 1024 * 1024));
+        this.binaryEtag = "\"v1\"";
+        BundleDocument bundleDocument = new BundleDocument();
+        bundleDocument.setDocumentURI("/AAAA");
+
+        File downloaded = dmStoreDownloader.downloadFiles(Stream.of(bundleDocument), TEST_JWT)
+            .toList().getFirst().getSecond().getFile();
+        FileAndMediaType cached = dmStoreDownloader.downloadFiles(Stream.of(bundleDocument), TEST_JWT)
+            .toList().getFirst().getSecond();
+
+        assertEquals(2, requests.size());
+        assertEquals(binaryEtag, requests.get(1).header("If-None-Match"));
+        assertEquals(MediaType.get("application/pdf"), cached.getMediaType());
+        assertNotEquals(downloaded, cached.getFile());
+        assertArrayEquals(Files.readAllBytes(downloaded.toPath()), Files.readAllBytes(cached.getFile().toPath()));
+        Files.deleteIfExists(downloaded.toPath());
+        Files.deleteIfExists(cached.getFile().toPath());
+    }
+
     @Test
     void downloadFileWhenDocumentUriIsNull() {
         BundleDocument docWithNullUri = new BundleDocument();
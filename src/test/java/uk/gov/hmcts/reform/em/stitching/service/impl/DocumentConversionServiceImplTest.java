@@ -1,6 +1,7 @@
 package uk.gov.hmcts.reform.em.stitching.service.impl;
 
 import com.google.common.collect.Lists;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import okhttp3.MediaType;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -13,6 +14,7 @@ import org.springframework.data.util.Pair;
 import uk.gov.hmcts.reform.em.stitching.conversion.FileToPDFConverter;
 import uk.gov.hmcts.reform.em.stitching.conversion.PDFConverter;
 import uk.gov.hmcts.reform.em.stitching.domain.BundleDocument;
+import uk.gov.hmcts.reform.em.stitching.metrics.StitchingMetrics;
 import uk.gov.hmcts.reform.em.stitching.service.exception.DocmosisConversionException;
 
 import java.io.File;
@@ -31,12 +33,16 @@ class DocumentConversionServiceImplTest {
 
     private DocumentConversionServiceImpl conversionService;
 
+    private SimpleMeterRegistry meterRegistry;
+
     @BeforeEach
     void setup() {
         MockitoAnnotations.openMocks(this);
 
+        meterRegistry = new SimpleMeterRegistry();
         conversionService = new DocumentConversionServiceImpl(
-            Lists.newArrayList(pdfConverter)
+            Lists.newArrayList(pdfConverter),
+            new StitchingMetrics(meterRegistry)
         );
     }
 
@@ -61,6 +67,7 @@ class DocumentConversionServiceImplTest {
         Pair<BundleDocument, File> result = conversionService.convert(input);
 
         assertEquals(expected, result.getSecond());
+        assertEquals(1, meterRegistry.get("stitching.conversion").tag("mime.type", "application/pdf").timer().count());
     }
 
     @ParameterizedTest
@@ -74,7 +81,8 @@ class DocumentConversionServiceImplTest {
         FileToPDFConverter mockConverter = mock(FileToPDFConverter.class);
         when(mockConverter.accepts()).thenReturn(Lists.newArrayList("application/pdf"));
         DocumentConversionServiceImpl service =
-                new DocumentConversionServiceImpl(Collections.singletonList(mockConverter));
+                new DocumentConversionServiceImpl(Collections.singletonList(mockConverter),
+                    new StitchingMetrics(meterRegistry));
 
         BundleDocument bundleDocument = mock(BundleDocument.class);
         when(bundleDocument.getDocTitle()).thenReturn(fileName);
@@ -5,11 +5,16 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import uk.gov.hmcts.reform.em.stitching.config.security.SecurityUtils;
+import uk.gov.hmcts.reform.em.stitching.domain.Bundle;
 import uk.gov.hmcts.reform.em.stitching.domain.DocumentTask;
+import uk.gov.hmcts.reform.em.stitching.domain.enumeration.TaskPriority;
 import uk.gov.hmcts.reform.em.stitching.info.BuildInfo;
 import uk.gov.hmcts.reform.em.stitching.repository.DocumentTaskRepository;
+import uk.gov.hmcts.reform.em.stitching.service.DocumentTaskCreatedEvent;
+import uk.gov.hmcts.reform.em.stitching.service.DocumentTaskSizeEstimator;
 import uk.gov.hmcts.reform.em.stitching.service.dto.DocumentTaskDTO;
 import uk.gov.hmcts.reform.em.stitching.service.mapper.DocumentTaskMapper;
 
@@ -37,6 +42,12 @@ class DocumentTaskServiceImplTest {
     @Mock
     private SecurityUtils securityUtils;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private DocumentTaskSizeEstimator documentTaskSizeEstimator;
+
     @InjectMocks
     private DocumentTaskServiceImpl documentTaskService;
 
@@ -44,6 +55,41 @@ class DocumentTaskServiceImplTest {
     private static final String OWNER = "user-abc";
     private static final String OTHER_USER = "user-xyz";
 
+    @Test
+    void savePublishesDocumentTaskCreatedEvent() {
+        DocumentTaskDTO taskDTO = new DocumentTaskDTO();
+        DocumentTask task = new DocumentTask();
+        DocumentTask savedTask = new DocumentTask();
+        savedTask.setId(TASK_ID);
+        when(documentTaskMapper.toEntity(taskDTO)).thenReturn(task);
+        when(buildInfo.getBuildNumber()).thenReturn(7);
+        when(documentTaskRepository.save(task)).thenReturn(savedTask);
+        when(documentTaskMapper.toDto(savedTask)).thenReturn(taskDTO);
+
+        assertEquals(taskDTO, documentTaskService.save(taskDTO));
+
+        assertEquals(7, task.getVersion());
+        verify(eventPublisher).publishEvent(new DocumentTaskCreatedEvent(TASK_ID));
+    }
+
+    @Test
+    void saveEstimatesSizeAndDefaultsPriority() {
+        DocumentTaskDTO taskDTO = new DocumentTaskDTO();
+        DocumentTask task = new DocumentTask();
+        task.setBundle(new Bundle());
+        task.setPriority(null);
+        DocumentTask savedTask = new DocumentTask();
+        savedTask.setId(TASK_ID);
+        when(documentTaskMapper.toEntity(taskDTO)).thenReturn(task);
+        when(documentTaskSizeEstimator.estimatePages(task.getBundle())).thenReturn(120);
+        when(documentTaskRepository.save(task)).thenReturn(savedTask);
+
+        documentTaskService.save(taskDTO);
+
+        assertEquals(120, task.getEstimatedPages());
+        assertEquals(TaskPriority.NORMAL, task.getPriority());
+    }
+
     @Test
     void findOneReturnsTaskWhenOwnedByCurrentUser() {
         DocumentTask task = new DocumentTask();